@@ -0,0 +1,45 @@
+package com.skyeye.collector.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 批量入库配置
+ *
+ * @author SkyEye Team
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "skyeye.collector.bulk-ingest")
+public class BulkIngestConfig {
+
+    /**
+     * 写入方式
+     */
+    public enum Mode {
+        /**
+         * PostgreSQL二进制COPY，失败时回退为批量INSERT
+         */
+        COPY,
+        /**
+         * JDBC批量INSERT
+         */
+        INSERT
+    }
+
+    /**
+     * tb_collection_data 写入方式
+     */
+    private Mode collectionData = Mode.COPY;
+
+    /**
+     * tb_collection_logs 写入方式
+     */
+    private Mode collectionLogs = Mode.COPY;
+
+    /**
+     * COPY失败后暂停使用COPY的时间（秒），期间直接使用批量INSERT
+     */
+    private long copySuspendSeconds = 300;
+}
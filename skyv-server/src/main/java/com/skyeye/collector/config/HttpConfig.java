@@ -0,0 +1,69 @@
+package com.skyeye.collector.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * HTTP采集配置
+ * <p>
+ * 插件的 {@link com.skyeye.collector.dto.CollectorConfig.ConnectionConfig} 中设置了有效值时优先使用，
+ * 这里的值作为缺省。
+ *
+ * @author SkyEye Team
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "skyeye.collector.http")
+public class HttpConfig {
+
+    /**
+     * 连接超时（毫秒）
+     */
+    private int connectTimeoutMs = 5000;
+
+    /**
+     * 指标未配置超时时的请求超时（毫秒）
+     */
+    private long requestTimeoutMs = 30000;
+
+    /**
+     * 空闲连接保活时间（秒）
+     */
+    private long keepAliveSeconds = 60;
+
+    /**
+     * 每个主机的最大并发请求数（即最大连接数），超出的请求排队等待
+     */
+    private int maxConnectionsPerHost = 10;
+
+    /**
+     * 最大未完成请求数
+     */
+    private int maxOutstanding = 10000;
+
+    /**
+     * 未完成请求达到上限时，发送方等待的最长时间（毫秒）
+     */
+    private long acquireTimeoutMs = 1000;
+
+    /**
+     * HTTPS是否优先协商HTTP/2，明文HTTP始终使用HTTP/1.1
+     */
+    private boolean http2Enabled = true;
+
+    /**
+     * 是否跟随重定向
+     */
+    private boolean followRedirects = true;
+
+    /**
+     * 响应体达到该长度（字符数）时，简单JSON路径改为流式单遍提取，不构建整棵文档树
+     */
+    private int streamingThresholdChars = 64 * 1024;
+
+    /**
+     * JSON路径编译结果的缓存条目数上限，超出时淘汰最久未使用的路径
+     */
+    private int jsonPathCacheSize = 10000;
+}
@@ -0,0 +1,84 @@
+package com.skyeye.collector.config;
+
+import com.skyeye.collector.partition.PartitionGranularity;
+import com.skyeye.collector.partition.RetentionClass;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 采集数据分区配置
+ *
+ * @author SkyEye Team
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "skyeye.collector.partition")
+public class PartitionConfig {
+
+    /**
+     * 是否启用分区管理
+     */
+    private boolean enabled = true;
+
+    /**
+     * 预建未来分区的周期数
+     */
+    private int precreateCount = 7;
+
+    /**
+     * 分区维护间隔（毫秒）
+     */
+    private long maintainIntervalMs = 3600000;
+
+    /**
+     * 短期保留等级
+     */
+    private ClassPolicy shortTerm = new ClassPolicy(PartitionGranularity.DAY, 7);
+
+    /**
+     * 中期保留等级
+     */
+    private ClassPolicy mediumTerm = new ClassPolicy(PartitionGranularity.DAY, 30);
+
+    /**
+     * 长期保留等级
+     */
+    private ClassPolicy longTerm = new ClassPolicy(PartitionGranularity.WEEK, 90);
+
+    /**
+     * 获取保留等级对应的策略
+     */
+    public ClassPolicy getPolicy(RetentionClass retentionClass) {
+        switch (retentionClass) {
+            case SHORT:
+                return shortTerm;
+            case LONG:
+                return longTerm;
+            case MEDIUM:
+            default:
+                return mediumTerm;
+        }
+    }
+
+    /**
+     * 保留等级策略
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ClassPolicy {
+
+        /**
+         * 分区粒度
+         */
+        private PartitionGranularity granularity = PartitionGranularity.DAY;
+
+        /**
+         * 保留天数，分区上界早于该期限即整体删除
+         */
+        private int retentionDays = 30;
+    }
+}
@@ -0,0 +1,71 @@
+package com.skyeye.collector.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 采集数据降采样配置
+ *
+ * @author SkyEye Team
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "skyeye.collector.rollup")
+public class RollupConfig {
+
+    /**
+     * 是否启用降采样
+     */
+    private boolean enabled = true;
+
+    /**
+     * 合并待更新聚合的间隔（毫秒）
+     */
+    private long flushIntervalMs = 10000;
+
+    /**
+     * 待合并的1分钟聚合单元上限，超出后改为按时间范围整体重算
+     */
+    private int maxPendingBuckets = 200000;
+
+    /**
+     * 单次批量合并的聚合单元数
+     */
+    private int batchSize = 1000;
+
+    /**
+     * 启动后补算最近多少分钟的聚合，覆盖停机期间写入但未聚合的数据
+     */
+    private int catchUpMinutes = 120;
+
+    /**
+     * 查询默认的最大数据点数
+     */
+    private int defaultMaxPoints = 500;
+
+    /**
+     * 不超过该时间范围（分钟）的查询直接读取原始数据
+     */
+    private int rawMaxRangeMinutes = 60;
+
+    /**
+     * 单次曲线查询最多返回的数据点数，超出时只返回最晚的部分
+     */
+    private int maxQueryPoints = 10000;
+
+    /**
+     * 1分钟聚合保留天数
+     */
+    private int oneMinuteRetentionDays = 7;
+
+    /**
+     * 5分钟聚合保留天数
+     */
+    private int fiveMinutesRetentionDays = 30;
+
+    /**
+     * 1小时聚合保留天数
+     */
+    private int oneHourRetentionDays = 365;
+}
@@ -14,6 +14,11 @@ import org.springframework.context.annotation.Configuration;
 @ConfigurationProperties(prefix = "skyeye.scheduler")
 public class SchedulerConfig {
 
+    /**
+     * 调度器实现：executor（每任务一个ScheduledFuture）或 timing-wheel（分层时间轮）
+     */
+    private String type = "executor";
+
     /**
      * 线程池大小
      */
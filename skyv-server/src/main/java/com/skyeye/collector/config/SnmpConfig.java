@@ -89,6 +89,31 @@ public class SnmpConfig {
      */
     private SecurityConfig security = new SecurityConfig();
 
+    /**
+     * 异步采集引擎配置
+     */
+    private AsyncConfig async = new AsyncConfig();
+
+    /**
+     * 多变量绑定请求配置
+     */
+    private BatchConfig batch = new BatchConfig();
+
+    /**
+     * 表遍历配置
+     */
+    private TableConfig table = new TableConfig();
+
+    /**
+     * SNMPv3配置
+     */
+    private V3Config v3 = new V3Config();
+
+    /**
+     * 设备会话池配置
+     */
+    private SessionConfig session = new SessionConfig();
+
     @Data
     public static class PoolConfig {
         /**
@@ -162,4 +187,89 @@ public class SnmpConfig {
          */
         private int authFailureLockTime = 300;
     }
+
+    @Data
+    public static class AsyncConfig {
+        /**
+         * 共享的UDP传输数量，请求按目标地址分散到各传输上
+         */
+        private int transportCount = 4;
+
+        /**
+         * 最大未完成请求数
+         */
+        private int maxOutstanding = 50000;
+
+        /**
+         * 未完成请求达到上限时，发送方等待的最长时间（毫秒）
+         */
+        private long acquireTimeoutMs = 1000;
+
+        /**
+         * 处理响应回调的线程数
+         */
+        private int callbackThreads = 4;
+
+        /**
+         * UDP接收缓冲区大小（字节），大量请求同时返回时避免丢包
+         */
+        private int receiveBufferSize = 4 * 1024 * 1024;
+    }
+
+    @Data
+    public static class BatchConfig {
+        /**
+         * 单个请求PDU的最大字节数，不超过设备声明的maxSizeRequestPDU；默认值避免UDP分片
+         */
+        private int maxPduSize = 1400;
+
+        /**
+         * 单个请求PDU的最大变量绑定数
+         */
+        private int maxVarbindsPerPdu = 40;
+    }
+
+    @Data
+    public static class TableConfig {
+        /**
+         * GETBULK每列返回的最大行数，指标参数maxRepetitions可覆盖
+         */
+        private int maxRepetitions = 25;
+
+        /**
+         * 单次遍历的最大行数
+         */
+        private int maxRows = 10000;
+    }
+
+    @Data
+    public static class V3Config {
+        /**
+         * 设备引擎ID缓存时间（秒），过期后重新发现；设备返回Report时立即失效
+         */
+        private long engineIdTtlSeconds = 3600;
+    }
+
+    @Data
+    public static class SessionConfig {
+        /**
+         * 会话数上限，超出时淘汰最久未访问的设备会话
+         */
+        private int maxSessions = 100000;
+
+        /**
+         * 会话空闲超时时间（秒）
+         */
+        private long idleTimeoutSeconds = 1800;
+
+        /**
+         * 连续超时达到该次数后丢弃设备的SNMPv3引擎状态
+         */
+        private int maxConsecutiveTimeouts = 3;
+
+        /**
+         * 空闲清理和传输健康检查间隔（毫秒）
+         */
+        private long maintenanceIntervalMs = 60000;
+    }
 }
@@ -2,6 +2,8 @@ package com.skyeye.collector.controller;
 
 import com.skyeye.collector.dto.CollectionContext;
 import com.skyeye.collector.dto.CollectionResult;
+import com.skyeye.collector.dto.LatestMetricValue;
+import com.skyeye.collector.dto.MetricSeriesResult;
 import com.skyeye.collector.dto.MetricConfig;
 import com.skyeye.collector.entity.CollectionData;
 import com.skyeye.collector.entity.CollectionLog;
@@ -10,6 +12,9 @@ import com.skyeye.collector.plugin.CollectorPlugin;
 import com.skyeye.collector.registry.PluginRegistry;
 import com.skyeye.collector.repository.CollectionDataRepository;
 import com.skyeye.collector.service.CollectionLogService;
+import com.skyeye.collector.service.LatestValueService;
+import com.skyeye.collector.service.MetricSeriesService;
+import com.skyeye.common.exception.BusinessException;
 import com.skyeye.common.response.ApiResponse;
 import com.skyeye.device.dto.DeviceDto;
 import com.skyeye.device.entity.Device;
@@ -26,7 +31,9 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -49,6 +56,8 @@ public class CollectorEngineController {
     private final DeviceService deviceService;
     private final CollectionLogService collectionLogService;
     private final CollectionDataRepository collectionDataRepository;
+    private final MetricSeriesService metricSeriesService;
+    private final LatestValueService latestValueService;
 
     /**
      * 执行单个数据采集
@@ -317,6 +326,53 @@ public class CollectorEngineController {
         }
     }
 
+    /**
+     * 获取设备指标最新值（内存读取，不查询数据库）
+     */
+    @GetMapping("/data/latest")
+    @PreAuthorize("hasPermission('collector', 'view')")
+    public ApiResponse<List<LatestMetricValue>> getLatestValues(
+            @RequestParam Long deviceId,
+            @RequestParam(required = false) String metricName) {
+
+        try {
+            if (metricName != null && !metricName.trim().isEmpty()) {
+                LatestMetricValue value = latestValueService.getLatestValue(deviceId, metricName);
+                return ApiResponse.success(value != null ? List.of(value) : List.of());
+            }
+            return ApiResponse.success(latestValueService.getDeviceLatestValues(deviceId));
+
+        } catch (Exception e) {
+            log.error("获取指标最新值失败: deviceId={}", deviceId, e);
+            return ApiResponse.error(500, "获取指标最新值异常: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 查询指标曲线，按时间范围和点数上限自动选择原始数据或1分钟/5分钟/1小时聚合
+     */
+    @GetMapping("/data/series")
+    @PreAuthorize("hasPermission('collector', 'view')")
+    public ApiResponse<MetricSeriesResult> getMetricSeries(
+            @RequestParam Long deviceId,
+            @RequestParam String metricName,
+            @RequestParam Long startTime,
+            @RequestParam Long endTime,
+            @RequestParam(required = false) Integer maxPoints) {
+
+        try {
+            MetricSeriesResult result = metricSeriesService.querySeries(deviceId, metricName,
+                    toLocalDateTime(startTime), toLocalDateTime(endTime), maxPoints);
+            return ApiResponse.success(result);
+
+        } catch (BusinessException e) {
+            return ApiResponse.error(400, e.getMessage());
+        } catch (Exception e) {
+            log.error("查询指标曲线失败: deviceId={}, metric={}", deviceId, metricName, e);
+            return ApiResponse.error(500, "查询指标曲线异常: " + e.getMessage());
+        }
+    }
+
     /**
      * 获取采集日志
      */
@@ -416,6 +472,13 @@ public class CollectorEngineController {
         return device;
     }
 
+    /**
+     * 毫秒时间戳转换为本地时间
+     */
+    private LocalDateTime toLocalDateTime(Long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
     /**
      * 单个采集请求
      */
@@ -15,6 +15,11 @@ import java.util.Map;
 @Builder
 public class CollectionResult {
 
+    /**
+     * 附加信息中按指标记录标签的键，值为 指标名 → (标签名 → 标签值)，保存时写入采集数据的tags
+     */
+    public static final String METADATA_TAGS = "tags";
+
     /**
      * 采集是否成功
      */
@@ -0,0 +1,42 @@
+package com.skyeye.collector.dto;
+
+import lombok.Data;
+
+/**
+ * 指标最新值DTO
+ * 
+ * @author SkyEye Team
+ */
+@Data
+public class LatestMetricValue {
+
+    /**
+     * 设备ID
+     */
+    private Long deviceId;
+
+    /**
+     * 指标名称
+     */
+    private String metricName;
+
+    /**
+     * 是否为数值型指标
+     */
+    private boolean numeric;
+
+    /**
+     * 数值型指标为数值，否则为原始内容（JSON）
+     */
+    private Object value;
+
+    /**
+     * 采集时间（毫秒时间戳）
+     */
+    private long timestamp;
+
+    /**
+     * 数据质量评分
+     */
+    private Integer qualityScore;
+}
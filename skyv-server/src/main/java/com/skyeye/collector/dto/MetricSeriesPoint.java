@@ -0,0 +1,47 @@
+package com.skyeye.collector.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 指标曲线数据点
+ * <p>
+ * 原始粒度下每个点对应一条采集数据，最小/最大/平均/最后值相同，样本数为1。
+ * 
+ * @author SkyEye Team
+ */
+@Data
+public class MetricSeriesPoint {
+
+    /**
+     * 聚合区间起点（原始粒度为采集时间）
+     */
+    private LocalDateTime timestamp;
+
+    /**
+     * 最小值
+     */
+    private BigDecimal min;
+
+    /**
+     * 最大值
+     */
+    private BigDecimal max;
+
+    /**
+     * 平均值
+     */
+    private BigDecimal avg;
+
+    /**
+     * 样本数
+     */
+    private long count;
+
+    /**
+     * 区间内最后一个值
+     */
+    private BigDecimal last;
+}
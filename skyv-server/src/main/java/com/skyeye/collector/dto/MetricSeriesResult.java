@@ -0,0 +1,53 @@
+package com.skyeye.collector.dto;
+
+import com.skyeye.collector.rollup.RollupResolution;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 指标曲线查询结果DTO
+ * 
+ * @author SkyEye Team
+ */
+@Data
+@Builder
+public class MetricSeriesResult {
+
+    /**
+     * 设备ID
+     */
+    private Long deviceId;
+
+    /**
+     * 指标名称
+     */
+    private String metricName;
+
+    /**
+     * 查询开始时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 查询结束时间
+     */
+    private LocalDateTime endTime;
+
+    /**
+     * 实际使用的粒度
+     */
+    private RollupResolution resolution;
+
+    /**
+     * 数据点，按时间升序
+     */
+    private List<MetricSeriesPoint> points;
+
+    /**
+     * 数据点数达到查询上限，更早的数据未返回
+     */
+    private boolean truncated;
+}
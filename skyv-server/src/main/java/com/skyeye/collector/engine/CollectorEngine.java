@@ -5,17 +5,29 @@ import com.skyeye.collector.dto.CollectionResult;
 
 import com.skyeye.collector.dto.MetricConfig;
 import com.skyeye.collector.entity.CollectionData;
+import com.skyeye.collector.latest.LatestValueStore;
+import com.skyeye.collector.config.PartitionConfig;
+import com.skyeye.collector.partition.CollectionDataPartitionManager;
+import com.skyeye.collector.partition.RetentionClass;
 import com.skyeye.collector.plugin.CollectorPlugin;
+import com.skyeye.collector.rate.CounterRateCalculator;
 import com.skyeye.collector.registry.PluginRegistry;
 import com.skyeye.collector.repository.CollectionDataRepository;
+import com.skyeye.collector.rollup.CollectionDataRollupEngine;
+import com.skyeye.collector.snmp.AsyncSnmpEngine;
+import com.skyeye.collector.http.AsyncHttpEngine;
 import com.skyeye.collector.service.CollectionLogService;
+import com.skyeye.collector.writer.CollectionDataWriter;
+import com.skyeye.collector.writer.CollectionLogWriter;
 import com.skyeye.common.util.JsonUtils;
+import com.skyeye.device.cache.DecryptedCredentialCache;
 import com.skyeye.device.entity.Device;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.sql.Timestamp;
@@ -38,16 +50,49 @@ public class CollectorEngine {
     private final PluginRegistry pluginRegistry;
     private final CollectionLogService collectionLogService;
     private final CollectionDataRepository collectionDataRepository;
+    private final CollectionDataWriter collectionDataWriter;
+    private final CollectionLogWriter collectionLogWriter;
+    private final CollectionDataPartitionManager partitionManager;
+    private final PartitionConfig partitionConfig;
+    private final CollectionDataRollupEngine rollupEngine;
+    private final LatestValueStore latestValueStore;
+    private final AsyncSnmpEngine snmpEngine;
+    private final AsyncHttpEngine httpEngine;
+    private final CounterRateCalculator counterRateCalculator;
+    private final DecryptedCredentialCache credentialCache;
     private final Executor collectionExecutor;
+    private final TransactionTemplate transactionTemplate;
 
     public CollectorEngine(PluginRegistry pluginRegistry,
                           CollectionLogService collectionLogService,
                           CollectionDataRepository collectionDataRepository,
-                          @Qualifier("applicationTaskExecutor") Executor collectionExecutor) {
+                          CollectionDataWriter collectionDataWriter,
+                          CollectionLogWriter collectionLogWriter,
+                          CollectionDataPartitionManager partitionManager,
+                          PartitionConfig partitionConfig,
+                          CollectionDataRollupEngine rollupEngine,
+                          LatestValueStore latestValueStore,
+                          AsyncSnmpEngine snmpEngine,
+                          AsyncHttpEngine httpEngine,
+                          CounterRateCalculator counterRateCalculator,
+                          DecryptedCredentialCache credentialCache,
+                          @Qualifier("applicationTaskExecutor") Executor collectionExecutor,
+                          PlatformTransactionManager transactionManager) {
         this.pluginRegistry = pluginRegistry;
         this.collectionLogService = collectionLogService;
         this.collectionDataRepository = collectionDataRepository;
+        this.collectionDataWriter = collectionDataWriter;
+        this.collectionLogWriter = collectionLogWriter;
+        this.partitionManager = partitionManager;
+        this.partitionConfig = partitionConfig;
+        this.rollupEngine = rollupEngine;
+        this.latestValueStore = latestValueStore;
+        this.snmpEngine = snmpEngine;
+        this.httpEngine = httpEngine;
+        this.counterRateCalculator = counterRateCalculator;
+        this.credentialCache = credentialCache;
         this.collectionExecutor = collectionExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
@@ -81,18 +126,8 @@ public class CollectorEngine {
             // 2. 执行数据采集
             CollectionResult result = plugin.collect(device, metricConfig, context);
 
-            // 3. 记录采集日志
-            collectionLogService.logCollection(device.getId(), metricConfig.getMetricName(), result);
-
-            // 4. 保存采集数据
-            if (result.isSuccess() && result.getMetrics() != null && !result.getMetrics().isEmpty()) {
-                saveCollectionData(device.getId(), metricConfig, result);
-            }
-
-            log.debug("采集完成: device={}, metric={}, success={}", 
-                    device.getId(), metricConfig.getMetricName(), result.isSuccess());
-
-            return result;
+            // 3. 记录日志并保存数据
+            return completeCollection(device, metricConfig, result);
 
         } catch (Exception e) {
             log.error("采集执行异常: device={}, metric={}", 
@@ -128,8 +163,55 @@ public class CollectorEngine {
     public CompletableFuture<CollectionResult> executeCollectionAsync(Device device, 
                                                                      MetricConfig metricConfig, 
                                                                      CollectionContext context) {
-        return CompletableFuture.supplyAsync(() -> 
-                executeCollection(device, metricConfig, context), collectionExecutor);
+        CollectorPlugin plugin;
+        try {
+            plugin = selectPlugin(device, metricConfig);
+        } catch (Exception e) {
+            plugin = null;
+        }
+        if (plugin == null || !plugin.supportsAsyncCollection()) {
+            return CompletableFuture.supplyAsync(() -> 
+                    executeCollection(device, metricConfig, context), collectionExecutor);
+        }
+
+        // 非阻塞插件：等待响应期间不占用线程，响应到达后在采集线程池中记录日志和保存数据
+        return plugin.collectAsync(device, metricConfig, context)
+                .thenApplyAsync(result -> completeCollection(device, metricConfig, result), collectionExecutor)
+                .exceptionally(e -> {
+                    log.error("采集执行异常: device={}, metric={}", 
+                            device.getId(), metricConfig.getMetricName(), e);
+                    CollectionResult errorResult = CollectionResult.builder()
+                            .success(false)
+                            .errorMessage("采集执行异常: " + e.getMessage())
+                            .errorCode("EXECUTION_ERROR")
+                            .timestamp(System.currentTimeMillis())
+                            .startTime(LocalDateTime.now())
+                            .endTime(LocalDateTime.now())
+                            .deviceId(device.getId())
+                            .metricName(metricConfig.getMetricName())
+                            .sessionId(context.getSessionId())
+                            .build();
+                    collectionLogService.logCollection(device.getId(), metricConfig.getMetricName(), errorResult);
+                    return errorResult;
+                });
+    }
+
+    /**
+     * 记录采集日志并保存采集数据
+     */
+    private CollectionResult completeCollection(Device device, MetricConfig metricConfig, CollectionResult result) {
+        // 记录采集日志
+        collectionLogService.logCollection(device.getId(), metricConfig.getMetricName(), result);
+
+        // 保存采集数据
+        if (result.isSuccess() && result.getMetrics() != null && !result.getMetrics().isEmpty()) {
+            saveCollectionData(device.getId(), metricConfig, result);
+        }
+
+        log.debug("采集完成: device={}, metric={}, success={}", 
+                device.getId(), metricConfig.getMetricName(), result.isSuccess());
+
+        return result;
     }
 
     /**
@@ -149,12 +231,18 @@ public class CollectorEngine {
         String batchSessionId = context.getSessionId() != null ? 
                 context.getSessionId() : UUID.randomUUID().toString();
 
+        // 同一插件的多个指标交给插件批量采集，插件可以合并请求（如SNMP多变量绑定GET）
+        Map<MetricConfig, CollectionResult> batchResults = collectByPlugin(device, metricConfigs, context, batchSessionId);
+
         for (MetricConfig metricConfig : metricConfigs) {
-            // 为每个指标创建独立的上下文
-            CollectionContext metricContext = context.copy();
-            metricContext.setSessionId(batchSessionId);
+            CollectionResult result = batchResults.get(metricConfig);
+            if (result == null) {
+                // 为每个指标创建独立的上下文
+                CollectionContext metricContext = context.copy();
+                metricContext.setSessionId(batchSessionId);
 
-            CollectionResult result = executeCollection(device, metricConfig, metricContext);
+                result = executeCollection(device, metricConfig, metricContext);
+            }
             results.add(result);
         }
 
@@ -165,6 +253,45 @@ public class CollectorEngine {
         return results;
     }
 
+    /**
+     * 按插件分组批量采集，返回已完成的指标结果；未包含的指标需单独采集
+     */
+    private Map<MetricConfig, CollectionResult> collectByPlugin(Device device, List<MetricConfig> metricConfigs,
+                                                               CollectionContext context, String batchSessionId) {
+        Map<CollectorPlugin, List<MetricConfig>> groups = new LinkedHashMap<>();
+        for (MetricConfig metricConfig : metricConfigs) {
+            try {
+                CollectorPlugin plugin = selectPlugin(device, metricConfig);
+                if (plugin != null) {
+                    groups.computeIfAbsent(plugin, p -> new ArrayList<>()).add(metricConfig);
+                }
+            } catch (Exception e) {
+                log.debug("选择采集插件失败: device={}, metric={}", device.getId(), metricConfig.getMetricName());
+            }
+        }
+
+        Map<MetricConfig, CollectionResult> results = new IdentityHashMap<>();
+        for (Map.Entry<CollectorPlugin, List<MetricConfig>> group : groups.entrySet()) {
+            List<MetricConfig> groupConfigs = group.getValue();
+            if (groupConfigs.size() < 2) {
+                continue;
+            }
+            try {
+                CollectionContext groupContext = context.copy();
+                groupContext.setSessionId(batchSessionId);
+
+                List<CollectionResult> groupResults = group.getKey().collectBatch(device, groupConfigs, groupContext);
+                for (int i = 0; i < groupResults.size() && i < groupConfigs.size(); i++) {
+                    results.put(groupConfigs.get(i), completeCollection(device, groupConfigs.get(i), groupResults.get(i)));
+                }
+            } catch (Exception e) {
+                log.warn("插件批量采集失败，逐个指标采集: device={}, plugin={}, error={}",
+                        device.getId(), group.getKey().getPluginType(), e.getMessage());
+            }
+        }
+        return results;
+    }
+
     /**
      * 异步批量执行数据采集
      * 
@@ -222,41 +349,58 @@ public class CollectorEngine {
     }
 
     /**
-     * 保存采集数据
+     * 保存采集数据，交给异步写入器批量落库，不等待数据库
      * 
      * @param deviceId 设备ID
      * @param metricConfig 指标配置
      * @param result 采集结果
      */
-    @Transactional
     protected void saveCollectionData(Long deviceId, MetricConfig metricConfig, CollectionResult result) {
         try {
+            LocalDateTime createdAt = LocalDateTime.now();
+            RetentionClass retentionClass = RetentionClass.resolve(metricConfig);
+            Timestamp expiresAt = calculateExpirationTime(retentionClass);
+            Map<String, Integer> counters = getCounters(result);
+            Map<String, String> counterOids = getCounterOids(result);
+            long uptimeTicks = getUptimeTicks(result);
+            Map<String, Map<String, String>> tags = getTags(result);
+            List<CollectionData> rows = new ArrayList<>(result.getMetrics().size());
             for (Map.Entry<String, Object> entry : result.getMetrics().entrySet()) {
-                CollectionData data = new CollectionData();
-                data.setDeviceId(deviceId);
-                data.setTaskId(result.getTaskId());
-                data.setMetricName(entry.getKey());
-                data.setMetricType(metricConfig.getMetricType());
-                data.setMetricValue(parseNumericValue(entry.getValue()));
-                data.setMetricData(JsonUtils.toJson(entry.getValue()));
-                data.setCollectedAt(new Timestamp(result.getTimestamp()));
-                data.setQualityScore(result.getQualityScore());
-                data.setPluginType(result.getPluginType());
-                data.setSessionId(result.getSessionId());
-                data.setResponseTime(calculateResponseTime(result));
-                data.setStatus(result.isSuccess() ? 1 : 0);
-                
-                if (!result.isSuccess()) {
-                    data.setErrorMessage(result.getErrorMessage());
+                CollectionData data = buildCollectionData(deviceId, metricConfig, result, entry.getKey(),
+                        entry.getValue(), retentionClass, expiresAt, createdAt);
+                Map<String, String> seriesTags = tags.get(entry.getKey());
+                if (seriesTags != null && !seriesTags.isEmpty()) {
+                    data.setTags(JsonUtils.toJson(seriesTags));
                 }
+                rows.add(data);
+
+                // 计数器派生每秒速率，与原始值一起保存
+                Integer bits = counters.get(entry.getKey());
+                if (bits != null && entry.getValue() instanceof Number) {
+                    String series = counterSeries(result, metricConfig, entry.getKey(), counterOids);
+                    Double rate = counterRateCalculator.update(deviceId, series,
+                            ((Number) entry.getValue()).longValue(), bits, result.getTimestamp(), uptimeTicks);
+                    if (rate != null) {
+                        CollectionData rateData = buildCollectionData(deviceId, metricConfig, result,
+                                entry.getKey() + CounterRateCalculator.RATE_SUFFIX, rate,
+                                retentionClass, expiresAt, createdAt);
+                        rateData.setTags(data.getTags());
+                        rows.add(rateData);
+                    }
+                }
+            }
 
-                // 设置数据过期时间（根据指标类型设置不同的保留时间）
-                data.setExpiresAt(calculateExpirationTime(metricConfig));
-
-                collectionDataRepository.save(data);
+            for (CollectionData data : rows) {
+                // 最新值直接写入内存，当前值查询不必等待入库
+                BigDecimal metricValue = data.getMetricValue();
+                latestValueStore.update(deviceId, data.getMetricName(),
+                        metricValue != null ? metricValue.doubleValue() : null,
+                        metricValue != null ? null : data.getMetricData(),
+                        result.getTimestamp(), result.getQualityScore());
             }
+            collectionDataWriter.submit(rows);
 
-            log.debug("保存采集数据完成: deviceId={}, metricCount={}", 
+            log.debug("采集数据已提交写入: deviceId={}, metricCount={}", 
                     deviceId, result.getMetrics().size());
 
         } catch (Exception e) {
@@ -265,6 +409,86 @@ public class CollectorEngine {
         }
     }
 
+    /**
+     * 构建一行采集数据
+     */
+    private CollectionData buildCollectionData(Long deviceId, MetricConfig metricConfig, CollectionResult result,
+                                               String metricName, Object value, RetentionClass retentionClass,
+                                               Timestamp expiresAt, LocalDateTime createdAt) {
+        CollectionData data = new CollectionData();
+        data.setDeviceId(deviceId);
+        data.setTaskId(result.getTaskId());
+        data.setMetricName(metricName);
+        data.setMetricType(metricConfig.getMetricType());
+        data.setMetricValue(parseNumericValue(value));
+        data.setMetricData(JsonUtils.toJson(value));
+        data.setCollectedAt(new Timestamp(result.getTimestamp()));
+        data.setQualityScore(result.getQualityScore());
+        data.setPluginType(result.getPluginType());
+        data.setSessionId(result.getSessionId());
+        data.setResponseTime(calculateResponseTime(result));
+        data.setStatus(result.isSuccess() ? 1 : 0);
+        
+        if (!result.isSuccess()) {
+            data.setErrorMessage(result.getErrorMessage());
+        }
+
+        // 按保留等级写入对应的分区树，过期时间与该等级的分区删除期限一致
+        data.setRetentionClass(retentionClass.name());
+        data.setExpiresAt(expiresAt);
+        data.setCreatedAt(createdAt);
+        return data;
+    }
+
+    /**
+     * 采集结果中标记的计数器指标及其位数
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Integer> getCounters(CollectionResult result) {
+        Object counters = result.getMetadata() != null ?
+                result.getMetadata().get(CounterRateCalculator.METADATA_COUNTERS) : null;
+        return counters instanceof Map ? (Map<String, Integer>) counters : Collections.emptyMap();
+    }
+
+    /**
+     * 采集结果中计数器指标的实例OID
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, String> getCounterOids(CollectionResult result) {
+        Object oids = result.getMetadata() != null ?
+                result.getMetadata().get(CounterRateCalculator.METADATA_COUNTER_OIDS) : null;
+        return oids instanceof Map ? (Map<String, String>) oids : Collections.emptyMap();
+    }
+
+    /**
+     * 计数器速率的序列名：任务 + 指标配置 + 计数器实例
+     * 结果中的指标名可能在多个配置间重复（如自定义OID固定为value），不能单独作为序列
+     */
+    private String counterSeries(CollectionResult result, MetricConfig metricConfig, String metricName,
+                                 Map<String, String> counterOids) {
+        String instance = counterOids.get(metricName);
+        return result.getTaskId() + "/" + metricConfig.getMetricName() + "/" +
+                (instance != null ? instance : metricName);
+    }
+
+    /**
+     * 采集结果中按指标记录的标签
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Map<String, String>> getTags(CollectionResult result) {
+        Object tags = result.getMetadata() != null ? result.getMetadata().get(CollectionResult.METADATA_TAGS) : null;
+        return tags instanceof Map ? (Map<String, Map<String, String>>) tags : Collections.emptyMap();
+    }
+
+    /**
+     * 采集结果中的设备运行时间
+     */
+    private long getUptimeTicks(CollectionResult result) {
+        Object uptime = result.getMetadata() != null ?
+                result.getMetadata().get(CounterRateCalculator.METADATA_UPTIME) : null;
+        return uptime instanceof Number ? ((Number) uptime).longValue() : CounterRateCalculator.UNKNOWN_UPTIME;
+    }
+
     /**
      * 解析数值型数据
      * 
@@ -312,32 +536,11 @@ public class CollectorEngine {
     /**
      * 计算数据过期时间
      * 
-     * @param metricConfig 指标配置
+     * @param retentionClass 保留等级
      * @return 过期时间
      */
-    private Timestamp calculateExpirationTime(MetricConfig metricConfig) {
-        // 根据指标类型设置不同的保留时间
-        int retentionDays;
-        String metricType = metricConfig.getMetricType();
-        
-        switch (metricType) {
-            case "health_check":
-            case "status_code":
-            case "response_time":
-                retentionDays = 7; // 基础监控数据保留7天
-                break;
-            case "system_info":
-            case "interface_stats":
-                retentionDays = 30; // 系统和接口数据保留30天
-                break;
-            case "custom_oid":
-            case "custom_endpoint":
-                retentionDays = 90; // 自定义数据保留90天
-                break;
-            default:
-                retentionDays = 30; // 默认保留30天
-        }
-
+    private Timestamp calculateExpirationTime(RetentionClass retentionClass) {
+        int retentionDays = partitionConfig.getPolicy(retentionClass).getRetentionDays();
         return Timestamp.valueOf(LocalDateTime.now().plusDays(retentionDays));
     }
 
@@ -365,6 +568,16 @@ public class CollectorEngine {
         });
         statistics.put("plugins", pluginStats);
 
+        // 采集数据写入统计
+        statistics.put("dataWriter", collectionDataWriter.getStatistics());
+        statistics.put("logWriter", collectionLogWriter.getStatistics());
+        statistics.put("rollup", rollupEngine.getStatistics());
+        statistics.put("latestValues", latestValueStore.getStatistics());
+        statistics.put("snmp", snmpEngine.getStatistics());
+        statistics.put("http", httpEngine.getStatistics());
+        statistics.put("counterRates", counterRateCalculator.getStatistics());
+        statistics.put("credentialCache", credentialCache.getStatistics());
+
         // 系统统计
         statistics.put("totalPlugins", pluginRegistry.getAllPlugins().size());
         statistics.put("timestamp", System.currentTimeMillis());
@@ -374,22 +587,32 @@ public class CollectorEngine {
 
     /**
      * 清理过期数据
+     * <p>
+     * 已分区时由分区管理器逐个分区在独立事务中删除，不在这里开启外层事务，避免长时间持有分区树的排他锁；
+     * 未分区时在一个事务中按行删除。
      * 
      * @return 清理的数据量
      */
-    @Transactional
     public int cleanupExpiredData() {
         try {
+            // 已分区时按分区整体删除，不再逐行DELETE
+            if (partitionManager.isActive()) {
+                long droppedRows = partitionManager.dropExpiredPartitions();
+                log.info("清理过期采集数据分区完成，删除了约 {} 条记录", droppedRows);
+                return (int) Math.min(Integer.MAX_VALUE, droppedRows);
+            }
+
             Timestamp now = new Timestamp(System.currentTimeMillis());
-            int deletedCount = collectionDataRepository.deleteExpiredData(now);
+            Integer deletedCount = transactionTemplate.execute(status -> collectionDataRepository.deleteExpiredData(now));
             log.info("清理过期采集数据完成，删除了 {} 条记录", deletedCount);
-            return deletedCount;
+            return deletedCount != null ? deletedCount : 0;
         } catch (Exception e) {
             log.error("清理过期数据失败", e);
             return 0;
         }
     }
 
+
     /**
      * 获取采集数据统计
      * 
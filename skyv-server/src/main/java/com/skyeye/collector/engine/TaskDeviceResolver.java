@@ -0,0 +1,188 @@
+package com.skyeye.collector.engine;
+
+import com.skyeye.collector.entity.CollectionTask;
+import com.skyeye.device.cache.DeviceVersionTracker;
+import com.skyeye.device.entity.Device;
+import com.skyeye.device.entity.DeviceType;
+import com.skyeye.device.repository.DeviceRepository;
+import com.skyeye.device.repository.DeviceTypeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 采集任务目标设备解析器
+ * <p>
+ * 按批次通过 findByIdInAndNotDeleted 一次性加载任务的全部目标设备，并在同一次解析中填充设备类型。
+ * 解析结果按任务缓存为快照，目标设备列表相同、且其中的设备和设备类型自加载后未变更
+ * （见 {@link DeviceVersionTracker}）时后续执行直接复用快照，不再访问数据库；其他设备的变更不影响该快照。
+ * 快照中的设备对象不直接交给调用方，每次解析返回设备及设备类型的副本，并发执行的采集线程修改副本互不影响。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+@Component
+public class TaskDeviceResolver {
+
+    private final DeviceRepository deviceRepository;
+    private final DeviceTypeRepository deviceTypeRepository;
+    private final DeviceVersionTracker versionTracker;
+
+    /**
+     * 单次IN查询的设备ID数量上限
+     */
+    @Value("${skyeye.collector.device-batch-size:1000}")
+    private int deviceBatchSize;
+
+    /**
+     * 任务设备快照，键为任务ID
+     */
+    private final Map<Long, DeviceSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    public TaskDeviceResolver(DeviceRepository deviceRepository, DeviceTypeRepository deviceTypeRepository,
+                              DeviceVersionTracker versionTracker) {
+        this.deviceRepository = deviceRepository;
+        this.deviceTypeRepository = deviceTypeRepository;
+        this.versionTracker = versionTracker;
+    }
+
+    /**
+     * 解析任务的目标设备，按目标列表顺序返回，已删除或不存在的设备被跳过。返回的设备为快照的副本
+     */
+    public List<Device> resolve(CollectionTask task) {
+        List<Long> targetDevices = task.getTargetDevices() != null ? task.getTargetDevices() : List.of();
+        DeviceSnapshot snapshot = snapshots.get(task.getId());
+        if (snapshot != null && snapshot.targetDevices.equals(targetDevices)
+                && versionTracker.isUnchangedSince(snapshot.version, snapshot.targetDevices)) {
+            return copyOf(snapshot.devices);
+        }
+
+        // 序号在加载前读取，加载期间发生的变更会使快照在下次执行时失效
+        long version = versionTracker.currentVersion();
+        snapshot = load(task.getId(), List.copyOf(targetDevices), version);
+        if (task.getId() != null) {
+            snapshots.put(task.getId(), snapshot);
+        }
+        return copyOf(snapshot.devices);
+    }
+
+    /**
+     * 按批次加载设备并填充设备类型，不使用快照
+     *
+     * @param deviceIds 设备ID，重复的ID只加载一次
+     * @return 设备ID → 设备，已删除或不存在的设备不包含在结果中
+     */
+    public Map<Long, Device> loadDevices(Collection<Long> deviceIds) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(deviceIds));
+        int batchSize = Math.max(1, deviceBatchSize);
+
+        Map<Long, Device> deviceMap = new HashMap<>(distinctIds.size() * 2);
+        for (int from = 0; from < distinctIds.size(); from += batchSize) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + batchSize, distinctIds.size()));
+            for (Device device : deviceRepository.findByIdInAndNotDeleted(chunk)) {
+                deviceMap.put(device.getId(), device);
+            }
+        }
+
+        populateDeviceTypes(deviceMap.values());
+        return deviceMap;
+    }
+
+    /**
+     * 移除任务的设备快照
+     */
+    public void evict(Long taskId) {
+        snapshots.remove(taskId);
+    }
+
+    /**
+     * 当前缓存的快照数量
+     */
+    public int getSnapshotCount() {
+        return snapshots.size();
+    }
+
+    private DeviceSnapshot load(Long taskId, List<Long> targetDevices, long version) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(targetDevices));
+        Map<Long, Device> deviceMap = loadDevices(distinctIds);
+
+        List<Device> devices = new ArrayList<>(deviceMap.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long deviceId : distinctIds) {
+            Device device = deviceMap.get(deviceId);
+            if (device != null) {
+                devices.add(device);
+            } else {
+                missingIds.add(deviceId);
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            log.warn("设备不存在或已删除，跳过: taskId={}, deviceIds={}", taskId, missingIds);
+        }
+        log.debug("任务设备快照已加载: taskId={}, deviceCount={}, version={}", taskId, devices.size(), version);
+
+        return new DeviceSnapshot(version, targetDevices, Collections.unmodifiableList(devices));
+    }
+
+    /**
+     * 复制快照中的设备，设备类型一并复制
+     */
+    private static List<Device> copyOf(List<Device> devices) {
+        List<Device> copies = new ArrayList<>(devices.size());
+        for (Device device : devices) {
+            Device copy = new Device();
+            BeanUtils.copyProperties(device, copy);
+            if (device.getDeviceType() != null) {
+                DeviceType type = new DeviceType();
+                BeanUtils.copyProperties(device.getDeviceType(), type);
+                copy.setDeviceType(type);
+            }
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    /**
+     * 批量加载设备类型并填充到设备的临时字段
+     */
+    private void populateDeviceTypes(Collection<Device> devices) {
+        Set<Long> typeIds = devices.stream()
+                .map(Device::getDeviceTypeId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (typeIds.isEmpty()) {
+            return;
+        }
+
+        Map<Long, DeviceType> typeMap = deviceTypeRepository.findAllById(typeIds).stream()
+                .collect(Collectors.toMap(DeviceType::getId, Function.identity()));
+        for (Device device : devices) {
+            device.setDeviceType(typeMap.get(device.getDeviceTypeId()));
+        }
+    }
+
+    /**
+     * 任务设备快照
+     */
+    private static final class DeviceSnapshot {
+
+        private final long version;
+
+        private final List<Long> targetDevices;
+
+        private final List<Device> devices;
+
+        private DeviceSnapshot(long version, List<Long> targetDevices, List<Device> devices) {
+            this.version = version;
+            this.targetDevices = targetDevices;
+            this.devices = devices;
+        }
+    }
+}
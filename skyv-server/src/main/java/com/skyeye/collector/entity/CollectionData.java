@@ -119,4 +119,10 @@ public class CollectionData extends BaseEntity {
      */
     @Column(name = "expires_at")
     private Timestamp expiresAt;
+
+    /**
+     * 保留等级（SHORT/MEDIUM/LONG），决定数据写入哪个分区树
+     */
+    @Column(name = "retention_class", length = 10)
+    private String retentionClass = "MEDIUM";
 }
@@ -0,0 +1,326 @@
+package com.skyeye.collector.http;
+
+import com.skyeye.collector.config.HttpConfig;
+import com.skyeye.collector.dto.CollectorConfig;
+import com.skyeye.collector.plugin.PluginException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步HTTP引擎
+ * <p>
+ * 全部HTTP采集共用一个 {@link HttpClient}，由其按主机维护保活的连接池，HTTPS通过ALPN优先协商HTTP/2，
+ * 同一主机的请求复用同一条连接；明文HTTP固定使用HTTP/1.1，避免h2c升级请求被设备拒绝。
+ * 请求以 {@link CompletableFuture} 返回，不占用调用线程，响应在虚拟线程中完成。
+ * <p>
+ * 每个主机的并发请求数不超过 max-connections-per-host（HTTP/1.1下即连接数），超出的请求在引擎内排队；
+ * 取得主机名额后再申请全局名额，排队中的请求不占用全局名额。全局未完成请求数达到上限时，
+ * 发送方最多等待 acquire-timeout-ms 形成背压；单个主机排队数达到 max-outstanding 时直接拒绝。
+ * <p>
+ * 客户端在启动时按 skyeye.collector.http 创建；插件配置的连接超时与当前值不同时重建客户端，
+ * 新请求使用新客户端，旧客户端不再被引用，其上的请求完成后由JDK自行关闭。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+@Component
+public class AsyncHttpEngine {
+
+    private static final String KEEP_ALIVE_PROPERTY = "jdk.httpclient.keepalive.timeout";
+
+    private final HttpConfig httpConfig;
+
+    /**
+     * 主机 → 排队状态
+     */
+    private final ConcurrentHashMap<String, HostQueue> hosts = new ConcurrentHashMap<>();
+
+    private final AtomicLong outstandingRequests = new AtomicLong(0);
+
+    private final AtomicLong sentRequests = new AtomicLong(0);
+
+    private final AtomicLong completedRequests = new AtomicLong(0);
+
+    private final AtomicLong timedOutRequests = new AtomicLong(0);
+
+    private final AtomicLong failedRequests = new AtomicLong(0);
+
+    private final AtomicLong rejectedRequests = new AtomicLong(0);
+
+    private final AtomicLong queuedRequests = new AtomicLong(0);
+
+    private final AtomicLong totalLatencyNanos = new AtomicLong(0);
+
+    private volatile HttpClient client;
+
+    private volatile int maxConnectionsPerHost;
+
+    private volatile long connectTimeoutMs;
+
+    private Semaphore outstandingPermits;
+
+    private ExecutorService executor;
+
+    public AsyncHttpEngine(HttpConfig httpConfig) {
+        this.httpConfig = httpConfig;
+    }
+
+    /**
+     * 创建共享客户端
+     * <p>
+     * 连接保活时间是JDK客户端的进程级参数，只在创建第一个客户端之前设置有效，启动参数中显式指定时不覆盖。
+     */
+    @PostConstruct
+    public void start() {
+        outstandingPermits = new Semaphore(httpConfig.getMaxOutstanding());
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        maxConnectionsPerHost = Math.max(1, httpConfig.getMaxConnectionsPerHost());
+        if (System.getProperty(KEEP_ALIVE_PROPERTY) == null) {
+            System.setProperty(KEEP_ALIVE_PROPERTY, String.valueOf(httpConfig.getKeepAliveSeconds()));
+        }
+
+        connectTimeoutMs = httpConfig.getConnectTimeoutMs();
+        client = buildClient(connectTimeoutMs);
+        log.info("异步HTTP引擎启动: connectTimeoutMs={}, keepAliveSeconds={}, maxConnectionsPerHost={}",
+                httpConfig.getConnectTimeoutMs(), System.getProperty(KEEP_ALIVE_PROPERTY), maxConnectionsPerHost);
+    }
+
+    @PreDestroy
+    public void stop() {
+        HttpClient current = client;
+        if (current != null) {
+            current.shutdownNow();
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        log.info("异步HTTP引擎已关闭");
+    }
+
+    /**
+     * 应用插件的连接配置，未设置的项使用 skyeye.collector.http 的值
+     * <p>
+     * 每个主机的并发上限对之后调度的请求生效；连接超时与当前客户端不同时重建共享客户端（配置变更很少，重建代价低）。
+     * 保活时间是JDK客户端的进程级参数，运行中无法修改，与当前值不同时记录警告并保持原值。
+     */
+    public synchronized void configure(CollectorConfig.ConnectionConfig connection) {
+        maxConnectionsPerHost = Math.max(1, connection != null && connection.getMaxConnections() > 0 ?
+                connection.getMaxConnections() : httpConfig.getMaxConnectionsPerHost());
+
+        long timeoutMs = connection != null && connection.getConnectTimeout() > 0 ?
+                connection.getConnectTimeout() : httpConfig.getConnectTimeoutMs();
+        if (timeoutMs != connectTimeoutMs) {
+            client = buildClient(timeoutMs);
+            log.info("HTTP连接超时变更，已重建共享客户端: connectTimeoutMs {} → {}", connectTimeoutMs, timeoutMs);
+            connectTimeoutMs = timeoutMs;
+        }
+
+        if (connection != null && connection.getKeepAliveTime() > 0) {
+            long keepAliveSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(connection.getKeepAliveTime()));
+            String current = System.getProperty(KEEP_ALIVE_PROPERTY);
+            if (!String.valueOf(keepAliveSeconds).equals(current)) {
+                log.warn("HTTP保活时间是进程级参数，运行中无法修改，忽略插件配置: keepAliveSeconds={}, current={}",
+                        keepAliveSeconds, current);
+            }
+        }
+        log.info("异步HTTP引擎配置: maxConnectionsPerHost={}, connectTimeoutMs={}", maxConnectionsPerHost, connectTimeoutMs);
+    }
+
+    private HttpClient buildClient(long timeoutMs) {
+        return HttpClient.newBuilder()
+                .version(httpConfig.isHttp2Enabled() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(timeoutMs))
+                .followRedirects(httpConfig.isFollowRedirects() ?
+                        HttpClient.Redirect.NORMAL : HttpClient.Redirect.NEVER)
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * 创建请求构建器，按协议选择HTTP版本并设置超时
+     *
+     * @param timeoutMs 请求超时（毫秒），小于等于0时使用默认值
+     */
+    public HttpRequest.Builder newRequest(URI uri, long timeoutMs) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMillis(timeoutMs > 0 ? timeoutMs : httpConfig.getRequestTimeoutMs()));
+        if ("http".equalsIgnoreCase(uri.getScheme())) {
+            builder.version(HttpClient.Version.HTTP_1_1);
+        }
+        return builder;
+    }
+
+    /**
+     * 异步发送请求，响应体按字符串读取
+     * <p>
+     * 返回的Future在收到完整响应后完成；连接失败、超时或未完成请求数超限时异常完成。
+     */
+    public CompletableFuture<HttpResponse<String>> send(HttpRequest request) {
+        return send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * 异步发送请求
+     */
+    public <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) {
+        CompletableFuture<HttpResponse<T>> future = new CompletableFuture<>();
+        String host = hostKey(request.uri());
+        if (!submit(host, () -> acquireAndDispatch(host, request, bodyHandler, future))) {
+            rejectedRequests.incrementAndGet();
+            future.completeExceptionally(new PluginException("HTTP_TOO_MANY_REQUESTS",
+                    "主机排队的HTTP请求数已达上限: " + host));
+        }
+        return future;
+    }
+
+    /**
+     * 获取引擎统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("outstanding", outstandingRequests.get());
+        statistics.put("hosts", hosts.size());
+        statistics.put("maxConnectionsPerHost", maxConnectionsPerHost);
+        statistics.put("connectTimeoutMs", connectTimeoutMs);
+        statistics.put("sent", sentRequests.get());
+        statistics.put("completed", completedRequests.get());
+        statistics.put("timedOut", timedOutRequests.get());
+        statistics.put("failed", failedRequests.get());
+        statistics.put("rejected", rejectedRequests.get());
+        statistics.put("queued", queuedRequests.get());
+        long completed = completedRequests.get();
+        statistics.put("avgResponseMs", completed > 0 ? totalLatencyNanos.get() / completed / 1_000_000.0 : 0.0);
+        return statistics;
+    }
+
+    /**
+     * 已取得主机名额，申请全局名额后发送；申请失败时归还主机名额
+     */
+    private <T> void acquireAndDispatch(String host, HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler,
+                                        CompletableFuture<HttpResponse<T>> future) {
+        try {
+            if (!outstandingPermits.tryAcquire(httpConfig.getAcquireTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                rejectedRequests.incrementAndGet();
+                release(host);
+                future.completeExceptionally(new PluginException("HTTP_TOO_MANY_REQUESTS",
+                        "未完成的HTTP请求数已达上限: " + httpConfig.getMaxOutstanding()));
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            release(host);
+            future.completeExceptionally(e);
+            return;
+        }
+        outstandingRequests.incrementAndGet();
+        dispatch(host, request, bodyHandler, future);
+    }
+
+    private <T> void dispatch(String host, HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler,
+                              CompletableFuture<HttpResponse<T>> future) {
+        long sentAt = System.nanoTime();
+        CompletableFuture<HttpResponse<T>> response;
+        try {
+            response = client.sendAsync(request, bodyHandler);
+            sentRequests.incrementAndGet();
+        } catch (Exception e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+
+        response.whenComplete((result, e) -> {
+            release(host);
+            outstandingPermits.release();
+            outstandingRequests.decrementAndGet();
+
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof HttpTimeoutException) {
+                    timedOutRequests.incrementAndGet();
+                } else {
+                    failedRequests.incrementAndGet();
+                }
+                future.completeExceptionally(cause);
+            } else {
+                completedRequests.incrementAndGet();
+                totalLatencyNanos.addAndGet(System.nanoTime() - sentAt);
+                future.complete(result);
+            }
+        });
+    }
+
+    /**
+     * 主机并发未满时在调用线程中立即执行，否则排队
+     *
+     * @return 排队数已达上限时返回false
+     */
+    private boolean submit(String host, Runnable task) {
+        int[] result = new int[1];
+        hosts.compute(host, (key, queue) -> {
+            if (queue == null) {
+                queue = new HostQueue();
+            }
+            if (queue.active < maxConnectionsPerHost) {
+                queue.active++;
+                result[0] = 1;
+            } else if (queue.waiting.size() < httpConfig.getMaxOutstanding()) {
+                queue.waiting.add(task);
+                queuedRequests.incrementAndGet();
+            } else {
+                result[0] = -1;
+            }
+            return queue;
+        });
+        if (result[0] == 1) {
+            task.run();
+        }
+        return result[0] >= 0;
+    }
+
+    /**
+     * 请求完成，启动同一主机排队的下一个请求；主机空闲时移除其状态
+     * <p>
+     * 下一个请求可能需要等待全局名额，在虚拟线程中启动，不阻塞响应回调。
+     */
+    private void release(String host) {
+        Runnable[] next = new Runnable[1];
+        hosts.computeIfPresent(host, (key, queue) -> {
+            next[0] = queue.waiting.poll();
+            if (next[0] != null) {
+                return queue;
+            }
+            queue.active--;
+            return queue.active > 0 ? queue : null;
+        });
+        if (next[0] != null) {
+            executor.execute(next[0]);
+        }
+    }
+
+    private static String hostKey(URI uri) {
+        return uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+    }
+
+    /**
+     * 单个主机的执行和排队状态，只在 {@link ConcurrentHashMap#compute} 中访问
+     */
+    private static final class HostQueue {
+
+        private int active;
+
+        private final ArrayDeque<Runnable> waiting = new ArrayDeque<>();
+    }
+}
@@ -0,0 +1,314 @@
+package com.skyeye.collector.http;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.PathNotFoundException;
+import com.skyeye.collector.config.HttpConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * JSON路径批量提取
+ * <p>
+ * 同一响应的全部路径只解析一次文档，编译后的路径按表达式缓存，缓存条目数不超过 json-path-cache-size，
+ * 超出时淘汰最久未使用的路径。响应体长度（字符数）达到 streaming-threshold-chars 且全部路径都是简单路径（只含字段名和数组下标，如 {@code $.jvm.memory['heap.used'][0]}）时，
+ * 用Jackson的token流单遍扫描：不在任何路径上的子树直接跳过，不构建整棵文档树，全部路径找到后提前结束。
+ * 含通配符、过滤器或深度扫描的路径仍按JsonPath解析整棵树。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+@Component
+public class JsonPathExtractor {
+
+    private static final Pattern SIMPLE_SEGMENT = Pattern.compile("\\.([A-Za-z_$][\\w$-]*)|\\['([^']+)'\\]|\\[(\\d+)\\]");
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final HttpConfig httpConfig;
+
+    /**
+     * 路径表达式 → 缓存的路径，按访问顺序排列，最久未访问的在前
+     */
+    private final LinkedHashMap<String, CachedPath> paths = new LinkedHashMap<>(256, 0.75f, true);
+
+    public JsonPathExtractor(HttpConfig httpConfig) {
+        this.httpConfig = httpConfig;
+    }
+
+    /**
+     * 解析文档，用于需要整棵树的场景
+     */
+    public DocumentContext parse(String json) {
+        return JsonPath.parse(json);
+    }
+
+    /**
+     * 从已解析的文档中读取路径，路径不存在时抛出 {@link PathNotFoundException}
+     */
+    public Object read(DocumentContext document, String path) {
+        return document.read(compile(path));
+    }
+
+    /**
+     * 一次解析提取全部路径
+     *
+     * @param paths 名称 → 路径表达式
+     * @return 名称 → 值，不存在的路径不包含在结果中
+     */
+    public Map<String, Object> extract(String json, Map<String, String> paths) {
+        if (paths.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        if (json.length() >= httpConfig.getStreamingThresholdChars()) {
+            Node root = buildTrie(paths);
+            if (root != null) {
+                try {
+                    return extractStreaming(json, root, paths.size());
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("JSON解析失败: " + e.getMessage(), e);
+                }
+            }
+        }
+
+        DocumentContext document = parse(json);
+        Map<String, Object> values = new LinkedHashMap<>();
+        paths.forEach((name, path) -> {
+            try {
+                values.put(name, read(document, path));
+            } catch (PathNotFoundException e) {
+                // 不存在的路径由调用方处理
+            }
+        });
+        return values;
+    }
+
+    /**
+     * 当前缓存的路径数
+     */
+    public int getCachedPathCount() {
+        synchronized (paths) {
+            return paths.size();
+        }
+    }
+
+    private JsonPath compile(String path) {
+        CachedPath cached = cachedPath(path);
+        JsonPath compiled = cached.compiled;
+        if (compiled == null) {
+            compiled = JsonPath.compile(path);
+            cached.compiled = compiled;
+        }
+        return compiled;
+    }
+
+    /**
+     * 取得路径的缓存条目，不存在时创建并按上限淘汰最久未使用的条目；编译和分段在锁外按需计算
+     */
+    private CachedPath cachedPath(String path) {
+        synchronized (paths) {
+            CachedPath cached = paths.get(path);
+            if (cached == null) {
+                cached = new CachedPath();
+                paths.put(path, cached);
+                int maxSize = Math.max(1, httpConfig.getJsonPathCacheSize());
+                Iterator<CachedPath> eldest = paths.values().iterator();
+                while (paths.size() > maxSize) {
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+            return cached;
+        }
+    }
+
+    /**
+     * 全部路径都是简单路径时构建前缀树，否则返回null
+     */
+    private Node buildTrie(Map<String, String> paths) {
+        Node root = new Node();
+        for (Map.Entry<String, String> entry : paths.entrySet()) {
+            CachedPath cached = cachedPath(entry.getValue());
+            List<Object> segments = cached.segments;
+            if (segments == null) {
+                segments = splitSimplePath(entry.getValue());
+                cached.segments = segments;
+            }
+            if (segments.isEmpty() && !"$".equals(entry.getValue().trim())) {
+                return null;
+            }
+            Node node = root;
+            for (Object segment : segments) {
+                node = segment instanceof Integer index ?
+                        node.indexes.computeIfAbsent(index, k -> new Node()) :
+                        node.fields.computeIfAbsent((String) segment, k -> new Node());
+            }
+            node.names.add(entry.getKey());
+        }
+        return root;
+    }
+
+    private static List<Object> splitSimplePath(String path) {
+        String expression = path.trim();
+        if (!expression.startsWith("$")) {
+            return Collections.emptyList();
+        }
+        List<Object> segments = new ArrayList<>();
+        Matcher matcher = SIMPLE_SEGMENT.matcher(expression);
+        int position = 1;
+        while (position < expression.length()) {
+            if (!matcher.find(position) || matcher.start() != position) {
+                return Collections.emptyList();
+            }
+            if (matcher.group(1) != null) {
+                segments.add(matcher.group(1));
+            } else if (matcher.group(2) != null) {
+                segments.add(matcher.group(2));
+            } else {
+                segments.add(Integer.parseInt(matcher.group(3)));
+            }
+            position = matcher.end();
+        }
+        return segments;
+    }
+
+    private Map<String, Object> extractStreaming(String json, Node root, int pathCount) throws IOException {
+        ExtractState state = new ExtractState(pathCount);
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            parser.setCodec(OBJECT_MAPPER);
+            if (parser.nextToken() != null) {
+                readValue(parser, root, state);
+            }
+        }
+        return state.values;
+    }
+
+    /**
+     * 解析器位于值的起始token，返回时位于该值的结束token
+     */
+    private void readValue(JsonParser parser, Node node, ExtractState state) throws IOException {
+        if (!node.names.isEmpty()) {
+            Object value = parser.readValueAs(Object.class);
+            node.names.forEach(name -> state.found(name, value));
+            if (node.hasChildren()) {
+                resolve(value, node, state);
+            }
+            return;
+        }
+
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT && !node.fields.isEmpty()) {
+            while (!state.done() && parser.nextToken() == JsonToken.FIELD_NAME) {
+                Node child = node.fields.get(parser.currentName());
+                parser.nextToken();
+                if (child != null) {
+                    readValue(parser, child, state);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } else if (token == JsonToken.START_ARRAY && !node.indexes.isEmpty()) {
+            int index = 0;
+            while (!state.done() && parser.nextToken() != JsonToken.END_ARRAY) {
+                Node child = node.indexes.get(index++);
+                if (child != null) {
+                    readValue(parser, child, state);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } else {
+            parser.skipChildren();
+        }
+    }
+
+    /**
+     * 路径互为前缀时，较长的路径从已读出的值中继续查找
+     */
+    private static void resolve(Object value, Node node, ExtractState state) {
+        if (value instanceof Map<?, ?> map) {
+            node.fields.forEach((field, child) -> {
+                if (map.containsKey(field)) {
+                    resolveChild(map.get(field), child, state);
+                }
+            });
+        } else if (value instanceof List<?> list) {
+            node.indexes.forEach((index, child) -> {
+                if (index < list.size()) {
+                    resolveChild(list.get(index), child, state);
+                }
+            });
+        }
+    }
+
+    private static void resolveChild(Object value, Node child, ExtractState state) {
+        child.names.forEach(name -> state.found(name, value));
+        resolve(value, child, state);
+    }
+
+    /**
+     * 缓存的路径，字段并发计算时结果相同，后写入的覆盖先写入的
+     */
+    private static final class CachedPath {
+
+        private volatile JsonPath compiled;
+
+        /**
+         * 简单路径的分段，不是简单路径时为空列表
+         */
+        private volatile List<Object> segments;
+    }
+
+    /**
+     * 路径前缀树节点
+     */
+    private static final class Node {
+
+        private final Map<String, Node> fields = new HashMap<>();
+
+        private final Map<Integer, Node> indexes = new HashMap<>();
+
+        /**
+         * 在此节点结束的路径名称
+         */
+        private final List<String> names = new ArrayList<>(1);
+
+        private boolean hasChildren() {
+            return !fields.isEmpty() || !indexes.isEmpty();
+        }
+    }
+
+    /**
+     * 单次提取的结果和剩余路径数
+     */
+    private static final class ExtractState {
+
+        private final Map<String, Object> values = new LinkedHashMap<>();
+
+        private int remaining;
+
+        private ExtractState(int pathCount) {
+            this.remaining = pathCount;
+        }
+
+        private void found(String name, Object value) {
+            values.put(name, value);
+            remaining--;
+        }
+
+        private boolean done() {
+            return remaining <= 0;
+        }
+    }
+}
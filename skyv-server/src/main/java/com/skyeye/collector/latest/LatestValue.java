@@ -0,0 +1,68 @@
+package com.skyeye.collector.latest;
+
+/**
+ * 某个设备指标的最新值
+ * <p>
+ * 不可变对象，写入时整体替换，读取方无需加锁即可看到一致的值、时间和质量评分。
+ * 数值型指标保存在 value 中；非数值指标 value 为 NaN，原始内容保存在 text 中。
+ *
+ * @author SkyEye Team
+ */
+public final class LatestValue {
+
+    /**
+     * 组合键：设备ID与指标编号
+     */
+    final long key;
+
+    private final double value;
+
+    private final String text;
+
+    private final long timestamp;
+
+    private final int qualityScore;
+
+    LatestValue(long key, double value, String text, long timestamp, int qualityScore) {
+        this.key = key;
+        this.value = value;
+        this.text = text;
+        this.timestamp = timestamp;
+        this.qualityScore = qualityScore;
+    }
+
+    /**
+     * 是否为数值型指标
+     */
+    public boolean isNumeric() {
+        return !Double.isNaN(value);
+    }
+
+    /**
+     * 数值，非数值指标返回NaN
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * 非数值指标的原始内容，数值型指标返回null
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * 采集时间（毫秒时间戳）
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * 数据质量评分，未知时为-1
+     */
+    public int getQualityScore() {
+        return qualityScore;
+    }
+}
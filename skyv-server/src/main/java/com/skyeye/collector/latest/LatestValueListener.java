@@ -0,0 +1,18 @@
+package com.skyeye.collector.latest;
+
+/**
+ * 最新值本地更新监听器，用于把本节点的采集结果复制到其他节点
+ *
+ * @author SkyEye Team
+ */
+public interface LatestValueListener {
+
+    /**
+     * 本节点写入了更新的最新值（远程复制写入的值不会回调）
+     *
+     * @param deviceId 设备ID
+     * @param metricName 指标名称
+     * @param value 最新值
+     */
+    void onLocalUpdate(long deviceId, String metricName, LatestValue value);
+}
@@ -0,0 +1,239 @@
+package com.skyeye.collector.latest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.skyeye.common.util.JsonUtils;
+import com.skyeye.device.cache.DeviceVersionTracker;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 最新值Redis复制（多节点部署时启用）
+ * <p>
+ * 本节点的更新按序列合并后定期批量写出：每个设备一个Redis哈希（指标名称 → 最新值），供新启动或未采集该设备的节点
+ * 按需加载；同时通过发布订阅推送给其他节点，写入它们的内存存储。消息带节点标识，节点忽略自己发出的消息。
+ * <p>
+ * 同一频道还转发设备变更（见 {@link DeviceVersionTracker}），其他节点据此使缓存的任务设备快照失效。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "skyeye.collector.latest-value.redis", name = "enabled", havingValue = "true")
+public class LatestValueRedisReplicator implements LatestValueListener, DeviceVersionTracker.Publisher {
+
+    private final LatestValueStore latestValueStore;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final DeviceVersionTracker deviceVersionTracker;
+
+    @Value("${skyeye.collector.latest-value.redis.channel:skyeye:latest-value}")
+    private String channel;
+
+    @Value("${skyeye.collector.latest-value.redis.key-prefix:skyeye:latest:}")
+    private String keyPrefix;
+
+    @Value("${skyeye.collector.latest-value.redis.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * 待复制的更新，同一序列只保留最新一次
+     */
+    private final ConcurrentHashMap<String, ReplicatedValue> pending = new ConcurrentHashMap<>();
+
+    private RedisMessageListenerContainer listenerContainer;
+
+    public LatestValueRedisReplicator(LatestValueStore latestValueStore, StringRedisTemplate redisTemplate,
+                                      RedisConnectionFactory connectionFactory, DeviceVersionTracker deviceVersionTracker) {
+        this.latestValueStore = latestValueStore;
+        this.redisTemplate = redisTemplate;
+        this.connectionFactory = connectionFactory;
+        this.deviceVersionTracker = deviceVersionTracker;
+    }
+
+    @PostConstruct
+    public void init() {
+        latestValueStore.addListener(this);
+        deviceVersionTracker.setPublisher(this);
+
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.addMessageListener((message, pattern) ->
+                onMessage(new String(message.getBody(), StandardCharsets.UTF_8)), new ChannelTopic(channel));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+        log.info("最新值Redis复制已启用: node={}, channel={}", nodeId, channel);
+    }
+
+    @PreDestroy
+    public void destroy() throws Exception {
+        deviceVersionTracker.setPublisher(null);
+        flush();
+        if (listenerContainer != null) {
+            listenerContainer.destroy();
+        }
+    }
+
+    @Override
+    public void onLocalUpdate(long deviceId, String metricName, LatestValue value) {
+        pending.put(deviceId + ":" + metricName, ReplicatedValue.of(deviceId, metricName, value));
+    }
+
+    /**
+     * 批量写出待复制的更新
+     */
+    @Scheduled(fixedDelayString = "${skyeye.collector.latest-value.redis.flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // 只移除取出时的那个值；取出后被新值替换的序列留在待复制中，下次写出
+        List<ReplicatedValue> batch = new ArrayList<>(pending.size());
+        for (Map.Entry<String, ReplicatedValue> entry : pending.entrySet()) {
+            ReplicatedValue value = entry.getValue();
+            if (pending.remove(entry.getKey(), value)) {
+                batch.add(value);
+            }
+        }
+
+        try {
+            Set<Long> devices = new HashSet<>();
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (ReplicatedValue value : batch) {
+                    stringConnection.hSet(keyPrefix + value.getDeviceId(), value.getMetricName(), JsonUtils.toJson(value));
+                    devices.add(value.getDeviceId());
+                }
+                for (Long deviceId : devices) {
+                    stringConnection.expire(keyPrefix + deviceId, ttlSeconds);
+                }
+                return null;
+            });
+
+            ReplicationMessage message = new ReplicationMessage();
+            message.setNode(nodeId);
+            message.setValues(batch);
+            redisTemplate.convertAndSend(channel, JsonUtils.toJson(message));
+        } catch (Exception e) {
+            log.warn("复制最新值到Redis失败: count={}, error={}", batch.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void publish(Collection<Long> deviceIds, boolean all) {
+        ReplicationMessage message = new ReplicationMessage();
+        message.setNode(nodeId);
+        message.setChangedDevices(List.copyOf(deviceIds));
+        message.setAllDevicesChanged(all);
+        redisTemplate.convertAndSend(channel, JsonUtils.toJson(message));
+    }
+
+    /**
+     * 从Redis加载设备的最新值到本地存储
+     *
+     * @return 加载的指标数
+     */
+    public int loadDevice(long deviceId) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(keyPrefix + deviceId);
+        int loaded = 0;
+        for (Object json : entries.values()) {
+            ReplicatedValue value = JsonUtils.fromJson((String) json, ReplicatedValue.class);
+            if (value != null && apply(value)) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    private void onMessage(String body) {
+        ReplicationMessage message = JsonUtils.fromJson(body, new TypeReference<ReplicationMessage>() {
+        });
+        if (message == null || nodeId.equals(message.getNode())) {
+            return;
+        }
+        if (message.isAllDevicesChanged() || message.getChangedDevices() != null) {
+            deviceVersionTracker.applyRemote(message.getChangedDevices(), message.isAllDevicesChanged());
+        }
+        if (message.getValues() != null) {
+            for (ReplicatedValue value : message.getValues()) {
+                apply(value);
+            }
+        }
+    }
+
+    private boolean apply(ReplicatedValue value) {
+        return latestValueStore.applyRemote(value.getDeviceId(), value.getMetricName(), value.getValue(),
+                value.getText(), value.getTimestamp(), value.getQualityScore());
+    }
+
+    /**
+     * 复制消息
+     */
+    @Data
+    public static class ReplicationMessage {
+
+        private String node;
+
+        private List<ReplicatedValue> values;
+
+        /**
+         * 变更的设备ID
+         */
+        private List<Long> changedDevices;
+
+        /**
+         * 设备类型变更或批量更新，全部设备快照失效
+         */
+        private boolean allDevicesChanged;
+    }
+
+    /**
+     * 复制的最新值
+     */
+    @Data
+    public static class ReplicatedValue {
+
+        private long deviceId;
+
+        private String metricName;
+
+        private Double value;
+
+        private String text;
+
+        private long timestamp;
+
+        private Integer qualityScore;
+
+        static ReplicatedValue of(long deviceId, String metricName, LatestValue latest) {
+            ReplicatedValue value = new ReplicatedValue();
+            value.setDeviceId(deviceId);
+            value.setMetricName(metricName);
+            value.setValue(latest.isNumeric() ? latest.getValue() : null);
+            value.setText(latest.getText());
+            value.setTimestamp(latest.getTimestamp());
+            value.setQualityScore(latest.getQualityScore() >= 0 ? latest.getQualityScore() : null);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,607 @@
+package com.skyeye.collector.latest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 设备指标最新值存储
+ * <p>
+ * 采集结果直接写入内存，"当前值"类查询不再访问数据库。指标名称映射为整数编号，与设备ID组合成一个long键，
+ * 存放在分段的开放寻址表中：每个槽位只保存一个不可变的 {@link LatestValue} 引用，百万级序列约占几十MB。
+ * 初始容量按 expected-series 分配，超出后各段按需翻倍扩容。
+ * <ul>
+ *     <li>读：读取当前表引用后按槽位探测，不加锁</li>
+ *     <li>写：按键哈希分到16个段，段内加锁，只替换槽位引用；采集时间早于已有值的写入被忽略</li>
+ *     <li>扩容：段内重建新表后整体替换引用，读方最多看到扩容前的旧值</li>
+ *     <li>淘汰：定期删除超过 stale-series-ttl-minutes 未更新的序列，不再被任何序列使用的指标名称回收编号，
+ *     Prometheus等序列名随标签变化的指标不会无限占用名称表</li>
+ * </ul>
+ * 回收的编号隔一个淘汰周期后才重新分配，回收期间以旧编号写入的序列在写入后校验时撤销并重试。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+@Component
+public class LatestValueStore {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private static final int METRIC_ID_BITS = 24;
+
+    private static final int MAX_METRIC_ID = (1 << METRIC_ID_BITS) - 1;
+
+    /**
+     * 组合键保持为正数，设备ID最多占39位
+     */
+    private static final long MAX_DEVICE_ID = (1L << (63 - METRIC_ID_BITS)) - 1;
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * 已删除槽位标记
+     */
+    private static final LatestValue TOMBSTONE = new LatestValue(-1, Double.NaN, null, 0, -1);
+
+    private static final int[] NO_METRICS = new int[0];
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+    /**
+     * 指标名称 → 编号
+     */
+    private final ConcurrentHashMap<String, Integer> metricIds = new ConcurrentHashMap<>();
+
+    /**
+     * 编号 → 指标名称，已回收的编号为null；只在持有 metricIdLock 时修改和扩容
+     */
+    private volatile AtomicReferenceArray<String> metricNames = new AtomicReferenceArray<>(1024);
+
+    private final Object metricIdLock = new Object();
+
+    /**
+     * 以下字段只在持有 metricIdLock 时访问
+     */
+    private int nextMetricId;
+
+    /**
+     * 可重新分配的编号
+     */
+    private final ArrayDeque<Integer> freeMetricIds = new ArrayDeque<>();
+
+    /**
+     * 本周期回收的编号，下一个淘汰周期后才可重新分配
+     */
+    private List<Integer> releasedMetricIds = new ArrayList<>();
+
+    /**
+     * 设备 → 已有最新值的指标编号，只在出现新序列时更新
+     */
+    private final ConcurrentHashMap<Long, int[]> deviceMetrics = new ConcurrentHashMap<>();
+
+    private final Set<LatestValueListener> listeners = new CopyOnWriteArraySet<>();
+
+    /**
+     * 序列超过该时间未更新即淘汰（分钟），小于等于0时不淘汰
+     */
+    @Value("${skyeye.collector.latest-value.stale-series-ttl-minutes:1440}")
+    private long staleSeriesTtlMinutes = 1440;
+
+    private long evictedSeries;
+
+    private long releasedMetricNames;
+
+    public LatestValueStore(@Value("${skyeye.collector.latest-value.expected-series:10000}") int expectedSeries) {
+        int segmentCapacity = tableSizeFor((int) Math.ceil(expectedSeries / (double) SEGMENT_COUNT / LOAD_FACTOR));
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        log.info("最新值存储初始化: expectedSeries={}, slots={}", expectedSeries, segmentCapacity * SEGMENT_COUNT);
+    }
+
+    public void addListener(LatestValueListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 写入本节点采集到的最新值，并通知监听器
+     *
+     * @param deviceId 设备ID
+     * @param metricName 指标名称
+     * @param value 数值，非数值指标传null
+     * @param text 非数值指标的原始内容
+     * @param timestamp 采集时间（毫秒时间戳）
+     * @param qualityScore 质量评分，未知传null
+     * @return 是否更新（采集时间早于已有值时不更新）
+     */
+    public boolean update(long deviceId, String metricName, Double value, String text,
+                          long timestamp, Integer qualityScore) {
+        LatestValue updated = put(deviceId, metricName, value, text, timestamp, qualityScore);
+        if (updated == null) {
+            return false;
+        }
+        for (LatestValueListener listener : listeners) {
+            try {
+                listener.onLocalUpdate(deviceId, metricName, updated);
+            } catch (Exception e) {
+                log.warn("最新值监听器处理失败: {}", e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 写入其他节点复制过来的最新值，不通知监听器
+     */
+    public boolean applyRemote(long deviceId, String metricName, Double value, String text,
+                               long timestamp, Integer qualityScore) {
+        return put(deviceId, metricName, value, text, timestamp, qualityScore) != null;
+    }
+
+    /**
+     * 查询设备指标的最新值
+     *
+     * @return 最新值，不存在时返回null
+     */
+    public LatestValue get(long deviceId, String metricName) {
+        Integer metricId = metricIds.get(metricName);
+        if (metricId == null || deviceId < 0 || deviceId > MAX_DEVICE_ID) {
+            return null;
+        }
+        long key = key(deviceId, metricId);
+        int hash = hash(key);
+        return segmentFor(hash).get(key, hash);
+    }
+
+    /**
+     * 查询设备全部指标的最新值
+     *
+     * @return 指标名称 → 最新值
+     */
+    public Map<String, LatestValue> getDeviceValues(long deviceId) {
+        int[] ids = deviceMetrics.getOrDefault(deviceId, NO_METRICS);
+        Map<String, LatestValue> values = new LinkedHashMap<>(ids.length * 2);
+        for (int metricId : ids) {
+            long key = key(deviceId, metricId);
+            int hash = hash(key);
+            LatestValue value = segmentFor(hash).get(key, hash);
+            if (value != null) {
+                String metricName = metricNames.get(metricId);
+                if (metricName != null) {
+                    values.put(metricName, value);
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 设备是否有任一指标的最新值
+     */
+    public boolean hasDevice(long deviceId) {
+        return deviceMetrics.containsKey(deviceId);
+    }
+
+    /**
+     * 删除设备的全部最新值
+     */
+    public void removeDevice(long deviceId) {
+        int[] ids = deviceMetrics.remove(deviceId);
+        if (ids == null) {
+            return;
+        }
+        for (int metricId : ids) {
+            long key = key(deviceId, metricId);
+            int hash = hash(key);
+            segmentFor(hash).remove(key, hash);
+        }
+    }
+
+    /**
+     * 淘汰超过 stale-series-ttl-minutes 未更新的序列，并回收不再使用的指标名称
+     */
+    @Scheduled(fixedDelayString = "${skyeye.collector.latest-value.evict-interval-ms:600000}")
+    public void evictStaleSeries() {
+        if (staleSeriesTtlMinutes > 0) {
+            evictStaleSeries(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(staleSeriesTtlMinutes));
+        }
+    }
+
+    /**
+     * 淘汰采集时间早于cutoff的序列，并回收不再使用的指标名称
+     *
+     * @return 淘汰的序列数
+     */
+    public synchronized int evictStaleSeries(long cutoff) {
+        BitSet used = new BitSet();
+        List<Long> evicted = new ArrayList<>();
+        for (Segment segment : segments) {
+            segment.evictBefore(cutoff, evicted, used);
+        }
+
+        for (long key : evicted) {
+            long deviceId = key >>> METRIC_ID_BITS;
+            int metricId = (int) (key & MAX_METRIC_ID);
+            deviceMetrics.computeIfPresent(deviceId, (id, ids) -> {
+                // 淘汰后又被写入的序列保留在设备的指标列表中
+                int hash = hash(key);
+                return segmentFor(hash).get(key, hash) != null ? ids : removeMetric(ids, metricId);
+            });
+        }
+
+        int released = releaseUnusedMetricIds(used);
+        evictedSeries += evicted.size();
+        releasedMetricNames += released;
+        if (!evicted.isEmpty() || released > 0) {
+            log.info("最新值淘汰完成: evictedSeries={}, releasedMetricNames={}, metricNames={}",
+                    evicted.size(), released, metricIds.size());
+        }
+        return evicted.size();
+    }
+
+    /**
+     * 当前保存的序列数
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * 获取存储统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        long slots = 0;
+        for (Segment segment : segments) {
+            slots += segment.capacity();
+        }
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("series", size());
+        statistics.put("devices", deviceMetrics.size());
+        statistics.put("metricNames", metricIds.size());
+        statistics.put("slots", slots);
+        synchronized (this) {
+            statistics.put("evictedSeries", evictedSeries);
+            statistics.put("releasedMetricNames", releasedMetricNames);
+        }
+        return statistics;
+    }
+
+    private LatestValue put(long deviceId, String metricName, Double value, String text,
+                            long timestamp, Integer qualityScore) {
+        if (metricName == null || deviceId < 0 || deviceId > MAX_DEVICE_ID) {
+            return null;
+        }
+        for (;;) {
+            int metricId = metricId(metricName);
+            if (metricId < 0) {
+                return null;
+            }
+
+            long key = key(deviceId, metricId);
+            int hash = hash(key);
+            LatestValue latest = new LatestValue(key, value != null ? value : Double.NaN,
+                    value != null ? null : text, timestamp, qualityScore != null ? qualityScore : -1);
+
+            int result = segmentFor(hash).put(key, hash, latest);
+            if (result == Segment.INSERTED) {
+                Integer current = metricIds.get(metricName);
+                if (current == null || current != metricId) {
+                    // 写入期间编号被回收，撤销后按新编号重试
+                    segmentFor(hash).remove(key, hash);
+                    continue;
+                }
+                deviceMetrics.compute(deviceId, (id, ids) -> appendMetric(ids, metricId));
+            }
+            return result == Segment.STALE ? null : latest;
+        }
+    }
+
+    private int metricId(String metricName) {
+        Integer id = metricIds.get(metricName);
+        if (id != null) {
+            return id;
+        }
+        synchronized (metricIdLock) {
+            id = metricIds.get(metricName);
+            if (id != null) {
+                return id;
+            }
+            if (!freeMetricIds.isEmpty()) {
+                id = freeMetricIds.poll();
+            } else if (nextMetricId <= MAX_METRIC_ID) {
+                id = nextMetricId++;
+                if (id >= metricNames.length()) {
+                    AtomicReferenceArray<String> old = metricNames;
+                    AtomicReferenceArray<String> grown = new AtomicReferenceArray<>(
+                            Math.min(old.length() * 2, MAX_METRIC_ID + 1));
+                    for (int i = 0; i < old.length(); i++) {
+                        grown.set(i, old.get(i));
+                    }
+                    metricNames = grown;
+                }
+            } else {
+                log.warn("指标名称数量超过上限，忽略: {}", metricName);
+                return -1;
+            }
+            metricNames.set(id, metricName);
+            metricIds.put(metricName, id);
+            return id;
+        }
+    }
+
+    /**
+     * 回收没有序列使用的指标编号
+     * <p>
+     * 先从名称映射中移除候选名称，使之后的写入不再取得旧编号，再在各段锁内复查；复查时仍被使用的名称恢复映射。
+     * 移除映射前已取得旧编号、复查后才写入的序列，由写入方校验映射后撤销。
+     *
+     * @param used 淘汰时各段中仍在使用的编号
+     * @return 回收的编号数
+     */
+    private int releaseUnusedMetricIds(BitSet used) {
+        synchronized (metricIdLock) {
+            // 上一周期回收的编号此时已无在途写入，可以重新分配
+            freeMetricIds.addAll(releasedMetricIds);
+            releasedMetricIds = new ArrayList<>();
+
+            AtomicReferenceArray<String> names = metricNames;
+            BitSet candidates = new BitSet(nextMetricId);
+            for (int id = used.nextClearBit(0); id < nextMetricId; id = used.nextClearBit(id + 1)) {
+                String name = names.get(id);
+                if (name != null) {
+                    candidates.set(id);
+                    metricIds.remove(name);
+                }
+            }
+            if (candidates.isEmpty()) {
+                return 0;
+            }
+
+            for (Segment segment : segments) {
+                segment.clearUsed(candidates);
+            }
+            for (int id = used.nextClearBit(0); id < nextMetricId; id = used.nextClearBit(id + 1)) {
+                String name = names.get(id);
+                if (name == null) {
+                    continue;
+                }
+                if (candidates.get(id)) {
+                    names.set(id, null);
+                    releasedMetricIds.add(id);
+                } else {
+                    metricIds.put(name, id);
+                }
+            }
+            return releasedMetricIds.size();
+        }
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[hash >>> 28];
+    }
+
+    private static int[] appendMetric(int[] ids, int metricId) {
+        if (ids == null) {
+            return new int[]{metricId};
+        }
+        for (int id : ids) {
+            if (id == metricId) {
+                return ids;
+            }
+        }
+        int[] appended = Arrays.copyOf(ids, ids.length + 1);
+        appended[ids.length] = metricId;
+        return appended;
+    }
+
+    private static int[] removeMetric(int[] ids, int metricId) {
+        int index = -1;
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == metricId) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            return ids;
+        }
+        if (ids.length == 1) {
+            return null;
+        }
+        int[] removed = new int[ids.length - 1];
+        System.arraycopy(ids, 0, removed, 0, index);
+        System.arraycopy(ids, index + 1, removed, index, ids.length - index - 1);
+        return removed;
+    }
+
+    private static long key(long deviceId, int metricId) {
+        return (deviceId << METRIC_ID_BITS) | metricId;
+    }
+
+    private static int hash(long key) {
+        // murmur3 fmix64，高4位用于选段，低位用于段内定位
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int size = 16;
+        while (size < capacity && size < (1 << 30)) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    /**
+     * 开放寻址（线性探测）段
+     */
+    private static final class Segment {
+
+        static final int UPDATED = 0;
+
+        static final int INSERTED = 1;
+
+        static final int STALE = 2;
+
+        private volatile AtomicReferenceArray<LatestValue> table;
+
+        /**
+         * 以下字段只在持有段锁时访问
+         */
+        private int size;
+
+        private int tombstones;
+
+        Segment(int capacity) {
+            this.table = new AtomicReferenceArray<>(capacity);
+        }
+
+        LatestValue get(long key, int hash) {
+            AtomicReferenceArray<LatestValue> tab = table;
+            int mask = tab.length() - 1;
+            for (int i = hash & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+                LatestValue entry = tab.get(i);
+                if (entry == null) {
+                    return null;
+                }
+                if (entry.key == key) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        synchronized int put(long key, int hash, LatestValue value) {
+            if (size + tombstones + 1 > table.length() * LOAD_FACTOR) {
+                rehash();
+            }
+            AtomicReferenceArray<LatestValue> tab = table;
+            int mask = tab.length() - 1;
+            int freeSlot = -1;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                LatestValue entry = tab.get(i);
+                if (entry == null) {
+                    if (freeSlot < 0) {
+                        freeSlot = i;
+                    } else {
+                        tombstones--;
+                    }
+                    tab.set(freeSlot, value);
+                    size++;
+                    return INSERTED;
+                }
+                if (entry == TOMBSTONE) {
+                    if (freeSlot < 0) {
+                        freeSlot = i;
+                    }
+                } else if (entry.key == key) {
+                    if (value.getTimestamp() < entry.getTimestamp()) {
+                        return STALE;
+                    }
+                    tab.set(i, value);
+                    return UPDATED;
+                }
+            }
+        }
+
+        synchronized void remove(long key, int hash) {
+            AtomicReferenceArray<LatestValue> tab = table;
+            int mask = tab.length() - 1;
+            for (int i = hash & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+                LatestValue entry = tab.get(i);
+                if (entry == null) {
+                    return;
+                }
+                if (entry.key == key) {
+                    tab.set(i, TOMBSTONE);
+                    size--;
+                    tombstones++;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 删除采集时间早于cutoff的序列，记录被删除的键；保留的序列在used中标记其指标编号
+         */
+        synchronized void evictBefore(long cutoff, List<Long> evicted, BitSet used) {
+            AtomicReferenceArray<LatestValue> tab = table;
+            for (int i = 0; i < tab.length(); i++) {
+                LatestValue entry = tab.get(i);
+                if (entry == null || entry == TOMBSTONE) {
+                    continue;
+                }
+                if (entry.getTimestamp() < cutoff) {
+                    tab.set(i, TOMBSTONE);
+                    size--;
+                    tombstones++;
+                    evicted.add(entry.key);
+                } else {
+                    used.set((int) (entry.key & MAX_METRIC_ID));
+                }
+            }
+        }
+
+        /**
+         * 从候选编号中去掉仍有序列使用的编号
+         */
+        synchronized void clearUsed(BitSet candidates) {
+            AtomicReferenceArray<LatestValue> tab = table;
+            for (int i = 0; i < tab.length(); i++) {
+                LatestValue entry = tab.get(i);
+                if (entry != null && entry != TOMBSTONE) {
+                    candidates.clear((int) (entry.key & MAX_METRIC_ID));
+                }
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        int capacity() {
+            return table.length();
+        }
+
+        /**
+         * 清除删除标记，必要时容量翻倍，完成后整体替换表引用
+         */
+        private void rehash() {
+            AtomicReferenceArray<LatestValue> old = table;
+            int capacity = old.length();
+            if (size + 1 > capacity * LOAD_FACTOR / 2) {
+                capacity <<= 1;
+            }
+            AtomicReferenceArray<LatestValue> tab = new AtomicReferenceArray<>(capacity);
+            int mask = capacity - 1;
+            for (int i = 0; i < old.length(); i++) {
+                LatestValue entry = old.get(i);
+                if (entry == null || entry == TOMBSTONE) {
+                    continue;
+                }
+                int j = hash(entry.key) & mask;
+                while (tab.get(j) != null) {
+                    j = (j + 1) & mask;
+                }
+                tab.set(j, entry);
+            }
+            tombstones = 0;
+            table = tab;
+        }
+    }
+}
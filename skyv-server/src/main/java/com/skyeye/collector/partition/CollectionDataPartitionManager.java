@@ -0,0 +1,475 @@
+package com.skyeye.collector.partition;
+
+import com.skyeye.collector.config.PartitionConfig;
+import jakarta.annotation.PostConstruct;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 采集数据分区管理器
+ * <p>
+ * tb_collection_data 先按 retention_class 列表分区，每个保留等级再按 collected_at 范围分区（见 V1.2、V1.3、V1.6
+ * 迁移脚本）。管理器对每个等级的分区树，从现有分区的最大上界开始连续预建分区，直到覆盖当前时间之后
+ * precreate-count 个周期；过期数据按等级各自的保留天数整体删除分区，不再逐行DELETE。
+ * <p>
+ * 每个分区树另有一个DEFAULT分区，接收不在任何范围分区内的行（如设备时钟偏差导致的过早或过晚时间），
+ * 避免一行越界使整批写入失败。维护时为默认分区中保留期内、预建范围内的行补建分区并移出，
+ * 清理时删除默认分区中超过保留期的行。每个分区的删除在独立的事务中执行，尽快释放分区树上的排他锁，
+ * 一个分区失败不影响其余分区。
+ * 只执行了V1.2（单层范围分区）时整张表按长期等级管理；表未分区时不做任何处理，由调用方回退为按行清理。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+@Component
+public class CollectionDataPartitionManager {
+
+    private static final String PARENT_TABLE = "tb_collection_data";
+
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final DateTimeFormatter NAME_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private static final String DEFAULT_PARTITION_SUFFIX = "_default";
+
+    /**
+     * 从默认分区移出行时使用的临时表，事务提交时删除
+     */
+    private static final String RELOCATION_TABLE = "tmp_collection_data_relocation";
+
+    /**
+     * 每次维护每个分区树最多为默认分区中的行补建的分区数
+     */
+    private static final int MAX_RELOCATIONS_PER_RUN = 32;
+
+    /**
+     * 分区范围表达式，如 FOR VALUES FROM ('2024-01-01 00:00:00') TO ('2024-01-02 00:00:00')
+     */
+    private static final Pattern RANGE_BOUND = Pattern.compile(
+            "FOR VALUES FROM \\((MINVALUE|'([^']+)')\\) TO \\((MAXVALUE|'([^']+)')\\)");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final PartitionConfig partitionConfig;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 删除单个分区使用的事务，总是新开事务，不加入调用方的事务
+     */
+    private final TransactionTemplate dropTransactionTemplate;
+
+    public CollectionDataPartitionManager(JdbcTemplate jdbcTemplate, PartitionConfig partitionConfig,
+                                          PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitionConfig = partitionConfig;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dropTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.dropTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            ensureUpcomingPartitions();
+        } catch (Exception e) {
+            log.warn("启动时预建采集数据分区失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定期预建分区，保证写入时目标分区已存在
+     */
+    @Scheduled(fixedDelayString = "${skyeye.collector.partition.maintain-interval-ms:3600000}",
+            initialDelayString = "${skyeye.collector.partition.maintain-interval-ms:3600000}")
+    public void maintainPartitions() {
+        try {
+            ensureUpcomingPartitions();
+        } catch (Exception e) {
+            log.error("预建采集数据分区失败", e);
+        }
+    }
+
+    /**
+     * 采集数据表是否已启用分区管理
+     */
+    public boolean isActive() {
+        return !resolveTrees().isEmpty();
+    }
+
+    /**
+     * 为每个保留等级的分区树确保默认分区存在、预建分区，并为默认分区中的行补建分区
+     *
+     * @return 新建的范围分区数
+     */
+    public int ensureUpcomingPartitions() {
+        int created = 0;
+        for (Map.Entry<String, PartitionConfig.ClassPolicy> tree : resolveTrees().entrySet()) {
+            String defaultPartition = ensureDefaultPartition(tree.getKey());
+            created += ensureUpcomingPartitions(tree.getKey(), defaultPartition, tree.getValue().getGranularity());
+            created += relocateDefaultRows(tree.getKey(), defaultPartition, tree.getValue());
+        }
+        return created;
+    }
+
+    /**
+     * 按各保留等级的保留天数删除过期分区，每个分区单独提交
+     *
+     * @return 被删除分区中的估算行数
+     */
+    public long dropExpiredPartitions() {
+        long droppedRows = 0;
+        for (Map.Entry<String, PartitionConfig.ClassPolicy> tree : resolveTrees().entrySet()) {
+            droppedRows += dropExpiredPartitions(tree.getKey(), tree.getValue().getRetentionDays());
+        }
+        return droppedRows;
+    }
+
+    /**
+     * 当前需要管理的范围分区树及其策略，键为分区树表名
+     */
+    private Map<String, PartitionConfig.ClassPolicy> resolveTrees() {
+        Map<String, PartitionConfig.ClassPolicy> trees = new LinkedHashMap<>();
+        if (!partitionConfig.isEnabled()) {
+            return trees;
+        }
+
+        String strategy;
+        try {
+            strategy = partitionStrategy(PARENT_TABLE);
+        } catch (Exception e) {
+            log.debug("检查分区表失败: {}", e.getMessage());
+            return trees;
+        }
+
+        if ("l".equals(strategy)) {
+            for (RetentionClass retentionClass : RetentionClass.values()) {
+                String table = retentionClass.tableName(PARENT_TABLE);
+                if ("r".equals(partitionStrategy(table))) {
+                    trees.put(table, partitionConfig.getPolicy(retentionClass));
+                }
+            }
+        } else if ("r".equals(strategy)) {
+            trees.put(PARENT_TABLE, partitionConfig.getPolicy(RetentionClass.LONG));
+        }
+        return trees;
+    }
+
+    /**
+     * 确保分区树有默认分区
+     *
+     * @return 默认分区表名，创建失败时返回null
+     */
+    private String ensureDefaultPartition(String table) {
+        for (PartitionInfo partition : listPartitions(table)) {
+            if (partition.isDefaultPartition()) {
+                return partition.getName();
+            }
+        }
+        String partitionName = table + DEFAULT_PARTITION_SUFFIX;
+        try {
+            jdbcTemplate.execute(String.format("CREATE TABLE IF NOT EXISTS %s PARTITION OF %s DEFAULT",
+                    partitionName, table));
+            log.info("已创建采集数据默认分区: {}", partitionName);
+            return partitionName;
+        } catch (Exception e) {
+            // 多实例并发创建时可能冲突，下次维护会重新检查
+            log.warn("创建采集数据默认分区失败: {}, error={}", partitionName, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 从现有分区的最大上界开始连续创建分区，直到覆盖当前时间之后 precreate-count 个周期
+     */
+    private int ensureUpcomingPartitions(String table, String defaultPartition, PartitionGranularity granularity) {
+        LocalDateTime target = horizon(granularity);
+
+        LocalDateTime start = null;
+        for (PartitionInfo partition : listPartitions(table)) {
+            if (partition.getUpperBound() != null && (start == null || partition.getUpperBound().isAfter(start))) {
+                start = partition.getUpperBound();
+            }
+        }
+        if (start == null) {
+            start = granularity.floor(LocalDateTime.now());
+        }
+
+        int created = 0;
+        while (start.isBefore(target)) {
+            // 起点可能不在粒度边界上（如历史分区的上界），第一个分区先补齐到边界
+            LocalDateTime end = granularity.next(granularity.floor(start));
+            try {
+                createPartition(table, defaultPartition, start, end);
+                created++;
+            } catch (Exception e) {
+                // 多实例并发创建时可能冲突，下次维护会重新对齐
+                log.warn("创建采集数据分区失败: {} [{}, {}), error={}", table, start, end, e.getMessage());
+                break;
+            }
+            start = end;
+        }
+        return created;
+    }
+
+    /**
+     * 为默认分区中保留期内的行补建分区并移出。
+     * 预建范围之后的行（时间明显错误）留在默认分区，避免按错误时间建出远期分区打断连续预建；
+     * 保留期之前的行由清理删除。
+     */
+    private int relocateDefaultRows(String table, String defaultPartition, PartitionConfig.ClassPolicy policy) {
+        if (defaultPartition == null) {
+            return 0;
+        }
+        PartitionGranularity granularity = policy.getGranularity();
+        LocalDateTime cursor = LocalDateTime.now().minusDays(policy.getRetentionDays());
+        LocalDateTime horizon = horizon(granularity);
+
+        int created = 0;
+        while (created < MAX_RELOCATIONS_PER_RUN) {
+            Timestamp earliest = jdbcTemplate.queryForObject(
+                    "SELECT MIN(collected_at) FROM " + defaultPartition + " WHERE collected_at >= ? AND collected_at < ?",
+                    Timestamp.class, Timestamp.valueOf(cursor), Timestamp.valueOf(horizon));
+            if (earliest == null) {
+                break;
+            }
+            LocalDateTime[] range = gapRange(earliest.toLocalDateTime(), listPartitions(table), granularity);
+            try {
+                createPartition(table, defaultPartition, range[0], range[1]);
+                created++;
+            } catch (Exception e) {
+                log.warn("为默认分区中的数据补建分区失败: {} [{}, {}), error={}",
+                        table, range[0], range[1], e.getMessage());
+                break;
+            }
+            cursor = range[1];
+        }
+        return created;
+    }
+
+    /**
+     * 创建范围分区。默认分区中已有该范围的行时直接建分区会失败，
+     * 先在同一事务内把这些行移到临时表，建好分区后重新写入分区树
+     */
+    private void createPartition(String table, String defaultPartition, LocalDateTime start, LocalDateTime end) {
+        String partitionName = partitionName(table, start);
+        String ddl = String.format("CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+                partitionName, table, start.format(BOUND_FORMAT), end.format(BOUND_FORMAT));
+        Timestamp lower = Timestamp.valueOf(start);
+        Timestamp upper = Timestamp.valueOf(end);
+
+        if (defaultPartition == null || !Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + defaultPartition + " WHERE collected_at >= ? AND collected_at < ?)",
+                Boolean.class, lower, upper))) {
+            jdbcTemplate.execute(ddl);
+            log.info("已创建采集数据分区: {} [{}, {})", partitionName, start, end);
+            return;
+        }
+
+        Integer moved = transactionTemplate.execute(status -> {
+            String columns = String.join(", ", columnNames(defaultPartition));
+            jdbcTemplate.execute("CREATE TEMP TABLE " + RELOCATION_TABLE + " (LIKE " + defaultPartition + ") ON COMMIT DROP");
+            int count = jdbcTemplate.update("WITH moved AS (DELETE FROM " + defaultPartition
+                    + " WHERE collected_at >= ? AND collected_at < ? RETURNING " + columns + ") "
+                    + "INSERT INTO " + RELOCATION_TABLE + " (" + columns + ") SELECT " + columns + " FROM moved",
+                    lower, upper);
+            jdbcTemplate.execute(ddl);
+            jdbcTemplate.update("INSERT INTO " + table + " (" + columns + ") SELECT " + columns
+                    + " FROM " + RELOCATION_TABLE);
+            return count;
+        });
+        log.info("已创建采集数据分区并从默认分区移入数据: {} [{}, {}), rows={}", partitionName, start, end, moved);
+    }
+
+    /**
+     * 预建分区覆盖到的时间：当前周期之后 precreate-count 个周期的结束
+     */
+    private LocalDateTime horizon(PartitionGranularity granularity) {
+        LocalDateTime target = granularity.floor(LocalDateTime.now());
+        for (int i = 0; i <= partitionConfig.getPrecreateCount(); i++) {
+            target = granularity.next(target);
+        }
+        return target;
+    }
+
+    /**
+     * 包含指定时间且不与现有范围分区重叠的分区范围：取时间所在周期，再裁剪到相邻分区之间的空隙
+     *
+     * @param time 不在任何范围分区内的时间
+     * @return [下界, 上界)
+     */
+    static LocalDateTime[] gapRange(LocalDateTime time, List<PartitionInfo> partitions,
+                                    PartitionGranularity granularity) {
+        LocalDateTime start = granularity.floor(time);
+        LocalDateTime end = granularity.next(start);
+        for (PartitionInfo partition : partitions) {
+            if (partition.isDefaultPartition()) {
+                continue;
+            }
+            LocalDateTime lower = partition.getLowerBound();
+            LocalDateTime upper = partition.getUpperBound();
+            if (upper != null && !upper.isAfter(time) && upper.isAfter(start)) {
+                start = upper;
+            }
+            if (lower != null && lower.isAfter(time) && lower.isBefore(end)) {
+                end = lower;
+            }
+        }
+        return new LocalDateTime[]{start, end};
+    }
+
+    /**
+     * 分区名按下界日期命名；下界不在零点时（裁剪过的范围）带上时间，避免与同一天开始的分区重名
+     */
+    static String partitionName(String table, LocalDateTime start) {
+        DateTimeFormatter format = start.toLocalTime().equals(LocalTime.MIDNIGHT) ? NAME_FORMAT : NAME_TIME_FORMAT;
+        return table + "_p" + start.format(format);
+    }
+
+    /**
+     * 删除上界早于保留期限的分区，以及默认分区中早于保留期限的行
+     */
+    private long dropExpiredPartitions(String table, int retentionDays) {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        long droppedRows = 0;
+        for (PartitionInfo partition : listPartitions(table)) {
+            if (partition.isDefaultPartition()) {
+                droppedRows += purgeDefaultPartition(partition.getName(), cutoff);
+                continue;
+            }
+            if (partition.getUpperBound() == null || partition.getUpperBound().isAfter(cutoff)) {
+                continue;
+            }
+            try {
+                dropTransactionTemplate.executeWithoutResult(
+                        status -> jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition.getName()));
+                droppedRows += Math.max(0, partition.getEstimatedRows());
+                log.info("已删除过期采集数据分区: {}, 上界={}, 估算行数={}",
+                        partition.getName(), partition.getUpperBound(), partition.getEstimatedRows());
+            } catch (Exception e) {
+                log.error("删除过期采集数据分区失败: {}", partition.getName(), e);
+            }
+        }
+        return droppedRows;
+    }
+
+    private long purgeDefaultPartition(String defaultPartition, LocalDateTime cutoff) {
+        try {
+            Integer deleted = dropTransactionTemplate.execute(status -> jdbcTemplate.update(
+                    "DELETE FROM " + defaultPartition + " WHERE collected_at < ?", Timestamp.valueOf(cutoff)));
+            if (deleted != null && deleted > 0) {
+                log.info("已删除默认分区中的过期采集数据: {}, 行数={}", defaultPartition, deleted);
+            }
+            return deleted != null ? deleted : 0;
+        } catch (Exception e) {
+            log.error("删除默认分区中的过期采集数据失败: {}", defaultPartition, e);
+            return 0;
+        }
+    }
+
+    /**
+     * 查询分区列表
+     */
+    public List<PartitionInfo> listPartitions(String parentTable) {
+        List<PartitionInfo> partitions = new ArrayList<>();
+        jdbcTemplate.query(
+                "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid), c.reltuples::bigint "
+                        + "FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "JOIN pg_class p ON p.oid = i.inhparent "
+                        + "WHERE p.relname = ? AND p.relnamespace = current_schema()::regnamespace",
+                rs -> {
+                    PartitionInfo info = new PartitionInfo();
+                    info.setName(rs.getString(1));
+                    info.setEstimatedRows(rs.getLong(3));
+                    String bound = rs.getString(2);
+                    info.setDefaultPartition("DEFAULT".equals(bound));
+                    Matcher matcher = RANGE_BOUND.matcher(bound);
+                    if (matcher.find()) {
+                        info.setLowerBound(matcher.group(2) != null ? parseBound(matcher.group(2)) : null);
+                        info.setUpperBound(matcher.group(4) != null ? parseBound(matcher.group(4)) : null);
+                    }
+                    partitions.add(info);
+                },
+                parentTable);
+        return partitions;
+    }
+
+    /**
+     * 查询表的分区方式：r=范围，l=列表，未分区时返回null
+     */
+    private String partitionStrategy(String table) {
+        List<String> strategies = jdbcTemplate.queryForList(
+                "SELECT pt.partstrat::text FROM pg_partitioned_table pt "
+                        + "JOIN pg_class c ON c.oid = pt.partrelid "
+                        + "WHERE c.relname = ? AND c.relnamespace = current_schema()::regnamespace",
+                String.class, table);
+        return strategies.isEmpty() ? null : strategies.get(0);
+    }
+
+    /**
+     * 表的列名，按列序
+     */
+    private List<String> columnNames(String table) {
+        return jdbcTemplate.queryForList(
+                "SELECT a.attname FROM pg_attribute a "
+                        + "JOIN pg_class c ON c.oid = a.attrelid "
+                        + "WHERE c.relname = ? AND c.relnamespace = current_schema()::regnamespace "
+                        + "AND a.attnum > 0 AND NOT a.attisdropped ORDER BY a.attnum",
+                String.class, table);
+    }
+
+    private static LocalDateTime parseBound(String bound) {
+        // 边界可能带小数秒
+        String value = bound.length() > 19 ? bound.substring(0, 19) : bound;
+        return LocalDateTime.parse(value, BOUND_FORMAT);
+    }
+
+    /**
+     * 分区信息
+     */
+    @Data
+    public static class PartitionInfo {
+
+        private String name;
+
+        /**
+         * 下界，MINVALUE时为null
+         */
+        private LocalDateTime lowerBound;
+
+        /**
+         * 上界，MAXVALUE时为null
+         */
+        private LocalDateTime upperBound;
+
+        /**
+         * 估算行数（pg_class.reltuples）
+         */
+        private long estimatedRows;
+
+        /**
+         * 是否为DEFAULT分区（无范围上下界）
+         */
+        private boolean defaultPartition;
+    }
+}
@@ -0,0 +1,45 @@
+package com.skyeye.collector.partition;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * 分区粒度
+ *
+ * @author SkyEye Team
+ */
+public enum PartitionGranularity {
+
+    DAY, WEEK, MONTH;
+
+    /**
+     * 时间所在周期的起点
+     */
+    public LocalDateTime floor(LocalDateTime time) {
+        switch (this) {
+            case WEEK:
+                return time.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+            case MONTH:
+                return time.toLocalDate().withDayOfMonth(1).atStartOfDay();
+            case DAY:
+            default:
+                return time.toLocalDate().atStartOfDay();
+        }
+    }
+
+    /**
+     * 下一个周期的起点
+     */
+    public LocalDateTime next(LocalDateTime start) {
+        switch (this) {
+            case WEEK:
+                return start.plusWeeks(1);
+            case MONTH:
+                return start.plusMonths(1);
+            case DAY:
+            default:
+                return start.plusDays(1);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.skyeye.collector.partition;
+
+import com.skyeye.collector.dto.MetricConfig;
+
+/**
+ * 采集数据保留等级
+ * <p>
+ * 写入时按指标确定保留等级，数据进入对应等级的分区树，各等级按自己的粒度和保留天数整体删除分区。
+ *
+ * @author SkyEye Team
+ */
+public enum RetentionClass {
+
+    /**
+     * 基础监控数据，默认保留7天
+     */
+    SHORT,
+
+    /**
+     * 系统和接口数据，默认保留30天
+     */
+    MEDIUM,
+
+    /**
+     * 自定义数据，默认保留90天
+     */
+    LONG;
+
+    /**
+     * 指标参数中指定保留等级的键，优先于按指标类型推断
+     */
+    public static final String PARAMETER_KEY = "retentionClass";
+
+    /**
+     * 确定指标的保留等级
+     */
+    public static RetentionClass resolve(MetricConfig metricConfig) {
+        if (metricConfig.getParameters() != null) {
+            Object configured = metricConfig.getParameters().get(PARAMETER_KEY);
+            if (configured != null) {
+                try {
+                    return valueOf(configured.toString().trim().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    // 配置值不合法时按指标类型推断
+                }
+            }
+        }
+        return forMetricType(metricConfig.getMetricType());
+    }
+
+    /**
+     * 按指标类型推断保留等级
+     */
+    public static RetentionClass forMetricType(String metricType) {
+        if (metricType == null) {
+            return MEDIUM;
+        }
+        switch (metricType) {
+            case "health_check":
+            case "status_code":
+            case "response_time":
+                return SHORT;
+            case "custom_oid":
+            case "custom_endpoint":
+                return LONG;
+            case "system_info":
+            case "interface_stats":
+            default:
+                return MEDIUM;
+        }
+    }
+
+    /**
+     * 该等级的分区树表名
+     */
+    public String tableName(String parentTable) {
+        return parentTable + "_" + name().toLowerCase();
+    }
+}
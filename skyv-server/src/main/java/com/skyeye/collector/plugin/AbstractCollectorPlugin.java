@@ -10,6 +10,8 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -104,63 +106,116 @@ public abstract class AbstractCollectorPlugin implements CollectorPlugin {
 
     @Override
     public final CollectionResult collect(Device device, MetricConfig metricConfig, CollectionContext context) {
-        if (!initialized.get()) {
-            return CollectionResult.failure("PLUGIN_NOT_INITIALIZED", "插件未初始化");
+        CollectionResult unavailable = checkAvailable(device, metricConfig);
+        if (unavailable != null) {
+            return unavailable;
         }
 
-        if (destroyed.get()) {
-            return CollectionResult.failure("PLUGIN_DESTROYED", "插件已销毁");
+        long startTime = System.currentTimeMillis();
+        LocalDateTime collectionStartTime = LocalDateTime.now();
+
+        try {
+            // 执行实际采集
+            CollectionResult result = doCollect(device, metricConfig, context);
+            return completeCollection(device, metricConfig, context, result, startTime, collectionStartTime);
+        } catch (Exception e) {
+            return failCollection(device, metricConfig, e, startTime);
+        }
+    }
+
+    @Override
+    public final CompletableFuture<CollectionResult> collectAsync(Device device, MetricConfig metricConfig,
+                                                                  CollectionContext context) {
+        CollectionResult unavailable = checkAvailable(device, metricConfig);
+        if (unavailable != null) {
+            return CompletableFuture.completedFuture(unavailable);
         }
 
         long startTime = System.currentTimeMillis();
         LocalDateTime collectionStartTime = LocalDateTime.now();
 
+        CompletableFuture<CollectionResult> future;
         try {
-            // 检查缓存
-            if (isCacheEnabled(metricConfig)) {
-                CollectionResult cachedResult = getCachedResult(device, metricConfig);
-                if (cachedResult != null) {
-                    log.debug("使用缓存结果: device={}, metric={}", device.getId(), metricConfig.getMetricName());
-                    return cachedResult;
-                }
-            }
+            future = doCollectAsync(device, metricConfig, context);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(failCollection(device, metricConfig, e, startTime));
+        }
 
-            // 执行实际采集
-            CollectionResult result = doCollect(device, metricConfig, context);
-            
-            // 设置采集时间信息
-            result.setStartTime(collectionStartTime);
-            result.setEndTime(LocalDateTime.now());
-            result.setDuration(System.currentTimeMillis() - startTime);
-            result.setPluginType(getPluginType());
-            result.setDeviceId(device.getId());
-            result.setMetricName(metricConfig.getMetricName());
-            result.setSessionId(context.getSessionId());
-
-            // 更新统计信息
-            if (result.isSuccess()) {
-                statistics.recordSuccess(result.getDuration());
-            } else {
-                statistics.recordFailure(result.getDuration());
+        return future.handle((result, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                return failCollection(device, metricConfig, cause, startTime);
+            }
+            try {
+                return completeCollection(device, metricConfig, context, result, startTime, collectionStartTime);
+            } catch (Exception ex) {
+                return failCollection(device, metricConfig, ex, startTime);
             }
+        });
+    }
+
+    /**
+     * 检查插件状态和缓存，可直接返回时返回结果，否则返回null
+     */
+    private CollectionResult checkAvailable(Device device, MetricConfig metricConfig) {
+        if (!initialized.get()) {
+            return CollectionResult.failure("PLUGIN_NOT_INITIALIZED", "插件未初始化");
+        }
+
+        if (destroyed.get()) {
+            return CollectionResult.failure("PLUGIN_DESTROYED", "插件已销毁");
+        }
 
-            // 缓存结果
-            if (result.isSuccess() && isCacheEnabled(metricConfig)) {
-                cacheResult(device, metricConfig, result);
+        // 检查缓存
+        if (isCacheEnabled(metricConfig)) {
+            CollectionResult cachedResult = getCachedResult(device, metricConfig);
+            if (cachedResult != null) {
+                log.debug("使用缓存结果: device={}, metric={}", device.getId(), metricConfig.getMetricName());
+                return cachedResult;
             }
+        }
+        return null;
+    }
 
-            return result;
+    /**
+     * 补全采集结果，更新统计并缓存
+     */
+    private CollectionResult completeCollection(Device device, MetricConfig metricConfig, CollectionContext context,
+                                                CollectionResult result, long startTime,
+                                                LocalDateTime collectionStartTime) {
+        // 设置采集时间信息
+        result.setStartTime(collectionStartTime);
+        result.setEndTime(LocalDateTime.now());
+        result.setDuration(System.currentTimeMillis() - startTime);
+        result.setPluginType(getPluginType());
+        result.setDeviceId(device.getId());
+        result.setMetricName(metricConfig.getMetricName());
+        result.setSessionId(context.getSessionId());
+
+        // 更新统计信息
+        if (result.isSuccess()) {
+            statistics.recordSuccess(result.getDuration());
+        } else {
+            statistics.recordFailure(result.getDuration());
+        }
 
-        } catch (Exception e) {
-            long duration = System.currentTimeMillis() - startTime;
-            statistics.recordFailure(duration);
-            
-            log.error("采集数据失败: device={}, metric={}", 
-                    device.getId(), metricConfig.getMetricName(), e);
-            
-            return CollectionResult.failure("COLLECTION_ERROR", 
-                    "采集失败: " + e.getMessage());
+        // 缓存结果
+        if (result.isSuccess() && isCacheEnabled(metricConfig)) {
+            cacheResult(device, metricConfig, result);
         }
+
+        return result;
+    }
+
+    private CollectionResult failCollection(Device device, MetricConfig metricConfig, Throwable e, long startTime) {
+        long duration = System.currentTimeMillis() - startTime;
+        statistics.recordFailure(duration);
+
+        log.error("采集数据失败: device={}, metric={}",
+                device.getId(), metricConfig.getMetricName(), e);
+
+        return CollectionResult.failure("COLLECTION_ERROR",
+                "采集失败: " + e.getMessage());
     }
 
     @Override
@@ -278,6 +333,14 @@ public abstract class AbstractCollectorPlugin implements CollectorPlugin {
      */
     protected abstract CollectionResult doCollect(Device device, MetricConfig metricConfig, CollectionContext context);
 
+    /**
+     * 子类可以覆盖的异步采集方法，默认在调用线程中执行 {@link #doCollect}
+     */
+    protected CompletableFuture<CollectionResult> doCollectAsync(Device device, MetricConfig metricConfig,
+                                                                 CollectionContext context) {
+        return CompletableFuture.completedFuture(doCollect(device, metricConfig, context));
+    }
+
     /**
      * 子类可以覆盖的健康检查方法
      */
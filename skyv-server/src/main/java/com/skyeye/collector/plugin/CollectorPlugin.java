@@ -9,6 +9,7 @@ import com.skyeye.device.entity.DeviceType;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 数据采集插件接口
@@ -86,6 +87,19 @@ public interface CollectorPlugin {
      */
     CollectionResult collect(Device device, MetricConfig metricConfig, CollectionContext context);
 
+    /**
+     * 异步执行数据采集
+     * 默认在调用线程中同步执行，非阻塞插件应覆盖此方法并让 {@link #supportsAsyncCollection()} 返回true
+     * 
+     * @param device 目标设备
+     * @param metricConfig 指标配置
+     * @param context 采集上下文
+     * @return 采集结果的Future
+     */
+    default CompletableFuture<CollectionResult> collectAsync(Device device, MetricConfig metricConfig, CollectionContext context) {
+        return CompletableFuture.completedFuture(collect(device, metricConfig, context));
+    }
+
     /**
      * 批量执行数据采集
      * 
@@ -163,6 +177,15 @@ public interface CollectorPlugin {
      */
     boolean supportsConcurrentCollection();
 
+    /**
+     * 是否支持非阻塞的异步采集
+     * 
+     * @return 是否支持异步采集
+     */
+    default boolean supportsAsyncCollection() {
+        return false;
+    }
+
     /**
      * 获取建议的并发度
      * 
@@ -139,11 +139,8 @@ public class PluginStatistics {
      */
     public void updateAverageResponseTime(long responseTime) {
         long total = totalCollections.get();
-        if (total == 0) {
-            averageResponseTime = (double) responseTime;
-        } else {
-            averageResponseTime = (averageResponseTime * (total - 1) + responseTime) / total;
-        }
+        // 按累计耗时计算：记录前已递增总次数，首次记录时平均值尚为空；并发记录时也不会累积误差
+        averageResponseTime = total > 0 ? (double) totalCollectionTime.get() / total : (double) responseTime;
     }
 
     /**
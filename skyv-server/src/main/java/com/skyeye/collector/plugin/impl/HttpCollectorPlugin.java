@@ -12,15 +12,18 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * HTTP协议数据采集插件
  * 支持REST API、Web服务、HTTP端点的数据采集
+ * 请求通过共享的 {@link com.skyeye.collector.http.AsyncHttpEngine} 异步发送，复用按主机保活的连接
  * 
  * @author SkyEye Team
  */
@@ -31,12 +34,6 @@ public class HttpCollectorPlugin extends AbstractCollectorPlugin {
 
     private final DeviceCredentialService credentialService;
     private final HttpCollectorPluginHelper helper;
-    private final RestTemplate restTemplate;
-
-    /**
-     * HTTP客户端缓存
-     */
-    private final Map<String, RestTemplate> clientCache = new ConcurrentHashMap<>();
 
     @Override
     public String getPluginType() {
@@ -108,18 +105,31 @@ public class HttpCollectorPlugin extends AbstractCollectorPlugin {
     @Override
     protected void doDestroy() {
         log.info("销毁HTTP采集插件");
-        
-        // 清理HTTP客户端缓存
-        clientCache.clear();
-        
         log.info("HTTP采集插件销毁完成");
     }
 
+    @Override
+    public boolean supportsAsyncCollection() {
+        return true;
+    }
+
+    @Override
+    public int getRecommendedConcurrency() {
+        return 256; // 请求经共享HttpClient异步发送，等待响应时不占用线程
+    }
+
     @Override
     protected CollectionResult doCollect(Device device, MetricConfig metricConfig, CollectionContext context) {
+        return doCollectAsync(device, metricConfig, context).join();
+    }
+
+    @Override
+    protected CompletableFuture<CollectionResult> doCollectAsync(Device device, MetricConfig metricConfig,
+                                                                 CollectionContext context) {
         LocalDateTime startTime = LocalDateTime.now();
         long requestStartTime = System.currentTimeMillis();
         
+        CompletableFuture<HttpResponse<String>> future;
         try {
             // 1. 获取设备HTTP凭据
             Map<String, Object> credentials = getDeviceCredentials(device, context);
@@ -130,46 +140,62 @@ public class HttpCollectorPlugin extends AbstractCollectorPlugin {
             HttpMethod method = helper.getHttpMethod(metricConfig);
             String requestBody = helper.buildRequestBody(metricConfig);
             
-            HttpEntity<String> entity = new HttpEntity<>(requestBody, headers);
-            
-            // 3. 执行HTTP请求
-            ResponseEntity<String> response = restTemplate.exchange(url, method, entity, String.class);
-            
-            long responseTime = System.currentTimeMillis() - requestStartTime;
+            HttpRequest request = helper.buildRequest(url, method, headers, requestBody,
+                    helper.getRequestTimeoutMs(metricConfig));
             
-            // 4. 解析响应数据
-            Map<String, Object> metrics = helper.parseResponse(response, metricConfig, responseTime);
-            
-            return CollectionResult.builder()
-                    .success(true)
-                    .metrics(metrics)
-                    .timestamp(System.currentTimeMillis())
-                    .startTime(startTime)
-                    .endTime(LocalDateTime.now())
-                    .qualityScore(helper.calculateQualityScore(response, metrics))
-                    .pluginType(getPluginType())
-                    .deviceId(device.getId())
-                    .metricName(metricConfig.getMetricName())
-                    .sessionId(context.getSessionId())
-                    .build();
-                    
+            // 3. 异步执行HTTP请求
+            future = helper.send(request);
         } catch (Exception e) {
-            log.error("HTTP采集失败: device={}, metric={}", 
-                    device.getId(), metricConfig.getMetricName(), e);
-            
-            return CollectionResult.builder()
-                    .success(false)
-                    .errorMessage("HTTP采集失败: " + e.getMessage())
-                    .errorCode(helper.determineErrorCode(e))
-                    .timestamp(System.currentTimeMillis())
-                    .startTime(startTime)
-                    .endTime(LocalDateTime.now())
-                    .pluginType(getPluginType())
-                    .deviceId(device.getId())
-                    .metricName(metricConfig.getMetricName())
-                    .sessionId(context.getSessionId())
-                    .build();
+            return CompletableFuture.completedFuture(failure(device, metricConfig, context, startTime, e));
         }
+        
+        return future.handle((httpResponse, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                return failure(device, metricConfig, context, startTime, cause);
+            }
+            try {
+                ResponseEntity<String> response = helper.toResponseEntity(httpResponse);
+                long responseTime = System.currentTimeMillis() - requestStartTime;
+                
+                // 4. 解析响应数据
+                Map<String, Object> metrics = helper.parseResponse(response, metricConfig, responseTime);
+                
+                return CollectionResult.builder()
+                        .success(true)
+                        .metrics(metrics)
+                        .timestamp(System.currentTimeMillis())
+                        .startTime(startTime)
+                        .endTime(LocalDateTime.now())
+                        .qualityScore(helper.calculateQualityScore(response, metrics))
+                        .pluginType(getPluginType())
+                        .deviceId(device.getId())
+                        .metricName(metricConfig.getMetricName())
+                        .sessionId(context.getSessionId())
+                        .build();
+            } catch (Exception ex) {
+                return failure(device, metricConfig, context, startTime, ex);
+            }
+        });
+    }
+
+    private CollectionResult failure(Device device, MetricConfig metricConfig, CollectionContext context,
+                                     LocalDateTime startTime, Throwable e) {
+        log.error("HTTP采集失败: device={}, metric={}", 
+                device.getId(), metricConfig.getMetricName(), e);
+        
+        return CollectionResult.builder()
+                .success(false)
+                .errorMessage("HTTP采集失败: " + e.getMessage())
+                .errorCode(helper.determineErrorCode(e))
+                .timestamp(System.currentTimeMillis())
+                .startTime(startTime)
+                .endTime(LocalDateTime.now())
+                .pluginType(getPluginType())
+                .deviceId(device.getId())
+                .metricName(metricConfig.getMetricName())
+                .sessionId(context.getSessionId())
+                .build();
     }
 
     @Override
@@ -183,19 +209,20 @@ public class HttpCollectorPlugin extends AbstractCollectorPlugin {
             // 构建测试URL
             String testUrl = helper.buildTestUrl(device, credentials);
             HttpHeaders headers = helper.buildHeaders(credentials, null);
-            HttpEntity<String> entity = new HttpEntity<>(headers);
+            HttpRequest request = helper.buildRequest(testUrl, HttpMethod.HEAD, headers, null,
+                    context.getTimeout());
             
             // 发送HEAD请求测试连接
-            ResponseEntity<String> response = restTemplate.exchange(
-                    testUrl, HttpMethod.HEAD, entity, String.class);
+            HttpResponse<Void> response = helper.sendDiscarding(request).join();
             
             long responseTime = System.currentTimeMillis() - startTime;
             
-            if (response.getStatusCode().is2xxSuccessful()) {
+            HttpStatusCode status = HttpStatusCode.valueOf(response.statusCode());
+            if (status.is2xxSuccessful()) {
                 return ConnectionTestResult.success("HTTP连接测试成功", responseTime);
             } else {
                 return ConnectionTestResult.failure("HTTP_ERROR", 
-                        "HTTP响应错误: " + response.getStatusCode());
+                        "HTTP响应错误: " + status);
             }
             
         } catch (Exception e) {
@@ -1,14 +1,19 @@
 package com.skyeye.collector.plugin.impl;
 
-import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.PathNotFoundException;
 import com.skyeye.collector.dto.CollectorConfig;
 import com.skyeye.collector.dto.MetricConfig;
+import com.skyeye.collector.http.AsyncHttpEngine;
+import com.skyeye.collector.http.JsonPathExtractor;
 import com.skyeye.collector.plugin.AvailableMetric;
+import com.skyeye.collector.plugin.PluginException;
 import com.skyeye.device.entity.Device;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 import org.w3c.dom.Document;
 import org.w3c.dom.NodeList;
 
@@ -18,7 +23,14 @@ import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathFactory;
 import java.io.ByteArrayInputStream;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,18 +42,81 @@ import java.util.regex.Pattern;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class HttpCollectorPluginHelper {
 
     private static final Pattern URL_PATH_PATTERN = Pattern.compile("^/[a-zA-Z0-9/_\\-\\.]*$");
     private static final Set<String> VALID_HTTP_METHODS = Set.of("GET", "POST", "PUT", "DELETE", "HEAD", "OPTIONS");
     private static final Set<String> VALID_RESPONSE_FORMATS = Set.of("json", "xml", "text", "html");
 
+    private static final Map<String, String> HEALTH_CHECK_PATHS = Map.of("healthStatus", "$.status", "healthDetails", "$.details");
+
+    /**
+     * JDK HTTP客户端不允许设置的请求头，由客户端自行维护
+     */
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    private final AsyncHttpEngine httpEngine;
+
+    private final JsonPathExtractor jsonPathExtractor;
+
     /**
      * 初始化HTTP客户端
      */
     public void initializeHttpClients(CollectorConfig config) {
         log.debug("初始化HTTP客户端配置");
-        // 这里可以根据配置初始化不同的HTTP客户端
+        httpEngine.configure(config != null ? config.getConnectionConfig() : null);
+    }
+
+    /**
+     * 构建异步请求
+     *
+     * @param timeoutMs 请求超时（毫秒），小于等于0时使用默认值
+     */
+    public HttpRequest buildRequest(String url, HttpMethod method, HttpHeaders headers, String body, long timeoutMs) {
+        HttpRequest.Builder builder = httpEngine.newRequest(toUri(url), timeoutMs)
+                .method(method.name(), body != null ?
+                        HttpRequest.BodyPublishers.ofString(body) : HttpRequest.BodyPublishers.noBody());
+        headers.forEach((name, values) -> {
+            if (!RESTRICTED_HEADERS.contains(name.toLowerCase())) {
+                values.forEach(value -> builder.header(name, value));
+            }
+        });
+        return builder.build();
+    }
+
+    /**
+     * 异步发送请求
+     */
+    public CompletableFuture<HttpResponse<String>> send(HttpRequest request) {
+        return httpEngine.send(request);
+    }
+
+    /**
+     * 异步发送请求，丢弃响应体
+     */
+    public CompletableFuture<HttpResponse<Void>> sendDiscarding(HttpRequest request) {
+        return httpEngine.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    /**
+     * 获取指标的请求超时（毫秒），未配置时返回0使用默认值
+     */
+    public long getRequestTimeoutMs(MetricConfig metricConfig) {
+        return metricConfig.getTimeout() > 0 ? TimeUnit.SECONDS.toMillis(metricConfig.getTimeout()) : 0;
+    }
+
+    /**
+     * 转换为响应实体，4xx/5xx响应按请求失败处理
+     */
+    public ResponseEntity<String> toResponseEntity(HttpResponse<String> response) throws PluginException {
+        HttpStatusCode status = HttpStatusCode.valueOf(response.statusCode());
+        if (status.isError()) {
+            throw new PluginException("HTTP_ERROR", "HTTP响应错误: " + status.value());
+        }
+        HttpHeaders headers = new HttpHeaders();
+        response.headers().map().forEach(headers::addAll);
+        return new ResponseEntity<>(response.body(), headers, status);
     }
 
     /**
@@ -226,7 +301,12 @@ public class HttpCollectorPluginHelper {
         try {
             // 尝试解析JSON格式的健康检查响应
             if (responseBody.trim().startsWith("{")) {
-                Object statusValue = JsonPath.read(responseBody, "$.status");
+                // 状态和详细信息一次解析提取
+                Map<String, Object> values = jsonPathExtractor.extract(responseBody, HEALTH_CHECK_PATHS);
+                if (!values.containsKey("healthStatus")) {
+                    throw new PathNotFoundException("健康检查响应缺少status字段");
+                }
+                Object statusValue = values.get("healthStatus");
                 metrics.put("healthStatus", statusValue);
                 
                 // 检查是否健康
@@ -235,12 +315,9 @@ public class HttpCollectorPluginHelper {
                                   "HEALTHY".equalsIgnoreCase(String.valueOf(statusValue));
                 metrics.put("isHealthy", isHealthy);
                 
-                // 尝试获取更多详细信息
-                try {
-                    Object details = JsonPath.read(responseBody, "$.details");
-                    metrics.put("healthDetails", details);
-                } catch (Exception e) {
-                    // 忽略details字段不存在的错误
+                // details字段可能不存在
+                if (values.containsKey("healthDetails")) {
+                    metrics.put("healthDetails", values.get("healthDetails"));
                 }
             } else {
                 // 简单文本响应
@@ -265,14 +342,14 @@ public class HttpCollectorPluginHelper {
                 // JSON响应
                 metrics.put("responseFormat", "json");
                 
-                // 尝试解析为JSON对象
-                Object jsonData = JsonPath.parse(responseBody).json();
-                metrics.put("jsonData", jsonData);
+                // 解析为JSON对象，字段提取复用同一份文档
+                DocumentContext document = jsonPathExtractor.parse(responseBody);
+                metrics.put("jsonData", document.json());
                 
                 // 如果指定了特定字段，则提取
                 String extractField = (String) parameters.get("extractField");
                 if (extractField != null && !extractField.isEmpty()) {
-                    Object fieldValue = JsonPath.read(responseBody, extractField);
+                    Object fieldValue = jsonPathExtractor.read(document, extractField);
                     metrics.put("extractedValue", fieldValue);
                 }
             } else if (responseBody.trim().startsWith("<")) {
@@ -292,19 +369,43 @@ public class HttpCollectorPluginHelper {
 
     /**
      * 解析JSON路径
+     * <p>
+     * jsonPath（或extractPath）提取为extractedValue；jsonPaths（指标名 → 路径）中的每个路径提取为同名指标。
+     * 全部路径在一次解析中提取，任一路径不存在时记录parseError。
      */
     private void parseJsonPath(Map<String, Object> metrics, String responseBody, Map<String, Object> parameters) {
         try {
+            Map<String, String> paths = new LinkedHashMap<>();
             String jsonPath = (String) parameters.get("jsonPath");
             if (jsonPath == null || jsonPath.isEmpty()) {
                 jsonPath = (String) parameters.get("extractPath"); // 兼容性
             }
-            
             if (jsonPath != null && !jsonPath.isEmpty()) {
-                Object value = JsonPath.read(responseBody, jsonPath);
-                metrics.put("extractedValue", value);
+                paths.put("extractedValue", jsonPath);
                 metrics.put("jsonPath", jsonPath);
             }
+            
+            @SuppressWarnings("unchecked")
+            Map<String, String> namedPaths = (Map<String, String>) parameters.get("jsonPaths");
+            if (namedPaths != null) {
+                paths.putAll(namedPaths);
+            }
+            if (paths.isEmpty()) {
+                return;
+            }
+            
+            Map<String, Object> values = jsonPathExtractor.extract(responseBody, paths);
+            metrics.putAll(values);
+            
+            if (values.size() < paths.size()) {
+                List<String> missing = new ArrayList<>();
+                paths.forEach((name, path) -> {
+                    if (!values.containsKey(name)) {
+                        missing.add(path);
+                    }
+                });
+                metrics.put("parseError", "JSON路径不存在: " + missing);
+            }
         } catch (Exception e) {
             log.warn("JSON路径解析失败: {}", e.getMessage());
             metrics.put("parseError", e.getMessage());
@@ -442,14 +543,10 @@ public class HttpCollectorPluginHelper {
             
             url.append(path);
             
-            RestTemplate testTemplate = new RestTemplate();
-            HttpHeaders headers = buildHeaders(credentials, null);
-            HttpEntity<String> entity = new HttpEntity<>(headers);
+            HttpRequest request = buildRequest(url.toString(), HttpMethod.HEAD, buildHeaders(credentials, null), null, 0);
+            HttpResponse<Void> response = sendDiscarding(request).join();
             
-            ResponseEntity<String> response = testTemplate.exchange(
-                    url.toString(), HttpMethod.HEAD, entity, String.class);
-            
-            return response.getStatusCode().is2xxSuccessful();
+            return HttpStatusCode.valueOf(response.statusCode()).is2xxSuccessful();
         } catch (Exception e) {
             return false;
         }
@@ -503,7 +600,12 @@ public class HttpCollectorPluginHelper {
     /**
      * 确定错误代码
      */
-    public String determineErrorCode(Exception e) {
+    public String determineErrorCode(Throwable e) {
+        if (e instanceof HttpTimeoutException) {
+            return "TIMEOUT_ERROR";
+        } else if (e instanceof ConnectException) {
+            return "CONNECTION_ERROR";
+        }
         String message = e.getMessage();
         if (message == null) {
             return "UNKNOWN_ERROR";
@@ -545,6 +647,13 @@ public class HttpCollectorPluginHelper {
         return format != null && VALID_RESPONSE_FORMATS.contains(format.toLowerCase());
     }
 
+    /**
+     * 按URI规则编码URL，与RestTemplate处理字符串URL的方式一致
+     */
+    private URI toUri(String url) {
+        return UriComponentsBuilder.fromUriString(url).build().encode().toUri();
+    }
+
     /**
      * 检查是否为默认端口
      */
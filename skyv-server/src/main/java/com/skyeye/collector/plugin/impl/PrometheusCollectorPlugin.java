@@ -0,0 +1,401 @@
+package com.skyeye.collector.plugin.impl;
+
+import com.skyeye.collector.dto.CollectionContext;
+import com.skyeye.collector.dto.CollectionResult;
+import com.skyeye.collector.dto.CollectorConfig;
+import com.skyeye.collector.dto.MetricConfig;
+import com.skyeye.collector.http.AsyncHttpEngine;
+import com.skyeye.collector.plugin.*;
+import com.skyeye.collector.prometheus.PrometheusTextParser;
+import com.skyeye.device.entity.Device;
+import com.skyeye.device.entity.DeviceType;
+import com.skyeye.device.service.DeviceCredentialService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Prometheus数据采集插件
+ * 抓取Prometheus文本格式和OpenMetrics端点，每个保留的序列作为一个指标，序列标签写入采集数据的tags。
+ * 每次抓取保留的序列数不超过 skyeye.collector.prometheus.max-series-per-scrape，指标配置中的 maxSamples 只能调小；
+ * 指标配置未指定白名单时使用 skyeye.collector.prometheus.default-metrics，dropLabels 去掉的标签相同的序列合并为一个
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PrometheusCollectorPlugin extends AbstractCollectorPlugin {
+
+    private static final String DEFAULT_PATH = "/metrics";
+
+
+    /**
+     * 与 tb_collection_data.metric_name 的长度一致
+     */
+    private static final int MAX_METRIC_NAME_LENGTH = 100;
+
+    private static final String ACCEPT = "application/openmetrics-text;version=1.0.0;q=0.5,"
+            + "text/plain;version=0.0.4;q=0.4,*/*;q=0.1";
+
+    private final DeviceCredentialService credentialService;
+    private final HttpCollectorPluginHelper helper;
+    private final AsyncHttpEngine httpEngine;
+
+    /**
+     * 每次抓取最多保留的序列数
+     */
+    @Value("${skyeye.collector.prometheus.max-series-per-scrape:10000}")
+    private int maxSeriesPerScrape = 10000;
+
+    /**
+     * 指标配置未指定白名单时使用的指标白名单，为空时接受全部指标
+     */
+    @Value("${skyeye.collector.prometheus.default-metrics:}")
+    private List<String> defaultMetrics = List.of();
+
+    @Override
+    public String getPluginType() {
+        return "PROMETHEUS";
+    }
+
+    @Override
+    public String getPluginName() {
+        return "Prometheus数据采集插件";
+    }
+
+    @Override
+    public String getPluginVersion() {
+        return "1.0.0";
+    }
+
+    @Override
+    public String getPluginDescription() {
+        return "抓取Prometheus/OpenMetrics指标端点，支持指标白名单和标签过滤，序列标签随数据保存";
+    }
+
+    @Override
+    public boolean supports(DeviceType deviceType) {
+        return deviceType.getProtocols() != null && deviceType.getProtocols().contains("PROMETHEUS");
+    }
+
+    @Override
+    public boolean supportsProtocol(String protocol) {
+        return "PROMETHEUS".equalsIgnoreCase(protocol);
+    }
+
+    @Override
+    public List<String> getSupportedProtocols() {
+        return List.of("PROMETHEUS");
+    }
+
+    @Override
+    public List<String> getSupportedMetricTypes() {
+        return List.of("prometheus_scrape");
+    }
+
+    @Override
+    protected void doInitialize(CollectorConfig config) throws PluginException {
+        log.info("初始化Prometheus采集插件");
+    }
+
+    @Override
+    protected void doDestroy() {
+        log.info("销毁Prometheus采集插件");
+    }
+
+    @Override
+    public boolean supportsAsyncCollection() {
+        return true;
+    }
+
+    @Override
+    public int getRecommendedConcurrency() {
+        return 256; // 请求经共享HttpClient异步发送，等待响应时不占用线程
+    }
+
+    @Override
+    protected CollectionResult doCollect(Device device, MetricConfig metricConfig, CollectionContext context) {
+        return doCollectAsync(device, metricConfig, context).join();
+    }
+
+    @Override
+    protected CompletableFuture<CollectionResult> doCollectAsync(Device device, MetricConfig metricConfig,
+                                                                 CollectionContext context) {
+        LocalDateTime startTime = LocalDateTime.now();
+        Map<String, Object> parameters = metricConfig.getParameters() != null ?
+                metricConfig.getParameters() : Collections.emptyMap();
+
+        CompletableFuture<HttpResponse<byte[]>> future;
+        try {
+            Map<String, Object> credentials = getDeviceCredentials(device, context);
+            HttpRequest request = buildScrapeRequest(device, credentials, metricConfig, parameters,
+                    helper.getRequestTimeoutMs(metricConfig));
+            future = httpEngine.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(failure(device, metricConfig, context, startTime, e));
+        }
+
+        return future.handle((response, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                return failure(device, metricConfig, context, startTime, cause);
+            }
+            try {
+                return scrape(device, metricConfig, context, startTime, parameters, response);
+            } catch (Exception ex) {
+                return failure(device, metricConfig, context, startTime, ex);
+            }
+        });
+    }
+
+    @Override
+    protected ConnectionTestResult doTestConnection(Device device, CollectionContext context) {
+        long startTime = System.currentTimeMillis();
+        try {
+            Map<String, Object> credentials = getDeviceCredentials(device, context);
+            HttpRequest request = buildScrapeRequest(device, credentials, null, Collections.emptyMap(),
+                    context.getTimeout());
+            HttpResponse<Void> response = httpEngine.send(request, HttpResponse.BodyHandlers.discarding()).join();
+
+            long responseTime = System.currentTimeMillis() - startTime;
+            HttpStatusCode status = HttpStatusCode.valueOf(response.statusCode());
+            if (status.is2xxSuccessful()) {
+                return ConnectionTestResult.success("Prometheus端点连接测试成功", responseTime);
+            }
+            return ConnectionTestResult.failure("HTTP_ERROR", "HTTP响应错误: " + status);
+        } catch (Exception e) {
+            log.error("Prometheus连接测试失败: device={}", device.getId(), e);
+            return ConnectionTestResult.failure("CONNECTION_FAILED",
+                    "Prometheus连接测试失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    protected List<AvailableMetric> doDiscoverMetrics(Device device, CollectionContext context) {
+        return List.of(AvailableMetric.builder()
+                .name("prometheus_scrape")
+                .displayName("Prometheus指标抓取")
+                .description("抓取 " + DEFAULT_PATH + " 端点的全部或白名单内的指标")
+                .type("metrics")
+                .dataType(AvailableMetric.DataType.OBJECT)
+                .category("performance")
+                .core(true)
+                .complexity(2)
+                .recommendedInterval(60)
+                .build());
+    }
+
+    @Override
+    protected ConfigValidationResult doValidateConfig(MetricConfig metricConfig) {
+        List<ConfigValidationResult.ValidationError> errors = new ArrayList<>();
+        Map<String, Object> parameters = metricConfig.getParameters();
+        if (parameters != null) {
+            Object path = parameters.get("path");
+            if (path != null && !helper.isValidPath(String.valueOf(path))) {
+                errors.add(ConfigValidationResult.ValidationError.builder()
+                        .field("path")
+                        .errorCode("INVALID_PATH")
+                        .message("指标端点路径格式无效")
+                        .currentValue(path)
+                        .severity(ConfigValidationResult.ValidationError.Severity.HIGH)
+                        .build());
+            }
+            Object metrics = parameters.get("metrics");
+            if (metrics != null && !(metrics instanceof Collection)) {
+                errors.add(ConfigValidationResult.ValidationError.builder()
+                        .field("metrics")
+                        .errorCode("INVALID_ALLOW_LIST")
+                        .message("指标白名单必须是列表")
+                        .currentValue(metrics)
+                        .severity(ConfigValidationResult.ValidationError.Severity.MEDIUM)
+                        .build());
+            }
+        }
+
+        boolean valid = errors.isEmpty();
+        return ConfigValidationResult.builder()
+                .valid(valid)
+                .message(valid ? "Prometheus配置验证通过" : "Prometheus配置验证失败")
+                .errors(errors)
+                .warnings(new ArrayList<>())
+                .build();
+    }
+
+    @Override
+    public Map<String, Object> getConfigTemplate() {
+        Map<String, Object> template = super.getConfigTemplate();
+
+        Map<String, Object> metricExample = new HashMap<>();
+        metricExample.put("path", DEFAULT_PATH);
+        metricExample.put("metrics", List.of("node_cpu_seconds_total", "node_memory_*"));
+        metricExample.put("labelMatchers", Map.of("job", "node"));
+        metricExample.put("dropLabels", List.of("instance"));
+        metricExample.put("maxSamples", maxSeriesPerScrape);
+        template.put("metricExample", metricExample);
+
+        return template;
+    }
+
+    /**
+     * 解析抓取结果：每个序列一个指标，标签通过附加信息写入tags
+     */
+    @SuppressWarnings("unchecked")
+    private CollectionResult scrape(Device device, MetricConfig metricConfig, CollectionContext context,
+                                    LocalDateTime startTime, Map<String, Object> parameters,
+                                    HttpResponse<byte[]> response) throws PluginException {
+        HttpStatusCode status = HttpStatusCode.valueOf(response.statusCode());
+        if (status.isError()) {
+            throw new PluginException("HTTP_ERROR", "HTTP响应错误: " + status.value());
+        }
+        byte[] body = decode(response);
+
+        int maxSamples = maxSeriesPerScrape;
+        if (parameters.get("maxSamples") instanceof Number number && number.intValue() > 0) {
+            maxSamples = maxSamples > 0 ? Math.min(maxSamples, number.intValue()) : number.intValue();
+        }
+        Collection<String> allowList = (Collection<String>) parameters.get("metrics");
+        PrometheusTextParser parser = new PrometheusTextParser(
+                allowList != null && !allowList.isEmpty() ? allowList : defaultMetrics,
+                (Map<String, String>) parameters.get("labelMatchers"),
+                (Collection<String>) parameters.get("dropLabels"),
+                maxSamples);
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        Map<String, Map<String, String>> tags = new HashMap<>();
+        parser.parse(body, 0, body.length, (series, name, labels, value) -> {
+            String metricName = metricName(series, name);
+            metrics.put(metricName, value);
+            if (!labels.isEmpty()) {
+                tags.put(metricName, labels);
+            }
+        });
+
+        if (parser.isTruncated()) {
+            log.warn("Prometheus样本数超过上限，已截断: device={}, maxSamples={}", device.getId(), maxSamples);
+        }
+
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put(CollectionResult.METADATA_TAGS, tags);
+        metadata.put("scrapeBytes", body.length);
+        metadata.put("scrapedSamples", parser.getSamples());
+        metadata.put("acceptedSamples", parser.getAcceptedSamples());
+        metadata.put("truncated", parser.isTruncated());
+
+        return CollectionResult.builder()
+                .success(true)
+                .metrics(metrics)
+                .metadata(metadata)
+                .timestamp(System.currentTimeMillis())
+                .startTime(startTime)
+                .endTime(LocalDateTime.now())
+                .qualityScore(parser.isTruncated() ? 80 : 100)
+                .pluginType(getPluginType())
+                .deviceId(device.getId())
+                .metricName(metricConfig.getMetricName())
+                .sessionId(context.getSessionId())
+                .build();
+    }
+
+    private HttpRequest buildScrapeRequest(Device device, Map<String, Object> credentials, MetricConfig metricConfig,
+                                           Map<String, Object> parameters, long timeoutMs) {
+        String path = String.valueOf(parameters.getOrDefault("path", DEFAULT_PATH));
+        String url = helper.buildTestUrl(device, credentials) + (path.startsWith("/") ? path.substring(1) : path);
+
+        HttpHeaders headers = helper.buildHeaders(credentials, metricConfig);
+        headers.set(HttpHeaders.ACCEPT, ACCEPT);
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        return helper.buildRequest(url, HttpMethod.GET, headers, null, timeoutMs);
+    }
+
+    /**
+     * 指标名超过列长度时用序列名的哈希区分，完整标签仍保存在tags中
+     */
+    private static String metricName(String series, String name) {
+        if (series.length() <= MAX_METRIC_NAME_LENGTH) {
+            return series;
+        }
+        String hash = String.format("#%016x", hash64(series));
+        return name.substring(0, Math.min(name.length(), MAX_METRIC_NAME_LENGTH - hash.length())) + hash;
+    }
+
+    private static long hash64(String text) {
+        // FNV-1a
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static byte[] decode(HttpResponse<byte[]> response) {
+        boolean gzip = response.headers().firstValue(HttpHeaders.CONTENT_ENCODING)
+                .map(encoding -> encoding.equalsIgnoreCase("gzip"))
+                .orElse(false);
+        if (!gzip) {
+            return response.body();
+        }
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("解压响应失败", e);
+        }
+    }
+
+    private CollectionResult failure(Device device, MetricConfig metricConfig, CollectionContext context,
+                                     LocalDateTime startTime, Throwable e) {
+        log.error("Prometheus采集失败: device={}, metric={}",
+                device.getId(), metricConfig.getMetricName(), e);
+
+        return CollectionResult.builder()
+                .success(false)
+                .errorMessage("Prometheus采集失败: " + e.getMessage())
+                .errorCode(helper.determineErrorCode(e))
+                .timestamp(System.currentTimeMillis())
+                .startTime(startTime)
+                .endTime(LocalDateTime.now())
+                .pluginType(getPluginType())
+                .deviceId(device.getId())
+                .metricName(metricConfig.getMetricName())
+                .sessionId(context.getSessionId())
+                .build();
+    }
+
+    /**
+     * 获取设备凭据，Prometheus端点使用HTTP凭据
+     */
+    private Map<String, Object> getDeviceCredentials(Device device, CollectionContext context) {
+        try {
+            Map<String, Object> credentials = context.getCredentials();
+            if (credentials != null && !credentials.isEmpty()) {
+                return credentials;
+            }
+            return credentialService.getDefaultCredential(device.getId(), "HTTP");
+        } catch (Exception e) {
+            log.warn("获取Prometheus端点凭据失败，使用默认配置: device={}", device.getId());
+
+            Map<String, Object> defaultCredentials = new HashMap<>();
+            defaultCredentials.put("protocol", "http");
+            defaultCredentials.put("port", device.getPort() != null ? device.getPort() : 9100);
+            defaultCredentials.put("auth", Map.of("type", "none"));
+            return defaultCredentials;
+        }
+    }
+}
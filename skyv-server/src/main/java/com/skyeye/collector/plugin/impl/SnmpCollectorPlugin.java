@@ -5,6 +5,7 @@ import com.skyeye.collector.dto.CollectionResult;
 import com.skyeye.collector.dto.CollectorConfig;
 import com.skyeye.collector.dto.MetricConfig;
 import com.skyeye.collector.plugin.*;
+import com.skyeye.collector.snmp.AsyncSnmpEngine;
 import com.skyeye.device.entity.Device;
 import com.skyeye.device.entity.DeviceType;
 import com.skyeye.device.service.DeviceCredentialService;
@@ -12,19 +13,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.snmp4j.*;
 import org.snmp4j.event.ResponseEvent;
-import org.snmp4j.mp.*;
-import org.snmp4j.security.SecurityLevel;
-import org.snmp4j.mp.SnmpConstants;
 import org.snmp4j.security.*;
 import org.snmp4j.smi.*;
-import org.snmp4j.transport.DefaultUdpTransportMapping;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * SNMP协议数据采集插件
@@ -39,11 +35,12 @@ public class SnmpCollectorPlugin extends AbstractCollectorPlugin {
 
     private final DeviceCredentialService credentialService;
     private final SnmpCollectorPluginHelper helper;
+    private final AsyncSnmpEngine snmpEngine;
 
     /**
-     * SNMP会话缓存
+     * 批量采集时预取的OID值在上下文共享数据中的键
      */
-    private final Map<String, Snmp> snmpSessions = new ConcurrentHashMap<>();
+    private static final String PREFETCHED_VALUES_KEY = "snmp.prefetchedValues";
 
     /**
      * 常用系统OID
@@ -120,7 +117,10 @@ public class SnmpCollectorPlugin extends AbstractCollectorPlugin {
                 "memory_usage",     // 内存使用率
                 "storage_usage",    // 存储使用率
                 "network_traffic",  // 网络流量
-                "custom_oid"        // 自定义OID查询
+                "custom_oid",       // 自定义OID查询
+                "interface_table",  // 整张接口表（GETBULK遍历）
+                "storage_table",    // 整张存储表
+                "processor_table"   // 整张处理器表
         );
     }
 
@@ -129,11 +129,6 @@ public class SnmpCollectorPlugin extends AbstractCollectorPlugin {
         try {
             log.info("初始化SNMP采集插件");
             
-            // 初始化SNMP4J安全模块
-            MessageDispatcher messageDispatcher = new MessageDispatcherImpl();
-            messageDispatcher.addMessageProcessingModel(new MPv1());
-            messageDispatcher.addMessageProcessingModel(new MPv3());
-            
             // 初始化安全协议
             SecurityProtocols.getInstance().addDefaultProtocols();
             
@@ -145,56 +140,91 @@ public class SnmpCollectorPlugin extends AbstractCollectorPlugin {
 
     @Override
     protected void doDestroy() {
-        log.info("销毁SNMP采集插件");
-        
-        // 关闭所有SNMP会话
-        snmpSessions.values().forEach(snmp -> {
-            try {
-                snmp.close();
-            } catch (IOException e) {
-                log.warn("关闭SNMP会话失败", e);
-            }
-        });
-        snmpSessions.clear();
-        
+        // SNMP传输由AsyncSnmpEngine统一管理，随应用关闭
         log.info("SNMP采集插件销毁完成");
     }
 
+    @Override
+    public boolean supportsAsyncCollection() {
+        return true;
+    }
+
+    @Override
+    public int getRecommendedConcurrency() {
+        return 256; // 请求经AsyncSnmpEngine异步发送，等待响应时不占用线程
+    }
+
     @Override
     protected CollectionResult doCollect(Device device, MetricConfig metricConfig, CollectionContext context) {
+        return doCollectAsync(device, metricConfig, context).join();
+    }
+
+    /**
+     * 批量采集：先把全部指标需要的OID打包查询一次，再逐个指标计算结果
+     */
+    @Override
+    public List<CollectionResult> collectBatch(Device device, List<MetricConfig> metricConfigs, CollectionContext context) {
+        CollectionContext batchContext = context.copy();
+        if (metricConfigs.size() > 1 && initialized.get()) {
+            try {
+                Map<String, Object> credentials = getDeviceCredentials(device, batchContext);
+                configureSnmpV3User(device, credentials);
+                batchContext.getSharedData().put(PREFETCHED_VALUES_KEY,
+                        helper.prefetchMetrics(device, metricConfigs, credentials).join());
+            } catch (Exception e) {
+                log.warn("SNMP批量预取失败，逐个指标采集: device={}, error={}", device.getId(), e.getMessage());
+            }
+        }
+        return super.collectBatch(device, metricConfigs, batchContext);
+    }
+
+    @Override
+    protected CompletableFuture<CollectionResult> doCollectAsync(Device device, MetricConfig metricConfig,
+                                                                 CollectionContext context) {
         LocalDateTime startTime = LocalDateTime.now();
+        Map<String, Object> metadata = new HashMap<>();
         
+        CompletableFuture<Map<String, Object>> future;
         try {
             // 1. 获取设备SNMP凭据
             Map<String, Object> credentials = getDeviceCredentials(device, context);
             
-            // 2. 获取或创建SNMP会话
-            Snmp snmp = getOrCreateSnmpSession(device, credentials);
+            // 2. SNMPv3需要先在共享引擎中注册用户
+            configureSnmpV3User(device, credentials);
             
-            // 3. 根据指标类型执行相应的采集
-            Map<String, Object> metrics = helper.collectMetrics(device, metricConfig, snmp, credentials);
-            
-            return CollectionResult.builder()
-                    .success(true)
-                    .metrics(metrics)
-                    .timestamp(System.currentTimeMillis())
-                    .startTime(startTime)
-                    .endTime(LocalDateTime.now())
-                    .qualityScore(helper.calculateQualityScore(metrics))
-                    .pluginType(getPluginType())
-                    .deviceId(device.getId())
-                    .metricName(metricConfig.getMetricName())
-                    .sessionId(context.getSessionId())
-                    .build();
-                    
+            // 3. 根据指标类型异步执行相应的采集，批量采集时使用预取的值
+            SnmpCollectorPluginHelper.PrefetchedValues prefetched = context.getSharedData() != null ?
+                    (SnmpCollectorPluginHelper.PrefetchedValues) context.getSharedData().get(PREFETCHED_VALUES_KEY) : null;
+            future = helper.collectMetrics(device, metricConfig, credentials, prefetched, metadata);
         } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        
+        return future.handle((metrics, e) -> {
+            if (e == null) {
+                return CollectionResult.builder()
+                        .success(true)
+                        .metrics(metrics)
+                        .timestamp(System.currentTimeMillis())
+                        .startTime(startTime)
+                        .endTime(LocalDateTime.now())
+                        .qualityScore(helper.calculateQualityScore(metrics))
+                        .metadata(metadata)
+                        .pluginType(getPluginType())
+                        .deviceId(device.getId())
+                        .metricName(metricConfig.getMetricName())
+                        .sessionId(context.getSessionId())
+                        .build();
+            }
+            
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
             log.error("SNMP采集失败: device={}, metric={}", 
-                    device.getId(), metricConfig.getMetricName(), e);
+                    device.getId(), metricConfig.getMetricName(), cause);
             
             return CollectionResult.builder()
                     .success(false)
-                    .errorMessage("SNMP采集失败: " + e.getMessage())
-                    .errorCode(helper.determineErrorCode(e))
+                    .errorMessage("SNMP采集失败: " + cause.getMessage())
+                    .errorCode(helper.determineErrorCode(cause))
                     .timestamp(System.currentTimeMillis())
                     .startTime(startTime)
                     .endTime(LocalDateTime.now())
@@ -203,7 +233,7 @@ public class SnmpCollectorPlugin extends AbstractCollectorPlugin {
                     .metricName(metricConfig.getMetricName())
                     .sessionId(context.getSessionId())
                     .build();
-        }
+        });
     }
 
     @Override
@@ -213,19 +243,14 @@ public class SnmpCollectorPlugin extends AbstractCollectorPlugin {
         try {
             // 获取设备凭据
             Map<String, Object> credentials = getDeviceCredentials(device, context);
-            
-            // 创建测试会话
-            Snmp snmp = createSnmpSession(device, credentials);
+            configureSnmpV3User(device, credentials);
             Target target = helper.createTarget(device, credentials);
             
             // 发送系统描述查询测试连接
             PDU pdu = helper.createPDU(credentials);
             pdu.add(new VariableBinding(new OID(SYSTEM_OIDS.get("sysDescr"))));
             
-            ResponseEvent response = snmp.send(pdu, target);
-            
-            // 关闭测试会话
-            snmp.close();
+            ResponseEvent<?> response = snmpEngine.send(pdu, target).join();
             
             long responseTime = System.currentTimeMillis() - startTime;
             
@@ -238,7 +263,6 @@ public class SnmpCollectorPlugin extends AbstractCollectorPlugin {
             }
             
         } catch (Exception e) {
-            long responseTime = System.currentTimeMillis() - startTime;
             log.error("SNMP连接测试失败: device={}", device.getId(), e);
             return ConnectionTestResult.failure("CONNECTION_FAILED", 
                     "SNMP连接测试失败: " + e.getMessage());
@@ -251,26 +275,32 @@ public class SnmpCollectorPlugin extends AbstractCollectorPlugin {
         
         try {
             Map<String, Object> credentials = getDeviceCredentials(device, context);
-            Snmp snmp = getOrCreateSnmpSession(device, credentials);
+            configureSnmpV3User(device, credentials);
             Target target = helper.createTarget(device, credentials);
             
+            // 同时探测各类指标的代表OID
+            CompletableFuture<Boolean> systemInfo = helper.testOid(target, SYSTEM_OIDS.get("sysDescr"), credentials);
+            CompletableFuture<Boolean> interfaceStats = helper.testOid(target, SYSTEM_OIDS.get("ifNumber"), credentials);
+            CompletableFuture<Boolean> cpuUsage = helper.testOid(target, SYSTEM_OIDS.get("hrProcessorLoad"), credentials);
+            CompletableFuture<Boolean> memoryUsage = helper.testOid(target, SYSTEM_OIDS.get("hrMemoryUsed"), credentials);
+            
             // 发现系统信息指标
-            if (helper.testOid(snmp, target, SYSTEM_OIDS.get("sysDescr"), credentials)) {
+            if (systemInfo.join()) {
                 metrics.add(helper.createSystemInfoMetric());
             }
             
             // 发现接口统计指标
-            if (helper.testOid(snmp, target, SYSTEM_OIDS.get("ifNumber"), credentials)) {
+            if (interfaceStats.join()) {
                 metrics.add(helper.createInterfaceStatsMetric());
             }
             
             // 发现CPU指标
-            if (helper.testOid(snmp, target, SYSTEM_OIDS.get("hrProcessorLoad"), credentials)) {
+            if (cpuUsage.join()) {
                 metrics.add(helper.createCpuUsageMetric());
             }
             
             // 发现内存指标
-            if (helper.testOid(snmp, target, SYSTEM_OIDS.get("hrMemoryUsed"), credentials)) {
+            if (memoryUsage.join()) {
                 metrics.add(helper.createMemoryUsageMetric());
             }
             
@@ -398,45 +428,13 @@ public class SnmpCollectorPlugin extends AbstractCollectorPlugin {
     }
 
     /**
-     * 获取或创建SNMP会话
+     * 登记设备的SNMPv3用户
      */
-    private Snmp getOrCreateSnmpSession(Device device, Map<String, Object> credentials) throws IOException {
-        String sessionKey = helper.buildSessionKey(device, credentials);
-        
-        return snmpSessions.computeIfAbsent(sessionKey, key -> {
-            try {
-                return createSnmpSession(device, credentials);
-            } catch (IOException e) {
-                log.error("创建SNMP会话失败: device={}", device.getId(), e);
-                throw new RuntimeException(e);
-            }
-        });
-    }
-
-    /**
-     * 创建SNMP会话
-     */
-    private Snmp createSnmpSession(Device device, Map<String, Object> credentials) throws IOException {
-        DefaultUdpTransportMapping transport = new DefaultUdpTransportMapping();
-        Snmp snmp = new Snmp(transport);
-        
-        String version = (String) credentials.getOrDefault("version", "v2c");
-        
-        if ("v3".equals(version)) {
-            // 配置SNMPv3用户
-            configureSnmpV3User(snmp, credentials);
+    private void configureSnmpV3User(Device device, Map<String, Object> credentials) {
+        if (!"v3".equals(credentials.get("version"))) {
+            return;
         }
         
-        transport.listen();
-        
-        log.debug("创建SNMP会话成功: device={}, version={}", device.getId(), version);
-        return snmp;
-    }
-
-    /**
-     * 配置SNMPv3用户
-     */
-    private void configureSnmpV3User(Snmp snmp, Map<String, Object> credentials) {
         @SuppressWarnings("unchecked")
         Map<String, Object> v3Config = (Map<String, Object>) credentials.get("v3Config");
         if (v3Config == null) return;
@@ -447,9 +445,6 @@ public class SnmpCollectorPlugin extends AbstractCollectorPlugin {
         String privProtocol = (String) v3Config.getOrDefault("privProtocol", "DES");
         String privPassword = (String) v3Config.get("privPassword");
         
-        USM usm = new USM(SecurityProtocols.getInstance(), new OctetString(MPv3.createLocalEngineID()), 0);
-        SecurityModels.getInstance().addSecurityModel(usm);
-        
         // 添加用户
         OID authOID = helper.getAuthProtocolOID(authProtocol);
         OID privOID = helper.getPrivProtocolOID(privProtocol);
@@ -462,6 +457,6 @@ public class SnmpCollectorPlugin extends AbstractCollectorPlugin {
                 privPassword != null ? new OctetString(privPassword) : null
         );
         
-        snmp.getUSM().addUser(user);
+        snmpEngine.addUser(helper.createAddress(device, credentials), user);
     }
 }
@@ -1,11 +1,16 @@
 package com.skyeye.collector.plugin.impl;
 
+import com.skyeye.collector.config.SnmpConfig;
 import com.skyeye.collector.dto.MetricConfig;
 import com.skyeye.collector.plugin.AvailableMetric;
+import com.skyeye.collector.rate.CounterRateCalculator;
+import com.skyeye.collector.snmp.AsyncSnmpEngine;
+import com.skyeye.collector.snmp.SnmpTableRow;
+import com.skyeye.collector.snmp.SnmpTableWalker;
 import com.skyeye.device.entity.Device;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.snmp4j.*;
-import org.snmp4j.event.ResponseEvent;
 import org.snmp4j.mp.SnmpConstants;
 import org.snmp4j.security.*;
 import org.snmp4j.security.SecurityLevel;
@@ -13,8 +18,9 @@ import org.snmp4j.smi.*;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 /**
@@ -25,18 +31,134 @@ import java.util.regex.Pattern;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class SnmpCollectorPluginHelper {
 
     private static final Pattern OID_PATTERN = Pattern.compile("^(\\d+\\.)*\\d+$");
 
+    // 系统信息
+    private static final String SYS_DESCR = "1.3.6.1.2.1.1.1.0";
+    private static final String SYS_UP_TIME = "1.3.6.1.2.1.1.3.0";
+    private static final String SYS_CONTACT = "1.3.6.1.2.1.1.4.0";
+    private static final String SYS_NAME = "1.3.6.1.2.1.1.5.0";
+    private static final String SYS_LOCATION = "1.3.6.1.2.1.1.6.0";
+
+    // 接口表（列OID，需加接口索引）
+    private static final String IF_NUMBER = "1.3.6.1.2.1.2.1.0";
+    private static final String IF_DESCR = "1.3.6.1.2.1.2.2.1.2";
+    private static final String IF_SPEED = "1.3.6.1.2.1.2.2.1.5";
+    private static final String IF_OPER_STATUS = "1.3.6.1.2.1.2.2.1.8";
+    private static final String IF_IN_OCTETS = "1.3.6.1.2.1.2.2.1.10";
+    private static final String IF_IN_UCAST_PKTS = "1.3.6.1.2.1.2.2.1.11";
+    private static final String IF_OUT_OCTETS = "1.3.6.1.2.1.2.2.1.16";
+    private static final String IF_OUT_UCAST_PKTS = "1.3.6.1.2.1.2.2.1.17";
+
+    // 存储表（列OID，需加存储索引）
+    private static final String HR_STORAGE_ALLOCATION_UNITS = "1.3.6.1.2.1.25.2.3.1.4";
+    private static final String HR_STORAGE_SIZE = "1.3.6.1.2.1.25.2.3.1.5";
+    private static final String HR_STORAGE_USED = "1.3.6.1.2.1.25.2.3.1.6";
+
+    // 内存（UCD-SNMP）
+    private static final String MEM_TOTAL = "1.3.6.1.4.1.2021.4.5.0";
+    private static final String MEM_AVAILABLE = "1.3.6.1.4.1.2021.4.6.0";
+
+    /**
+     * CPU使用率OID，按顺序取第一个有值的
+     */
+    private static final String[] CPU_OIDS = {
+            "1.3.6.1.2.1.25.3.3.1.2",     // hrProcessorLoad
+            "1.3.6.1.4.1.2021.11.9.0",    // UCD-SNMP CPU idle
+            "1.3.6.1.4.1.9.2.1.56.0"      // Cisco CPU 5min
+    };
+
+    /**
+     * 计数器类指标的位数
+     */
+    private static final Map<String, Integer> COUNTER_BITS = Map.of(
+            "ifInOctets", 32,
+            "ifOutOctets", 32,
+            "ifInUcastPkts", 32,
+            "ifOutUcastPkts", 32,
+            "ifHCInOctets", 64,
+            "ifHCOutOctets", 64
+    );
+
+    /**
+     * 计数器类指标的列OID，加上接口索引即为计数器实例OID
+     */
+    private static final Map<String, String> COUNTER_OIDS = Map.of(
+            "ifInOctets", IF_IN_OCTETS,
+            "ifOutOctets", IF_OUT_OCTETS,
+            "ifInUcastPkts", IF_IN_UCAST_PKTS,
+            "ifOutUcastPkts", IF_OUT_UCAST_PKTS,
+            "ifHCInOctets", "1.3.6.1.2.1.31.1.1.1.6",
+            "ifHCOutOctets", "1.3.6.1.2.1.31.1.1.1.10"
+    );
+
+    /**
+     * 接口表列：指标名 → 列OID
+     */
+    private static final String[][] IF_TABLE_COLUMNS = {
+            {"ifDescr", IF_DESCR},
+            {"ifSpeed", IF_SPEED},
+            {"ifOperStatus", IF_OPER_STATUS},
+            {"ifInOctets", IF_IN_OCTETS},
+            {"ifInUcastPkts", IF_IN_UCAST_PKTS},
+            {"ifOutOctets", IF_OUT_OCTETS},
+            {"ifOutUcastPkts", IF_OUT_UCAST_PKTS}
+    };
+
+    /**
+     * 扩展接口表（ifXTable）列，与接口表索引相同
+     */
+    private static final String[][] IF_X_TABLE_COLUMNS = {
+            {"ifName", "1.3.6.1.2.1.31.1.1.1.1"},
+            {"ifHCInOctets", "1.3.6.1.2.1.31.1.1.1.6"},
+            {"ifHCOutOctets", "1.3.6.1.2.1.31.1.1.1.10"},
+            {"ifHighSpeed", "1.3.6.1.2.1.31.1.1.1.15"}
+    };
+
+    /**
+     * 存储表列
+     */
+    private static final String[][] HR_STORAGE_COLUMNS = {
+            {"storageDescr", "1.3.6.1.2.1.25.2.3.1.3"},
+            {"storageAllocationUnits", HR_STORAGE_ALLOCATION_UNITS},
+            {"storageSize", HR_STORAGE_SIZE},
+            {"storageUsed", HR_STORAGE_USED}
+    };
+
+    /**
+     * 处理器表列
+     */
+    private static final String[][] HR_PROCESSOR_COLUMNS = {
+            {"cpuLoad", "1.3.6.1.2.1.25.3.3.1.2"}
+    };
+
+    /**
+     * 请求PDU中变量绑定以外部分（消息头、团体名/USM参数、PDU头）的预估长度
+     */
+    private static final int PDU_OVERHEAD = 160;
+
+    private final AsyncSnmpEngine snmpEngine;
+    private final SnmpTableWalker tableWalker;
+    private final SnmpConfig snmpConfig;
+
+    /**
+     * 设备的SNMP地址
+     */
+    public Address createAddress(Device device, Map<String, Object> credentials) {
+        Integer port = (Integer) credentials.getOrDefault("port", 161);
+        return GenericAddress.parse("udp:" + device.getIpAddress() + "/" + port);
+    }
+
     /**
      * 创建SNMP目标
      */
     public Target createTarget(Device device, Map<String, Object> credentials) {
         String version = (String) credentials.getOrDefault("version", "v2c");
-        Integer port = (Integer) credentials.getOrDefault("port", 161);
-        
-        Address targetAddress = GenericAddress.parse("udp:" + device.getIpAddress() + "/" + port);
+        Address targetAddress = createAddress(device, credentials);
+        Object maxSizeRequestPDU = credentials.get("maxSizeRequestPDU");
         
         if ("v3".equals(version)) {
             UserTarget target = new UserTarget();
@@ -53,8 +175,11 @@ public class SnmpCollectorPluginHelper {
                 }
             }
             
-            target.setRetries(2);
-            target.setTimeout(15000);
+            target.setRetries(intValue(credentials.get("retries"), snmpConfig.getDefaultRetries()));
+            target.setTimeout(intValue(credentials.get("timeout"), snmpConfig.getDefaultTimeout()));
+            if (maxSizeRequestPDU instanceof Number) {
+                target.setMaxSizeRequestPDU(((Number) maxSizeRequestPDU).intValue());
+            }
             
             return target;
         } else {
@@ -69,8 +194,11 @@ public class SnmpCollectorPluginHelper {
             
             String community = (String) credentials.getOrDefault("community", "public");
             target.setCommunity(new OctetString(community));
-            target.setRetries(2);
-            target.setTimeout(15000);
+            target.setRetries(intValue(credentials.get("retries"), snmpConfig.getDefaultRetries()));
+            target.setTimeout(intValue(credentials.get("timeout"), snmpConfig.getDefaultTimeout()));
+            if (maxSizeRequestPDU instanceof Number) {
+                target.setMaxSizeRequestPDU(((Number) maxSizeRequestPDU).intValue());
+            }
             
             return target;
         }
@@ -84,6 +212,8 @@ public class SnmpCollectorPluginHelper {
         
         if ("v1".equals(version)) {
             return new PDUv1();
+        } else if ("v3".equals(version)) {
+            return new ScopedPDU();
         } else {
             return new PDU();
         }
@@ -91,72 +221,403 @@ public class SnmpCollectorPluginHelper {
 
     /**
      * 收集指标数据
+     * 先按指标类型列出需要查询的OID，全部异步查询完成后再计算指标
      */
-    public Map<String, Object> collectMetrics(Device device, MetricConfig metricConfig, 
-                                            Snmp snmp, Map<String, Object> credentials) throws IOException {
-        
+    public CompletableFuture<Map<String, Object>> collectMetrics(Device device, MetricConfig metricConfig,
+                                                                 Map<String, Object> credentials) {
+        return collectMetrics(device, metricConfig, credentials, null, new HashMap<>());
+    }
+
+    /**
+     * 收集指标数据，已预取的OID不再查询
+     * 计数器类指标的位数和设备运行时间写入metadata，供速率计算使用
+     */
+    public CompletableFuture<Map<String, Object>> collectMetrics(Device device, MetricConfig metricConfig,
+                                                                 Map<String, Object> credentials,
+                                                                 PrefetchedValues prefetched,
+                                                                 Map<String, Object> metadata) {
         String metricType = metricConfig.getMetricType();
-        Map<String, Object> parameters = metricConfig.getParameters();
+        Map<String, Object> parameters = getParameters(metricConfig);
+
+        if (isTableMetric(metricType, parameters)) {
+            return collectTable(device, metricType, parameters, credentials, metadata);
+        }
+
+        List<String> oids = getRequiredOids(metricType, parameters);
+        CompletableFuture<Map<String, Variable>> values;
+        List<String> missing = prefetched == null ? oids :
+                oids.stream().filter(oid -> !prefetched.contains(oid)).toList();
+        if (prefetched != null && missing.isEmpty()) {
+            values = CompletableFuture.completedFuture(prefetched.getValues());
+        } else {
+            Target target = createTarget(device, credentials);
+            values = getOidValues(target, missing, credentials);
+            if (prefetched != null) {
+                values = values.thenApply(fetched -> {
+                    Map<String, Variable> merged = new HashMap<>(prefetched.getValues());
+                    merged.putAll(fetched);
+                    return merged;
+                });
+            }
+        }
+
+        return values.thenApply(fetched -> {
+            Map<String, Object> metrics = buildMetrics(metricType, parameters, fetched);
+            describeCounters(metricType, parameters, metrics, fetched, metadata);
+            return metrics;
+        });
+    }
+
+    /**
+     * 标记结果中的计数器指标、位数及实例OID，并记录设备运行时间
+     * 单接口采集的指标名不含索引（如 ifInOctets），自定义OID的指标名固定为 value，
+     * 速率计算按实例OID区分序列，不能只看指标名
+     */
+    private void describeCounters(String metricType, Map<String, Object> parameters, Map<String, Object> metrics,
+                                  Map<String, Variable> values, Map<String, Object> metadata) {
+        Map<String, Integer> counters = new HashMap<>();
+        Map<String, String> counterOids = new HashMap<>();
+        Object interfaceIndex = parameters.get("interfaceIndex");
+        for (String metricName : metrics.keySet()) {
+            int dot = metricName.indexOf('.');
+            String column = dot > 0 ? metricName.substring(0, dot) : metricName;
+            Integer bits = COUNTER_BITS.get(column);
+            if (bits != null) {
+                counters.put(metricName, bits);
+                // 整表采集时索引在指标名中，单接口采集时取参数中的接口索引
+                String index = dot > 0 ? metricName.substring(dot + 1) :
+                        interfaceIndex != null ? String.valueOf(interfaceIndex) : null;
+                counterOids.put(metricName, index != null ? COUNTER_OIDS.get(column) + "." + index : COUNTER_OIDS.get(column));
+            }
+        }
+        if ("custom_oid".equals(metricType)) {
+            String oid = (String) parameters.get("oid");
+            Variable value = values.get(oid);
+            if (value instanceof Counter32) {
+                counters.put("value", 32);
+                counterOids.put("value", oid);
+            } else if (value instanceof Counter64) {
+                counters.put("value", 64);
+                counterOids.put("value", oid);
+            }
+        }
+        if (!counters.isEmpty()) {
+            metadata.put(CounterRateCalculator.METADATA_COUNTERS, counters);
+            metadata.put(CounterRateCalculator.METADATA_COUNTER_OIDS, counterOids);
+        }
+
+        Variable upTime = values.get(SYS_UP_TIME);
+        if (upTime instanceof TimeTicks) {
+            metadata.put(CounterRateCalculator.METADATA_UPTIME, upTime.toLong());
+        }
+    }
+
+    /**
+     * 一次性查询设备一组指标需要的全部OID
+     * 不同指标用到的相同OID只查询一次，全部OID按PDU大小打包发送
+     */
+    public CompletableFuture<PrefetchedValues> prefetchMetrics(Device device, List<MetricConfig> metricConfigs,
+                                                               Map<String, Object> credentials) {
+        Set<String> oids = new LinkedHashSet<>();
+        for (MetricConfig metricConfig : metricConfigs) {
+            try {
+                oids.addAll(getRequiredOids(metricConfig.getMetricType(), getParameters(metricConfig)));
+            } catch (IllegalArgumentException e) {
+                // 不支持的指标类型在单个指标采集时报告
+            }
+        }
+
+        Target target = createTarget(device, credentials);
+        return getOidValues(target, oids, credentials)
+                .thenApply(values -> new PrefetchedValues(oids, values));
+    }
+
+    private Map<String, Object> getParameters(MetricConfig metricConfig) {
+        return metricConfig.getParameters() != null ? metricConfig.getParameters() : Collections.emptyMap();
+    }
+
+    /**
+     * 获取指标类型需要查询的OID
+     */
+    private List<String> getRequiredOids(String metricType, Map<String, Object> parameters) {
+        List<String> oids = new ArrayList<>();
+        if (isTableMetric(metricType, parameters)) {
+            return oids;
+        }
+        String interfaceIndex = (String) parameters.get("interfaceIndex");
         
         switch (metricType) {
             case "system_info":
-                return collectSystemInfo(snmp, device, credentials);
+                oids.addAll(Arrays.asList(SYS_DESCR, SYS_UP_TIME, SYS_NAME, SYS_LOCATION, SYS_CONTACT));
+                break;
             case "interface_stats":
-                return collectInterfaceStats(snmp, device, credentials, parameters);
+                addInterfaceStatsOids(oids, interfaceIndex);
+                oids.add(SYS_UP_TIME);
+                break;
             case "cpu_usage":
-                return collectCpuUsage(snmp, device, credentials, parameters);
+                oids.addAll(Arrays.asList(CPU_OIDS));
+                break;
             case "memory_usage":
-                return collectMemoryUsage(snmp, device, credentials, parameters);
+                oids.add(MEM_TOTAL);
+                oids.add(MEM_AVAILABLE);
+                break;
             case "storage_usage":
-                return collectStorageUsage(snmp, device, credentials, parameters);
+                String storageIndex = (String) parameters.get("storageIndex");
+                if (storageIndex != null) {
+                    oids.add(HR_STORAGE_SIZE + "." + storageIndex);
+                    oids.add(HR_STORAGE_USED + "." + storageIndex);
+                    oids.add(HR_STORAGE_ALLOCATION_UNITS + "." + storageIndex);
+                }
+                break;
             case "network_traffic":
-                return collectNetworkTraffic(snmp, device, credentials, parameters);
+                if (interfaceIndex != null) {
+                    oids.add(IF_SPEED + "." + interfaceIndex);
+                    oids.add(IF_OPER_STATUS + "." + interfaceIndex);
+                    oids.add(IF_DESCR + "." + interfaceIndex);
+                    addInterfaceStatsOids(oids, interfaceIndex);
+                    oids.add(SYS_UP_TIME);
+                }
+                break;
             case "custom_oid":
-                return collectCustomOid(snmp, device, credentials, parameters);
+                String oid = (String) parameters.get("oid");
+                if (oid != null) {
+                    oids.add(oid);
+                    oids.add(SYS_UP_TIME);
+                }
+                break;
             default:
                 throw new IllegalArgumentException("不支持的指标类型: " + metricType);
         }
+        return oids;
+    }
+
+    private void addInterfaceStatsOids(List<String> oids, String interfaceIndex) {
+        oids.add(IF_NUMBER);
+        if (interfaceIndex != null) {
+            oids.add(IF_IN_OCTETS + "." + interfaceIndex);
+            oids.add(IF_OUT_OCTETS + "." + interfaceIndex);
+            oids.add(IF_IN_UCAST_PKTS + "." + interfaceIndex);
+            oids.add(IF_OUT_UCAST_PKTS + "." + interfaceIndex);
+        }
     }
 
     /**
-     * 收集系统信息
+     * 是否按整张表采集：表类指标，或接口/存储指标未指定索引时
      */
-    private Map<String, Object> collectSystemInfo(Snmp snmp, Device device, Map<String, Object> credentials) throws IOException {
-        Map<String, Object> metrics = new HashMap<>();
+    private boolean isTableMetric(String metricType, Map<String, Object> parameters) {
+        switch (metricType) {
+            case "interface_table":
+            case "storage_table":
+            case "processor_table":
+                return true;
+            case "interface_stats":
+            case "network_traffic":
+                return parameters.get("interfaceIndex") == null;
+            case "storage_usage":
+                return parameters.get("storageIndex") == null;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 遍历整张表采集，每行的列值以"列名.索引"为键写入结果
+     */
+    private CompletableFuture<Map<String, Object>> collectTable(Device device, String metricType,
+                                                                Map<String, Object> parameters,
+                                                                Map<String, Object> credentials,
+                                                                Map<String, Object> metadata) {
         Target target = createTarget(device, credentials);
+        int maxRepetitions = getMaxRepetitions(parameters);
+        Map<String, Object> metrics = new HashMap<>();
+
+        switch (metricType) {
+            case "storage_usage":
+            case "storage_table":
+                return tableWalker.walk(target, toOids(HR_STORAGE_COLUMNS), maxRepetitions,
+                                row -> putStorageRow(metrics, row))
+                        .thenApply(rows -> {
+                            metrics.put("storageCount", rows);
+                            return metrics;
+                        });
+            case "processor_table":
+                List<Long> loads = new ArrayList<>();
+                return tableWalker.walk(target, toOids(HR_PROCESSOR_COLUMNS), maxRepetitions, row -> {
+                            Long load = row.getLong(0);
+                            if (load != null) {
+                                metrics.put("cpuLoad." + row.getIndex().toDottedString(), load);
+                                loads.add(load);
+                            }
+                        })
+                        .thenApply(rows -> {
+                            metrics.put("processorCount", rows);
+                            if (!loads.isEmpty()) {
+                                metrics.put("cpuUsage", loads.stream().mapToLong(Long::longValue).average().orElse(0));
+                            }
+                            return metrics;
+                        });
+            default:
+                // SNMPv1不支持Counter64，只遍历ifTable
+                boolean v1 = target.getVersion() == SnmpConstants.version1;
+                String[][] columns = v1 ? IF_TABLE_COLUMNS : concat(IF_TABLE_COLUMNS, IF_X_TABLE_COLUMNS);
+                // 运行时间与表遍历并行查询，用于计数器速率的重启检测
+                CompletableFuture<Map<String, Variable>> upTime =
+                        getOidValues(target, Collections.singletonList(SYS_UP_TIME), credentials);
+                return tableWalker.walk(target, toOids(columns), maxRepetitions, row -> putRow(metrics, columns, row))
+                        .thenCombine(upTime, (rows, values) -> {
+                            metrics.put("ifCount", rows);
+                            describeCounters(metricType, parameters, metrics, values, metadata);
+                            return metrics;
+                        });
+        }
+    }
+
+    private void putRow(Map<String, Object> metrics, String[][] columns, SnmpTableRow row) {
+        String index = row.getIndex().toDottedString();
+        for (int c = 0; c < columns.length; c++) {
+            Variable value = row.getValue(c);
+            if (value == null) {
+                continue;
+            }
+            Object metricValue;
+            if (value instanceof OctetString) {
+                metricValue = value.toString();
+            } else {
+                Long number = row.getLong(c);
+                metricValue = number != null ? number : value.toString();
+            }
+            metrics.put(columns[c][0] + "." + index, metricValue);
+        }
+    }
+
+    private void putStorageRow(Map<String, Object> metrics, SnmpTableRow row) {
+        String index = row.getIndex().toDottedString();
+        String descr = row.getText(0);
+        Long units = row.getLong(1);
+        Long size = row.getLong(2);
+        Long used = row.getLong(3);
+        if (descr != null) {
+            metrics.put("storageDescr." + index, descr);
+        }
+        if (units != null && size != null && used != null) {
+            metrics.put("storageSize." + index, size * units);
+            metrics.put("storageUsed." + index, used * units);
+            if (size > 0) {
+                metrics.put("storageUsagePercent." + index, (double) used / size * 100);
+            }
+        }
+    }
+
+    private int getMaxRepetitions(Map<String, Object> parameters) {
+        Object value = parameters.get("maxRepetitions");
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Integer.parseInt((String) value);
+            } catch (NumberFormatException e) {
+                log.warn("maxRepetitions参数无效: {}", value);
+            }
+        }
+        return snmpConfig.getTable().getMaxRepetitions();
+    }
+
+    /**
+     * 凭据中的整数配置（数值或数字字符串），缺省或无效时返回默认值
+     */
+    private static int intValue(Object value, int defaultValue) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Integer.parseInt((String) value);
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    private static List<OID> toOids(String[][] columns) {
+        List<OID> oids = new ArrayList<>(columns.length);
+        for (String[] column : columns) {
+            oids.add(new OID(column[1]));
+        }
+        return oids;
+    }
+
+    private static String[][] concat(String[][] a, String[][] b) {
+        String[][] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    /**
+     * 根据查询到的OID值计算指标
+     */
+    private Map<String, Object> buildMetrics(String metricType, Map<String, Object> parameters,
+                                             Map<String, Variable> values) {
+        switch (metricType) {
+            case "system_info":
+                return buildSystemInfo(values);
+            case "interface_stats":
+                return buildInterfaceStats(values, parameters);
+            case "cpu_usage":
+                return buildCpuUsage(values);
+            case "memory_usage":
+                return buildMemoryUsage(values);
+            case "storage_usage":
+                return buildStorageUsage(values, parameters);
+            case "network_traffic":
+                return buildNetworkTraffic(values, parameters);
+            case "custom_oid":
+                return buildCustomOid(values, parameters);
+            default:
+                throw new IllegalArgumentException("不支持的指标类型: " + metricType);
+        }
+    }
+
+    /**
+     * 系统信息
+     */
+    private Map<String, Object> buildSystemInfo(Map<String, Variable> values) {
+        Map<String, Object> metrics = new HashMap<>();
         
         // 系统描述
-        String sysDescr = getSingleOidValue(snmp, target, "1.3.6.1.2.1.1.1.0", credentials);
+        String sysDescr = text(values, SYS_DESCR);
         if (sysDescr != null) {
             metrics.put("sysDescr", sysDescr);
         }
         
         // 系统运行时间
-        String sysUpTime = getSingleOidValue(snmp, target, "1.3.6.1.2.1.1.3.0", credentials);
+        Variable sysUpTime = values.get(SYS_UP_TIME);
         if (sysUpTime != null) {
             try {
-                long upTime = Long.parseLong(sysUpTime) / 100; // 转换为秒
+                long ticks = sysUpTime instanceof TimeTicks ? sysUpTime.toLong() : Long.parseLong(sysUpTime.toString());
+                long upTime = ticks / 100; // 转换为秒
                 metrics.put("sysUpTime", upTime);
                 metrics.put("sysUpTimeFormatted", formatUpTime(upTime));
             } catch (NumberFormatException e) {
-                metrics.put("sysUpTime", sysUpTime);
+                metrics.put("sysUpTime", sysUpTime.toString());
             }
         }
         
         // 系统名称
-        String sysName = getSingleOidValue(snmp, target, "1.3.6.1.2.1.1.5.0", credentials);
+        String sysName = text(values, SYS_NAME);
         if (sysName != null) {
             metrics.put("sysName", sysName);
         }
         
         // 系统位置
-        String sysLocation = getSingleOidValue(snmp, target, "1.3.6.1.2.1.1.6.0", credentials);
+        String sysLocation = text(values, SYS_LOCATION);
         if (sysLocation != null) {
             metrics.put("sysLocation", sysLocation);
         }
         
         // 系统联系人
-        String sysContact = getSingleOidValue(snmp, target, "1.3.6.1.2.1.1.4.0", credentials);
+        String sysContact = text(values, SYS_CONTACT);
         if (sysContact != null) {
             metrics.put("sysContact", sysContact);
         }
@@ -165,47 +626,40 @@ public class SnmpCollectorPluginHelper {
     }
 
     /**
-     * 收集接口统计信息
+     * 接口统计信息
      */
-    private Map<String, Object> collectInterfaceStats(Snmp snmp, Device device, 
-                                                    Map<String, Object> credentials, 
-                                                    Map<String, Object> parameters) throws IOException {
+    private Map<String, Object> buildInterfaceStats(Map<String, Variable> values, Map<String, Object> parameters) {
         Map<String, Object> metrics = new HashMap<>();
-        Target target = createTarget(device, credentials);
         
-        // 获取接口数量
-        String ifNumber = getSingleOidValue(snmp, target, "1.3.6.1.2.1.2.1.0", credentials);
+        // 接口数量
+        String ifNumber = text(values, IF_NUMBER);
         if (ifNumber != null) {
             metrics.put("ifNumber", Integer.parseInt(ifNumber));
         }
         
-        // 获取特定接口的统计信息
+        // 特定接口的统计信息
         String interfaceIndex = (String) parameters.get("interfaceIndex");
         if (interfaceIndex != null) {
             // 接口入站字节数
-            String ifInOctets = getSingleOidValue(snmp, target, 
-                    "1.3.6.1.2.1.2.2.1.10." + interfaceIndex, credentials);
+            String ifInOctets = text(values, IF_IN_OCTETS + "." + interfaceIndex);
             if (ifInOctets != null) {
                 metrics.put("ifInOctets", Long.parseLong(ifInOctets));
             }
             
             // 接口出站字节数
-            String ifOutOctets = getSingleOidValue(snmp, target, 
-                    "1.3.6.1.2.1.2.2.1.16." + interfaceIndex, credentials);
+            String ifOutOctets = text(values, IF_OUT_OCTETS + "." + interfaceIndex);
             if (ifOutOctets != null) {
                 metrics.put("ifOutOctets", Long.parseLong(ifOutOctets));
             }
             
             // 接口入站包数
-            String ifInUcastPkts = getSingleOidValue(snmp, target, 
-                    "1.3.6.1.2.1.2.2.1.11." + interfaceIndex, credentials);
+            String ifInUcastPkts = text(values, IF_IN_UCAST_PKTS + "." + interfaceIndex);
             if (ifInUcastPkts != null) {
                 metrics.put("ifInUcastPkts", Long.parseLong(ifInUcastPkts));
             }
             
             // 接口出站包数
-            String ifOutUcastPkts = getSingleOidValue(snmp, target, 
-                    "1.3.6.1.2.1.2.2.1.17." + interfaceIndex, credentials);
+            String ifOutUcastPkts = text(values, IF_OUT_UCAST_PKTS + "." + interfaceIndex);
             if (ifOutUcastPkts != null) {
                 metrics.put("ifOutUcastPkts", Long.parseLong(ifOutUcastPkts));
             }
@@ -215,31 +669,21 @@ public class SnmpCollectorPluginHelper {
     }
 
     /**
-     * 收集CPU使用率
+     * CPU使用率，按顺序取第一个有值的OID
      */
-    private Map<String, Object> collectCpuUsage(Snmp snmp, Device device, 
-                                              Map<String, Object> credentials, 
-                                              Map<String, Object> parameters) throws IOException {
+    private Map<String, Object> buildCpuUsage(Map<String, Variable> values) {
         Map<String, Object> metrics = new HashMap<>();
-        Target target = createTarget(device, credentials);
         
-        // 尝试多种CPU使用率OID
-        String[] cpuOids = {
-                "1.3.6.1.2.1.25.3.3.1.2",     // hrProcessorLoad
-                "1.3.6.1.4.1.2021.11.9.0",    // UCD-SNMP CPU idle
-                "1.3.6.1.4.1.9.2.1.56.0"      // Cisco CPU 5min
-        };
-        
-        for (String baseOid : cpuOids) {
+        for (String oid : CPU_OIDS) {
             try {
-                String cpuValue = getSingleOidValue(snmp, target, baseOid, credentials);
+                String cpuValue = text(values, oid);
                 if (cpuValue != null) {
                     double usage = Double.parseDouble(cpuValue);
                     metrics.put("cpuUsage", usage);
                     break;
                 }
             } catch (Exception e) {
-                log.debug("CPU OID {} 查询失败", baseOid);
+                log.debug("CPU OID {} 查询失败", oid);
             }
         }
         
@@ -247,20 +691,16 @@ public class SnmpCollectorPluginHelper {
     }
 
     /**
-     * 收集内存使用率
+     * 内存使用率
      */
-    private Map<String, Object> collectMemoryUsage(Snmp snmp, Device device, 
-                                                  Map<String, Object> credentials, 
-                                                  Map<String, Object> parameters) throws IOException {
+    private Map<String, Object> buildMemoryUsage(Map<String, Variable> values) {
         Map<String, Object> metrics = new HashMap<>();
-        Target target = createTarget(device, credentials);
         
-        // 尝试不同的内存OID
         try {
             // 物理内存总量
-            String memTotal = getSingleOidValue(snmp, target, "1.3.6.1.4.1.2021.4.5.0", credentials);
+            String memTotal = text(values, MEM_TOTAL);
             // 可用内存
-            String memAvailable = getSingleOidValue(snmp, target, "1.3.6.1.4.1.2021.4.6.0", credentials);
+            String memAvailable = text(values, MEM_AVAILABLE);
             
             if (memTotal != null && memAvailable != null) {
                 long total = Long.parseLong(memTotal);
@@ -274,33 +714,27 @@ public class SnmpCollectorPluginHelper {
                 metrics.put("memUsagePercent", usagePercent);
             }
         } catch (Exception e) {
-            log.debug("内存使用率查询失败", e);
+            log.debug("内存使用率计算失败", e);
         }
         
         return metrics;
     }
 
     /**
-     * 收集存储使用率
+     * 存储使用率
      */
-    private Map<String, Object> collectStorageUsage(Snmp snmp, Device device, 
-                                                   Map<String, Object> credentials, 
-                                                   Map<String, Object> parameters) throws IOException {
+    private Map<String, Object> buildStorageUsage(Map<String, Variable> values, Map<String, Object> parameters) {
         Map<String, Object> metrics = new HashMap<>();
-        Target target = createTarget(device, credentials);
         
         String storageIndex = (String) parameters.get("storageIndex");
         if (storageIndex != null) {
             try {
                 // 存储总大小
-                String storageSize = getSingleOidValue(snmp, target, 
-                        "1.3.6.1.2.1.25.2.3.1.5." + storageIndex, credentials);
+                String storageSize = text(values, HR_STORAGE_SIZE + "." + storageIndex);
                 // 已使用大小
-                String storageUsed = getSingleOidValue(snmp, target, 
-                        "1.3.6.1.2.1.25.2.3.1.6." + storageIndex, credentials);
+                String storageUsed = text(values, HR_STORAGE_USED + "." + storageIndex);
                 // 分配单元大小
-                String allocationUnits = getSingleOidValue(snmp, target, 
-                        "1.3.6.1.2.1.25.2.3.1.4." + storageIndex, credentials);
+                String allocationUnits = text(values, HR_STORAGE_ALLOCATION_UNITS + "." + storageIndex);
                 
                 if (storageSize != null && storageUsed != null && allocationUnits != null) {
                     long size = Long.parseLong(storageSize);
@@ -316,7 +750,7 @@ public class SnmpCollectorPluginHelper {
                     metrics.put("storageUsagePercent", usagePercent);
                 }
             } catch (Exception e) {
-                log.debug("存储使用率查询失败", e);
+                log.debug("存储使用率计算失败", e);
             }
         }
         
@@ -324,28 +758,20 @@ public class SnmpCollectorPluginHelper {
     }
 
     /**
-     * 收集网络流量
+     * 网络流量
      */
-    private Map<String, Object> collectNetworkTraffic(Snmp snmp, Device device, 
-                                                     Map<String, Object> credentials, 
-                                                     Map<String, Object> parameters) throws IOException {
+    private Map<String, Object> buildNetworkTraffic(Map<String, Variable> values, Map<String, Object> parameters) {
         Map<String, Object> metrics = new HashMap<>();
-        Target target = createTarget(device, credentials);
         
         String interfaceIndex = (String) parameters.get("interfaceIndex");
         if (interfaceIndex != null) {
             try {
                 // 接口速度
-                String ifSpeed = getSingleOidValue(snmp, target, 
-                        "1.3.6.1.2.1.2.2.1.5." + interfaceIndex, credentials);
-                
+                String ifSpeed = text(values, IF_SPEED + "." + interfaceIndex);
                 // 接口状态
-                String ifOperStatus = getSingleOidValue(snmp, target, 
-                        "1.3.6.1.2.1.2.2.1.8." + interfaceIndex, credentials);
-                
+                String ifOperStatus = text(values, IF_OPER_STATUS + "." + interfaceIndex);
                 // 接口描述
-                String ifDescr = getSingleOidValue(snmp, target, 
-                        "1.3.6.1.2.1.2.2.1.2." + interfaceIndex, credentials);
+                String ifDescr = text(values, IF_DESCR + "." + interfaceIndex);
                 
                 if (ifSpeed != null) {
                     metrics.put("ifSpeed", Long.parseLong(ifSpeed));
@@ -357,12 +783,11 @@ public class SnmpCollectorPluginHelper {
                     metrics.put("ifDescr", ifDescr);
                 }
                 
-                // 获取流量统计（需要与接口统计结合计算速率）
-                collectInterfaceStats(snmp, device, credentials, parameters)
-                        .forEach(metrics::put);
+                // 流量统计（需要与接口统计结合计算速率）
+                metrics.putAll(buildInterfaceStats(values, parameters));
                 
             } catch (Exception e) {
-                log.debug("网络流量查询失败", e);
+                log.debug("网络流量计算失败", e);
             }
         }
         
@@ -370,19 +795,16 @@ public class SnmpCollectorPluginHelper {
     }
 
     /**
-     * 收集自定义OID数据
+     * 自定义OID数据
      */
-    private Map<String, Object> collectCustomOid(Snmp snmp, Device device, 
-                                                Map<String, Object> credentials, 
-                                                Map<String, Object> parameters) throws IOException {
+    private Map<String, Object> buildCustomOid(Map<String, Variable> values, Map<String, Object> parameters) {
         Map<String, Object> metrics = new HashMap<>();
-        Target target = createTarget(device, credentials);
         
         String oid = (String) parameters.get("oid");
         String dataType = (String) parameters.getOrDefault("dataType", "STRING");
         
         if (oid != null) {
-            String value = getSingleOidValue(snmp, target, oid, credentials);
+            String value = text(values, oid);
             if (value != null) {
                 Object parsedValue = parseValueByType(value, dataType);
                 metrics.put("value", parsedValue);
@@ -395,23 +817,104 @@ public class SnmpCollectorPluginHelper {
     }
 
     /**
-     * 获取单个OID的值
+     * 异步查询一组OID的值
+     * 按PDU大小上限把OID打包成尽量少的GET请求，各请求并发发送，响应按请求中的位置对应回OID
+     * 
+     * @return OID → 值，无响应或设备不支持的OID不包含在结果中
+     */
+    public CompletableFuture<Map<String, Variable>> getOidValues(Target target, Collection<String> oids,
+                                                                 Map<String, Object> credentials) {
+        List<String> distinctOids = new ArrayList<>(new LinkedHashSet<>(oids));
+        if (distinctOids.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
+
+        Map<String, Variable> values = new ConcurrentHashMap<>();
+        List<List<String>> batches = packOids(distinctOids, target.getMaxSizeRequestPDU());
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[batches.size()];
+        for (int i = 0; i < batches.size(); i++) {
+            futures[i] = getBatchValues(target, batches.get(i), credentials, values);
+        }
+        return CompletableFuture.allOf(futures).thenApply(v -> values);
+    }
+
+    /**
+     * 按请求PDU大小和变量绑定数上限分组
      */
-    private String getSingleOidValue(Snmp snmp, Target target, String oid, Map<String, Object> credentials) throws IOException {
+    private List<List<String>> packOids(List<String> oids, int maxSizeRequestPDU) {
+        SnmpConfig.BatchConfig batchConfig = snmpConfig.getBatch();
+        int sizeLimit = Math.min(maxSizeRequestPDU, batchConfig.getMaxPduSize()) - PDU_OVERHEAD;
+        int varbindLimit = Math.max(1, batchConfig.getMaxVarbindsPerPdu());
+
+        List<List<String>> batches = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int currentSize = 0;
+        for (String oid : oids) {
+            int varbindSize = new VariableBinding(new OID(oid)).getBERLength();
+            if (!current.isEmpty() && (currentSize + varbindSize > sizeLimit || current.size() >= varbindLimit)) {
+                batches.add(current);
+                current = new ArrayList<>();
+                currentSize = 0;
+            }
+            current.add(oid);
+            currentSize += varbindSize;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    /**
+     * 发送一个多变量绑定的GET请求，把响应值写入values
+     * <p>
+     * 设备返回tooBig时拆成两半重发；SNMPv1中单个OID不存在会使整个请求返回noSuchName，去掉该OID后重发其余部分。
+     */
+    private CompletableFuture<Void> getBatchValues(Target target, List<String> oids, Map<String, Object> credentials,
+                                                   Map<String, Variable> values) {
         PDU pdu = createPDU(credentials);
-        pdu.add(new VariableBinding(new OID(oid)));
+        for (String oid : oids) {
+            pdu.add(new VariableBinding(new OID(oid)));
+        }
         pdu.setType(PDU.GET);
-        
-        ResponseEvent response = snmp.send(pdu, target);
-        
-        if (response.getResponse() != null && response.getResponse().getErrorStatus() == PDU.noError) {
-            VariableBinding vb = response.getResponse().get(0);
-            if (vb.getVariable() != Null.instance) {
-                return vb.getVariable().toString();
+
+        return snmpEngine.send(pdu, target).thenCompose(event -> {
+            PDU response = event.getResponse();
+            if (response == null) {
+                return CompletableFuture.completedFuture(null);
             }
-        }
-        
-        return null;
+
+            int errorStatus = response.getErrorStatus();
+            if (errorStatus == PDU.tooBig && oids.size() > 1) {
+                int half = oids.size() / 2;
+                return CompletableFuture.allOf(
+                        getBatchValues(target, oids.subList(0, half), credentials, values),
+                        getBatchValues(target, oids.subList(half, oids.size()), credentials, values));
+            }
+            int errorIndex = response.getErrorIndex();
+            if (errorStatus == PDU.noSuchName && oids.size() > 1 && errorIndex > 0 && errorIndex <= oids.size()) {
+                List<String> remaining = new ArrayList<>(oids);
+                remaining.remove(errorIndex - 1);
+                return getBatchValues(target, remaining, credentials, values);
+            }
+            if (errorStatus != PDU.noError) {
+                log.debug("SNMP请求返回错误: target={}, status={}", target.getAddress(), response.getErrorStatusText());
+                return CompletableFuture.completedFuture(null);
+            }
+
+            for (int i = 0; i < Math.min(oids.size(), response.size()); i++) {
+                VariableBinding vb = response.get(i);
+                if (!vb.isException() && !(vb.getVariable() instanceof Null)) {
+                    values.put(oids.get(i), vb.getVariable());
+                }
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    private String text(Map<String, Variable> values, String oid) {
+        Variable value = values.get(oid);
+        return value != null ? value.toString() : null;
     }
 
     /**
@@ -453,13 +956,9 @@ public class SnmpCollectorPluginHelper {
     /**
      * 测试OID是否可访问
      */
-    public boolean testOid(Snmp snmp, Target target, String oid, Map<String, Object> credentials) {
-        try {
-            String value = getSingleOidValue(snmp, target, oid, credentials);
-            return value != null;
-        } catch (Exception e) {
-            return false;
-        }
+    public CompletableFuture<Boolean> testOid(Target target, String oid, Map<String, Object> credentials) {
+        return getOidValues(target, Collections.singletonList(oid), credentials)
+                .handle((values, e) -> e == null && values.containsKey(oid));
     }
 
     /**
@@ -498,7 +997,7 @@ public class SnmpCollectorPluginHelper {
     /**
      * 确定错误代码
      */
-    public String determineErrorCode(Exception e) {
+    public String determineErrorCode(Throwable e) {
         if (e instanceof IOException) {
             return "NETWORK_ERROR";
         } else if (e instanceof NumberFormatException) {
@@ -619,4 +1118,33 @@ public class SnmpCollectorPluginHelper {
                 .recommendedInterval(60)
                 .build();
     }
+
+    /**
+     * 预取的OID值
+     */
+    public static final class PrefetchedValues {
+
+        /**
+         * 已查询的OID（包括无值的）
+         */
+        private final Set<String> oids;
+
+        /**
+         * OID → 值
+         */
+        private final Map<String, Variable> values;
+
+        PrefetchedValues(Set<String> oids, Map<String, Variable> values) {
+            this.oids = oids;
+            this.values = values;
+        }
+
+        public boolean contains(String oid) {
+            return oids.contains(oid);
+        }
+
+        public Map<String, Variable> getValues() {
+            return values;
+        }
+    }
 }
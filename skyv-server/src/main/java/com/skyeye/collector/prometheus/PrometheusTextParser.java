@@ -0,0 +1,496 @@
+package com.skyeye.collector.prometheus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Prometheus文本格式（0.0.4）和OpenMetrics解析器
+ * <p>
+ * 直接在响应字节上按行扫描，指标名、标签名和标签值都以字节区间比较：未通过指标白名单或标签匹配的样本
+ * 不创建任何字符串，只有保留的样本才生成序列名和标签；数值在字节上直接解析，只有科学计数法等少见形式
+ * 才回退到 {@link Double#parseDouble}。十万样本量级的抓取只为最终保留的样本分配对象。
+ * <p>
+ * 白名单以 {@code *} 结尾时按前缀匹配；直方图和摘要的 _bucket、_sum、_count 等后缀样本按指标族名匹配。
+ * 实例记录了行内标签位置，不是线程安全的，每次抓取创建一个。
+ *
+ * @author SkyEye Team
+ */
+public final class PrometheusTextParser {
+
+    /**
+     * 样本回调
+     */
+    @FunctionalInterface
+    public interface SampleHandler {
+
+        /**
+         * @param series 序列名，形如 {@code name{label="value",...}}，不含被丢弃的标签
+         * @param name   指标名
+         * @param labels 标签，无标签时为空Map
+         * @param value  样本值
+         */
+        void onSample(String series, String name, Map<String, String> labels, double value);
+    }
+
+    private static final byte[][] FAMILY_SUFFIXES = {
+            ascii("_bucket"), ascii("_sum"), ascii("_count"), ascii("_total"), ascii("_created"), ascii("_info")
+    };
+
+    private static final byte[] EOF_MARKER = ascii("# EOF");
+
+    private static final double[] POWERS_OF_TEN = new double[16];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final NameTable exactNames;
+
+    private final byte[][] namePrefixes;
+
+    private final byte[][] matcherNames;
+
+    private final byte[][] matcherValues;
+
+    private final Set<String> dropLabels;
+
+    private final int maxSamples;
+
+    /**
+     * 当前行的标签区间：名称起止、值起止、值是否含转义，每个标签5个元素
+     */
+    private int[] labelPositions = new int[40];
+
+    private int labelCount;
+
+    private final StringBuilder seriesBuilder = new StringBuilder(128);
+
+    private long lines;
+
+    private long samples;
+
+    private long acceptedSamples;
+
+    private boolean truncated;
+
+    /**
+     * @param allowList     指标名白名单，为空时接受全部指标
+     * @param labelMatchers 样本必须具有的标签值
+     * @param dropLabels    保存前去掉的标签
+     * @param maxSamples    最多保留的样本数，小于等于0时不限制
+     */
+    public PrometheusTextParser(Collection<String> allowList, Map<String, String> labelMatchers,
+                                Collection<String> dropLabels, int maxSamples) {
+        List<byte[]> exact = new ArrayList<>();
+        List<byte[]> prefixes = new ArrayList<>();
+        if (allowList != null) {
+            for (String name : allowList) {
+                if (name.endsWith("*")) {
+                    prefixes.add(ascii(name.substring(0, name.length() - 1)));
+                } else {
+                    exact.add(ascii(name));
+                }
+            }
+        }
+        this.exactNames = exact.isEmpty() ? null : new NameTable(exact);
+        this.namePrefixes = prefixes.toArray(new byte[0][]);
+
+        int matcherCount = labelMatchers != null ? labelMatchers.size() : 0;
+        this.matcherNames = new byte[matcherCount][];
+        this.matcherValues = new byte[matcherCount][];
+        if (labelMatchers != null) {
+            int i = 0;
+            for (Map.Entry<String, String> matcher : labelMatchers.entrySet()) {
+                matcherNames[i] = matcher.getKey().getBytes(StandardCharsets.UTF_8);
+                matcherValues[i] = matcher.getValue().getBytes(StandardCharsets.UTF_8);
+                i++;
+            }
+        }
+        this.dropLabels = dropLabels != null ? new HashSet<>(dropLabels) : Collections.emptySet();
+        this.maxSamples = maxSamples;
+    }
+
+    /**
+     * 解析整个响应体
+     */
+    public void parse(byte[] buffer, int offset, int length, SampleHandler handler) {
+        int end = offset + length;
+        int position = offset;
+        while (position < end && !truncated) {
+            int lineEnd = indexOf(buffer, (byte) '\n', position, end);
+            int next = lineEnd + 1;
+            if (lineEnd > position && buffer[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+            lines++;
+            if (!parseLine(buffer, position, lineEnd, handler)) {
+                break;
+            }
+            position = next;
+        }
+    }
+
+    /**
+     * 扫描的行数
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * 扫描的样本行数
+     */
+    public long getSamples() {
+        return samples;
+    }
+
+    /**
+     * 保留的样本数
+     */
+    public long getAcceptedSamples() {
+        return acceptedSamples;
+    }
+
+    /**
+     * 是否因达到样本数上限而提前结束
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * @return 遇到OpenMetrics结束标记时返回false
+     */
+    private boolean parseLine(byte[] b, int start, int end, SampleHandler handler) {
+        int p = skipSpaces(b, start, end);
+        if (p >= end) {
+            return true;
+        }
+        if (b[p] == '#') {
+            return !startsWith(b, p, end, EOF_MARKER);
+        }
+        samples++;
+
+        int nameStart = p;
+        while (p < end && b[p] != '{' && b[p] != ' ' && b[p] != '\t') {
+            p++;
+        }
+        int nameEnd = p;
+        if (nameEnd == nameStart || !nameAllowed(b, nameStart, nameEnd)) {
+            return true;
+        }
+
+        labelCount = 0;
+        if (p < end && b[p] == '{') {
+            p = parseLabels(b, p + 1, end);
+            if (p < 0) {
+                return true;
+            }
+        }
+        if (!labelsMatch(b)) {
+            return true;
+        }
+
+        p = skipSpaces(b, p, end);
+        int valueStart = p;
+        while (p < end && b[p] != ' ' && b[p] != '\t') {
+            p++;
+        }
+        if (p == valueStart) {
+            return true;
+        }
+        double value;
+        try {
+            value = parseValue(b, valueStart, p);
+        } catch (NumberFormatException e) {
+            return true;
+        }
+
+        emit(b, nameStart, nameEnd, value, handler);
+        if (maxSamples > 0 && acceptedSamples >= maxSamples) {
+            truncated = true;
+        }
+        return true;
+    }
+
+    /**
+     * 记录标签区间
+     *
+     * @return 标签结束后的位置，格式错误时返回-1
+     */
+    private int parseLabels(byte[] b, int p, int end) {
+        while (p < end) {
+            while (p < end && (b[p] == ' ' || b[p] == ',')) {
+                p++;
+            }
+            if (p >= end) {
+                return -1;
+            }
+            if (b[p] == '}') {
+                return p + 1;
+            }
+            int labelStart = p;
+            while (p < end && b[p] != '=' && b[p] != ' ') {
+                p++;
+            }
+            int labelEnd = p;
+            p = skipSpaces(b, p, end);
+            if (p >= end || b[p] != '=') {
+                return -1;
+            }
+            p = skipSpaces(b, p + 1, end);
+            if (p >= end || b[p] != '"') {
+                return -1;
+            }
+            int valueStart = ++p;
+            boolean escaped = false;
+            while (p < end && b[p] != '"') {
+                if (b[p] == '\\') {
+                    escaped = true;
+                    p++;
+                }
+                p++;
+            }
+            if (p >= end) {
+                return -1;
+            }
+            addLabel(labelStart, labelEnd, valueStart, p, escaped);
+            p++;
+        }
+        return -1;
+    }
+
+    private void addLabel(int nameStart, int nameEnd, int valueStart, int valueEnd, boolean escaped) {
+        int index = labelCount * 5;
+        if (index + 5 > labelPositions.length) {
+            labelPositions = Arrays.copyOf(labelPositions, labelPositions.length * 2);
+        }
+        labelPositions[index] = nameStart;
+        labelPositions[index + 1] = nameEnd;
+        labelPositions[index + 2] = valueStart;
+        labelPositions[index + 3] = valueEnd;
+        labelPositions[index + 4] = escaped ? 1 : 0;
+        labelCount++;
+    }
+
+    private boolean labelsMatch(byte[] b) {
+        for (int m = 0; m < matcherNames.length; m++) {
+            boolean matched = false;
+            for (int i = 0; i < labelCount && !matched; i++) {
+                int index = i * 5;
+                if (regionEquals(b, labelPositions[index], labelPositions[index + 1], matcherNames[m])) {
+                    matched = labelPositions[index + 4] == 0 ?
+                            regionEquals(b, labelPositions[index + 2], labelPositions[index + 3], matcherValues[m]) :
+                            unescape(b, labelPositions[index + 2], labelPositions[index + 3])
+                                    .equals(new String(matcherValues[m], StandardCharsets.UTF_8));
+                }
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void emit(byte[] b, int nameStart, int nameEnd, double value, SampleHandler handler) {
+        String name = new String(b, nameStart, nameEnd - nameStart, StandardCharsets.ISO_8859_1);
+        Map<String, String> labels = labelCount == 0 ? Collections.emptyMap() : new LinkedHashMap<>(labelCount * 2);
+
+        seriesBuilder.setLength(0);
+        seriesBuilder.append(name);
+        for (int i = 0; i < labelCount; i++) {
+            int index = i * 5;
+            String labelName = new String(b, labelPositions[index], labelPositions[index + 1] - labelPositions[index],
+                    StandardCharsets.ISO_8859_1);
+            if (dropLabels.contains(labelName)) {
+                continue;
+            }
+            String rawValue = new String(b, labelPositions[index + 2],
+                    labelPositions[index + 3] - labelPositions[index + 2], StandardCharsets.UTF_8);
+            String labelValue = labelPositions[index + 4] == 0 ? rawValue :
+                    unescape(b, labelPositions[index + 2], labelPositions[index + 3]);
+            // 序列名保留转义形式，与暴露格式一致
+            seriesBuilder.append(labels.isEmpty() ? '{' : ',')
+                    .append(labelName).append("=\"").append(rawValue).append('"');
+            labels.put(labelName, labelValue);
+        }
+        if (!labels.isEmpty()) {
+            seriesBuilder.append('}');
+        }
+
+        acceptedSamples++;
+        handler.onSample(seriesBuilder.toString(), name, labels, value);
+    }
+
+    private boolean nameAllowed(byte[] b, int start, int end) {
+        if (exactNames == null && namePrefixes.length == 0) {
+            return true;
+        }
+        if (exactNames != null) {
+            if (exactNames.contains(b, start, end)) {
+                return true;
+            }
+            for (byte[] suffix : FAMILY_SUFFIXES) {
+                int familyEnd = end - suffix.length;
+                if (familyEnd > start && regionEquals(b, familyEnd, end, suffix)
+                        && exactNames.contains(b, start, familyEnd)) {
+                    return true;
+                }
+            }
+        }
+        for (byte[] prefix : namePrefixes) {
+            if (startsWith(b, start, end, prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 解析样本值：整数和不超过15位有效数字的小数在字节上直接计算（结果与 {@link Double#parseDouble} 一致）
+     */
+    static double parseValue(byte[] b, int start, int end) {
+        int p = start;
+        boolean negative = false;
+        if (b[p] == '-' || b[p] == '+') {
+            negative = b[p] == '-';
+            p++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        for (; p < end; p++) {
+            byte c = b[p];
+            if (c >= '0' && c <= '9') {
+                if (++digits > 15) {
+                    return parseSlow(b, start, end);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (fraction) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                return parseSlow(b, start, end);
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("无效的样本值");
+        }
+        double value = fractionDigits == 0 ? mantissa : mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private static double parseSlow(byte[] b, int start, int end) {
+        String text = new String(b, start, end - start, StandardCharsets.ISO_8859_1);
+        switch (text) {
+            case "+Inf":
+            case "Inf":
+                return Double.POSITIVE_INFINITY;
+            case "-Inf":
+                return Double.NEGATIVE_INFINITY;
+            case "NaN":
+                return Double.NaN;
+            default:
+                return Double.parseDouble(text);
+        }
+    }
+
+    private static String unescape(byte[] b, int start, int end) {
+        byte[] out = new byte[end - start];
+        int length = 0;
+        for (int p = start; p < end; p++) {
+            byte c = b[p];
+            if (c == '\\' && p + 1 < end) {
+                byte next = b[++p];
+                out[length++] = next == 'n' ? (byte) '\n' : next;
+            } else {
+                out[length++] = c;
+            }
+        }
+        return new String(out, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static int indexOf(byte[] b, byte target, int start, int end) {
+        for (int p = start; p < end; p++) {
+            if (b[p] == target) {
+                return p;
+            }
+        }
+        return end;
+    }
+
+    private static int skipSpaces(byte[] b, int p, int end) {
+        while (p < end && (b[p] == ' ' || b[p] == '\t')) {
+            p++;
+        }
+        return p;
+    }
+
+    private static boolean regionEquals(byte[] b, int start, int end, byte[] expected) {
+        return end - start == expected.length && startsWith(b, start, end, expected);
+    }
+
+    private static boolean startsWith(byte[] b, int start, int end, byte[] expected) {
+        if (end - start < expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (b[start + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 指标名开放寻址表，按字节区间查找
+     */
+    private static final class NameTable {
+
+        private final byte[][] slots;
+
+        private final int mask;
+
+        private NameTable(List<byte[]> names) {
+            int capacity = Integer.highestOneBit(Math.max(4, names.size() * 4) - 1) << 1;
+            this.slots = new byte[capacity][];
+            this.mask = capacity - 1;
+            for (byte[] name : names) {
+                int slot = hash(name, 0, name.length) & mask;
+                while (slots[slot] != null && !Arrays.equals(slots[slot], name)) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = name;
+            }
+        }
+
+        private boolean contains(byte[] b, int start, int end) {
+            int slot = hash(b, start, end) & mask;
+            while (slots[slot] != null) {
+                if (regionEquals(b, start, end, slots[slot])) {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+
+        private static int hash(byte[] b, int start, int end) {
+            int h = 0;
+            for (int p = start; p < end; p++) {
+                h = 31 * h + b[p];
+            }
+            return h ^ (h >>> 16);
+        }
+    }
+}
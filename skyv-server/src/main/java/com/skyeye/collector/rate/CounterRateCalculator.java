@@ -0,0 +1,351 @@
+package com.skyeye.collector.rate;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 计数器速率计算
+ * <p>
+ * 按序列（设备 × 计数器实例）在内存中保留上一次的计数器值、采集时间和设备运行时间，收到新样本时直接算出每秒速率，
+ * 查询方不必再读取上一行数据。序列名由调用方给出，须唯一标识一个计数器实例（如任务、指标配置和计数器OID），
+ * 不能只用展示用的指标名。状态保存在分段的开放寻址表中，以设备ID和序列名的64位哈希为键，
+ * 每个序列只占几个基本类型数组槽位；段从较小的容量开始按需扩容。
+ * <ul>
+ *     <li>32位计数器回绕：新值小于旧值时按 2^32 回绕计算增量</li>
+ *     <li>64位计数器实际不会回绕，新值变小按计数器重置处理</li>
+ *     <li>设备重启：sysUpTime小于上一次时计数器已清零，本次只记录基准值不输出速率</li>
+ *     <li>未上报运行时间时，32位回绕后的增量超过半个取值范围按重置处理</li>
+ * </ul>
+ * 删除设备时清除其全部序列；任务、指标配置删除或计数器实例消失后不再更新的序列，
+ * 超过 stale-series-ttl-minutes 未更新时由定期清理删除，再次出现时重新记录基准值。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+@Component
+public class CounterRateCalculator {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private static final int INITIAL_SEGMENT_CAPACITY = 64;
+
+    private static final long COUNTER32_RANGE = 1L << 32;
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * 空槽位标记（设备ID恒为非负数）
+     */
+    private static final long EMPTY = -1L;
+
+    /**
+     * 未知的运行时间
+     */
+    public static final long UNKNOWN_UPTIME = -1L;
+
+    /**
+     * 采集结果元数据：计数器指标 → 位数（32/64）
+     */
+    public static final String METADATA_COUNTERS = "counters";
+
+    /**
+     * 采集结果元数据：设备运行时间（百分之一秒）
+     */
+    public static final String METADATA_UPTIME = "uptimeTicks";
+
+    /**
+     * 速率指标名称后缀
+     */
+    public static final String RATE_SUFFIX = ".rate";
+
+    /**
+     * 采集结果元数据：计数器指标 → 计数器实例OID，用于区分同名指标的不同实例
+     */
+    public static final String METADATA_COUNTER_OIDS = "counterOids";
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+    private final boolean enabled;
+
+    /**
+     * 序列超过该时间未更新即删除（分钟），小于等于0时不清理
+     */
+    @Value("${skyeye.collector.rate.stale-series-ttl-minutes:120}")
+    private long staleSeriesTtlMinutes = 120;
+
+    public CounterRateCalculator(@Value("${skyeye.collector.rate.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(INITIAL_SEGMENT_CAPACITY);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 记录计数器样本并计算速率
+     *
+     * @param deviceId 设备ID
+     * @param series 序列名，在设备内唯一标识一个计数器实例
+     * @param value 计数器原始值（64位计数器按无符号数解释）
+     * @param bits 计数器位数，32或64
+     * @param timestamp 采集时间（毫秒时间戳）
+     * @param uptimeTicks 设备运行时间（百分之一秒），未知时传 {@link #UNKNOWN_UPTIME}
+     * @return 每秒速率；首个样本、计数器重置或设备重启时返回null
+     */
+    public Double update(long deviceId, String series, long value, int bits, long timestamp, long uptimeTicks) {
+        if (!enabled || series == null || deviceId < 0) {
+            return null;
+        }
+        long seriesHash = seriesHash(series);
+        int hash = hash(deviceId, seriesHash);
+        return segments[hash >>> 28].update(deviceId, seriesHash, hash, value, bits, timestamp, uptimeTicks);
+    }
+
+    /**
+     * 删除设备的全部计数器状态
+     */
+    public void removeDevice(long deviceId) {
+        for (Segment segment : segments) {
+            segment.removeDevice(deviceId);
+        }
+    }
+
+    /**
+     * 删除超过 stale-series-ttl-minutes 未更新的序列
+     */
+    @Scheduled(fixedDelayString = "${skyeye.collector.rate.evict-interval-ms:600000}")
+    public void evictStaleSeries() {
+        if (staleSeriesTtlMinutes > 0) {
+            evictStaleSeries(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(staleSeriesTtlMinutes));
+        }
+    }
+
+    /**
+     * 删除最近一次采集时间早于cutoff的序列
+     *
+     * @return 删除的序列数
+     */
+    public int evictStaleSeries(long cutoff) {
+        int evicted = 0;
+        for (Segment segment : segments) {
+            evicted += segment.evictBefore(cutoff);
+        }
+        if (evicted > 0) {
+            log.info("计数器速率清理过期序列: evicted={}", evicted);
+        }
+        return evicted;
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        long series = 0;
+        long wraps = 0;
+        long resets = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                series += segment.size;
+                wraps += segment.wraps;
+                resets += segment.resets;
+            }
+        }
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("series", series);
+        statistics.put("wraps", wraps);
+        statistics.put("resets", resets);
+        return statistics;
+    }
+
+    /**
+     * 序列名的64位FNV-1a哈希，同一设备内的冲突概率可以忽略
+     */
+    private static long seriesHash(String series) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < series.length(); i++) {
+            hash ^= series.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static int hash(long deviceId, long seriesHash) {
+        // murmur3 fmix64，高4位用于选段，低位用于段内定位
+        long key = deviceId * 0x9e3779b97f4a7c15L ^ seriesHash;
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    /**
+     * 开放寻址（线性探测）段，每个序列的状态分别存放在平行的基本类型数组中
+     */
+    private static final class Segment {
+
+        private long[] devices;
+
+        private long[] seriesHashes;
+
+        private long[] values;
+
+        private long[] timestamps;
+
+        private long[] uptimes;
+
+        private int size;
+
+        private long wraps;
+
+        private long resets;
+
+        Segment(int capacity) {
+            allocate(capacity);
+        }
+
+        synchronized Double update(long deviceId, long seriesHash, int hash, long value, int bits,
+                                   long timestamp, long uptime) {
+            int slot = find(deviceId, seriesHash, hash);
+            if (devices[slot] == EMPTY) {
+                if (size + 1 > devices.length * LOAD_FACTOR) {
+                    rehash();
+                    slot = find(deviceId, seriesHash, hash);
+                }
+                devices[slot] = deviceId;
+                seriesHashes[slot] = seriesHash;
+                store(slot, value, timestamp, uptime);
+                size++;
+                return null;
+            }
+
+            long previousValue = values[slot];
+            long previousTimestamp = timestamps[slot];
+            long previousUptime = uptimes[slot];
+
+            if (timestamp <= previousTimestamp) {
+                // 乱序或重复样本
+                return null;
+            }
+            store(slot, value, timestamp, uptime);
+
+            if (uptime != UNKNOWN_UPTIME && previousUptime != UNKNOWN_UPTIME && uptime < previousUptime) {
+                resets++;
+                return null;
+            }
+
+            long delta;
+            if (bits == 32) {
+                long current = value & 0xFFFFFFFFL;
+                long previous = previousValue & 0xFFFFFFFFL;
+                if (current >= previous) {
+                    delta = current - previous;
+                } else {
+                    delta = current + COUNTER32_RANGE - previous;
+                    if (uptime == UNKNOWN_UPTIME && delta > COUNTER32_RANGE / 2) {
+                        resets++;
+                        return null;
+                    }
+                    wraps++;
+                }
+            } else {
+                if (Long.compareUnsigned(value, previousValue) < 0) {
+                    resets++;
+                    return null;
+                }
+                delta = value - previousValue;
+            }
+
+            double seconds = (timestamp - previousTimestamp) / 1000.0;
+            return (delta >= 0 ? delta : delta + 0x1p64) / seconds;
+        }
+
+        synchronized void removeDevice(long deviceId) {
+            boolean removed = false;
+            for (int i = 0; i < devices.length; i++) {
+                if (devices[i] == deviceId) {
+                    devices[i] = EMPTY;
+                    size--;
+                    removed = true;
+                }
+            }
+            if (removed) {
+                // 线性探测表不能直接留空洞，原地重建
+                rebuild(devices.length);
+            }
+        }
+
+        synchronized int evictBefore(long cutoff) {
+            int evicted = 0;
+            for (int i = 0; i < devices.length; i++) {
+                if (devices[i] != EMPTY && timestamps[i] < cutoff) {
+                    devices[i] = EMPTY;
+                    size--;
+                    evicted++;
+                }
+            }
+            if (evicted > 0) {
+                rebuild(devices.length);
+            }
+            return evicted;
+        }
+
+        private void store(int slot, long value, long timestamp, long uptime) {
+            values[slot] = value;
+            timestamps[slot] = timestamp;
+            uptimes[slot] = uptime;
+        }
+
+        private int find(long deviceId, long seriesHash, int hash) {
+            int mask = devices.length - 1;
+            int i = hash & mask;
+            while (devices[i] != EMPTY && (devices[i] != deviceId || seriesHashes[i] != seriesHash)) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        private void rehash() {
+            rebuild(devices.length << 1);
+        }
+
+        private void rebuild(int capacity) {
+            long[] oldDevices = devices;
+            long[] oldSeriesHashes = seriesHashes;
+            long[] oldValues = values;
+            long[] oldTimestamps = timestamps;
+            long[] oldUptimes = uptimes;
+            allocate(capacity);
+            for (int i = 0; i < oldDevices.length; i++) {
+                if (oldDevices[i] == EMPTY) {
+                    continue;
+                }
+                int slot = find(oldDevices[i], oldSeriesHashes[i], hash(oldDevices[i], oldSeriesHashes[i]));
+                devices[slot] = oldDevices[i];
+                seriesHashes[slot] = oldSeriesHashes[i];
+                store(slot, oldValues[i], oldTimestamps[i], oldUptimes[i]);
+            }
+        }
+
+        private void allocate(int capacity) {
+            devices = new long[capacity];
+            Arrays.fill(devices, EMPTY);
+            seriesHashes = new long[capacity];
+            values = new long[capacity];
+            timestamps = new long[capacity];
+            uptimes = new long[capacity];
+        }
+    }
+}
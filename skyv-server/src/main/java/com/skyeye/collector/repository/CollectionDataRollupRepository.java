@@ -0,0 +1,215 @@
+package com.skyeye.collector.repository;
+
+import com.skyeye.collector.dto.MetricSeriesPoint;
+import com.skyeye.collector.rollup.BucketDelta;
+import com.skyeye.collector.rollup.RollupResolution;
+import com.skyeye.collector.rollup.SeriesBucket;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 采集数据聚合Repository
+ * <p>
+ * 日常写入通过 {@link #mergeDeltas} 把新样本的增量合并进聚合行，不回读原始数据；
+ * 补算和积压时通过 {@link #recomputeRange} 由下一级数据整体重算后覆盖写入，重复执行结果不变。
+ *
+ * @author SkyEye Team
+ */
+@Repository
+public class CollectionDataRollupRepository {
+
+    private static final String RAW_TABLE = "tb_collection_data";
+
+    private static final String UPSERT_COLUMNS = "device_id, metric_name, bucket_start, min_value, max_value, "
+            + "sum_value, sample_count, last_value, last_at, updated_at";
+
+    private static final String ON_CONFLICT = " ON CONFLICT (device_id, metric_name, bucket_start) DO UPDATE SET "
+            + "min_value = EXCLUDED.min_value, max_value = EXCLUDED.max_value, sum_value = EXCLUDED.sum_value, "
+            + "sample_count = EXCLUDED.sample_count, last_value = EXCLUDED.last_value, last_at = EXCLUDED.last_at, "
+            + "updated_at = EXCLUDED.updated_at";
+
+    /**
+     * 增量合并：最小/最大取极值，求和与计数累加，最后值取采集时间较晚的一方
+     */
+    private static final String ON_CONFLICT_MERGE = " ON CONFLICT (device_id, metric_name, bucket_start) DO UPDATE SET "
+            + "min_value = LEAST(r.min_value, EXCLUDED.min_value), "
+            + "max_value = GREATEST(r.max_value, EXCLUDED.max_value), "
+            + "sum_value = COALESCE(r.sum_value, 0) + EXCLUDED.sum_value, "
+            + "sample_count = r.sample_count + EXCLUDED.sample_count, "
+            + "last_value = CASE WHEN r.last_at IS NULL OR EXCLUDED.last_at >= r.last_at "
+            + "THEN EXCLUDED.last_value ELSE r.last_value END, "
+            + "last_at = GREATEST(r.last_at, EXCLUDED.last_at), "
+            + "updated_at = EXCLUDED.updated_at";
+
+    /**
+     * 从原始数据聚合的列
+     */
+    private static final String RAW_AGGREGATES = "MIN(metric_value), MAX(metric_value), SUM(metric_value), "
+            + "COUNT(metric_value), (ARRAY_AGG(metric_value ORDER BY collected_at DESC))[1], MAX(collected_at), now()";
+
+    /**
+     * 从下一级聚合再聚合的列
+     */
+    private static final String ROLLUP_AGGREGATES = "MIN(min_value), MAX(max_value), SUM(sum_value), "
+            + "SUM(sample_count), (ARRAY_AGG(last_value ORDER BY last_at DESC NULLS LAST))[1], MAX(last_at), now()";
+
+    private static final RowMapper<MetricSeriesPoint> ROLLUP_POINT_MAPPER = (rs, rowNum) -> {
+        MetricSeriesPoint point = new MetricSeriesPoint();
+        point.setTimestamp(rs.getTimestamp("bucket_start").toLocalDateTime());
+        point.setMin(rs.getBigDecimal("min_value"));
+        point.setMax(rs.getBigDecimal("max_value"));
+        point.setCount(rs.getLong("sample_count"));
+        point.setLast(rs.getBigDecimal("last_value"));
+        BigDecimal sum = rs.getBigDecimal("sum_value");
+        if (sum != null && point.getCount() > 0) {
+            point.setAvg(sum.divide(BigDecimal.valueOf(point.getCount()), 6, RoundingMode.HALF_UP));
+        }
+        return point;
+    };
+
+    private static final RowMapper<MetricSeriesPoint> RAW_POINT_MAPPER = (rs, rowNum) -> {
+        MetricSeriesPoint point = new MetricSeriesPoint();
+        BigDecimal value = rs.getBigDecimal("metric_value");
+        point.setTimestamp(rs.getTimestamp("collected_at").toLocalDateTime());
+        point.setMin(value);
+        point.setMax(value);
+        point.setAvg(value);
+        point.setLast(value);
+        point.setCount(1);
+        return point;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CollectionDataRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 聚合表是否都已创建（见 V1.4 迁移脚本）
+     */
+    public boolean tablesExist() {
+        for (RollupResolution resolution : RollupResolution.values()) {
+            if (resolution == RollupResolution.RAW) {
+                continue;
+            }
+            String table = jdbcTemplate.queryForObject("SELECT to_regclass(?)::text", String.class,
+                    resolution.getTableName());
+            if (table == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 把增量合并进聚合行，行不存在时插入；同一增量合并两次会重复计数，调用方须保证只合并一次
+     *
+     * @param target 目标粒度
+     * @param deltas 聚合单元 → 增量，bucketStart 须已按目标粒度对齐
+     * @return 处理的聚合单元数
+     */
+    public int mergeDeltas(RollupResolution target, List<Map.Entry<SeriesBucket, BucketDelta>> deltas) {
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        String sql = "INSERT INTO " + target.getTableName() + " AS r (" + UPSERT_COLUMNS + ") "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, now())" + ON_CONFLICT_MERGE;
+
+        jdbcTemplate.batchUpdate(sql, deltas, deltas.size(), (ps, entry) -> {
+            SeriesBucket bucket = entry.getKey();
+            BucketDelta delta = entry.getValue();
+            ps.setLong(1, bucket.getDeviceId());
+            ps.setString(2, bucket.getMetricName());
+            ps.setTimestamp(3, Timestamp.valueOf(bucket.getBucketStart()));
+            ps.setBigDecimal(4, delta.getMin());
+            ps.setBigDecimal(5, delta.getMax());
+            ps.setBigDecimal(6, delta.getSum());
+            ps.setLong(7, delta.getCount());
+            ps.setBigDecimal(8, delta.getLast());
+            ps.setTimestamp(9, Timestamp.valueOf(delta.getLastAt()));
+        });
+        return deltas.size();
+    }
+
+    /**
+     * 重算时间范围内全部设备和指标的聚合
+     *
+     * @param target 目标粒度
+     * @param from   起点（含），须已按目标粒度对齐
+     * @param to     终点（不含），须已按目标粒度对齐
+     * @return 写入的聚合行数
+     */
+    public int recomputeRange(RollupResolution target, LocalDateTime from, LocalDateTime to) {
+        String bucket = target.getSource() == RollupResolution.RAW
+                ? target.bucketExpression("collected_at") : target.bucketExpression("bucket_start");
+        String sql = "INSERT INTO " + target.getTableName() + " (" + UPSERT_COLUMNS + ") "
+                + "SELECT device_id, metric_name, " + bucket + ", " + aggregates(target)
+                + " FROM " + sourceTable(target)
+                + " WHERE " + sourceTimeColumn(target) + " >= ? AND " + sourceTimeColumn(target) + " < ?"
+                + sourceFilter(target)
+                + " GROUP BY device_id, metric_name, " + bucket + ON_CONFLICT;
+        return jdbcTemplate.update(sql, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    /**
+     * 查询时间范围内的聚合数据，按时间升序
+     *
+     * @param limit 最多返回的数据点数，超出时返回时间最晚的 limit 个
+     */
+    public List<MetricSeriesPoint> findSeries(RollupResolution resolution, Long deviceId, String metricName,
+                                              LocalDateTime from, LocalDateTime to, int limit) {
+        List<MetricSeriesPoint> points;
+        if (resolution == RollupResolution.RAW) {
+            points = jdbcTemplate.query("SELECT collected_at, metric_value FROM " + RAW_TABLE
+                            + " WHERE device_id = ? AND metric_name = ? AND collected_at >= ? AND collected_at < ?"
+                            + " AND metric_value IS NOT NULL ORDER BY collected_at DESC LIMIT ?",
+                    RAW_POINT_MAPPER, deviceId, metricName, Timestamp.valueOf(from), Timestamp.valueOf(to), limit);
+        } else {
+            points = jdbcTemplate.query("SELECT bucket_start, min_value, max_value, sum_value, sample_count, last_value"
+                            + " FROM " + resolution.getTableName()
+                            + " WHERE device_id = ? AND metric_name = ? AND bucket_start >= ? AND bucket_start < ?"
+                            + " ORDER BY bucket_start DESC LIMIT ?",
+                    ROLLUP_POINT_MAPPER, deviceId, metricName, Timestamp.valueOf(from), Timestamp.valueOf(to), limit);
+        }
+        Collections.reverse(points);
+        return points;
+    }
+
+    /**
+     * 删除区间起点早于指定时间的聚合
+     *
+     * @return 删除的行数
+     */
+    public int deleteBefore(RollupResolution resolution, LocalDateTime before) {
+        return jdbcTemplate.update("DELETE FROM " + resolution.getTableName() + " WHERE bucket_start < ?",
+                Timestamp.valueOf(before));
+    }
+
+    private static String aggregates(RollupResolution target) {
+        return target.getSource() == RollupResolution.RAW ? RAW_AGGREGATES : ROLLUP_AGGREGATES;
+    }
+
+    private static String sourceTable(RollupResolution target) {
+        RollupResolution source = target.getSource();
+        return source == RollupResolution.RAW ? RAW_TABLE : source.getTableName();
+    }
+
+    private static String sourceTimeColumn(RollupResolution target) {
+        return target.getSource() == RollupResolution.RAW ? "collected_at" : "bucket_start";
+    }
+
+    private static String sourceFilter(RollupResolution target) {
+        return target.getSource() == RollupResolution.RAW ? " AND metric_value IS NOT NULL" : "";
+    }
+}
@@ -0,0 +1,81 @@
+package com.skyeye.collector.repository;
+
+import com.skyeye.collector.entity.CollectionLog;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * 采集日志批量写入Repository
+ * <p>
+ * 绕过Hibernate逐条insert和主键回查，使用JDBC批量插入，id由数据库序列生成。
+ *
+ * @author SkyEye Team
+ */
+@Repository
+public class CollectionLogBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO tb_collection_logs ("
+            + "task_id, device_id, execution_id, metric_name, plugin_type, start_time, end_time, status, "
+            + "success, error_message, error_code, response_time, quality_score, data_count, retry_count, "
+            + "config_data, extra_data, created_at, updated_at"
+            + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CAST(? AS jsonb), CAST(? AS jsonb), ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CollectionLogBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 批量插入采集日志
+     *
+     * @param rows 采集日志
+     * @return 插入的行数
+     */
+    public int batchInsert(List<CollectionLog> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(),
+                (ps, logRow) -> bind(ps, logRow, now));
+
+        int inserted = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // 部分驱动批量执行时返回SUCCESS_NO_INFO(-2)
+                inserted += count >= 0 ? count : 1;
+            }
+        }
+        return inserted;
+    }
+
+    private void bind(PreparedStatement ps, CollectionLog logRow, Timestamp now) throws SQLException {
+        ps.setObject(1, logRow.getTaskId(), Types.BIGINT);
+        ps.setObject(2, logRow.getDeviceId(), Types.BIGINT);
+        ps.setString(3, logRow.getExecutionId());
+        ps.setString(4, logRow.getMetricName());
+        ps.setString(5, logRow.getPluginType());
+        ps.setTimestamp(6, logRow.getStartTime());
+        ps.setTimestamp(7, logRow.getEndTime());
+        ps.setString(8, logRow.getStatus());
+        ps.setObject(9, logRow.getSuccess(), Types.BOOLEAN);
+        ps.setString(10, logRow.getErrorMessage());
+        ps.setString(11, logRow.getErrorCode());
+        ps.setObject(12, logRow.getResponseTime(), Types.BIGINT);
+        ps.setObject(13, logRow.getQualityScore(), Types.INTEGER);
+        ps.setObject(14, logRow.getDataCount(), Types.INTEGER);
+        ps.setObject(15, logRow.getRetryCount(), Types.INTEGER);
+        ps.setString(16, logRow.getConfigData());
+        ps.setString(17, logRow.getExtraData());
+        ps.setTimestamp(18, logRow.getCreatedAt() != null ? Timestamp.valueOf(logRow.getCreatedAt()) : now);
+        ps.setTimestamp(19, now);
+    }
+}
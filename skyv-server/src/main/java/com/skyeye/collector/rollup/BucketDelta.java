@@ -0,0 +1,63 @@
+package com.skyeye.collector.rollup;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 聚合单元的增量：一批新写入样本的最小/最大/求和/计数/最后值
+ * <p>
+ * 增量之间可以任意顺序合并，合并到聚合行时同样按这些规则累加，见
+ * {@link com.skyeye.collector.repository.CollectionDataRollupRepository#mergeDeltas}。
+ *
+ * @author SkyEye Team
+ */
+@Getter
+public class BucketDelta {
+
+    private BigDecimal min;
+
+    private BigDecimal max;
+
+    private BigDecimal sum = BigDecimal.ZERO;
+
+    private long count;
+
+    private BigDecimal last;
+
+    private LocalDateTime lastAt;
+
+    /**
+     * 累加一个样本
+     */
+    public BucketDelta add(BigDecimal value, LocalDateTime collectedAt) {
+        min = min == null || value.compareTo(min) < 0 ? value : min;
+        max = max == null || value.compareTo(max) > 0 ? value : max;
+        sum = sum.add(value);
+        count++;
+        if (lastAt == null || !collectedAt.isBefore(lastAt)) {
+            last = value;
+            lastAt = collectedAt;
+        }
+        return this;
+    }
+
+    /**
+     * 合并另一个增量
+     */
+    public BucketDelta merge(BucketDelta other) {
+        if (other.count == 0) {
+            return this;
+        }
+        min = min == null || other.min.compareTo(min) < 0 ? other.min : min;
+        max = max == null || other.max.compareTo(max) > 0 ? other.max : max;
+        sum = sum.add(other.sum);
+        count += other.count;
+        if (lastAt == null || !other.lastAt.isBefore(lastAt)) {
+            last = other.last;
+            lastAt = other.lastAt;
+        }
+        return this;
+    }
+}
@@ -0,0 +1,347 @@
+package com.skyeye.collector.rollup;
+
+import com.skyeye.collector.config.RollupConfig;
+import com.skyeye.collector.entity.CollectionData;
+import com.skyeye.collector.repository.CollectionDataRollupRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 采集数据降采样引擎
+ * <p>
+ * 采集数据落库后，写入器把这批样本按 (设备, 指标, 分钟) 累加为增量；引擎定期把增量在同一事务中
+ * 合并进1分钟、5分钟和1小时聚合，只写入变化的聚合行，不回读原始数据和下一级聚合。
+ * 合并失败时事务回滚、增量放回待合并，每个增量只会生效一次。
+ * <p>
+ * 待合并单元超过上限时不再逐个记录，改为记录时间范围，由原始数据按范围整体重算全部设备；启动后同样按范围
+ * 补算最近 catch-up-minutes 分钟，覆盖停机前未来得及合并的数据。按范围重算期间暂停写入（见 {@link #write}），
+ * 范围内的增量直接丢弃，保证每个样本要么计入重算、要么计入之后的增量。聚合表未创建（V1.4）时引擎不工作。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+@Component
+public class CollectionDataRollupEngine {
+
+    private static final RollupResolution[] ROLLUP_LEVELS = {
+            RollupResolution.ONE_MINUTE, RollupResolution.FIVE_MINUTES, RollupResolution.ONE_HOUR
+    };
+
+    private final CollectionDataRollupRepository rollupRepository;
+
+    private final RollupConfig rollupConfig;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 待合并的1分钟聚合增量
+     */
+    private final ConcurrentHashMap<SeriesBucket, BucketDelta> pendingDeltas = new ConcurrentHashMap<>();
+
+    /**
+     * 写入与记录增量持有读锁，按范围重算持有写锁
+     */
+    private final ReentrantReadWriteLock rangeLock = new ReentrantReadWriteLock();
+
+    /**
+     * 待按范围重算的时间区间，null表示没有
+     */
+    private LocalDateTime pendingRangeFrom;
+
+    private LocalDateTime pendingRangeTo;
+
+    private volatile boolean active;
+
+    private volatile boolean catchUpPending = true;
+
+    private final AtomicLong mergedBuckets = new AtomicLong(0);
+
+    private final AtomicLong rangeRecomputes = new AtomicLong(0);
+
+    private final AtomicLong failedFlushes = new AtomicLong(0);
+
+    private volatile long lastFlushMillis;
+
+    public CollectionDataRollupEngine(CollectionDataRollupRepository rollupRepository, RollupConfig rollupConfig,
+                                      PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.rollupConfig = rollupConfig;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!rollupConfig.isEnabled()) {
+            log.info("采集数据降采样未启用");
+            return;
+        }
+        try {
+            active = rollupRepository.tablesExist();
+        } catch (Exception e) {
+            log.warn("检查聚合表失败: {}", e.getMessage());
+        }
+        if (!active) {
+            log.warn("采集数据聚合表不存在，降采样不工作，请执行 V1.4 迁移脚本");
+        }
+    }
+
+    /**
+     * 降采样是否在工作
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * 执行一次落库并记录这批数据的增量，与按范围重算互斥：
+     * 重算看到的数据，其增量要么已在重算前记录（随后丢弃），要么在重算后才记录
+     *
+     * @param rows  要写入的采集数据
+     * @param write 落库操作，返回前数据须已提交
+     */
+    public void write(List<CollectionData> rows, Runnable write) {
+        if (!active) {
+            write.run();
+            return;
+        }
+        rangeLock.readLock().lock();
+        try {
+            write.run();
+            onWritten(rows);
+        } finally {
+            rangeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 累加已落库的采集数据，只有数值型数据参与聚合
+     */
+    private void onWritten(List<CollectionData> rows) {
+        for (CollectionData data : rows) {
+            if (data.getMetricValue() == null || data.getCollectedAt() == null || data.getDeviceId() == null) {
+                continue;
+            }
+            LocalDateTime collectedAt = data.getCollectedAt().toLocalDateTime();
+            LocalDateTime minute = RollupResolution.ONE_MINUTE.floor(collectedAt);
+            SeriesBucket bucket = new SeriesBucket(data.getDeviceId(), data.getMetricName(), minute);
+            if (pendingDeltas.size() < rollupConfig.getMaxPendingBuckets() || pendingDeltas.containsKey(bucket)) {
+                pendingDeltas.compute(bucket, (key, delta) ->
+                        (delta != null ? delta : new BucketDelta()).add(data.getMetricValue(), collectedAt));
+            } else {
+                markRange(minute, minute.plusMinutes(1));
+            }
+        }
+    }
+
+    /**
+     * 标记需要按时间范围重算的区间
+     */
+    public synchronized void markRange(LocalDateTime from, LocalDateTime to) {
+        if (pendingRangeFrom == null || from.isBefore(pendingRangeFrom)) {
+            pendingRangeFrom = from;
+        }
+        if (pendingRangeTo == null || to.isAfter(pendingRangeTo)) {
+            pendingRangeTo = to;
+        }
+    }
+
+    /**
+     * 合并待更新的聚合
+     */
+    @Scheduled(fixedDelayString = "${skyeye.collector.rollup.flush-interval-ms:10000}",
+            initialDelayString = "${skyeye.collector.rollup.flush-interval-ms:10000}")
+    public void flush() {
+        if (!active) {
+            return;
+        }
+        long start = System.nanoTime();
+
+        if (catchUpPending) {
+            catchUpPending = false;
+            LocalDateTime now = LocalDateTime.now();
+            markRange(now.minusMinutes(rollupConfig.getCatchUpMinutes()), now.plusMinutes(1));
+        }
+
+        LocalDateTime[] range = flushRange();
+        Map<SeriesBucket, BucketDelta> deltas = takeDeltas(null, null);
+        try {
+            mergeDeltas(deltas);
+        } catch (Exception e) {
+            // 事务已回滚，增量放回待合并，下次重试
+            deltas.forEach((bucket, delta) -> pendingDeltas.merge(bucket, delta, BucketDelta::merge));
+            failedFlushes.incrementAndGet();
+            log.error("采集数据聚合合并失败: buckets={}", deltas.size(), e);
+            return;
+        }
+
+        lastFlushMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (!deltas.isEmpty() || range != null) {
+            log.debug("采集数据聚合合并完成: buckets={}, range={}, 耗时={}ms",
+                    deltas.size(), range != null ? Arrays.toString(range) : null, lastFlushMillis);
+        }
+    }
+
+    /**
+     * 有待重算的范围时暂停写入，丢弃范围内的增量并按范围重算
+     *
+     * @return 重算的范围，没有时返回null
+     */
+    private LocalDateTime[] flushRange() {
+        synchronized (this) {
+            if (pendingRangeFrom == null) {
+                return null;
+            }
+        }
+
+        rangeLock.writeLock().lock();
+        try {
+            LocalDateTime rangeFrom;
+            LocalDateTime rangeTo;
+            synchronized (this) {
+                rangeFrom = pendingRangeFrom;
+                rangeTo = pendingRangeTo;
+                pendingRangeFrom = null;
+                pendingRangeTo = null;
+            }
+            // 范围内的增量已包含在原始数据中，由重算覆盖
+            takeDeltas(rangeFrom, rangeTo);
+            try {
+                recomputeRange(rangeFrom, rangeTo);
+            } catch (Exception e) {
+                markRange(rangeFrom, rangeTo);
+                failedFlushes.incrementAndGet();
+                log.error("采集数据聚合按范围重算失败: range=[{}, {})", rangeFrom, rangeTo, e);
+                return null;
+            }
+            return new LocalDateTime[]{rangeFrom, rangeTo};
+        } finally {
+            rangeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 取出待合并的增量
+     *
+     * @param from 起点（含），为null时取出全部
+     * @param to   终点（不含）
+     */
+    private Map<SeriesBucket, BucketDelta> takeDeltas(LocalDateTime from, LocalDateTime to) {
+        Map<SeriesBucket, BucketDelta> taken = new HashMap<>();
+        for (SeriesBucket bucket : pendingDeltas.keySet()) {
+            if (from != null && (bucket.getBucketStart().isBefore(from) || !bucket.getBucketStart().isBefore(to))) {
+                continue;
+            }
+            BucketDelta delta = pendingDeltas.remove(bucket);
+            if (delta != null) {
+                taken.put(bucket, delta);
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * 按时间范围重算全部设备和指标的各级聚合，须在暂停写入时调用（见 {@link #flush}）
+     */
+    void recomputeRange(LocalDateTime from, LocalDateTime to) {
+        for (RollupResolution level : ROLLUP_LEVELS) {
+            LocalDateTime alignedFrom = level.floor(from);
+            LocalDateTime alignedTo = level.floor(to);
+            if (alignedTo.isBefore(to)) {
+                alignedTo = alignedTo.plusSeconds(level.getStepSeconds());
+            }
+            rollupRepository.recomputeRange(level, alignedFrom, alignedTo);
+        }
+        rangeRecomputes.incrementAndGet();
+    }
+
+    /**
+     * 在同一事务中把1分钟增量逐级合并进1分钟、5分钟、1小时聚合
+     */
+    private void mergeDeltas(Map<SeriesBucket, BucketDelta> minuteDeltas) {
+        if (minuteDeltas.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<SeriesBucket, BucketDelta> deltas = minuteDeltas;
+            for (RollupResolution level : ROLLUP_LEVELS) {
+                if (level != RollupResolution.ONE_MINUTE) {
+                    deltas = alignDeltas(level, deltas);
+                }
+                List<Map.Entry<SeriesBucket, BucketDelta>> batch =
+                        new ArrayList<>(Math.min(deltas.size(), rollupConfig.getBatchSize()));
+                for (Map.Entry<SeriesBucket, BucketDelta> entry : deltas.entrySet()) {
+                    batch.add(entry);
+                    if (batch.size() >= rollupConfig.getBatchSize()) {
+                        rollupRepository.mergeDeltas(level, batch);
+                        batch.clear();
+                    }
+                }
+                rollupRepository.mergeDeltas(level, batch);
+            }
+        });
+        mergedBuckets.addAndGet(minuteDeltas.size());
+    }
+
+    /**
+     * 把下一级增量按目标粒度对齐后合并，不修改传入的增量
+     */
+    private static Map<SeriesBucket, BucketDelta> alignDeltas(RollupResolution level,
+                                                              Map<SeriesBucket, BucketDelta> deltas) {
+        Map<SeriesBucket, BucketDelta> aligned = new HashMap<>();
+        deltas.forEach((bucket, delta) -> aligned.computeIfAbsent(
+                new SeriesBucket(bucket.getDeviceId(), bucket.getMetricName(), level.floor(bucket.getBucketStart())),
+                key -> new BucketDelta()).merge(delta));
+        return aligned;
+    }
+
+    /**
+     * 定期删除超过保留天数的聚合
+     */
+    @Scheduled(fixedRate = 1, timeUnit = TimeUnit.HOURS)
+    public void cleanupExpiredRollups() {
+        if (!active) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int[] retentionDays = {
+                rollupConfig.getOneMinuteRetentionDays(),
+                rollupConfig.getFiveMinutesRetentionDays(),
+                rollupConfig.getOneHourRetentionDays()
+        };
+        for (int i = 0; i < ROLLUP_LEVELS.length; i++) {
+            try {
+                int deleted = rollupRepository.deleteBefore(ROLLUP_LEVELS[i], now.minusDays(retentionDays[i]));
+                if (deleted > 0) {
+                    log.info("已清理过期聚合: resolution={}, 删除={}", ROLLUP_LEVELS[i], deleted);
+                }
+            } catch (Exception e) {
+                log.error("清理过期聚合失败: resolution={}", ROLLUP_LEVELS[i], e);
+            }
+        }
+    }
+
+    /**
+     * 获取降采样统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("active", active);
+        statistics.put("pendingBuckets", pendingDeltas.size());
+        statistics.put("mergedBuckets", mergedBuckets.get());
+        statistics.put("rangeRecomputes", rangeRecomputes.get());
+        statistics.put("failedFlushes", failedFlushes.get());
+        statistics.put("lastFlushMillis", lastFlushMillis);
+        return statistics;
+    }
+}
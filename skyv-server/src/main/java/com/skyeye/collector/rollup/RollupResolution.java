@@ -0,0 +1,91 @@
+package com.skyeye.collector.rollup;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 采集数据查询粒度
+ * <p>
+ * RAW 直接读取原始数据，其余粒度读取对应的聚合表。每级聚合由上一级重算：原始数据 → 1分钟 → 5分钟 → 1小时。
+ *
+ * @author SkyEye Team
+ */
+public enum RollupResolution {
+
+    RAW(0, null),
+
+    ONE_MINUTE(60, "tb_collection_data_rollup_1m"),
+
+    FIVE_MINUTES(300, "tb_collection_data_rollup_5m"),
+
+    ONE_HOUR(3600, "tb_collection_data_rollup_1h");
+
+    /**
+     * 聚合粒度（秒），RAW为0
+     */
+    private final int stepSeconds;
+
+    /**
+     * 聚合表名，RAW为null
+     */
+    private final String tableName;
+
+    RollupResolution(int stepSeconds, String tableName) {
+        this.stepSeconds = stepSeconds;
+        this.tableName = tableName;
+    }
+
+    public int getStepSeconds() {
+        return stepSeconds;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * 由哪一级数据重算得到，RAW和1分钟粒度返回RAW
+     */
+    public RollupResolution getSource() {
+        switch (this) {
+            case FIVE_MINUTES:
+                return ONE_MINUTE;
+            case ONE_HOUR:
+                return FIVE_MINUTES;
+            default:
+                return RAW;
+        }
+    }
+
+    /**
+     * 时间所在聚合区间的起点
+     */
+    public LocalDateTime floor(LocalDateTime time) {
+        if (this == RAW) {
+            return time;
+        }
+        LocalDateTime minute = time.truncatedTo(ChronoUnit.MINUTES);
+        int stepMinutes = stepSeconds / 60;
+        if (stepMinutes >= 60) {
+            return minute.truncatedTo(ChronoUnit.HOURS);
+        }
+        return minute.minusMinutes(minute.getMinute() % stepMinutes);
+    }
+
+    /**
+     * SQL中计算聚合区间起点的表达式
+     */
+    public String bucketExpression(String column) {
+        switch (this) {
+            case ONE_MINUTE:
+                return "date_trunc('minute', " + column + ")";
+            case FIVE_MINUTES:
+                return "(date_trunc('hour', " + column + ") + floor(extract(minute from " + column
+                        + ") / 5) * interval '5 minutes')";
+            case ONE_HOUR:
+                return "date_trunc('hour', " + column + ")";
+            default:
+                return column;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.skyeye.collector.rollup;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 设备+指标在某个聚合区间内的数据，作为聚合单元
+ *
+ * @author SkyEye Team
+ */
+@Data
+@AllArgsConstructor
+public class SeriesBucket {
+
+    private Long deviceId;
+
+    private String metricName;
+
+    /**
+     * 聚合区间起点
+     */
+    private LocalDateTime bucketStart;
+}
@@ -0,0 +1,137 @@
+package com.skyeye.collector.scheduler;
+
+import org.springframework.scheduling.support.CronExpression;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 编译后的Cron调度
+ * <p>
+ * 各字段编译为位集合，计算下次执行时间时按位跳转而不是逐秒/逐分钟试探。
+ * 编译结果不做全局缓存，由调用方持有：调度器在任务注册时编译一次，随任务的定时回调复用，任务移除后一并释放。
+ * 支持秒字段、范围、步长、列表、?、L、W、# 以及 MON/JAN 等别名，并可指定时区。
+ * 兼容三种写法：6位（秒 分 时 日 月 周）、5位Unix格式（自动补秒为0）、
+ * 7位Quartz格式（年份仅支持 * 或 ?）。
+ * 注意周字段的数字取值为 0/7=周日、1=周一，与Quartz（1=周日）不同，建议使用 MON-FRI 等别名。
+ *
+ * @author SkyEye Team
+ */
+public final class CronSchedule {
+
+    private final String expression;
+
+    private final ZoneId zoneId;
+
+    private final CronExpression compiled;
+
+    private CronSchedule(String expression, ZoneId zoneId, CronExpression compiled) {
+        this.expression = expression;
+        this.zoneId = zoneId;
+        this.compiled = compiled;
+    }
+
+    /**
+     * 编译Cron表达式（使用系统默认时区）
+     *
+     * @throws IllegalArgumentException 表达式不合法
+     */
+    public static CronSchedule compile(String expression) {
+        return compile(expression, null);
+    }
+
+    /**
+     * 编译Cron表达式
+     *
+     * @param expression Cron表达式
+     * @param zoneId     表达式所在时区，为空时使用系统默认时区
+     * @throws IllegalArgumentException 表达式不合法
+     */
+    public static CronSchedule compile(String expression, ZoneId zoneId) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Cron表达式不能为空");
+        }
+        ZoneId zone = zoneId != null ? zoneId : ZoneId.systemDefault();
+        return new CronSchedule(expression, zone, parse(expression));
+    }
+
+    /**
+     * 检查表达式是否合法
+     */
+    public static boolean isValid(String expression) {
+        try {
+            compile(expression);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 解析调度配置中的时区（timeZone），未配置时返回null
+     *
+     * @throws IllegalArgumentException 时区不合法
+     */
+    public static ZoneId resolveZone(Map<String, Object> scheduleConfig) {
+        Object timeZone = scheduleConfig != null ? scheduleConfig.get("timeZone") : null;
+        if (timeZone == null || timeZone.toString().isBlank()) {
+            return null;
+        }
+        try {
+            return ZoneId.of(timeZone.toString().trim());
+        } catch (Exception e) {
+            throw new IllegalArgumentException("不支持的时区: " + timeZone, e);
+        }
+    }
+
+    /**
+     * 计算指定时间之后的下次执行时间
+     *
+     * @param after 基准时间（系统默认时区）
+     * @return 下次执行时间（系统默认时区），表达式永远不会再触发时返回null
+     */
+    public LocalDateTime next(LocalDateTime after) {
+        ZonedDateTime base = after.atZone(ZoneId.systemDefault()).withZoneSameInstant(zoneId);
+        ZonedDateTime next = compiled.next(base);
+        return next != null ? next.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime() : null;
+    }
+
+    /**
+     * 计算当前时间之后的下次执行时间
+     */
+    public LocalDateTime next() {
+        return next(LocalDateTime.now());
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public ZoneId getZoneId() {
+        return zoneId;
+    }
+
+    private static CronExpression parse(String expression) {
+        String[] fields = expression.trim().split("\\s+");
+        String normalized;
+        if (fields.length == 5) {
+            normalized = "0 " + String.join(" ", fields);
+        } else if (fields.length == 7) {
+            if (!"*".equals(fields[6]) && !"?".equals(fields[6])) {
+                throw new IllegalArgumentException("Cron表达式的年份字段仅支持 * 或 ?: " + expression);
+            }
+            normalized = String.join(" ", Arrays.copyOf(fields, 6));
+        } else {
+            normalized = String.join(" ", fields);
+        }
+
+        try {
+            return CronExpression.parse(normalized);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cron表达式不合法: " + expression + ", " + e.getMessage(), e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.skyeye.collector.scheduler;
 
 import com.skyeye.collector.entity.CollectionTask;
+import com.skyeye.collector.scheduler.wheel.WheelTimeout;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -104,6 +105,11 @@ public class ScheduledTask {
      */
     private ScheduledFuture<?> scheduledFuture;
 
+    /**
+     * 时间轮定时句柄
+     */
+    private volatile WheelTimeout wheelTimeout;
+
     /**
      * 任务对象引用
      */
@@ -179,12 +185,18 @@ public class ScheduledTask {
      * 检查任务是否可以执行
      */
     public boolean canExecute() {
-        return this.enabled && 
-               this.status == TaskExecutionStatus.SCHEDULED && 
+        return isRunnable() &&
                this.nextExecutionTime != null &&
                LocalDateTime.now().isAfter(this.nextExecutionTime);
     }
 
+    /**
+     * 检查任务是否处于可执行状态（不考虑执行时间）
+     */
+    public boolean isRunnable() {
+        return this.enabled && this.status == TaskExecutionStatus.SCHEDULED;
+    }
+
     /**
      * 获取成功率
      */
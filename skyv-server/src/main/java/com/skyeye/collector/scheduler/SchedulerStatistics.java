@@ -94,6 +94,16 @@ public class SchedulerStatistics {
      */
     private int queuedTasks;
 
+    /**
+     * 等待触发的定时器数
+     */
+    private long pendingTimers;
+
+    /**
+     * 执行线程池已满、被退回定时器重新排队的次数
+     */
+    private long rejectedExecutions;
+
     /**
      * 内存使用情况（MB）
      */
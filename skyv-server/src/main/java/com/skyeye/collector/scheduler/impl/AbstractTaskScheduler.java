@@ -0,0 +1,654 @@
+package com.skyeye.collector.scheduler.impl;
+
+import com.skyeye.collector.entity.CollectionTask;
+import com.skyeye.collector.scheduler.*;
+import com.skyeye.collector.service.CollectionTaskService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 任务调度器基础实现
+ * <p>
+ * 负责调度器生命周期、调度配置解析、任务执行和统计，具体的定时触发方式由子类实现。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+public abstract class AbstractTaskScheduler implements TaskScheduler {
+
+    protected final CollectionTaskService collectionTaskService;
+
+    @Value("${skyeye.scheduler.thread-pool-size:10}")
+    protected int threadPoolSize;
+
+    @Value("${skyeye.scheduler.max-queue-size:100}")
+    protected int maxQueueSize;
+
+    @Value("${skyeye.scheduler.keep-alive-seconds:60}")
+    protected long keepAliveSeconds;
+
+    @Value("${skyeye.scheduler.cleanup-interval-minutes:30}")
+    protected long cleanupIntervalMinutes;
+
+    /**
+     * 调度器状态
+     */
+    protected volatile SchedulerStatus status = SchedulerStatus.STOPPED;
+
+    /**
+     * 调度器启动时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 最后活跃时间
+     */
+    private LocalDateTime lastActiveTime;
+
+    /**
+     * 调度器统计信息
+     */
+    private final SchedulerStatistics.SchedulerStatisticsBuilder statisticsBuilder = SchedulerStatistics.builder();
+
+    /**
+     * 已调度的任务映射
+     */
+    protected final ConcurrentHashMap<Long, ScheduledTask> scheduledTasks = new ConcurrentHashMap<>();
+
+    /**
+     * 任务执行线程池
+     */
+    protected ThreadPoolExecutor taskExecutor;
+
+    /**
+     * 统计计数器
+     */
+    private final AtomicLong totalExecutions = new AtomicLong(0);
+    private final AtomicLong totalSuccesses = new AtomicLong(0);
+    private final AtomicLong totalFailures = new AtomicLong(0);
+    private final AtomicLong totalExecutionTime = new AtomicLong(0);
+    protected final AtomicLong rejectedExecutions = new AtomicLong(0);
+
+    protected AbstractTaskScheduler(CollectionTaskService collectionTaskService) {
+        this.collectionTaskService = collectionTaskService;
+    }
+
+    @PostConstruct
+    public void init() {
+        log.info("初始化任务调度器...");
+        start();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        log.info("销毁任务调度器...");
+        stop();
+    }
+
+    @Override
+    public void start() {
+        if (status == SchedulerStatus.RUNNING) {
+            log.warn("调度器已经在运行中");
+            return;
+        }
+
+        try {
+            status = SchedulerStatus.STARTING;
+            log.info("启动任务调度器...");
+
+            // 初始化线程池
+            initializeThreadPools();
+
+            // 加载所有启用的任务
+            reloadAllTasks();
+
+            startTime = LocalDateTime.now();
+            lastActiveTime = LocalDateTime.now();
+            status = SchedulerStatus.RUNNING;
+
+            log.info("任务调度器启动成功，线程池大小: {}", threadPoolSize);
+
+        } catch (Exception e) {
+            log.error("启动任务调度器失败", e);
+            status = SchedulerStatus.ERROR;
+            throw new RuntimeException("启动任务调度器失败", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (status == SchedulerStatus.STOPPED) {
+            return;
+        }
+
+        try {
+            status = SchedulerStatus.STOPPING;
+            log.info("停止任务调度器...");
+
+            // 取消所有已调度的任务
+            scheduledTasks.values().forEach(this::disarmTask);
+
+            // 关闭线程池
+            shutdownTimer();
+
+            if (taskExecutor != null) {
+                taskExecutor.shutdown();
+                if (!taskExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                    taskExecutor.shutdownNow();
+                }
+            }
+
+            scheduledTasks.clear();
+            status = SchedulerStatus.STOPPED;
+
+            log.info("任务调度器已停止");
+
+        } catch (Exception e) {
+            log.error("停止任务调度器失败", e);
+            status = SchedulerStatus.ERROR;
+        }
+    }
+
+    @Override
+    public void scheduleTask(CollectionTask task) {
+        if (!status.canAcceptTasks()) {
+            throw new IllegalStateException("调度器当前状态不允许接受新任务: " + status);
+        }
+
+        try {
+            log.info("调度任务: taskId={}, name={}, scheduleType={}",
+                    task.getId(), task.getName(), task.getScheduleType());
+
+            // 取消之前的调度
+            cancelTask(task.getId());
+
+            // 创建调度任务包装器
+            ScheduledTask scheduledTask = new ScheduledTask(task);
+
+            // 先登记再触发，子类可据此判断定时回调是否仍然有效
+            scheduledTasks.put(task.getId(), scheduledTask);
+
+            // 根据调度类型进行调度
+            try {
+                switch (task.getScheduleType()) {
+                    case "SIMPLE":
+                    case "interval":
+                        scheduleSimpleTask(scheduledTask, resolveIntervalSeconds(task.getScheduleConfig()));
+                        break;
+                    case "CRON":
+                    case "cron":
+                        scheduleCronTask(scheduledTask, resolveCronSchedule(task.getScheduleConfig()));
+                        break;
+                    case "EVENT":
+                    case "event":
+                        scheduleEventTask(scheduledTask);
+                        break;
+                    case "once":
+                        scheduleOnceTask(scheduledTask, resolveOnceExecutionTime(task.getScheduleConfig()));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("不支持的调度类型: " + task.getScheduleType());
+                }
+            } catch (RuntimeException e) {
+                scheduledTasks.remove(task.getId(), scheduledTask);
+                throw e;
+            }
+
+            log.info("任务调度成功: taskId={}, nextExecutionTime={}",
+                    task.getId(), scheduledTask.getNextExecutionTime());
+
+        } catch (Exception e) {
+            log.error("调度任务失败: taskId={}", task.getId(), e);
+            throw new RuntimeException("调度任务失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void cancelTask(Long taskId) {
+        ScheduledTask scheduledTask = scheduledTasks.remove(taskId);
+        if (scheduledTask != null) {
+            disarmTask(scheduledTask);
+            log.info("取消任务调度: taskId={}", taskId);
+        }
+    }
+
+    @Override
+    public void rescheduleTask(CollectionTask task) {
+        scheduleTask(task);
+    }
+
+    @Override
+    public void pauseTask(Long taskId) {
+        ScheduledTask scheduledTask = scheduledTasks.get(taskId);
+        if (scheduledTask != null) {
+            scheduledTask.setStatus(TaskExecutionStatus.PAUSED);
+            disarmTask(scheduledTask);
+            log.info("暂停任务: taskId={}", taskId);
+        }
+    }
+
+    @Override
+    public void resumeTask(Long taskId) {
+        ScheduledTask scheduledTask = scheduledTasks.get(taskId);
+        if (scheduledTask != null && scheduledTask.getStatus() == TaskExecutionStatus.PAUSED) {
+            scheduledTask.setStatus(TaskExecutionStatus.SCHEDULED);
+            // 重新调度任务
+            scheduleTask(scheduledTask.getTask());
+            log.info("恢复任务: taskId={}", taskId);
+        }
+    }
+
+    @Override
+    public List<Long> getScheduledTaskIds() {
+        return List.copyOf(scheduledTasks.keySet());
+    }
+
+    @Override
+    public boolean isTaskScheduled(Long taskId) {
+        return scheduledTasks.containsKey(taskId);
+    }
+
+    @Override
+    public LocalDateTime getNextExecutionTime(Long taskId) {
+        ScheduledTask scheduledTask = scheduledTasks.get(taskId);
+        return scheduledTask != null ? scheduledTask.getNextExecutionTime() : null;
+    }
+
+    @Override
+    public SchedulerStatus getStatus() {
+        return status;
+    }
+
+    @Override
+    public SchedulerStatistics getStatistics() {
+        updateStatistics();
+        return statisticsBuilder.build();
+    }
+
+    @Override
+    public void cleanupExpiredTasks() {
+        log.info("开始清理过期任务...");
+        int cleanedCount = 0;
+
+        scheduledTasks.entrySet().removeIf(entry -> {
+            ScheduledTask task = entry.getValue();
+            if (task.isExpired()) {
+                log.info("清理过期任务: taskId={}, name={}", task.getTaskId(), task.getTaskName());
+                disarmTask(task);
+                return true;
+            }
+            return false;
+        });
+
+        log.info("清理过期任务完成，共清理 {} 个任务", cleanedCount);
+    }
+
+    @Override
+    public void reloadAllTasks() {
+        if (!status.canAcceptTasks()) {
+            log.warn("调度器当前状态不允许重新加载任务: {}", status);
+            return;
+        }
+
+        try {
+            log.info("开始重新加载所有启用的任务...");
+
+            // 清除现有调度
+            scheduledTasks.values().forEach(this::disarmTask);
+            scheduledTasks.clear();
+
+            // 重新加载所有启用的任务
+            List<CollectionTask> enabledTasks = collectionTaskService.getAllEnabledTasks();
+            for (CollectionTask task : enabledTasks) {
+                if (task.getStatus() == 1 && task.getIsEnabled()) {
+                    scheduleTask(task);
+                }
+            }
+
+            log.info("重新加载任务完成，共加载 {} 个任务", scheduledTasks.size());
+
+        } catch (Exception e) {
+            log.error("重新加载任务失败", e);
+        }
+    }
+
+    /**
+     * 初始化定时触发器
+     */
+    protected abstract void initializeTimer();
+
+    /**
+     * 关闭定时触发器
+     */
+    protected abstract void shutdownTimer() throws InterruptedException;
+
+    /**
+     * 按固定间隔调度任务
+     *
+     * @param periodSeconds 执行间隔（秒）
+     */
+    protected abstract void scheduleSimpleTask(ScheduledTask scheduledTask, long periodSeconds);
+
+    /**
+     * 按Cron表达式调度任务，只在下次执行时间触发一次，执行后再挂载下一次
+     */
+    protected abstract void scheduleCronTask(ScheduledTask scheduledTask, CronSchedule cronSchedule);
+
+    /**
+     * 在指定时间调度一次性任务
+     */
+    protected abstract void scheduleOnceTask(ScheduledTask scheduledTask, LocalDateTime executionTime);
+
+    /**
+     * 撤销任务当前的定时触发
+     */
+    protected abstract void disarmTask(ScheduledTask scheduledTask);
+
+    /**
+     * 等待触发的定时器数量
+     */
+    protected abstract long getPendingTimerCount();
+
+    /**
+     * 任务执行完成后的回调，默认推进简单任务的下次执行时间
+     */
+    protected void afterExecution(ScheduledTask scheduledTask) {
+        if ("SIMPLE".equals(scheduledTask.getScheduleType())) {
+            updateNextExecutionTimeForSimpleTask(scheduledTask);
+        }
+    }
+
+    /**
+     * 判断调度任务是否仍是当前登记的有效调度
+     */
+    protected boolean isActive(ScheduledTask scheduledTask) {
+        return scheduledTasks.get(scheduledTask.getTaskId()) == scheduledTask
+                && scheduledTask.getStatus() != TaskExecutionStatus.PAUSED;
+    }
+
+    /**
+     * 初始化线程池
+     */
+    private void initializeThreadPools() {
+        // 定时触发器
+        initializeTimer();
+
+        // 任务执行线程池，队列满时拒绝而不是在提交线程中执行，由调用方决定重新排队
+        taskExecutor = new ThreadPoolExecutor(
+                threadPoolSize,
+                threadPoolSize * 2,
+                keepAliveSeconds,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(maxQueueSize),
+                r -> {
+                    Thread t = new Thread(r, "TaskExecutor-" + r.hashCode());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    /**
+     * 解析简单调度的执行间隔（秒）
+     */
+    protected long resolveIntervalSeconds(Map<String, Object> config) {
+        // 支持两种格式：旧格式(frequency+interval)和新格式(intervalUnit+intervalValue)
+        String frequency = (String) config.get("frequency");
+        Integer interval = (Integer) config.get("interval");
+
+        String intervalUnit = (String) config.get("intervalUnit");
+        Object intervalValueObj = config.get("intervalValue");
+        Integer intervalValue = null;
+
+        if (intervalValueObj != null) {
+            if (intervalValueObj instanceof Integer) {
+                intervalValue = (Integer) intervalValueObj;
+            } else if (intervalValueObj instanceof String) {
+                try {
+                    intervalValue = Integer.parseInt((String) intervalValueObj);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("intervalValue必须是数字: " + intervalValueObj);
+                }
+            }
+        }
+
+        // 优先使用新格式，如果没有则使用旧格式
+        if (intervalUnit != null && intervalValue != null) {
+            frequency = intervalUnit;
+            interval = intervalValue;
+        } else if (frequency == null || interval == null) {
+            throw new IllegalArgumentException("简单调度配置缺少frequency+interval或intervalUnit+intervalValue参数");
+        }
+
+        switch (frequency.toLowerCase()) {
+            case "seconds":
+                return interval;
+            case "minutes":
+                return interval * 60L;
+            case "hours":
+                return interval * 3600L;
+            case "days":
+                return interval * 86400L;
+            default:
+                throw new IllegalArgumentException("不支持的频率类型: " + frequency);
+        }
+    }
+
+    /**
+     * 解析并编译Cron调度的表达式
+     */
+    protected CronSchedule resolveCronSchedule(Map<String, Object> config) {
+        String cronExpression = (String) config.get("cronExpression");
+        if (cronExpression == null) {
+            throw new IllegalArgumentException("Cron调度配置缺少cronExpression参数");
+        }
+        return CronSchedule.compile(cronExpression, CronSchedule.resolveZone(config));
+    }
+
+    /**
+     * 计算Cron任务的下次执行时间
+     * <p>
+     * 以当前时间和上次计划时间中较晚者为基准，避免墙上时钟与定时器时钟的误差导致同一时刻重复触发。
+     */
+    protected LocalDateTime nextCronExecution(ScheduledTask scheduledTask, CronSchedule cronSchedule) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime previous = scheduledTask.getNextExecutionTime();
+        return cronSchedule.next(previous != null && previous.isAfter(now) ? previous : now);
+    }
+
+    /**
+     * 解析一次性任务的执行时间
+     */
+    protected LocalDateTime resolveOnceExecutionTime(Map<String, Object> config) {
+        // 获取执行时间
+        String executionTimeStr = (String) config.get("executionTime");
+        if (executionTimeStr == null) {
+            executionTimeStr = (String) config.get("startTime");
+        }
+
+        if (executionTimeStr == null) {
+            throw new IllegalArgumentException("一次性任务调度配置缺少executionTime或startTime参数");
+        }
+
+        LocalDateTime executionTime;
+        try {
+            // 解析执行时间
+            executionTime = LocalDateTime.parse(executionTimeStr.replace(" ", "T"));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("解析执行时间失败: " + executionTimeStr, e);
+        }
+
+        if (executionTime.isBefore(LocalDateTime.now())) {
+            throw new IllegalArgumentException("执行时间不能早于当前时间");
+        }
+        return executionTime;
+    }
+
+    /**
+     * 调度事件任务
+     */
+    private void scheduleEventTask(ScheduledTask scheduledTask) {
+        CollectionTask task = scheduledTask.getTask();
+        Map<String, Object> config = task.getScheduleConfig();
+
+        String eventType = (String) config.get("eventType");
+        if (eventType == null) {
+            throw new IllegalArgumentException("事件调度配置缺少eventType参数");
+        }
+
+        // 事件任务不立即调度，等待事件触发
+        scheduledTask.setStatus(TaskExecutionStatus.WAITING);
+        scheduledTask.updateNextExecutionTime(null);
+
+        log.info("事件任务已注册，等待事件触发: taskId={}, eventType={}",
+                task.getId(), eventType);
+    }
+
+    /**
+     * 执行任务
+     */
+    protected void executeTask(ScheduledTask scheduledTask) {
+        if (!scheduledTask.canExecute()) {
+            return;
+        }
+        runTask(scheduledTask);
+    }
+
+    /**
+     * 执行任务，不检查下次执行时间，由调用方保证任务已到期
+     */
+    protected void runTask(ScheduledTask scheduledTask) {
+        long startTime = System.currentTimeMillis();
+        boolean success = false;
+
+        try {
+            scheduledTask.setStatus(TaskExecutionStatus.RUNNING);
+            lastActiveTime = LocalDateTime.now();
+
+            log.debug("开始执行任务: taskId={}, name={}",
+                    scheduledTask.getTaskId(), scheduledTask.getTaskName());
+
+            // 异步执行任务
+            collectionTaskService.executeTask(scheduledTask.getTaskId());
+
+            success = true;
+            totalSuccesses.incrementAndGet();
+
+            log.debug("任务执行成功: taskId={}, name={}",
+                    scheduledTask.getTaskId(), scheduledTask.getTaskName());
+
+        } catch (Exception e) {
+            totalFailures.incrementAndGet();
+            scheduledTask.setExecutionError(e.getMessage());
+
+            log.error("任务执行失败: taskId={}, name={}",
+                    scheduledTask.getTaskId(), scheduledTask.getTaskName(), e);
+
+        } finally {
+            long executionTime = System.currentTimeMillis() - startTime;
+            totalExecutions.incrementAndGet();
+            totalExecutionTime.addAndGet(executionTime);
+
+            scheduledTask.updateExecutionStatistics(success, executionTime);
+            scheduledTask.setStatus(TaskExecutionStatus.SCHEDULED);
+
+            afterExecution(scheduledTask);
+        }
+    }
+
+    /**
+     * 更新简单任务的下次执行时间
+     */
+    private void updateNextExecutionTimeForSimpleTask(ScheduledTask scheduledTask) {
+        CollectionTask task = scheduledTask.getTask();
+        Map<String, Object> config = task.getScheduleConfig();
+
+        String frequency = (String) config.get("frequency");
+        Integer interval = (Integer) config.get("interval");
+
+        if (frequency != null && interval != null) {
+            LocalDateTime nextExecutionTime = scheduledTask.getNextExecutionTime();
+            if (nextExecutionTime != null) {
+                LocalDateTime newNextExecutionTime;
+                switch (frequency.toLowerCase()) {
+                    case "minutes":
+                        newNextExecutionTime = nextExecutionTime.plusMinutes(interval);
+                        break;
+                    case "hours":
+                        newNextExecutionTime = nextExecutionTime.plusHours(interval);
+                        break;
+                    case "days":
+                        newNextExecutionTime = nextExecutionTime.plusDays(interval);
+                        break;
+                    default:
+                        return;
+                }
+                scheduledTask.updateNextExecutionTime(newNextExecutionTime);
+            }
+        }
+    }
+
+    /**
+     * 更新统计信息
+     */
+    private void updateStatistics() {
+        statisticsBuilder
+                .totalTasks(scheduledTasks.size())
+                .scheduledTasks((int) scheduledTasks.values().stream()
+                        .filter(task -> task.getStatus() == TaskExecutionStatus.SCHEDULED)
+                        .count())
+                .runningTasks((int) scheduledTasks.values().stream()
+                        .filter(task -> task.getStatus() == TaskExecutionStatus.RUNNING)
+                        .count())
+                .pausedTasks((int) scheduledTasks.values().stream()
+                        .filter(task -> task.getStatus() == TaskExecutionStatus.PAUSED)
+                        .count())
+                .errorTasks((int) scheduledTasks.values().stream()
+                        .filter(task -> task.getStatus() == TaskExecutionStatus.FAILED)
+                        .count())
+                .todayExecutions(totalExecutions.get())
+                .todaySuccesses(totalSuccesses.get())
+                .todayFailures(totalFailures.get())
+                .averageExecutionTime(totalExecutions.get() > 0 ?
+                        totalExecutionTime.get() / totalExecutions.get() : 0)
+                .startTime(startTime)
+                .lastActiveTime(lastActiveTime)
+                .activeThreads(taskExecutor != null ? taskExecutor.getActiveCount() : 0)
+                .totalThreads(taskExecutor != null ? taskExecutor.getPoolSize() : 0)
+                .queuedTasks(taskExecutor != null ? taskExecutor.getQueue().size() : 0)
+                .pendingTimers(getPendingTimerCount())
+                .rejectedExecutions(rejectedExecutions.get())
+                .memoryUsage(Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory())
+                .cpuUsage(0.0); // 这里可以实现CPU使用率监控
+    }
+
+    /**
+     * 定时清理过期任务
+     */
+    @Scheduled(fixedRate = 30, timeUnit = TimeUnit.MINUTES)
+    public void scheduledCleanup() {
+        if (status == SchedulerStatus.RUNNING) {
+            cleanupExpiredTasks();
+        }
+    }
+
+    /**
+     * 定时更新统计信息
+     */
+    @Scheduled(fixedRate = 1, timeUnit = TimeUnit.MINUTES)
+    public void scheduledStatisticsUpdate() {
+        if (status == SchedulerStatus.RUNNING) {
+            updateStatistics();
+        }
+    }
+}
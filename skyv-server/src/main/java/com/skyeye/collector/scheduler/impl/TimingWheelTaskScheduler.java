@@ -0,0 +1,212 @@
+package com.skyeye.collector.scheduler.impl;
+
+import com.skyeye.collector.scheduler.CronSchedule;
+import com.skyeye.collector.scheduler.ScheduledTask;
+import com.skyeye.collector.scheduler.wheel.HierarchicalTimingWheel;
+import com.skyeye.collector.scheduler.wheel.WheelTimeout;
+import com.skyeye.collector.service.CollectionTaskService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于分层时间轮的任务调度器
+ * <p>
+ * 所有SIMPLE/CRON/一次性任务共享一个时间轮和一个tick线程，调度、取消均为O(1)，
+ * 到期任务逐个提交到执行线程池，线程池已满时退回时间轮在下一个tick重试，tick线程从不执行任务本身。Cron任务只在精确的下次执行时间触发一次，不再按分钟轮询。
+ * 通过 skyeye.scheduler.type=timing-wheel 选用，适合数万级任务的场景。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "skyeye.scheduler", name = "type", havingValue = "timing-wheel")
+public class TimingWheelTaskScheduler extends AbstractTaskScheduler {
+
+    @Value("${skyeye.scheduler.wheel.tick-ms:100}")
+    private long tickMs;
+
+    @Value("${skyeye.scheduler.wheel.wheel-size:512}")
+    private int wheelSize;
+
+    @Value("${skyeye.scheduler.wheel.levels:4}")
+    private int levels;
+
+    @Value("${skyeye.scheduler.wheel.batch-size:256}")
+    private int batchSize;
+
+    /**
+     * 时间轮
+     */
+    private HierarchicalTimingWheel timingWheel;
+
+    public TimingWheelTaskScheduler(CollectionTaskService collectionTaskService) {
+        super(collectionTaskService);
+    }
+
+    @Override
+    protected void initializeTimer() {
+        timingWheel = new HierarchicalTimingWheel("TaskTimingWheel", tickMs, TimeUnit.MILLISECONDS,
+                wheelSize, levels, batchSize, this::dispatchExpiredBatch);
+        timingWheel.start();
+    }
+
+    @Override
+    protected void shutdownTimer() {
+        if (timingWheel != null) {
+            timingWheel.stop();
+        }
+    }
+
+    @Override
+    protected void disarmTask(ScheduledTask scheduledTask) {
+        WheelTimeout timeout = scheduledTask.getWheelTimeout();
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    @Override
+    protected long getPendingTimerCount() {
+        return timingWheel != null ? timingWheel.getPendingTimeouts() : 0;
+    }
+
+    /**
+     * 下次执行时间由重新挂载时设置，无需在执行后推进
+     */
+    @Override
+    protected void afterExecution(ScheduledTask scheduledTask) {
+    }
+
+    /**
+     * 调度简单任务（固定间隔），首次在一个周期后执行
+     */
+    @Override
+    protected void scheduleSimpleTask(ScheduledTask scheduledTask, long periodSeconds) {
+        long periodNanos = TimeUnit.SECONDS.toNanos(periodSeconds);
+        armSimpleTask(scheduledTask, System.nanoTime() + periodNanos, periodNanos);
+    }
+
+    /**
+     * 调度Cron任务，只挂载下一次执行时间
+     */
+    @Override
+    protected void scheduleCronTask(ScheduledTask scheduledTask, CronSchedule cronSchedule) {
+        armCronTask(scheduledTask, cronSchedule);
+    }
+
+    /**
+     * 调度一次性任务
+     */
+    @Override
+    protected void scheduleOnceTask(ScheduledTask scheduledTask, LocalDateTime executionTime) {
+        long delayNanos = Duration.between(LocalDateTime.now(), executionTime).toNanos();
+        scheduledTask.updateNextExecutionTime(executionTime);
+
+        arm(scheduledTask, timingWheel.newTimeout(() -> {
+            if (isActive(scheduledTask) && scheduledTask.isRunnable()) {
+                runTask(scheduledTask);
+            }
+        }, delayNanos, TimeUnit.NANOSECONDS));
+
+        log.info("一次性任务已调度: taskId={}, executionTime={}", scheduledTask.getTaskId(), executionTime);
+    }
+
+    /**
+     * 按固定频率挂载下一次触发，以上次到期时刻累加周期，避免执行耗时造成漂移
+     */
+    private void armSimpleTask(ScheduledTask scheduledTask, long deadlineNanos, long periodNanos) {
+        scheduledTask.updateNextExecutionTime(
+                LocalDateTime.now().plusNanos(deadlineNanos - System.nanoTime()));
+
+        arm(scheduledTask, timingWheel.newTimeoutAt(() -> {
+            if (!isActive(scheduledTask)) {
+                return;
+            }
+            if (scheduledTask.isRunnable()) {
+                runTask(scheduledTask);
+            }
+
+            // 跳过积压期间错过的周期，不做补偿执行
+            long nextDeadline = deadlineNanos + periodNanos;
+            long lag = System.nanoTime() - nextDeadline;
+            if (lag > 0) {
+                nextDeadline += (lag / periodNanos + 1) * periodNanos;
+            }
+            if (isActive(scheduledTask)) {
+                armSimpleTask(scheduledTask, nextDeadline, periodNanos);
+            }
+        }, deadlineNanos));
+    }
+
+    /**
+     * 挂载Cron任务的下一次触发
+     */
+    private void armCronTask(ScheduledTask scheduledTask, CronSchedule cronSchedule) {
+        LocalDateTime nextExecutionTime = nextCronExecution(scheduledTask, cronSchedule);
+        scheduledTask.updateNextExecutionTime(nextExecutionTime);
+        if (nextExecutionTime == null) {
+            log.warn("Cron表达式不会再触发: taskId={}, cronExpression={}",
+                    scheduledTask.getTaskId(), cronSchedule.getExpression());
+            return;
+        }
+        long delayNanos = Duration.between(LocalDateTime.now(), nextExecutionTime).toNanos();
+
+        arm(scheduledTask, timingWheel.newTimeout(() -> {
+            if (!isActive(scheduledTask)) {
+                return;
+            }
+            if (scheduledTask.isRunnable()) {
+                runTask(scheduledTask);
+            }
+            if (isActive(scheduledTask)) {
+                armCronTask(scheduledTask, cronSchedule);
+            }
+        }, delayNanos, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * 记录定时句柄；若任务在挂载期间已被取消或暂停，立即撤销新句柄
+     */
+    private void arm(ScheduledTask scheduledTask, WheelTimeout timeout) {
+        scheduledTask.setWheelTimeout(timeout);
+        if (!isActive(scheduledTask)) {
+            timeout.cancel();
+        }
+    }
+
+    /**
+     * 将到期批次中的任务逐个提交到执行线程池，时间轮线程只负责推进tick
+     * <p>
+     * 线程池已满时不在tick线程中执行，而是退回时间轮延后一个tick重试；任务闭包会重新检查调度是否有效，
+     * 重试期间被取消的任务不会执行。
+     */
+    private void dispatchExpiredBatch(List<WheelTimeout> batch) {
+        for (WheelTimeout timeout : batch) {
+            Runnable task = timeout.getTask();
+            try {
+                taskExecutor.execute(() -> {
+                    try {
+                        task.run();
+                    } catch (Exception e) {
+                        log.error("时间轮任务执行异常", e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                if (rejectedExecutions.incrementAndGet() % 1000 == 1) {
+                    log.warn("任务执行线程池已满，到期任务延后重试: rejected={}", rejectedExecutions.get());
+                }
+                if (timingWheel.isRunning()) {
+                    timingWheel.newTimeout(task, tickMs, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+    }
+}
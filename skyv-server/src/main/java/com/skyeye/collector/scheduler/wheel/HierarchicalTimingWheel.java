@@ -0,0 +1,344 @@
+package com.skyeye.collector.scheduler.wheel;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮
+ * <p>
+ * 第0层每个槽位代表一个tick，第n层每个槽位覆盖第n-1层一整圈。定时项按剩余tick数放入
+ * 能容纳它的最低层，高层槽位在轮转到时降级到低层，最终在第0层到期。
+ * <p>
+ * 新增与取消通过无锁队列交给单个工作线程处理，槽位链表只由工作线程访问，插入和删除均为O(1)。
+ * 同一tick内到期的定时项按批次交给回调处理，无论定时项多少，调度器都只有一个线程按tick唤醒。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+public class HierarchicalTimingWheel {
+
+    private final String name;
+
+    private final long tickNanos;
+
+    private final int wheelBits;
+
+    private final long wheelMask;
+
+    private final int levels;
+
+    private final int maxBatchSize;
+
+    private final WheelBucket[][] wheels;
+
+    private final Consumer<List<WheelTimeout>> expiryHandler;
+
+    private final Queue<WheelTimeout> pendingAdds = new ConcurrentLinkedQueue<>();
+
+    private final Queue<WheelTimeout> pendingCancels = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 统计计数器
+     */
+    private final AtomicLong pendingTimeouts = new AtomicLong(0);
+    private final AtomicLong expiredTimeouts = new AtomicLong(0);
+    private final AtomicLong dispatchedBatches = new AtomicLong(0);
+
+    private volatile boolean running;
+
+    private volatile long startNanos;
+
+    private Thread workerThread;
+
+    /**
+     * 当前tick，仅工作线程写入
+     */
+    private volatile long currentTick;
+
+    /**
+     * @param name          工作线程名称
+     * @param tickDuration  每个tick的时长
+     * @param unit          tick时长单位
+     * @param wheelSize     每层槽位数，向上取整为2的幂
+     * @param levels        层数
+     * @param maxBatchSize  单个批次最多包含的到期定时项数
+     * @param expiryHandler 到期批次回调，在工作线程中调用，应尽快把任务转交给执行线程池
+     */
+    public HierarchicalTimingWheel(String name, long tickDuration, TimeUnit unit, int wheelSize, int levels,
+                                   int maxBatchSize, Consumer<List<WheelTimeout>> expiryHandler) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tick时长必须大于0: " + tickDuration);
+        }
+        if (wheelSize < 2) {
+            throw new IllegalArgumentException("槽位数必须不小于2: " + wheelSize);
+        }
+        if (levels < 1) {
+            throw new IllegalArgumentException("层数必须不小于1: " + levels);
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("批次大小必须不小于1: " + maxBatchSize);
+        }
+
+        this.name = name;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheelBits = 32 - Integer.numberOfLeadingZeros(wheelSize - 1);
+        this.wheelMask = (1L << wheelBits) - 1;
+        if ((long) wheelBits * levels > 62) {
+            throw new IllegalArgumentException("时间轮总跨度超出范围: wheelSize=" + wheelSize + ", levels=" + levels);
+        }
+        this.levels = levels;
+        this.maxBatchSize = maxBatchSize;
+        this.expiryHandler = expiryHandler;
+
+        this.wheels = new WheelBucket[levels][1 << wheelBits];
+        for (WheelBucket[] wheel : wheels) {
+            for (int i = 0; i < wheel.length; i++) {
+                wheel[i] = new WheelBucket();
+            }
+        }
+    }
+
+    /**
+     * 启动工作线程
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        startNanos = System.nanoTime();
+        currentTick = 0;
+        running = true;
+        workerThread = new Thread(this::runWorker, name);
+        workerThread.setDaemon(true);
+        workerThread.start();
+        log.info("时间轮已启动: name={}, tick={}ms, wheelSize={}, levels={}",
+                name, TimeUnit.NANOSECONDS.toMillis(tickNanos), 1 << wheelBits, levels);
+    }
+
+    /**
+     * 停止工作线程，未到期的定时项全部丢弃
+     *
+     * @return 丢弃的定时项数量
+     */
+    public synchronized long stop() {
+        if (!running) {
+            return 0;
+        }
+        running = false;
+        workerThread.interrupt();
+        try {
+            workerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (WheelBucket[] wheel : wheels) {
+            for (WheelBucket bucket : wheel) {
+                bucket.drainTo(new ArrayList<>());
+            }
+        }
+        pendingAdds.clear();
+        pendingCancels.clear();
+        long discarded = pendingTimeouts.getAndSet(0);
+        log.info("时间轮已停止: name={}, 丢弃未到期定时项 {} 个", name, discarded);
+        return discarded;
+    }
+
+    /**
+     * 创建延迟定时项
+     */
+    public WheelTimeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        return newTimeoutAt(task, System.nanoTime() + Math.max(0, unit.toNanos(delay)));
+    }
+
+    /**
+     * 创建在指定时刻到期的定时项
+     *
+     * @param deadlineNanos 到期时刻（System.nanoTime()基准），固定频率任务用上次到期时刻累加周期可避免漂移
+     */
+    public WheelTimeout newTimeoutAt(Runnable task, long deadlineNanos) {
+        if (!running) {
+            throw new IllegalStateException("时间轮未启动: " + name);
+        }
+        long elapsed = deadlineNanos - startNanos;
+        long deadlineTick = elapsed <= 0 ? 0 : (elapsed + tickNanos - 1) / tickNanos;
+        WheelTimeout timeout = new WheelTimeout(this, task, deadlineNanos, deadlineTick);
+        pendingTimeouts.incrementAndGet();
+        pendingAdds.add(timeout);
+        return timeout;
+    }
+
+    void onCancelled(WheelTimeout timeout) {
+        pendingTimeouts.decrementAndGet();
+        pendingCancels.add(timeout);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getPendingTimeouts() {
+        return pendingTimeouts.get();
+    }
+
+    public long getExpiredTimeouts() {
+        return expiredTimeouts.get();
+    }
+
+    public long getDispatchedBatches() {
+        return dispatchedBatches.get();
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public long getTickMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(tickNanos);
+    }
+
+    private void runWorker() {
+        List<WheelTimeout> expired = new ArrayList<>(maxBatchSize);
+        while (running) {
+            long tickDeadline = startNanos + (currentTick + 1) * tickNanos;
+            long sleepNanos = tickDeadline - System.nanoTime();
+            if (sleepNanos > 0) {
+                LockSupport.parkNanos(this, sleepNanos);
+                continue;
+            }
+
+            try {
+                processCancellations();
+
+                long targetTick = (System.nanoTime() - startNanos) / tickNanos;
+                while (currentTick < targetTick) {
+                    long tick = currentTick + 1;
+                    cascade(tick, expired);
+                    wheels[0][(int) (tick & wheelMask)].drainTo(expired);
+                    currentTick = tick;
+                    flushIfFull(expired);
+                }
+
+                processAdditions(expired);
+                flush(expired);
+            } catch (Throwable t) {
+                log.error("时间轮处理tick异常: name={}, tick={}", name, currentTick, t);
+                expired.clear();
+            }
+        }
+    }
+
+    /**
+     * 高层槽位轮转到时降级到低层，从最高层开始以便降级后的定时项能在同一tick继续降级
+     */
+    private void cascade(long tick, List<WheelTimeout> expired) {
+        for (int level = levels - 1; level >= 1; level--) {
+            int shift = level * wheelBits;
+            if ((tick & ((1L << shift) - 1)) != 0) {
+                continue;
+            }
+            WheelBucket bucket = wheels[level][(int) ((tick >>> shift) & wheelMask)];
+            if (bucket.isEmpty()) {
+                continue;
+            }
+            List<WheelTimeout> moved = new ArrayList<>();
+            bucket.drainTo(moved);
+            for (WheelTimeout timeout : moved) {
+                place(timeout, tick, expired);
+            }
+        }
+    }
+
+    private void processAdditions(List<WheelTimeout> expired) {
+        WheelTimeout timeout;
+        while ((timeout = pendingAdds.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            place(timeout, currentTick, expired);
+            flushIfFull(expired);
+        }
+    }
+
+    private void processCancellations() {
+        WheelTimeout timeout;
+        while ((timeout = pendingCancels.poll()) != null) {
+            WheelBucket bucket = timeout.bucket;
+            if (bucket != null) {
+                bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * 按剩余tick数放入能容纳它的最低层，超出总跨度的定时项暂放最高层，降级时重新计算
+     */
+    private void place(WheelTimeout timeout, long tick, List<WheelTimeout> expired) {
+        long delta = timeout.deadlineTick - tick;
+        if (delta <= 0) {
+            expired.add(timeout);
+            return;
+        }
+
+        int level = 0;
+        while (level < levels - 1 && delta >= (1L << ((level + 1) * wheelBits))) {
+            level++;
+        }
+
+        long effectiveTick = timeout.deadlineTick;
+        long span = 1L << (levels * wheelBits);
+        if (delta >= span) {
+            effectiveTick = tick + span - 1;
+        }
+
+        int index = (int) ((effectiveTick >>> (level * wheelBits)) & wheelMask);
+        wheels[level][index].add(timeout);
+    }
+
+    private void flushIfFull(List<WheelTimeout> expired) {
+        if (expired.size() >= maxBatchSize) {
+            flush(expired);
+        }
+    }
+
+    private void flush(List<WheelTimeout> expired) {
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        // 同一槽位可能一次取出超过批次上限的定时项，按上限拆分
+        List<WheelTimeout> batch = new ArrayList<>(Math.min(expired.size(), maxBatchSize));
+        for (WheelTimeout timeout : expired) {
+            if (timeout.expire()) {
+                batch.add(timeout);
+                if (batch.size() >= maxBatchSize) {
+                    dispatch(batch);
+                    batch = new ArrayList<>(maxBatchSize);
+                }
+            }
+        }
+        expired.clear();
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private void dispatch(List<WheelTimeout> batch) {
+        pendingTimeouts.addAndGet(-batch.size());
+        expiredTimeouts.addAndGet(batch.size());
+        dispatchedBatches.incrementAndGet();
+        try {
+            expiryHandler.accept(batch);
+        } catch (Exception e) {
+            log.error("时间轮到期批次处理失败: name={}, size={}", name, batch.size(), e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.skyeye.collector.scheduler.wheel;
+
+import java.util.List;
+
+/**
+ * 时间轮槽位
+ * <p>
+ * 侵入式双向链表，插入和删除均为O(1)。只由时间轮工作线程访问，无需同步。
+ *
+ * @author SkyEye Team
+ */
+final class WheelBucket {
+
+    private WheelTimeout head;
+    private WheelTimeout tail;
+
+    void add(WheelTimeout timeout) {
+        timeout.bucket = this;
+        timeout.prev = tail;
+        timeout.next = null;
+        if (tail == null) {
+            head = timeout;
+        } else {
+            tail.next = timeout;
+        }
+        tail = timeout;
+    }
+
+    void remove(WheelTimeout timeout) {
+        WheelTimeout next = timeout.next;
+        if (timeout.prev != null) {
+            timeout.prev.next = next;
+        } else {
+            head = next;
+        }
+        if (next != null) {
+            next.prev = timeout.prev;
+        } else {
+            tail = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucket = null;
+    }
+
+    /**
+     * 取出槽位中全部定时项并清空槽位
+     */
+    void drainTo(List<WheelTimeout> target) {
+        WheelTimeout timeout = head;
+        while (timeout != null) {
+            WheelTimeout next = timeout.next;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            target.add(timeout);
+            timeout = next;
+        }
+        head = null;
+        tail = null;
+    }
+
+    boolean isEmpty() {
+        return head == null;
+    }
+}
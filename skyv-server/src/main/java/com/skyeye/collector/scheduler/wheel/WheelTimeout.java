@@ -0,0 +1,95 @@
+package com.skyeye.collector.scheduler.wheel;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * 时间轮定时项
+ * <p>
+ * 由 {@link HierarchicalTimingWheel#newTimeout} 创建，作为任务在时间轮中的句柄。
+ * 链表指针和所在槽位只由时间轮工作线程访问，状态字段可被任意线程并发修改。
+ *
+ * @author SkyEye Team
+ */
+public final class WheelTimeout {
+
+    static final int ST_INIT = 0;
+    static final int ST_CANCELLED = 1;
+    static final int ST_EXPIRED = 2;
+
+    private static final AtomicIntegerFieldUpdater<WheelTimeout> STATE_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(WheelTimeout.class, "state");
+
+    private final HierarchicalTimingWheel wheel;
+
+    private final Runnable task;
+
+    /**
+     * 到期时间（System.nanoTime()基准）
+     */
+    private final long deadlineNanos;
+
+    /**
+     * 到期tick（相对时间轮启动时刻）
+     */
+    final long deadlineTick;
+
+    private volatile int state = ST_INIT;
+
+    /**
+     * 所在槽位及双向链表指针，仅工作线程访问
+     */
+    WheelBucket bucket;
+    WheelTimeout prev;
+    WheelTimeout next;
+
+    WheelTimeout(HierarchicalTimingWheel wheel, Runnable task, long deadlineNanos, long deadlineTick) {
+        this.wheel = wheel;
+        this.task = task;
+        this.deadlineNanos = deadlineNanos;
+        this.deadlineTick = deadlineTick;
+    }
+
+    /**
+     * 取消定时项
+     *
+     * @return 是否由本次调用取消（已到期或已取消返回false）
+     */
+    public boolean cancel() {
+        if (!STATE_UPDATER.compareAndSet(this, ST_INIT, ST_CANCELLED)) {
+            return false;
+        }
+        wheel.onCancelled(this);
+        return true;
+    }
+
+    /**
+     * 标记为已到期，仅工作线程调用
+     */
+    boolean expire() {
+        return STATE_UPDATER.compareAndSet(this, ST_INIT, ST_EXPIRED);
+    }
+
+    public boolean isCancelled() {
+        return state == ST_CANCELLED;
+    }
+
+    public boolean isExpired() {
+        return state == ST_EXPIRED;
+    }
+
+    public Runnable getTask() {
+        return task;
+    }
+
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    /**
+     * 距离到期的剩余时间
+     */
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+}
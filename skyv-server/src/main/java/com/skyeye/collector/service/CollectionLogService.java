@@ -15,12 +15,12 @@ import java.util.Map;
 public interface CollectionLogService {
 
     /**
-     * 记录采集日志
+     * 记录采集日志，异步批量落库
      * 
      * @param deviceId 设备ID
      * @param metricName 指标名称
      * @param result 采集结果
-     * @return 采集日志
+     * @return 采集日志（尚未分配ID）
      */
     CollectionLog logCollection(Long deviceId, String metricName, CollectionResult result);
 
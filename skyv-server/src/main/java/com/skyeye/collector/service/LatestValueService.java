@@ -0,0 +1,32 @@
+package com.skyeye.collector.service;
+
+import com.skyeye.collector.dto.LatestMetricValue;
+
+import java.util.List;
+
+/**
+ * 指标最新值服务接口
+ * 
+ * @author SkyEye Team
+ */
+public interface LatestValueService {
+
+    /**
+     * 获取设备全部指标的最新值
+     * <p>
+     * 优先读取内存中的最新值；本节点没有该设备的数据时，依次从Redis复制数据（启用时）和数据库加载一次。
+     * 
+     * @param deviceId 设备ID
+     * @return 最新值列表，按指标名称排序
+     */
+    List<LatestMetricValue> getDeviceLatestValues(Long deviceId);
+
+    /**
+     * 获取设备指定指标的最新值
+     * 
+     * @param deviceId 设备ID
+     * @param metricName 指标名称
+     * @return 最新值，不存在时返回null
+     */
+    LatestMetricValue getLatestValue(Long deviceId, String metricName);
+}
@@ -0,0 +1,29 @@
+package com.skyeye.collector.service;
+
+import com.skyeye.collector.dto.MetricSeriesResult;
+
+import java.time.LocalDateTime;
+
+/**
+ * 指标曲线查询服务接口
+ * 
+ * @author SkyEye Team
+ */
+public interface MetricSeriesService {
+
+    /**
+     * 查询设备指标曲线，按时间范围和点数上限自动选择粒度
+     * <p>
+     * 短时间范围读取原始数据；其余情况在数据点不超过 maxPoints 的粒度中选择最细的一级，
+     * 都超出时使用1小时聚合。
+     * 
+     * @param deviceId 设备ID
+     * @param metricName 指标名称
+     * @param startTime 开始时间（含）
+     * @param endTime 结束时间（不含）
+     * @param maxPoints 最大数据点数，为空时使用默认值
+     * @return 曲线数据
+     */
+    MetricSeriesResult querySeries(Long deviceId, String metricName, LocalDateTime startTime,
+                                   LocalDateTime endTime, Integer maxPoints);
+}
@@ -4,6 +4,7 @@ import com.skyeye.collector.dto.CollectionResult;
 import com.skyeye.collector.entity.CollectionLog;
 import com.skyeye.collector.repository.CollectionLogRepository;
 import com.skyeye.collector.service.CollectionLogService;
+import com.skyeye.collector.writer.CollectionLogWriter;
 import com.skyeye.common.util.JsonUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -29,9 +30,9 @@ import java.util.stream.Collectors;
 public class CollectionLogServiceImpl implements CollectionLogService {
 
     private final CollectionLogRepository collectionLogRepository;
+    private final CollectionLogWriter collectionLogWriter;
 
     @Override
-    @Transactional
     public CollectionLog logCollection(Long deviceId, String metricName, CollectionResult result) {
         CollectionLog log = new CollectionLog();
         log.setDeviceId(deviceId);
@@ -54,8 +55,11 @@ public class CollectionLogServiceImpl implements CollectionLogService {
         if (result.getMetrics() != null && !result.getMetrics().isEmpty()) {
             log.setExtraData(JsonUtils.toJson(result.getMetrics()));
         }
+        log.setCreatedAt(LocalDateTime.now());
 
-        return collectionLogRepository.save(log);
+        // 交给异步写入器批量落库，返回的日志对象没有ID
+        collectionLogWriter.submit(log);
+        return log;
     }
 
     @Override
@@ -11,9 +11,11 @@ import com.skyeye.collector.entity.CollectionLog;
 import com.skyeye.collector.entity.CollectionTask;
 import com.skyeye.collector.entity.TaskStatistics;
 import com.skyeye.collector.engine.CollectorEngine;
+import com.skyeye.collector.engine.TaskDeviceResolver;
 import com.skyeye.collector.repository.CollectionLogRepository;
 import com.skyeye.collector.repository.CollectionTaskRepository;
 import com.skyeye.collector.repository.TaskStatisticsRepository;
+import com.skyeye.collector.scheduler.CronSchedule;
 import com.skyeye.collector.scheduler.TaskScheduler;
 import com.skyeye.collector.service.CollectionTaskService;
 import com.skyeye.common.exception.BusinessException;
@@ -22,6 +24,7 @@ import com.skyeye.device.entity.Device;
 import com.skyeye.device.repository.DeviceRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -36,10 +39,21 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
  * 采集任务服务实现
@@ -55,14 +69,27 @@ public class CollectionTaskServiceImpl implements CollectionTaskService {
     private final CollectionLogRepository collectionLogRepository;
     private final DeviceRepository deviceRepository;
     private final CollectorEngine collectorEngine;
+    private final TaskDeviceResolver taskDeviceResolver;
     private final TaskScheduler taskScheduler;
     private final Executor taskExecutor;
 
+    /**
+     * 单个任务并行采集的并发上限，任务自身的maxConcurrency不会超过该值
+     */
+    @Value("${skyeye.collector.task-max-concurrency:64}")
+    private int taskMaxConcurrency;
+
+    /**
+     * 按任务缓存的已编译Cron表达式，每次执行后计算下次执行时间时复用；任务更新或删除时移除
+     */
+    private final Map<Long, CronSchedule> cronSchedules = new ConcurrentHashMap<>();
+
     public CollectionTaskServiceImpl(CollectionTaskRepository collectionTaskRepository,
                                    TaskStatisticsRepository taskStatisticsRepository,
                                    CollectionLogRepository collectionLogRepository,
                                    DeviceRepository deviceRepository,
                                    CollectorEngine collectorEngine,
+                                   TaskDeviceResolver taskDeviceResolver,
                                    @Lazy TaskScheduler taskScheduler,
                                    @Qualifier("applicationTaskExecutor") Executor taskExecutor) {
         this.collectionTaskRepository = collectionTaskRepository;
@@ -70,6 +97,7 @@ public class CollectionTaskServiceImpl implements CollectionTaskService {
         this.collectionLogRepository = collectionLogRepository;
         this.deviceRepository = deviceRepository;
         this.collectorEngine = collectorEngine;
+        this.taskDeviceResolver = taskDeviceResolver;
         this.taskScheduler = taskScheduler;
         this.taskExecutor = taskExecutor;
     }
@@ -125,7 +153,7 @@ public class CollectionTaskServiceImpl implements CollectionTaskService {
         task.setRemarks(request.getRemarks());
 
         // 5. 计算下次执行时间
-        task.setNextExecutionTime(calculateNextExecutionTime(request.getScheduleType(), request.getScheduleConfig()));
+        task.setNextExecutionTime(calculateNextExecutionTime(null, request.getScheduleType(), request.getScheduleConfig()));
 
         // 6. 保存任务
         task = collectionTaskRepository.save(task);
@@ -170,11 +198,13 @@ public class CollectionTaskServiceImpl implements CollectionTaskService {
         }
         if (request.getScheduleType() != null) {
             task.setScheduleType(request.getScheduleType());
+            cronSchedules.remove(taskId);
         }
         if (request.getScheduleConfig() != null) {
             task.setScheduleConfig(request.getScheduleConfig());
             // 重新计算下次执行时间
-            task.setNextExecutionTime(calculateNextExecutionTime(task.getScheduleType(), task.getScheduleConfig()));
+            cronSchedules.remove(taskId);
+            task.setNextExecutionTime(calculateNextExecutionTime(taskId, task.getScheduleType(), task.getScheduleConfig()));
         }
         if (request.getTargetDevices() != null) {
             // 验证目标设备
@@ -279,6 +309,8 @@ public class CollectionTaskServiceImpl implements CollectionTaskService {
 
         // 删除任务
         collectionTaskRepository.deleteById(taskId);
+        taskDeviceResolver.evict(taskId);
+        cronSchedules.remove(taskId);
 
         log.info("采集任务删除成功: taskId={}, name={}", taskId, task.getName());
     }
@@ -522,6 +554,13 @@ public class CollectionTaskServiceImpl implements CollectionTaskService {
                 if (request.getScheduleConfig() != null && 
                     !request.getScheduleConfig().containsKey("cronExpression")) {
                     errors.add("Cron调度必须包含cronExpression配置");
+                } else if (request.getScheduleConfig() != null) {
+                    try {
+                        CronSchedule.compile((String) request.getScheduleConfig().get("cronExpression"),
+                                CronSchedule.resolveZone(request.getScheduleConfig()));
+                    } catch (IllegalArgumentException e) {
+                        errors.add(e.getMessage());
+                    }
                 }
             }
         }
@@ -709,77 +748,61 @@ public class CollectionTaskServiceImpl implements CollectionTaskService {
 
         try {
             // 1. 记录执行开始
-            CollectionLog log = new CollectionLog();
-            log.setTaskId(task.getId());
-            log.setExecutionId(executionId);
-            log.setStartTime(startTime);
-            log.setStatus("RUNNING");
-            log.setPluginType("TASK_EXECUTOR");
-            collectionLogRepository.save(log);
+            CollectionLog executionLog = new CollectionLog();
+            executionLog.setTaskId(task.getId());
+            executionLog.setExecutionId(executionId);
+            executionLog.setStartTime(startTime);
+            executionLog.setStatus("RUNNING");
+            executionLog.setPluginType("TASK_EXECUTOR");
+            collectionLogRepository.save(executionLog);
 
             // 2. 更新任务执行次数
             collectionTaskRepository.incrementExecutionCount(task.getId(), startTime, new Timestamp(System.currentTimeMillis()));
 
             // 3. 执行采集任务
-            int successCount = 0;
-            int failedCount = 0;
-            int totalMetrics = 0;
-
-            for (Long deviceId : task.getTargetDevices()) {
-                Device device = deviceRepository.findById(deviceId).orElse(null);
-                if (device == null) {
-                    log.warn("设备不存在，跳过: deviceId={}", deviceId);
-                    continue;
-                }
-
-                for (var metricConfig : task.getMetricsConfig()) {
-                    totalMetrics++;
-                    try {
-                        CollectionContext context = CollectionContext.createDefault();
-                        context.setTaskId(task.getId());
-                        context.setSessionId(executionId);
-
-                        CollectionResult result = collectorEngine.executeCollection(device, metricConfig, context);
-                        if (result.isSuccess()) {
-                            successCount++;
-                        } else {
-                            failedCount++;
-                            log.warn("指标采集失败: deviceId={}, metric={}, error={}", 
-                                    deviceId, metricConfig.getMetricName(), result.getErrorMessage());
-                        }
-                    } catch (Exception e) {
-                        failedCount++;
-                        log.error("指标采集异常: deviceId={}, metric={}", 
-                                deviceId, metricConfig.getMetricName(), e);
-                    }
-                }
+            List<Device> devices = taskDeviceResolver.resolve(task);
+
+            CollectionContext taskContext = createTaskContext(task, executionId);
+            ExecutionCounters counters = new ExecutionCounters(devices.size() * task.getMetricsConfig().size());
+            if (taskContext.isEnableParallelCollection()) {
+                collectInParallel(devices, task.getMetricsConfig(), taskContext, counters);
+            } else {
+                collectSequentially(devices, task.getMetricsConfig(), taskContext, counters);
             }
 
+            int successCount = counters.successCount.get();
+            int failedCount = counters.failedCount.get();
+            int timeoutCount = counters.timeoutCount.get();
+            int totalMetrics = counters.totalCount;
+
             // 4. 更新执行结果
             long executionTime = System.currentTimeMillis() - startTimeMillis;
-            log.setEndTime(new Timestamp(System.currentTimeMillis()));
-            log.setStatus("COMPLETED");
-            log.setSuccess(successCount > 0);
-            log.setResponseTime(executionTime);
-            log.setDataCount(totalMetrics);
-            log.setExtraData(JsonUtils.toJson(Map.of(
+            executionLog.setEndTime(new Timestamp(System.currentTimeMillis()));
+            executionLog.setStatus(timeoutCount > 0 ? "TIMEOUT" : "COMPLETED");
+            executionLog.setSuccess(successCount > 0);
+            executionLog.setResponseTime(executionTime);
+            executionLog.setDataCount(totalMetrics);
+            executionLog.setExtraData(JsonUtils.toJson(Map.of(
                     "successCount", successCount,
                     "failedCount", failedCount,
-                    "totalMetrics", totalMetrics
+                    "timeoutCount", timeoutCount,
+                    "totalMetrics", totalMetrics,
+                    "parallel", taskContext.isEnableParallelCollection(),
+                    "maxConcurrency", taskContext.getMaxConcurrency()
             )));
-            collectionLogRepository.save(log);
+            collectionLogRepository.save(executionLog);
 
             // 5. 更新任务统计
             updateTaskExecutionStatistics(task.getId(), successCount > 0, executionTime);
 
             // 6. 计算下次执行时间
-            Timestamp nextExecutionTime = calculateNextExecutionTime(task.getScheduleType(), task.getScheduleConfig());
+            Timestamp nextExecutionTime = calculateNextExecutionTime(task.getId(), task.getScheduleType(), task.getScheduleConfig());
             if (nextExecutionTime != null) {
                 updateNextExecutionTime(task.getId(), nextExecutionTime);
             }
 
-            log.info("任务执行完成: taskId={}, successCount={}, failedCount={}, executionTime={}ms", 
-                    task.getId(), successCount, failedCount, executionTime);
+            log.info("任务执行完成: taskId={}, successCount={}, failedCount={}, timeoutCount={}, executionTime={}ms",
+                    task.getId(), successCount, failedCount, timeoutCount, executionTime);
 
         } catch (Exception e) {
             log.error("任务执行异常: taskId={}", task.getId(), e);
@@ -788,13 +811,13 @@ public class CollectionTaskServiceImpl implements CollectionTaskService {
             try {
                 Optional<CollectionLog> logOpt = collectionLogRepository.findByExecutionId(executionId);
                 if (logOpt.isPresent()) {
-                    CollectionLog log = logOpt.get();
-                    log.setEndTime(new Timestamp(System.currentTimeMillis()));
-                    log.setStatus("FAILED");
-                    log.setSuccess(false);
-                    log.setErrorMessage(e.getMessage());
-                    log.setErrorCode("EXECUTION_ERROR");
-                    collectionLogRepository.save(log);
+                    CollectionLog executionLog = logOpt.get();
+                    executionLog.setEndTime(new Timestamp(System.currentTimeMillis()));
+                    executionLog.setStatus("FAILED");
+                    executionLog.setSuccess(false);
+                    executionLog.setErrorMessage(e.getMessage());
+                    executionLog.setErrorCode("EXECUTION_ERROR");
+                    collectionLogRepository.save(executionLog);
                 }
             } catch (Exception logException) {
                 log.error("记录执行失败日志异常: taskId={}", task.getId(), logException);
@@ -805,6 +828,198 @@ public class CollectionTaskServiceImpl implements CollectionTaskService {
         }
     }
 
+    /**
+     * 创建任务级采集上下文
+     * <p>
+     * 任务超时时间作为整体截止时间；maxConcurrency大于1时默认并行采集，
+     * 可通过任务参数 enableParallelCollection=false 关闭。
+     */
+    private CollectionContext createTaskContext(CollectionTask task, String executionId) {
+        CollectionContext context = CollectionContext.createDefault();
+        context.setTaskId(task.getId());
+        context.setSessionId(executionId);
+
+        int concurrency = task.getMaxConcurrency() != null ? task.getMaxConcurrency() : 1;
+        concurrency = Math.max(1, Math.min(concurrency, taskMaxConcurrency));
+        context.setMaxConcurrency(concurrency);
+
+        boolean parallel = concurrency > 1;
+        Object parallelParam = task.getParameters() != null ? task.getParameters().get("enableParallelCollection") : null;
+        if (parallelParam != null) {
+            parallel = parallel && Boolean.parseBoolean(parallelParam.toString());
+        }
+        context.setEnableParallelCollection(parallel);
+
+        if (task.getTimeout() != null && task.getTimeout() > 0) {
+            context.setDeadline(context.getStartTime().plusSeconds(task.getTimeout()));
+        }
+        return context;
+    }
+
+    /**
+     * 逐台设备顺序采集，超过截止时间后剩余组合计为超时
+     */
+    private void collectSequentially(List<Device> devices, List<MetricConfig> metricsConfig,
+                                     CollectionContext taskContext, ExecutionCounters counters) {
+        for (int i = 0; i < devices.size(); i++) {
+            if (taskContext.isTimeout()) {
+                counters.markRemainingTimedOut();
+                log.warn("任务执行超时，剩余指标未采集: taskId={}, timeoutCount={}",
+                        taskContext.getTaskId(), counters.timeoutCount.get());
+                return;
+            }
+            collectDevice(devices.get(i), metricsConfig, taskContext, counters, i * metricsConfig.size());
+        }
+    }
+
+    /**
+     * 按设备并行采集
+     * <p>
+     * 每台设备使用一个虚拟线程，由信号量限制同时采集的设备数不超过maxConcurrency；
+     * 计数只用原子操作累加。到达任务截止时间后中断未完成的采集，未完成的组合计为超时。
+     */
+    private void collectInParallel(List<Device> devices, List<MetricConfig> metricsConfig,
+                                   CollectionContext taskContext, ExecutionCounters counters) {
+        Semaphore permits = new Semaphore(taskContext.getMaxConcurrency());
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("collect-" + taskContext.getTaskId() + "-", 0).factory());
+        List<Future<?>> futures = new ArrayList<>(devices.size());
+
+        try {
+            for (int i = 0; i < devices.size(); i++) {
+                Device device = devices.get(i);
+                int firstSlot = i * metricsConfig.size();
+                futures.add(executor.submit(() -> {
+                    try {
+                        if (!acquirePermit(permits, taskContext)) {
+                            return;
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    try {
+                        collectDevice(device, metricsConfig, taskContext, counters, firstSlot);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                long remaining = taskContext.getRemainingTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                try {
+                    future.get(remaining, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    break;
+                } catch (ExecutionException e) {
+                    log.error("并行采集异常: taskId={}", taskContext.getTaskId(), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+            int timedOut = counters.markRemainingTimedOut();
+            if (timedOut > 0) {
+                log.warn("任务执行超时，未完成的采集已中断: taskId={}, timeoutCount={}",
+                        taskContext.getTaskId(), timedOut);
+            }
+        }
+    }
+
+    /**
+     * 在截止时间前获取并发许可
+     */
+    private boolean acquirePermit(Semaphore permits, CollectionContext taskContext) throws InterruptedException {
+        long remaining = taskContext.getRemainingTime();
+        if (remaining == Long.MAX_VALUE) {
+            permits.acquire();
+            return true;
+        }
+        return remaining > 0 && permits.tryAcquire(remaining, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 批量采集单台设备的全部指标并记录结果
+     * <p>
+     * 由采集引擎按插件分组，同一插件的指标合并请求（如SNMP多变量绑定GET）；
+     * 设备的指标依次占用从firstSlot开始的槽位。
+     */
+    private void collectDevice(Device device, List<MetricConfig> metricsConfig, CollectionContext taskContext,
+                               ExecutionCounters counters, int firstSlot) {
+        try {
+            List<CollectionResult> results =
+                    collectorEngine.executeBatchCollection(device, metricsConfig, taskContext.copy());
+            for (int i = 0; i < metricsConfig.size(); i++) {
+                CollectionResult result = i < results.size() ? results.get(i) : null;
+                if (result != null && result.isSuccess()) {
+                    counters.recordSuccess(firstSlot + i);
+                } else {
+                    counters.recordFailure(firstSlot + i);
+                    log.warn("指标采集失败: deviceId={}, metric={}, error={}", device.getId(),
+                            metricsConfig.get(i).getMetricName(), result != null ? result.getErrorMessage() : null);
+                }
+            }
+        } catch (Exception e) {
+            for (int i = 0; i < metricsConfig.size(); i++) {
+                counters.recordFailure(firstSlot + i);
+            }
+            log.error("设备批量采集异常: deviceId={}", device.getId(), e);
+        }
+    }
+
+    /**
+     * 单次任务执行的计数器
+     * <p>
+     * 每个设备×指标组合占一个槽位，结果只记录一次：采集线程和超时处理通过CAS争用槽位，
+     * 保证 成功+失败+超时 恰好等于总数。
+     */
+    private static final class ExecutionCounters {
+
+        private final int totalCount;
+        private final AtomicIntegerArray slots;
+        private final AtomicInteger successCount = new AtomicInteger();
+        private final AtomicInteger failedCount = new AtomicInteger();
+        private final AtomicInteger timeoutCount = new AtomicInteger();
+
+        private ExecutionCounters(int totalCount) {
+            this.totalCount = totalCount;
+            this.slots = new AtomicIntegerArray(totalCount);
+        }
+
+        private void recordSuccess(int slot) {
+            if (slots.compareAndSet(slot, 0, 1)) {
+                successCount.incrementAndGet();
+            }
+        }
+
+        private void recordFailure(int slot) {
+            if (slots.compareAndSet(slot, 0, 1)) {
+                failedCount.incrementAndGet();
+            }
+        }
+
+        /**
+         * 将尚未记录结果的组合全部计为超时
+         *
+         * @return 本次新增的超时数
+         */
+        private int markRemainingTimedOut() {
+            int marked = 0;
+            for (int i = 0; i < totalCount; i++) {
+                if (slots.compareAndSet(i, 0, 1)) {
+                    marked++;
+                }
+            }
+            timeoutCount.addAndGet(marked);
+            return marked;
+        }
+    }
+
     /**
      * 验证指标配置
      */
@@ -825,8 +1040,10 @@ public class CollectionTaskServiceImpl implements CollectionTaskService {
 
     /**
      * 计算下次执行时间
+     *
+     * @param taskId 任务ID，新建任务尚无ID时为null，不缓存编译结果
      */
-    private Timestamp calculateNextExecutionTime(String scheduleType, Map<String, Object> scheduleConfig) {
+    private Timestamp calculateNextExecutionTime(Long taskId, String scheduleType, Map<String, Object> scheduleConfig) {
         if (scheduleConfig == null) {
             return null;
         }
@@ -853,15 +1070,37 @@ public class CollectionTaskServiceImpl implements CollectionTaskService {
                         nextTime = now.plusMinutes(interval);
                 }
             }
-        } else if ("CRON".equals(scheduleType)) {
-            // 这里可以实现Cron表达式解析逻辑
-            // 暂时返回1小时后
-            nextTime = now.plusHours(1);
+        } else if ("CRON".equalsIgnoreCase(scheduleType)) {
+            String cronExpression = (String) scheduleConfig.get("cronExpression");
+            if (cronExpression != null) {
+                try {
+                    nextTime = cronSchedule(taskId, cronExpression, CronSchedule.resolveZone(scheduleConfig)).next(now);
+                } catch (IllegalArgumentException e) {
+                    log.warn("Cron表达式解析失败: cronExpression={}, error={}", cronExpression, e.getMessage());
+                }
+            }
         }
 
         return nextTime != null ? Timestamp.valueOf(nextTime) : null;
     }
 
+    /**
+     * 获取任务的已编译Cron表达式，表达式或时区与缓存不一致时重新编译
+     */
+    private CronSchedule cronSchedule(Long taskId, String cronExpression, ZoneId zoneId) {
+        if (taskId == null) {
+            return CronSchedule.compile(cronExpression, zoneId);
+        }
+        CronSchedule cached = cronSchedules.get(taskId);
+        ZoneId zone = zoneId != null ? zoneId : ZoneId.systemDefault();
+        if (cached != null && cached.getExpression().equals(cronExpression) && cached.getZoneId().equals(zone)) {
+            return cached;
+        }
+        CronSchedule compiled = CronSchedule.compile(cronExpression, zone);
+        cronSchedules.put(taskId, compiled);
+        return compiled;
+    }
+
     /**
      * 更新任务统计记录
      */
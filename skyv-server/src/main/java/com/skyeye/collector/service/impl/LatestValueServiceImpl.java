@@ -0,0 +1,148 @@
+package com.skyeye.collector.service.impl;
+
+import com.skyeye.collector.dto.LatestMetricValue;
+import com.skyeye.collector.entity.CollectionData;
+import com.skyeye.collector.latest.LatestValue;
+import com.skyeye.collector.latest.LatestValueRedisReplicator;
+import com.skyeye.collector.latest.LatestValueStore;
+import com.skyeye.collector.repository.CollectionDataRepository;
+import com.skyeye.collector.service.LatestValueService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 指标最新值服务实现
+ * 
+ * @author SkyEye Team
+ */
+@Slf4j
+@Service
+public class LatestValueServiceImpl implements LatestValueService {
+
+    private final LatestValueStore latestValueStore;
+    private final CollectionDataRepository collectionDataRepository;
+    private final ObjectProvider<LatestValueRedisReplicator> replicatorProvider;
+
+    /**
+     * 从数据库预热时读取的最近采集数据行数
+     */
+    @Value("${skyeye.collector.latest-value.warmup-rows:200}")
+    private int warmupRows;
+
+    /**
+     * 没有数据的设备两次预热之间的最小间隔（秒）
+     */
+    @Value("${skyeye.collector.latest-value.warmup-retry-seconds:300}")
+    private long warmupRetrySeconds;
+
+    /**
+     * 最近预热过的设备 → 预热时间，间隔内不再访问数据库；过期的记录定期清理
+     */
+    private final ConcurrentHashMap<Long, Long> warmedDevices = new ConcurrentHashMap<>();
+
+    public LatestValueServiceImpl(LatestValueStore latestValueStore,
+                                  CollectionDataRepository collectionDataRepository,
+                                  ObjectProvider<LatestValueRedisReplicator> replicatorProvider) {
+        this.latestValueStore = latestValueStore;
+        this.collectionDataRepository = collectionDataRepository;
+        this.replicatorProvider = replicatorProvider;
+    }
+
+    @Override
+    public List<LatestMetricValue> getDeviceLatestValues(Long deviceId) {
+        Map<String, LatestValue> values = latestValueStore.getDeviceValues(deviceId);
+        if (values.isEmpty() && warmUp(deviceId)) {
+            values = latestValueStore.getDeviceValues(deviceId);
+        }
+
+        List<LatestMetricValue> result = new ArrayList<>(values.size());
+        values.forEach((metricName, value) -> result.add(toDto(deviceId, metricName, value)));
+        result.sort(Comparator.comparing(LatestMetricValue::getMetricName));
+        return result;
+    }
+
+    @Override
+    public LatestMetricValue getLatestValue(Long deviceId, String metricName) {
+        LatestValue value = latestValueStore.get(deviceId, metricName);
+        if (value == null && !latestValueStore.hasDevice(deviceId) && warmUp(deviceId)) {
+            value = latestValueStore.get(deviceId, metricName);
+        }
+        return value != null ? toDto(deviceId, metricName, value) : null;
+    }
+
+    /**
+     * 本节点没有设备数据时加载一次：先从Redis，再从数据库
+     *
+     * @return 是否执行了加载
+     */
+    private boolean warmUp(Long deviceId) {
+        long now = System.currentTimeMillis();
+        Long warmedAt = warmedDevices.get(deviceId);
+        if (warmedAt != null && now - warmedAt < warmupRetrySeconds * 1000) {
+            return false;
+        }
+        boolean claimed = warmedAt == null ? warmedDevices.putIfAbsent(deviceId, now) == null
+                : warmedDevices.replace(deviceId, warmedAt, now);
+        if (!claimed) {
+            return false;
+        }
+
+        LatestValueRedisReplicator replicator = replicatorProvider.getIfAvailable();
+        if (replicator != null) {
+            try {
+                if (replicator.loadDevice(deviceId) > 0) {
+                    return true;
+                }
+            } catch (Exception e) {
+                log.warn("从Redis加载最新值失败: deviceId={}, error={}", deviceId, e.getMessage());
+            }
+        }
+
+        List<CollectionData> recent;
+        try {
+            recent = collectionDataRepository.findByDeviceIdOrderByCollectedAtDesc(
+                    deviceId, PageRequest.of(0, warmupRows)).getContent();
+        } catch (RuntimeException e) {
+            warmedDevices.remove(deviceId);
+            throw e;
+        }
+        for (CollectionData data : recent) {
+            BigDecimal metricValue = data.getMetricValue();
+            latestValueStore.applyRemote(deviceId, data.getMetricName(),
+                    metricValue != null ? metricValue.doubleValue() : null,
+                    metricValue != null ? null : data.getMetricData(),
+                    data.getCollectedAt().getTime(), data.getQualityScore());
+        }
+        log.debug("从数据库预热设备最新值: deviceId={}, rows={}", deviceId, recent.size());
+        return true;
+    }
+
+    /**
+     * 清理超过重试间隔的预热记录，记录数只与最近被查询的无数据设备数有关
+     */
+    @Scheduled(fixedRate = 1, timeUnit = TimeUnit.MINUTES)
+    public void purgeWarmedDevices() {
+        long expireBefore = System.currentTimeMillis() - warmupRetrySeconds * 1000;
+        warmedDevices.values().removeIf(warmedAt -> warmedAt < expireBefore);
+    }
+
+    private LatestMetricValue toDto(Long deviceId, String metricName, LatestValue value) {
+        LatestMetricValue dto = new LatestMetricValue();
+        dto.setDeviceId(deviceId);
+        dto.setMetricName(metricName);
+        dto.setNumeric(value.isNumeric());
+        dto.setValue(value.isNumeric() ? (Object) value.getValue() : value.getText());
+        dto.setTimestamp(value.getTimestamp());
+        dto.setQualityScore(value.getQualityScore() >= 0 ? value.getQualityScore() : null);
+        return dto;
+    }
+}
@@ -0,0 +1,90 @@
+package com.skyeye.collector.service.impl;
+
+import com.skyeye.collector.config.RollupConfig;
+import com.skyeye.collector.dto.MetricSeriesPoint;
+import com.skyeye.collector.dto.MetricSeriesResult;
+import com.skyeye.collector.repository.CollectionDataRollupRepository;
+import com.skyeye.collector.rollup.CollectionDataRollupEngine;
+import com.skyeye.collector.rollup.RollupResolution;
+import com.skyeye.collector.service.MetricSeriesService;
+import com.skyeye.common.exception.BusinessException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 指标曲线查询服务实现
+ * 
+ * @author SkyEye Team
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MetricSeriesServiceImpl implements MetricSeriesService {
+
+    private final CollectionDataRollupRepository rollupRepository;
+    private final CollectionDataRollupEngine rollupEngine;
+    private final RollupConfig rollupConfig;
+
+    @Override
+    public MetricSeriesResult querySeries(Long deviceId, String metricName, LocalDateTime startTime,
+                                          LocalDateTime endTime, Integer maxPoints) {
+        if (deviceId == null || metricName == null || metricName.trim().isEmpty()) {
+            throw new BusinessException("设备ID和指标名称不能为空");
+        }
+        if (startTime == null || endTime == null || !startTime.isBefore(endTime)) {
+            throw new BusinessException("开始时间必须早于结束时间");
+        }
+        int pointBudget = maxPoints != null && maxPoints > 0 ? maxPoints : rollupConfig.getDefaultMaxPoints();
+
+        RollupResolution resolution = selectResolution(startTime, endTime, pointBudget);
+        LocalDateTime from = resolution.floor(startTime);
+        int limit = rollupConfig.getMaxQueryPoints();
+        List<MetricSeriesPoint> points = rollupRepository.findSeries(resolution, deviceId, metricName, from, endTime,
+                limit);
+
+        log.debug("查询指标曲线: device={}, metric={}, resolution={}, points={}",
+                deviceId, metricName, resolution, points.size());
+
+        return MetricSeriesResult.builder()
+                .deviceId(deviceId)
+                .metricName(metricName)
+                .startTime(startTime)
+                .endTime(endTime)
+                .resolution(resolution)
+                .points(points)
+                .truncated(points.size() >= limit)
+                .build();
+    }
+
+    /**
+     * 选择粒度：聚合不可用或时间范围较短时读原始数据，否则取点数不超过预算的最细聚合，
+     * 开始时间早于该级聚合保留期限的跳过
+     */
+    private RollupResolution selectResolution(LocalDateTime startTime, LocalDateTime endTime, int pointBudget) {
+        long rangeSeconds = Duration.between(startTime, endTime).getSeconds();
+        if (!rollupEngine.isActive() || rangeSeconds <= rollupConfig.getRawMaxRangeMinutes() * 60L) {
+            return RollupResolution.RAW;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (fits(RollupResolution.ONE_MINUTE, rangeSeconds, pointBudget)
+                && !startTime.isBefore(now.minusDays(rollupConfig.getOneMinuteRetentionDays()))) {
+            return RollupResolution.ONE_MINUTE;
+        }
+        if (fits(RollupResolution.FIVE_MINUTES, rangeSeconds, pointBudget)
+                && !startTime.isBefore(now.minusDays(rollupConfig.getFiveMinutesRetentionDays()))) {
+            return RollupResolution.FIVE_MINUTES;
+        }
+        return RollupResolution.ONE_HOUR;
+    }
+
+    private static boolean fits(RollupResolution resolution, long rangeSeconds, int pointBudget) {
+        long points = (rangeSeconds + resolution.getStepSeconds() - 1) / resolution.getStepSeconds();
+        return points <= pointBudget;
+    }
+}
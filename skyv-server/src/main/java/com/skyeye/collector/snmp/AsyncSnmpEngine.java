@@ -0,0 +1,391 @@
+package com.skyeye.collector.snmp;
+
+import com.skyeye.collector.config.SnmpConfig;
+import com.skyeye.collector.plugin.PluginException;
+import com.skyeye.collector.snmp.SnmpSessionPool.DeviceSession;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.snmp4j.*;
+import org.snmp4j.event.ResponseEvent;
+import org.snmp4j.event.ResponseListener;
+import org.snmp4j.mp.MPv1;
+import org.snmp4j.mp.MPv2c;
+import org.snmp4j.mp.MPv3;
+import org.snmp4j.mp.SnmpConstants;
+import org.snmp4j.security.AuthMD5;
+import org.snmp4j.security.AuthSHA;
+import org.snmp4j.security.SecurityProtocols;
+import org.snmp4j.security.USM;
+import org.snmp4j.security.UsmUser;
+import org.snmp4j.smi.Address;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.UdpAddress;
+import org.snmp4j.transport.DefaultUdpTransportMapping;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步SNMP引擎
+ * <p>
+ * 全部SNMP请求复用少量共享的UDP传输（每个传输一个 {@link Snmp} 实例和一个本地端口），
+ * 发送时注册 {@link ResponseListener} 回调，不阻塞调用线程；超时和重试由SNMP4J的定时器处理。
+ * 引擎按本地序号跟踪未完成的请求，数量达到上限时发送方最多等待 acquire-timeout-ms 形成背压。
+ * 响应在回调线程池中完成对应的 {@link CompletableFuture}，传输的接收线程只负责出队。
+ * 全部传输共享一个USM，SNMPv3的引擎ID和本地化密钥由 {@link UsmSecurityCache} 缓存，只在首次访问设备时计算。
+ * 每个设备的状态保存在有界的 {@link SnmpSessionPool} 中，按LRU和空闲时间淘汰，连续超时的设备丢弃引擎状态；
+ * 定时任务检查传输是否仍在监听，异常的传输原位重建。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+@Component
+public class AsyncSnmpEngine {
+
+    private final SnmpConfig snmpConfig;
+
+    private final List<Snmp> sessions = new CopyOnWriteArrayList<>();
+
+    /**
+     * 未完成的请求：本地序号 → 请求
+     */
+    private final ConcurrentHashMap<Long, PendingRequest> outstanding = new ConcurrentHashMap<>();
+
+    private final AtomicLong requestSequence = new AtomicLong(0);
+
+    private final AtomicLong sentRequests = new AtomicLong(0);
+
+    private final AtomicLong completedRequests = new AtomicLong(0);
+
+    private final AtomicLong timedOutRequests = new AtomicLong(0);
+
+    private final AtomicLong failedRequests = new AtomicLong(0);
+
+    private final AtomicLong rejectedRequests = new AtomicLong(0);
+
+    private final AtomicLong totalLatencyNanos = new AtomicLong(0);
+
+    private final AtomicLong reportResponses = new AtomicLong(0);
+
+    private final AtomicLong healthInvalidations = new AtomicLong(0);
+
+    private final AtomicLong replacedTransports = new AtomicLong(0);
+
+    private final ResponseListener responseListener = new ResponseListener() {
+        @Override
+        public <A extends Address> void onResponse(ResponseEvent<A> event) {
+            handleResponse(event);
+        }
+    };
+
+    private Semaphore outstandingPermits;
+
+    private ExecutorService callbackExecutor;
+
+    private ExecutorService discoveryExecutor;
+
+    private USM usm;
+
+    private UsmSecurityCache securityCache;
+
+    private SnmpSessionPool sessionPool;
+
+    public AsyncSnmpEngine(SnmpConfig snmpConfig) {
+        this.snmpConfig = snmpConfig;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        SnmpConfig.AsyncConfig config = snmpConfig.getAsync();
+        SecurityProtocols.getInstance().addDefaultProtocols();
+        // SNMP4J 3.x默认不再加载MD5/SHA-1认证，存量设备大多仍在使用
+        SecurityProtocols.getInstance().addAuthenticationProtocol(new AuthMD5());
+        SecurityProtocols.getInstance().addAuthenticationProtocol(new AuthSHA());
+
+        // 本节点所有传输共用一个本地引擎和USM
+        usm = new USM(SecurityProtocols.getInstance(), new OctetString(MPv3.createLocalEngineID()), 0);
+        discoveryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        securityCache = new UsmSecurityCache(usm, snmpConfig.getV3().getEngineIdTtlSeconds() * 1000L,
+                discoveryExecutor);
+        SnmpConfig.SessionConfig sessionConfig = snmpConfig.getSession();
+        sessionPool = new SnmpSessionPool(sessionConfig.getMaxSessions(),
+                sessionConfig.getIdleTimeoutSeconds() * 1000L, securityCache::release);
+
+        for (int i = 0; i < Math.max(1, config.getTransportCount()); i++) {
+            sessions.add(createTransport());
+        }
+
+        outstandingPermits = new Semaphore(config.getMaxOutstanding());
+        AtomicInteger threadIndex = new AtomicInteger(0);
+        callbackExecutor = Executors.newFixedThreadPool(Math.max(1, config.getCallbackThreads()), r -> {
+            Thread thread = new Thread(r, "snmp-callback-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        log.info("异步SNMP引擎启动: transports={}, maxOutstanding={}",
+                sessions.size(), config.getMaxOutstanding());
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (Snmp snmp : sessions) {
+            try {
+                snmp.close();
+            } catch (IOException e) {
+                log.warn("关闭SNMP传输失败", e);
+            }
+        }
+        sessions.clear();
+        if (sessionPool != null) {
+            sessionPool.clear();
+        }
+
+        PluginException closed = new PluginException("SNMP_ENGINE_CLOSED", "SNMP引擎已关闭");
+        for (PendingRequest pending : outstanding.values()) {
+            pending.future.completeExceptionally(closed);
+        }
+        outstanding.clear();
+        if (callbackExecutor != null) {
+            callbackExecutor.shutdown();
+        }
+        if (discoveryExecutor != null) {
+            discoveryExecutor.shutdownNow();
+        }
+        log.info("异步SNMP引擎已关闭");
+    }
+
+    /**
+     * 异步发送请求
+     * <p>
+     * 返回的Future在收到响应或超时（重试用尽）后完成；超时时 {@link ResponseEvent#getResponse()} 为null。
+     * 发送失败、未完成请求数超限或设备返回SNMPv3 Report时异常完成。
+     */
+    public CompletableFuture<ResponseEvent<?>> send(PDU pdu, Target<?> target) {
+        DeviceSession deviceSession = sessionPool.acquire(target.getAddress());
+        if (target instanceof UserTarget<?> userTarget && target.getVersion() == SnmpConstants.version3) {
+            Snmp session;
+            try {
+                session = sessionFor(target.getAddress());
+            } catch (IllegalStateException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            return securityCache.prepare(userTarget, deviceSession, session)
+                    .thenCompose(v -> dispatch(pdu, target, deviceSession));
+        }
+        return dispatch(pdu, target, deviceSession);
+    }
+
+    private CompletableFuture<ResponseEvent<?>> dispatch(PDU pdu, Target<?> target, DeviceSession deviceSession) {
+        CompletableFuture<ResponseEvent<?>> future = new CompletableFuture<>();
+        try {
+            if (!outstandingPermits.tryAcquire(snmpConfig.getAsync().getAcquireTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                rejectedRequests.incrementAndGet();
+                future.completeExceptionally(new PluginException("SNMP_TOO_MANY_REQUESTS",
+                        "未完成的SNMP请求数已达上限: " + snmpConfig.getAsync().getMaxOutstanding()));
+                return future;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        Long requestId = requestSequence.incrementAndGet();
+        outstanding.put(requestId, new PendingRequest(future, deviceSession, System.nanoTime()));
+        try {
+            sessionFor(target.getAddress()).send(pdu, target, requestId, responseListener);
+            sentRequests.incrementAndGet();
+        } catch (Exception e) {
+            if (outstanding.remove(requestId) != null) {
+                outstandingPermits.release();
+            }
+            failedRequests.incrementAndGet();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 登记设备使用的SNMPv3用户，密钥在首次访问该设备引擎时本地化
+     */
+    public void addUser(Address address, UsmUser user) {
+        securityCache.addUser(sessionPool.acquire(address), user);
+    }
+
+    /**
+     * 定时维护：清理空闲的设备会话，重建已停止监听的传输
+     */
+    @Scheduled(fixedDelayString = "${skyeye.collector.snmp.session.maintenance-interval-ms:60000}")
+    public void maintain() {
+        if (sessionPool == null) {
+            return;
+        }
+        int evicted = sessionPool.evictIdle();
+        if (evicted > 0) {
+            log.debug("清理空闲SNMP设备会话: {}", evicted);
+        }
+
+        for (int i = 0; i < sessions.size(); i++) {
+            Snmp snmp = sessions.get(i);
+            boolean listening = snmp.getMessageDispatcher().getTransportMappings().stream()
+                    .allMatch(TransportMapping::isListening);
+            if (listening) {
+                continue;
+            }
+            try {
+                sessions.set(i, createTransport());
+                replacedTransports.incrementAndGet();
+                log.warn("SNMP传输已停止监听，重建: index={}", i);
+            } catch (IOException e) {
+                log.error("重建SNMP传输失败: index={}", i, e);
+                continue;
+            }
+            try {
+                // 旧传输上未完成的请求以错误结束
+                snmp.close();
+            } catch (IOException e) {
+                log.warn("关闭SNMP传输失败", e);
+            }
+        }
+    }
+
+    /**
+     * 获取引擎统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("transports", sessions.size());
+        statistics.put("outstanding", outstanding.size());
+        statistics.put("sent", sentRequests.get());
+        statistics.put("completed", completedRequests.get());
+        statistics.put("timedOut", timedOutRequests.get());
+        statistics.put("failed", failedRequests.get());
+        statistics.put("rejected", rejectedRequests.get());
+        statistics.put("reports", reportResponses.get());
+        statistics.put("healthInvalidations", healthInvalidations.get());
+        statistics.put("replacedTransports", replacedTransports.get());
+        long completed = completedRequests.get();
+        statistics.put("avgResponseMs", completed > 0 ? totalLatencyNanos.get() / completed / 1_000_000.0 : 0.0);
+        if (securityCache != null) {
+            statistics.put("usm", securityCache.getStatistics());
+        }
+        if (sessionPool != null) {
+            statistics.put("sessions", sessionPool.getStatistics());
+        }
+        return statistics;
+    }
+
+    /**
+     * 同一目标地址固定使用同一个传输，SNMPv3引擎发现和时间同步状态只在一个会话中维护
+     */
+    private Snmp sessionFor(Address address) {
+        if (sessions.isEmpty()) {
+            throw new IllegalStateException("SNMP引擎未启动");
+        }
+        return sessions.get(Math.floorMod(address.hashCode(), sessions.size()));
+    }
+
+    private Snmp createTransport() throws IOException {
+        SnmpConfig.AsyncConfig config = snmpConfig.getAsync();
+        DefaultUdpTransportMapping transport = new DefaultUdpTransportMapping(new UdpAddress("0.0.0.0/0"));
+        transport.setReceiveBufferSize(config.getReceiveBufferSize());
+
+        MessageDispatcher dispatcher = new MessageDispatcherImpl();
+        dispatcher.addMessageProcessingModel(new MPv1());
+        dispatcher.addMessageProcessingModel(new MPv2c());
+        dispatcher.addMessageProcessingModel(new MPv3(usm));
+
+        Snmp snmp = new Snmp(dispatcher, transport);
+        snmp.listen();
+        return snmp;
+    }
+
+    private <A extends Address> void handleResponse(ResponseEvent<A> event) {
+        // 收到响应后必须取消，否则SNMP4J会继续按重试策略重发
+        ((Snmp) event.getSource()).cancel(event.getRequest(), responseListener);
+
+        PendingRequest pending = outstanding.remove(event.getUserObject());
+        if (pending == null) {
+            return;
+        }
+        outstandingPermits.release();
+
+        if (event.getError() != null) {
+            failedRequests.incrementAndGet();
+        } else if (event.getResponse() == null) {
+            timedOutRequests.incrementAndGet();
+            onTimeout(pending.deviceSession, (Snmp) event.getSource());
+        } else {
+            completedRequests.incrementAndGet();
+            totalLatencyNanos.addAndGet(System.nanoTime() - pending.sentAtNanos);
+            synchronized (pending.deviceSession) {
+                pending.deviceSession.consecutiveTimeouts = 0;
+            }
+        }
+
+        PDU response = event.getResponse();
+        if (response != null && response.getType() == PDU.REPORT) {
+            // SNMPv3 Report（引擎ID未知、不在时间窗口、用户或密钥错误等），丢弃缓存的引擎状态，下次重新发现
+            reportResponses.incrementAndGet();
+            securityCache.invalidate(pending.deviceSession, (Snmp) event.getSource());
+        }
+
+        try {
+            callbackExecutor.execute(() -> {
+                if (event.getError() != null) {
+                    pending.future.completeExceptionally(event.getError());
+                } else if (response != null && response.getType() == PDU.REPORT) {
+                    pending.future.completeExceptionally(new PluginException("SNMP_V3_REPORT",
+                            "SNMPv3请求被拒绝: " + (response.size() > 0 ? response.get(0).getOid() : "report")));
+                } else {
+                    pending.future.complete(event);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.future.completeExceptionally(new PluginException("SNMP_ENGINE_CLOSED", "SNMP引擎已关闭"));
+        }
+    }
+
+    /**
+     * 连续超时达到上限时丢弃设备的引擎状态（设备可能已重启或更换），下次访问重新发现
+     */
+    private void onTimeout(DeviceSession deviceSession, Snmp snmp) {
+        boolean unhealthy;
+        synchronized (deviceSession) {
+            unhealthy = ++deviceSession.consecutiveTimeouts >= snmpConfig.getSession().getMaxConsecutiveTimeouts();
+            if (unhealthy) {
+                deviceSession.consecutiveTimeouts = 0;
+            }
+        }
+        if (unhealthy && deviceSession.engineId != null) {
+            healthInvalidations.incrementAndGet();
+            securityCache.invalidate(deviceSession, snmp);
+        }
+    }
+
+    /**
+     * 未完成的请求
+     */
+    private static final class PendingRequest {
+
+        private final CompletableFuture<ResponseEvent<?>> future;
+
+        private final DeviceSession deviceSession;
+
+        private final long sentAtNanos;
+
+        private PendingRequest(CompletableFuture<ResponseEvent<?>> future, DeviceSession deviceSession,
+                               long sentAtNanos) {
+            this.future = future;
+            this.deviceSession = deviceSession;
+            this.sentAtNanos = sentAtNanos;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.skyeye.collector.snmp;
+
+import org.snmp4j.security.UsmUser;
+import org.snmp4j.smi.Address;
+import org.snmp4j.smi.OctetString;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * SNMP设备会话池
+ * <p>
+ * 每个访问过的设备地址对应一个轻量的 {@link DeviceSession}，记录最近访问时间、连续超时次数以及SNMPv3引擎和用户状态；
+ * UDP传输本身由引擎固定数量共享，不随设备数增长。会话数超过上限时按最近最少使用淘汰，
+ * 空闲超过期限的会话由定时任务清理，淘汰时通过回调释放USM中对应的本地化用户和时间表项，
+ * 设备规模增长时内存和USM表保持有界。
+ *
+ * @author SkyEye Team
+ */
+final class SnmpSessionPool {
+
+    private final int maxSessions;
+
+    private final long idleTimeoutMillis;
+
+    private final Consumer<DeviceSession> evictionListener;
+
+    /**
+     * 按访问顺序排列，最久未访问的在前
+     */
+    private final LinkedHashMap<Address, DeviceSession> sessions = new LinkedHashMap<>(1024, 0.75f, true);
+
+    private long hits;
+
+    private long misses;
+
+    private long lruEvictions;
+
+    private long idleEvictions;
+
+    SnmpSessionPool(int maxSessions, long idleTimeoutMillis, Consumer<DeviceSession> evictionListener) {
+        this.maxSessions = Math.max(1, maxSessions);
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * 获取设备会话，不存在时创建；超出上限时淘汰最久未访问的会话
+     */
+    DeviceSession acquire(Address address) {
+        DeviceSession evicted = null;
+        DeviceSession session;
+        synchronized (this) {
+            session = sessions.get(address);
+            if (session != null) {
+                hits++;
+            } else {
+                misses++;
+                session = new DeviceSession(address);
+                sessions.put(address, session);
+                if (sessions.size() > maxSessions) {
+                    Iterator<DeviceSession> eldest = sessions.values().iterator();
+                    evicted = eldest.next();
+                    eldest.remove();
+                    lruEvictions++;
+                }
+            }
+            session.lastUsedAt = System.currentTimeMillis();
+        }
+        if (evicted != null) {
+            evictionListener.accept(evicted);
+        }
+        return session;
+    }
+
+    /**
+     * 查找设备会话，不更新访问顺序
+     */
+    synchronized DeviceSession peek(Address address) {
+        return address != null ? sessions.get(address) : null;
+    }
+
+    /**
+     * 清理空闲会话
+     *
+     * @return 清理的会话数
+     */
+    int evictIdle() {
+        long deadline = System.currentTimeMillis() - idleTimeoutMillis;
+        List<DeviceSession> evicted = new ArrayList<>();
+        synchronized (this) {
+            Iterator<DeviceSession> it = sessions.values().iterator();
+            while (it.hasNext()) {
+                DeviceSession session = it.next();
+                if (session.lastUsedAt >= deadline) {
+                    // 访问顺序排列，后面的会话更新
+                    break;
+                }
+                it.remove();
+                evicted.add(session);
+            }
+            idleEvictions += evicted.size();
+        }
+        evicted.forEach(evictionListener);
+        return evicted.size();
+    }
+
+    /**
+     * 关闭时释放全部会话
+     */
+    void clear() {
+        List<DeviceSession> all;
+        synchronized (this) {
+            all = new ArrayList<>(sessions.values());
+            sessions.clear();
+        }
+        all.forEach(evictionListener);
+    }
+
+    synchronized Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("size", sessions.size());
+        statistics.put("maxSize", maxSessions);
+        statistics.put("hits", hits);
+        statistics.put("misses", misses);
+        statistics.put("lruEvictions", lruEvictions);
+        statistics.put("idleEvictions", idleEvictions);
+        return statistics;
+    }
+
+    /**
+     * 单个设备的会话状态
+     */
+    static final class DeviceSession {
+
+        final Address address;
+
+        volatile long lastUsedAt;
+
+        /**
+         * 连续超时次数，收到响应后清零
+         */
+        int consecutiveTimeouts;
+
+        /**
+         * 权威引擎ID及其发现时间（SNMPv3）
+         */
+        volatile OctetString engineId;
+
+        volatile long engineDiscoveredAt;
+
+        /**
+         * 用户名 → 设备使用的口令（SNMPv3）
+         */
+        final Map<OctetString, UsmUser> users = new ConcurrentHashMap<>();
+
+        /**
+         * 本地化用户所在的引擎ID（SNMPv3），引擎ID缓存失效后仍保留，会话淘汰或引擎变化时据此从USM中删除
+         */
+        volatile OctetString localizedEngineId;
+
+        /**
+         * 用户名 → 已在 localizedEngineId 下本地化的口令（SNMPv3）
+         */
+        final Map<OctetString, UsmUser> localizedUsers = new ConcurrentHashMap<>();
+
+        private DeviceSession(Address address) {
+            this.address = address;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.skyeye.collector.snmp;
+
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+
+/**
+ * SNMP表的一行
+ * <p>
+ * 列值与遍历时传入的列OID顺序一致，设备没有返回的列为null（稀疏表）。
+ *
+ * @author SkyEye Team
+ */
+public final class SnmpTableRow {
+
+    private final OID index;
+
+    private final Variable[] values;
+
+    SnmpTableRow(OID index, Variable[] values) {
+        this.index = index;
+        this.values = values;
+    }
+
+    /**
+     * 行索引（列OID之后的部分），如接口表中的ifIndex
+     */
+    public OID getIndex() {
+        return index;
+    }
+
+    /**
+     * 第column列的值，不存在时返回null
+     */
+    public Variable getValue(int column) {
+        return column < values.length ? values[column] : null;
+    }
+
+    /**
+     * 第column列的字符串值，不存在时返回null
+     */
+    public String getText(int column) {
+        Variable value = getValue(column);
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * 第column列的整数值，不存在或不是数值时返回null
+     */
+    public Long getLong(int column) {
+        Variable value = getValue(column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return value.toLong();
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+    }
+}
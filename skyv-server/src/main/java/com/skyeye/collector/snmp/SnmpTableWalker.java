@@ -0,0 +1,256 @@
+package com.skyeye.collector.snmp;
+
+import com.skyeye.collector.config.SnmpConfig;
+import com.skyeye.collector.plugin.PluginException;
+import lombok.extern.slf4j.Slf4j;
+import org.snmp4j.PDU;
+import org.snmp4j.PDUv1;
+import org.snmp4j.ScopedPDU;
+import org.snmp4j.Target;
+import org.snmp4j.event.ResponseEvent;
+import org.snmp4j.mp.SnmpConstants;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+import org.snmp4j.smi.VariableBinding;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * SNMP表遍历
+ * <p>
+ * SNMPv2c/v3使用GETBULK，一次请求取回每列最多 max-repetitions 行；SNMPv1使用GETNEXT逐行推进。
+ * 所有列在同一请求中并行推进，某列返回的OID离开本列子树或到达endOfMibView时该列结束。
+ * 行按索引有序输出：当全部未结束列都已越过某个索引时，该行不会再有新值，立即交给调用方，
+ * 不必等整张表取完，千行级的接口表也只占用少量内存。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+@Component
+public class SnmpTableWalker {
+
+    private final AsyncSnmpEngine snmpEngine;
+
+    private final SnmpConfig snmpConfig;
+
+    public SnmpTableWalker(AsyncSnmpEngine snmpEngine, SnmpConfig snmpConfig) {
+        this.snmpEngine = snmpEngine;
+        this.snmpConfig = snmpConfig;
+    }
+
+    /**
+     * 使用配置的默认 max-repetitions 遍历表
+     */
+    public CompletableFuture<Integer> walk(Target<?> target, List<OID> columns, Consumer<SnmpTableRow> rowConsumer) {
+        return walk(target, columns, snmpConfig.getTable().getMaxRepetitions(), rowConsumer);
+    }
+
+    /**
+     * 遍历表
+     *
+     * @param target 目标设备
+     * @param columns 列OID（不含索引），同一张表或索引相同的扩展表
+     * @param maxRepetitions GETBULK每列返回的最大行数
+     * @param rowConsumer 行回调，按索引顺序在响应线程中调用
+     * @return 输出的行数；超时或设备返回错误时异常完成
+     */
+    public CompletableFuture<Integer> walk(Target<?> target, List<OID> columns, int maxRepetitions,
+                                           Consumer<SnmpTableRow> rowConsumer) {
+        if (columns.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+        TableWalk walk = new TableWalk(target, columns, Math.max(1, maxRepetitions),
+                snmpConfig.getTable().getMaxRows(), rowConsumer);
+        walk.next();
+        return walk.result;
+    }
+
+    /**
+     * 单次遍历的状态，请求依次发出，同一时刻只有一个回调在访问
+     */
+    private final class TableWalk {
+
+        private final Target<?> target;
+        private final OID[] columns;
+        private final int maxRepetitions;
+        private final int maxRows;
+        private final Consumer<SnmpTableRow> rowConsumer;
+
+        /**
+         * 每列下一次请求的起始OID
+         */
+        private final OID[] cursors;
+
+        /**
+         * 每列最后返回的行索引
+         */
+        private final OID[] lastIndexes;
+
+        private final boolean[] finished;
+
+        /**
+         * 尚未确定完整的行：索引 → 列值
+         */
+        private final TreeMap<OID, Variable[]> pendingRows = new TreeMap<>();
+
+        private final CompletableFuture<Integer> result = new CompletableFuture<>();
+
+        private int rowCount;
+
+        private TableWalk(Target<?> target, List<OID> columns, int maxRepetitions, int maxRows,
+                          Consumer<SnmpTableRow> rowConsumer) {
+            this.target = target;
+            this.columns = columns.toArray(new OID[0]);
+            this.maxRepetitions = maxRepetitions;
+            this.maxRows = maxRows;
+            this.rowConsumer = rowConsumer;
+            this.cursors = columns.toArray(new OID[0]);
+            this.lastIndexes = new OID[this.columns.length];
+            this.finished = new boolean[this.columns.length];
+        }
+
+        private void next() {
+            List<Integer> active = new ArrayList<>();
+            for (int c = 0; c < columns.length; c++) {
+                if (!finished[c]) {
+                    active.add(c);
+                }
+            }
+            if (active.isEmpty() || rowCount >= maxRows) {
+                flushRows(true);
+                result.complete(rowCount);
+                return;
+            }
+
+            PDU pdu = createPDU(active);
+            snmpEngine.send(pdu, target).whenComplete((event, e) -> {
+                if (e != null) {
+                    result.completeExceptionally(e);
+                    return;
+                }
+                try {
+                    if (handleResponse(event, active)) {
+                        next();
+                    }
+                } catch (Exception ex) {
+                    result.completeExceptionally(ex);
+                }
+            });
+        }
+
+        private PDU createPDU(List<Integer> active) {
+            PDU pdu;
+            int version = target.getVersion();
+            if (version == SnmpConstants.version1) {
+                pdu = new PDUv1();
+                pdu.setType(PDU.GETNEXT);
+            } else {
+                pdu = version == SnmpConstants.version3 ? new ScopedPDU() : new PDU();
+                pdu.setType(PDU.GETBULK);
+                pdu.setNonRepeaters(0);
+                pdu.setMaxRepetitions(Math.min(maxRepetitions, Math.max(1, maxRows - rowCount)));
+            }
+            for (int c : active) {
+                pdu.add(new VariableBinding(cursors[c]));
+            }
+            return pdu;
+        }
+
+        /**
+         * 处理一次响应
+         *
+         * @return 是否继续请求
+         */
+        private boolean handleResponse(ResponseEvent<?> event, List<Integer> active) {
+            PDU response = event.getResponse();
+            if (response == null) {
+                result.completeExceptionally(new PluginException("SNMP_TIMEOUT",
+                        "SNMP表遍历超时: " + target.getAddress() + ", rows=" + rowCount));
+                return false;
+            }
+
+            int errorStatus = response.getErrorStatus();
+            if (errorStatus == PDU.noSuchName && target.getVersion() == SnmpConstants.version1) {
+                // SNMPv1用noSuchName表示GETNEXT越过MIB末尾，对应列结束
+                int errorIndex = response.getErrorIndex();
+                if (errorIndex > 0 && errorIndex <= active.size()) {
+                    finished[active.get(errorIndex - 1)] = true;
+                } else {
+                    active.forEach(c -> finished[c] = true);
+                }
+                return true;
+            }
+            if (errorStatus != PDU.noError) {
+                result.completeExceptionally(new PluginException("SNMP_ERROR",
+                        "SNMP表遍历失败: " + response.getErrorStatusText()));
+                return false;
+            }
+
+            if (response.size() == 0) {
+                active.forEach(c -> finished[c] = true);
+                return true;
+            }
+
+            for (int i = 0; i < response.size(); i++) {
+                int c = active.get(i % active.size());
+                if (finished[c]) {
+                    continue;
+                }
+                VariableBinding vb = response.get(i);
+                OID oid = vb.getOid();
+                // 离开本列子树、到达MIB末尾或OID未递增（设备实现有误时防止死循环）时本列结束
+                if (vb.isException() || !oid.startsWith(columns[c]) || oid.size() == columns[c].size()
+                        || oid.compareTo(cursors[c]) <= 0) {
+                    finished[c] = true;
+                    continue;
+                }
+                OID index = new OID(oid.getValue(), columns[c].size(), oid.size() - columns[c].size());
+                pendingRows.computeIfAbsent(index, k -> new Variable[columns.length])[c] = vb.getVariable();
+                cursors[c] = oid;
+                lastIndexes[c] = index;
+            }
+
+            flushRows(false);
+            return true;
+        }
+
+        /**
+         * 输出已完整的行
+         *
+         * @param all 是否输出全部剩余行
+         */
+        private void flushRows(boolean all) {
+            OID frontier = null;
+            if (!all) {
+                for (int c = 0; c < columns.length; c++) {
+                    if (finished[c]) {
+                        continue;
+                    }
+                    if (lastIndexes[c] == null) {
+                        return;
+                    }
+                    if (frontier == null || lastIndexes[c].compareTo(frontier) < 0) {
+                        frontier = lastIndexes[c];
+                    }
+                }
+            }
+
+            while (!pendingRows.isEmpty() && rowCount < maxRows) {
+                Map.Entry<OID, Variable[]> first = pendingRows.firstEntry();
+                if (frontier != null && first.getKey().compareTo(frontier) > 0) {
+                    break;
+                }
+                pendingRows.pollFirstEntry();
+                rowConsumer.accept(new SnmpTableRow(first.getKey(), first.getValue()));
+                rowCount++;
+            }
+            if (rowCount >= maxRows && !pendingRows.isEmpty()) {
+                log.warn("SNMP表行数超过上限，已截断: target={}, maxRows={}", target.getAddress(), maxRows);
+                pendingRows.clear();
+            }
+        }
+    }
+}
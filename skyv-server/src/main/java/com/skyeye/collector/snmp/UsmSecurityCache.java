@@ -0,0 +1,221 @@
+package com.skyeye.collector.snmp;
+
+import com.skyeye.collector.plugin.PluginException;
+import com.skyeye.collector.snmp.SnmpSessionPool.DeviceSession;
+import lombok.extern.slf4j.Slf4j;
+import org.snmp4j.Snmp;
+import org.snmp4j.UserTarget;
+import org.snmp4j.mp.MPv3;
+import org.snmp4j.security.SecurityProtocols;
+import org.snmp4j.security.USM;
+import org.snmp4j.security.UsmUser;
+import org.snmp4j.smi.Address;
+import org.snmp4j.smi.OctetString;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SNMPv3安全状态缓存
+ * <p>
+ * 全部传输共享一个 {@link USM}，按设备会话缓存：
+ * <ul>
+ *     <li>权威引擎ID：首次访问时发现一次，之后直接写入目标，省去每次会话的发现往返</li>
+ *     <li>本地化密钥：口令到密钥的推导（约百万字节哈希）每个设备每个用户只做一次，
+ *     不同设备上同名用户的口令互不影响</li>
+ * </ul>
+ * 引擎启动次数和时间由共享USM的时间表维护。设备返回Report（如引擎ID未知、不在时间窗口）或连续超时时
+ * 调用 {@link #invalidate} 丢弃缓存，下次访问重新发现；会话被淘汰时 {@link #release} 从USM中删除对应用户。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+final class UsmSecurityCache {
+
+    private final USM usm;
+
+    private final long engineIdTtlMillis;
+
+    private final Executor discoveryExecutor;
+
+    /**
+     * 进行中的引擎发现，同一地址的并发请求共用一次发现
+     */
+    private final ConcurrentHashMap<Address, CompletableFuture<OctetString>> discoveries = new ConcurrentHashMap<>();
+
+    private final AtomicLong discoveryCount = new AtomicLong(0);
+
+    private final AtomicLong engineIdHits = new AtomicLong(0);
+
+    private final AtomicLong localizationCount = new AtomicLong(0);
+
+    private final AtomicLong invalidationCount = new AtomicLong(0);
+
+    UsmSecurityCache(USM usm, long engineIdTtlMillis, Executor discoveryExecutor) {
+        this.usm = usm;
+        this.engineIdTtlMillis = engineIdTtlMillis;
+        this.discoveryExecutor = discoveryExecutor;
+    }
+
+    /**
+     * 登记设备使用的SNMPv3用户
+     */
+    void addUser(DeviceSession session, UsmUser user) {
+        session.users.put(user.getSecurityName(), user);
+    }
+
+    /**
+     * 发送前准备目标：补全权威引擎ID，并确保该引擎下用户的密钥已本地化
+     *
+     * @param snmp 该地址固定使用的传输，引擎发现在其上进行
+     */
+    CompletableFuture<Void> prepare(UserTarget<?> target, DeviceSession session, Snmp snmp) {
+        byte[] known = target.getAuthoritativeEngineID();
+        CompletableFuture<OctetString> engineId = known != null && known.length > 0 ?
+                CompletableFuture.completedFuture(new OctetString(known)) :
+                engineIdFor(session, snmp, target.getTimeout());
+
+        return engineId.thenAccept(id -> {
+            localize(session, id, target.getSecurityName());
+            target.setAuthoritativeEngineID(id.getValue());
+        });
+    }
+
+    /**
+     * 丢弃设备的引擎ID和时间缓存；本地化的用户保留到会话淘汰或发现新的引擎ID，
+     * 其所在引擎记录在 localizedEngineId 中，删除时不依赖已清空的 engineId
+     */
+    void invalidate(DeviceSession session, Snmp snmp) {
+        OctetString engineId = session.engineId;
+        if (engineId == null) {
+            return;
+        }
+        session.engineId = null;
+        invalidationCount.incrementAndGet();
+        usm.removeEngineTime(engineId);
+        MPv3 mpv3 = (MPv3) snmp.getMessageProcessingModel(MPv3.ID);
+        if (mpv3 != null) {
+            mpv3.removeEngineID(session.address);
+        }
+        log.debug("丢弃SNMPv3引擎ID缓存: address={}, engineId={}", session.address, engineId.toHexString());
+    }
+
+    /**
+     * 会话被淘汰：从USM中删除该设备引擎下的本地化用户和时间表项
+     */
+    void release(DeviceSession session) {
+        OctetString engineId = session.engineId;
+        session.engineId = null;
+        if (engineId != null) {
+            usm.removeEngineTime(engineId);
+        }
+        releaseLocalizedUsers(session);
+    }
+
+    /**
+     * 从USM中删除会话在 localizedEngineId 下本地化的用户
+     */
+    private void releaseLocalizedUsers(DeviceSession session) {
+        OctetString localizedEngineId = session.localizedEngineId;
+        session.localizedEngineId = null;
+        if (localizedEngineId != null) {
+            for (OctetString securityName : session.localizedUsers.keySet()) {
+                usm.removeAllUsers(securityName, localizedEngineId);
+            }
+            usm.removeEngineTime(localizedEngineId);
+        }
+        session.localizedUsers.clear();
+    }
+
+    Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("usmUsers", usm.getUserTable().getUserEntries().size());
+        statistics.put("discoveries", discoveryCount.get());
+        statistics.put("engineIdHits", engineIdHits.get());
+        statistics.put("localizations", localizationCount.get());
+        statistics.put("invalidations", invalidationCount.get());
+        return statistics;
+    }
+
+    private CompletableFuture<OctetString> engineIdFor(DeviceSession session, Snmp snmp, long timeout) {
+        OctetString cached = session.engineId;
+        if (cached != null && System.currentTimeMillis() - session.engineDiscoveredAt < engineIdTtlMillis) {
+            engineIdHits.incrementAndGet();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        Address address = session.address;
+        CompletableFuture<OctetString> discovery = new CompletableFuture<>();
+        CompletableFuture<OctetString> existing = discoveries.putIfAbsent(address, discovery);
+        if (existing != null) {
+            return existing;
+        }
+        discoveryExecutor.execute(() -> {
+            try {
+                // 发现请求是同步的，在独立线程中等待
+                byte[] engineId = snmp.discoverAuthoritativeEngineID(address, timeout);
+                if (engineId == null || engineId.length == 0) {
+                    discovery.completeExceptionally(new PluginException("SNMP_V3_DISCOVERY_FAILED",
+                            "SNMPv3引擎发现失败: " + address));
+                    return;
+                }
+                OctetString id = new OctetString(engineId);
+                if (session.localizedEngineId != null && !id.equals(session.localizedEngineId)) {
+                    // 引擎ID变化（设备更换），旧引擎下的本地化密钥作废
+                    releaseLocalizedUsers(session);
+                }
+                session.engineId = id;
+                session.engineDiscoveredAt = System.currentTimeMillis();
+                discoveryCount.incrementAndGet();
+                discovery.complete(id);
+            } catch (Exception e) {
+                discovery.completeExceptionally(e);
+            } finally {
+                discoveries.remove(address, discovery);
+            }
+        });
+        return discovery;
+    }
+
+    private void localize(DeviceSession session, OctetString engineId, OctetString securityName) {
+        UsmUser user = session.users.get(securityName);
+        if (user == null) {
+            // 未登记口令时交给USM按用户名查找
+            return;
+        }
+        OctetString localizedEngineId = session.localizedEngineId;
+        if (localizedEngineId != null && !localizedEngineId.equals(engineId)) {
+            // 目标指定了不同的引擎ID，旧引擎下的用户不再使用
+            releaseLocalizedUsers(session);
+        }
+        session.localizedEngineId = engineId;
+        session.localizedUsers.compute(securityName, (key, current) -> {
+            if (current != null && sameCredentials(current, user) && usm.hasUser(engineId, securityName)) {
+                return current;
+            }
+            SecurityProtocols protocols = usm.getSecurityProtocols();
+            byte[] authKey = user.getAuthenticationProtocol() != null && user.getAuthenticationPassphrase() != null ?
+                    protocols.passwordToKey(user.getAuthenticationProtocol(),
+                            user.getAuthenticationPassphrase(), engineId.getValue()) : null;
+            byte[] privKey = user.getPrivacyProtocol() != null && user.getPrivacyPassphrase() != null ?
+                    protocols.passwordToKey(user.getPrivacyProtocol(), user.getAuthenticationProtocol(),
+                            user.getPrivacyPassphrase(), engineId.getValue()) : null;
+            usm.addLocalizedUser(engineId.getValue(), securityName,
+                    user.getAuthenticationProtocol(), authKey, user.getPrivacyProtocol(), privKey);
+            localizationCount.incrementAndGet();
+            return user;
+        });
+    }
+
+    private static boolean sameCredentials(UsmUser a, UsmUser b) {
+        return Objects.equals(a.getAuthenticationProtocol(), b.getAuthenticationProtocol())
+                && Objects.equals(a.getAuthenticationPassphrase(), b.getAuthenticationPassphrase())
+                && Objects.equals(a.getPrivacyProtocol(), b.getPrivacyProtocol())
+                && Objects.equals(a.getPrivacyPassphrase(), b.getPrivacyPassphrase());
+    }
+}
@@ -0,0 +1,424 @@
+package com.skyeye.collector.writer;
+
+import com.skyeye.common.util.JsonUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 异步批量写入器（write-behind）基类
+ * <p>
+ * 采集线程只把数据放入有界环形队列，由单个写入线程按 batch-size 行或 flush-interval-ms 毫秒
+ * 批量落库，采集线程不会等待数据库。队列满时按溢出策略处理：
+ * <ul>
+ *     <li>BLOCK：最多等待 offer-timeout-ms 形成背压，超时后丢弃</li>
+ *     <li>DROP_NEWEST：丢弃新数据</li>
+ *     <li>DROP_OLDEST：丢弃队列中最旧的数据</li>
+ *     <li>SPILL：写入本地溢出文件，队列空闲时由写入线程回放入库</li>
+ * </ul>
+ * 批量写入失败时，SPILL策略同样把该批次写入溢出文件，其余策略计为丢弃。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+public abstract class AbstractWriteBehindWriter<T> {
+
+    /**
+     * 队列溢出策略
+     */
+    public enum OverflowPolicy {
+        BLOCK, DROP_NEWEST, DROP_OLDEST, SPILL
+    }
+
+    private static final String REPLAY_SUFFIX = ".replay";
+
+    /**
+     * 写入器名称，用作线程名和溢出文件名
+     */
+    private final String name;
+
+    private final Class<T> rowType;
+
+    @Value("${skyeye.collector.write-behind.enabled:true}")
+    private boolean enabled;
+
+    @Value("${skyeye.collector.write-behind.capacity:65536}")
+    private int capacity;
+
+    @Value("${skyeye.collector.write-behind.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${skyeye.collector.write-behind.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${skyeye.collector.write-behind.overflow-policy:BLOCK}")
+    private OverflowPolicy overflowPolicy;
+
+    @Value("${skyeye.collector.write-behind.offer-timeout-ms:100}")
+    private long offerTimeoutMs;
+
+    @Value("${skyeye.collector.write-behind.spill-dir:./data/spill}")
+    private String spillDir;
+
+    private BlockingQueue<T> queue;
+
+    private Thread writerThread;
+
+    private volatile boolean running;
+
+    /**
+     * 溢出文件写入锁，同时保护溢出文件的轮换
+     */
+    private final Object spillLock = new Object();
+
+    private BufferedWriter spillWriter;
+
+    /**
+     * 统计计数器
+     */
+    private final AtomicLong submittedRows = new AtomicLong(0);
+    private final AtomicLong writtenRows = new AtomicLong(0);
+    private final AtomicLong droppedRows = new AtomicLong(0);
+    private final AtomicLong spilledRows = new AtomicLong(0);
+    private final AtomicLong replayedRows = new AtomicLong(0);
+    private final AtomicLong flushCount = new AtomicLong(0);
+    private final AtomicLong failedFlushes = new AtomicLong(0);
+    private final AtomicLong totalFlushNanos = new AtomicLong(0);
+    private final AtomicLong maxFlushNanos = new AtomicLong(0);
+    private volatile long lastFlushNanos;
+
+    protected AbstractWriteBehindWriter(String name, Class<T> rowType) {
+        this.name = name;
+        this.rowType = rowType;
+    }
+
+    /**
+     * 把一个批次写入数据库，抛出异常视为整批失败
+     */
+    protected abstract void writeBatch(List<T> batch) throws Exception;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("异步写入未启用，采用同步批量写入: name={}", name);
+            return;
+        }
+
+        queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        running = true;
+        writerThread = new Thread(this::runWriter, name);
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("异步写入器已启动: name={}, capacity={}, batchSize={}, flushIntervalMs={}, overflowPolicy={}",
+                name, capacity, batchSize, flushIntervalMs, overflowPolicy);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            // 写入线程退出前会把队列中剩余数据全部落库
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            List<T> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            handleUnwritten(remaining);
+        }
+        closeSpillWriter();
+        log.info("异步写入器已停止: name={}, written={}, dropped={}, spilled={}",
+                name, writtenRows.get(), droppedRows.get(), spilledRows.get());
+    }
+
+    /**
+     * 提交数据，不等待落库
+     *
+     * @return 成功进入队列（或溢出文件）的行数
+     */
+    public int submit(List<T> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return 0;
+        }
+        submittedRows.addAndGet(rows.size());
+
+        if (!enabled) {
+            flush(new ArrayList<>(rows));
+            return rows.size();
+        }
+
+        int accepted = 0;
+        for (T data : rows) {
+            if (offer(data)) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * 提交单条数据，不等待落库
+     *
+     * @return 是否进入队列（或溢出文件）
+     */
+    public boolean submit(T data) {
+        return data != null && submit(List.of(data)) > 0;
+    }
+
+    private boolean offer(T data) {
+        if (queue.offer(data)) {
+            return true;
+        }
+
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    if (queue.offer(data, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                droppedRows.incrementAndGet();
+                return false;
+            case DROP_OLDEST:
+                while (!queue.offer(data)) {
+                    if (queue.poll() != null) {
+                        droppedRows.incrementAndGet();
+                    }
+                }
+                return true;
+            case SPILL:
+                return spill(List.of(data)) > 0;
+            case DROP_NEWEST:
+            default:
+                droppedRows.incrementAndGet();
+                return false;
+        }
+    }
+
+    private void runWriter() {
+        List<T> batch = new ArrayList<>(batchSize);
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        long nextFlush = System.nanoTime() + flushIntervalNanos;
+
+        while (running || !queue.isEmpty()) {
+            try {
+                long waitNanos = nextFlush - System.nanoTime();
+                T data = waitNanos > 0 ? queue.poll(waitNanos, TimeUnit.NANOSECONDS) : queue.poll();
+                if (data != null) {
+                    batch.add(data);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+
+                if (batch.size() >= batchSize || System.nanoTime() - nextFlush >= 0) {
+                    if (!batch.isEmpty()) {
+                        flush(batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                    nextFlush = System.nanoTime() + flushIntervalNanos;
+
+                    if (running && queue.isEmpty() && overflowPolicy == OverflowPolicy.SPILL) {
+                        replaySpill();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("异步写入线程异常: name={}", name, e);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    /**
+     * 批量落库，失败时按溢出策略处理
+     *
+     * @return 是否写入成功
+     */
+    private boolean flush(List<T> batch) {
+        long start = System.nanoTime();
+        try {
+            writeBatch(batch);
+            writtenRows.addAndGet(batch.size());
+            return true;
+        } catch (Exception e) {
+            failedFlushes.incrementAndGet();
+            log.error("批量写入失败: name={}, size={}", name, batch.size(), e);
+            handleUnwritten(batch);
+            return false;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            flushCount.incrementAndGet();
+            totalFlushNanos.addAndGet(elapsed);
+            maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+            lastFlushNanos = elapsed;
+        }
+    }
+
+    private void handleUnwritten(List<T> rows) {
+        if (overflowPolicy == OverflowPolicy.SPILL) {
+            spill(rows);
+        } else {
+            droppedRows.addAndGet(rows.size());
+        }
+    }
+
+    /**
+     * 追加写入溢出文件，每行一条JSON
+     *
+     * @return 写入的行数
+     */
+    private int spill(List<T> rows) {
+        synchronized (spillLock) {
+            try {
+                if (spillWriter == null) {
+                    Path dir = Paths.get(spillDir);
+                    Files.createDirectories(dir);
+                    spillWriter = Files.newBufferedWriter(dir.resolve(spillFileName()), StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                }
+                for (T data : rows) {
+                    spillWriter.write(JsonUtils.toJson(data));
+                    spillWriter.newLine();
+                }
+                spillWriter.flush();
+                spilledRows.addAndGet(rows.size());
+                return rows.size();
+            } catch (IOException e) {
+                log.error("写入溢出文件失败，数据被丢弃: name={}, size={}", name, rows.size(), e);
+                droppedRows.addAndGet(rows.size());
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 回放溢出文件：先把当前溢出文件轮换为回放文件，再按批次入库，全部成功后删除
+     */
+    private void replaySpill() {
+        Path dir = Paths.get(spillDir);
+        Path spillFile = dir.resolve(spillFileName());
+        Path replayFile = dir.resolve(spillFileName() + REPLAY_SUFFIX);
+
+        synchronized (spillLock) {
+            try {
+                if (!Files.exists(replayFile)) {
+                    if (!Files.exists(spillFile) || Files.size(spillFile) == 0) {
+                        return;
+                    }
+                    closeSpillWriter();
+                    Files.move(spillFile, replayFile);
+                }
+            } catch (IOException e) {
+                log.error("轮换溢出文件失败: {}", spillFile, e);
+                return;
+            }
+        }
+
+        long replayed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8);
+             Stream<String> lines = reader.lines()) {
+            List<T> batch = new ArrayList<>(batchSize);
+            Iterator<String> iterator = lines.iterator();
+            while (iterator.hasNext()) {
+                String line = iterator.next();
+                if (line.isBlank()) {
+                    continue;
+                }
+                T data = JsonUtils.fromJson(line, rowType);
+                if (data != null) {
+                    batch.add(data);
+                }
+                if (batch.size() >= batchSize || !iterator.hasNext()) {
+                    if (!batch.isEmpty()) {
+                        writeBatch(batch);
+                        writtenRows.addAndGet(batch.size());
+                        replayed += batch.size();
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+            }
+            Files.delete(replayFile);
+            replayedRows.addAndGet(replayed);
+            log.info("溢出文件回放完成: name={}, rows={}", name, replayed);
+        } catch (Exception e) {
+            // 回放文件保留，下次从头回放；已写入部分可能重复
+            replayedRows.addAndGet(replayed);
+            log.error("溢出文件回放失败，稍后重试: file={}, replayed={}", replayFile, replayed, e);
+        }
+    }
+
+    private String spillFileName() {
+        return name + ".spill";
+    }
+
+    private void closeSpillWriter() {
+        synchronized (spillLock) {
+            if (spillWriter != null) {
+                try {
+                    spillWriter.close();
+                } catch (IOException e) {
+                    log.warn("关闭溢出文件失败", e);
+                }
+                spillWriter = null;
+            }
+        }
+    }
+
+    /**
+     * 当前队列深度
+     */
+    public int getQueueDepth() {
+        return queue != null ? queue.size() : 0;
+    }
+
+    /**
+     * 获取写入统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        long flushes = flushCount.get();
+        statistics.put("name", name);
+        statistics.put("enabled", enabled);
+        statistics.put("overflowPolicy", overflowPolicy);
+        statistics.put("capacity", capacity);
+        statistics.put("queueDepth", getQueueDepth());
+        statistics.put("submittedRows", submittedRows.get());
+        statistics.put("writtenRows", writtenRows.get());
+        statistics.put("droppedRows", droppedRows.get());
+        statistics.put("spilledRows", spilledRows.get());
+        statistics.put("replayedRows", replayedRows.get());
+        statistics.put("flushCount", flushes);
+        statistics.put("failedFlushes", failedFlushes.get());
+        statistics.put("lastFlushLatencyMs", TimeUnit.NANOSECONDS.toMillis(lastFlushNanos));
+        statistics.put("maxFlushLatencyMs", TimeUnit.NANOSECONDS.toMillis(maxFlushNanos.get()));
+        statistics.put("avgFlushLatencyMs", flushes > 0
+                ? TimeUnit.NANOSECONDS.toMillis(totalFlushNanos.get() / flushes) : 0);
+        return statistics;
+    }
+}
@@ -0,0 +1,56 @@
+package com.skyeye.collector.writer;
+
+import com.skyeye.collector.entity.CollectionData;
+import com.skyeye.collector.repository.CollectionDataBatchRepository;
+import com.skyeye.collector.rollup.CollectionDataRollupEngine;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 采集数据异步写入器
+ * <p>
+ * 按配置使用COPY或批量INSERT写入 tb_collection_data，COPY失败时当前批次回退为批量INSERT。
+ * 批次经由降采样引擎落库，引擎同时记录这批数据对聚合的增量。
+ *
+ * @author SkyEye Team
+ */
+@Component
+public class CollectionDataWriter extends AbstractWriteBehindWriter<CollectionData> {
+
+    private final CollectionDataBatchRepository batchRepository;
+
+    private final PgCopyBulkWriter copyWriter;
+
+    private final CollectionDataRollupEngine rollupEngine;
+
+    public CollectionDataWriter(CollectionDataBatchRepository batchRepository, PgCopyBulkWriter copyWriter,
+                                CollectionDataRollupEngine rollupEngine) {
+        super("collection-data-writer", CollectionData.class);
+        this.batchRepository = batchRepository;
+        this.copyWriter = copyWriter;
+        this.rollupEngine = rollupEngine;
+    }
+
+    @Override
+    protected void writeBatch(List<CollectionData> batch) {
+        rollupEngine.write(batch, () -> {
+            if (!tryCopy(batch)) {
+                batchRepository.batchInsert(batch);
+            }
+        });
+    }
+
+    private boolean tryCopy(List<CollectionData> batch) {
+        if (!copyWriter.isCopyEnabled(PgCopyBulkWriter.Table.COLLECTION_DATA)) {
+            return false;
+        }
+        try {
+            copyWriter.copyCollectionData(batch);
+            return true;
+        } catch (Exception e) {
+            copyWriter.suspendCopy(PgCopyBulkWriter.Table.COLLECTION_DATA, e);
+            return false;
+        }
+    }
+}
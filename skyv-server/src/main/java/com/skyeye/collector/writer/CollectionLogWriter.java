@@ -0,0 +1,41 @@
+package com.skyeye.collector.writer;
+
+import com.skyeye.collector.entity.CollectionLog;
+import com.skyeye.collector.repository.CollectionLogBatchRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 采集日志异步写入器
+ * <p>
+ * 按配置使用COPY或批量INSERT写入 tb_collection_logs，COPY失败时当前批次回退为批量INSERT。
+ *
+ * @author SkyEye Team
+ */
+@Component
+public class CollectionLogWriter extends AbstractWriteBehindWriter<CollectionLog> {
+
+    private final CollectionLogBatchRepository batchRepository;
+
+    private final PgCopyBulkWriter copyWriter;
+
+    public CollectionLogWriter(CollectionLogBatchRepository batchRepository, PgCopyBulkWriter copyWriter) {
+        super("collection-log-writer", CollectionLog.class);
+        this.batchRepository = batchRepository;
+        this.copyWriter = copyWriter;
+    }
+
+    @Override
+    protected void writeBatch(List<CollectionLog> batch) {
+        if (copyWriter.isCopyEnabled(PgCopyBulkWriter.Table.COLLECTION_LOGS)) {
+            try {
+                copyWriter.copyCollectionLogs(batch);
+                return;
+            } catch (Exception e) {
+                copyWriter.suspendCopy(PgCopyBulkWriter.Table.COLLECTION_LOGS, e);
+            }
+        }
+        batchRepository.batchInsert(batch);
+    }
+}
@@ -0,0 +1,357 @@
+package com.skyeye.device.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skyeye.common.exception.BusinessException;
+import com.skyeye.device.config.CredentialCacheConfig;
+import com.skyeye.device.entity.DeviceCredential;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 解密凭据缓存
+ * <p>
+ * 按"设备 + 协议"缓存默认凭据解密后的明文，采集热路径命中时不查库、不解密。缓存只在本进程内存中，
+ * 不经过Redis；默认以JSON字节形式保存，条目淘汰、过期或失效时覆写清零，命中时解析出新的Map返回，
+ * 调用方修改返回值不影响缓存。
+ * <p>
+ * 失效按序号判断：每次未命中加载前记录当前序号，设备凭据变更、密钥轮换时为设备或密钥记录新的序号，
+ * 加载期间发生失效的结果不会写入缓存；在事务中发起的失效在事务结束后再执行一次，
+ * 避免并发读取到提交前的旧数据后重新写入。失效记录只对开始于它之前、仍在进行的加载有意义，
+ * 定期清理时删除早于全部进行中加载的记录，没有进行中的加载时全部删除。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+@Component
+public class DecryptedCredentialCache {
+
+    /**
+     * 不区分协议的默认凭据
+     */
+    private static final String ANY_PROTOCOL = "*";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final TypeReference<LinkedHashMap<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final CredentialCacheConfig config;
+
+    /**
+     * 设备ID:协议 → 条目，按访问顺序排列，最久未访问的在前
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(1024, 0.75f, true);
+
+    /**
+     * 设备ID → 最近一次失效的序号
+     */
+    private final HashMap<Long, Long> deviceInvalidations = new HashMap<>();
+
+    /**
+     * 密钥ID → 最近一次失效的序号
+     */
+    private final HashMap<Long, Long> keyInvalidations = new HashMap<>();
+
+    /**
+     * 进行中的加载：开始时的序号 → 数量
+     */
+    private final TreeMap<Long, Integer> loadingTickets = new TreeMap<>();
+
+    private long sequence;
+
+    private long hits;
+
+    private long misses;
+
+    private long expirations;
+
+    private long evictions;
+
+    private long invalidations;
+
+    public DecryptedCredentialCache(CredentialCacheConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * 获取设备默认凭据的明文，未命中时查找凭据并解密后缓存
+     *
+     * @param protocol  协议，为null时表示不区分协议的默认凭据
+     * @param finder    查找默认凭据，不存在时抛出异常，异常不缓存
+     * @param decryptor 解密凭据
+     */
+    public Map<String, Object> get(Long deviceId, String protocol, Supplier<DeviceCredential> finder,
+                                   Function<DeviceCredential, Map<String, Object>> decryptor) {
+        if (!config.isEnabled()) {
+            return decryptor.apply(finder.get());
+        }
+
+        String key = deviceId + ":" + (protocol != null ? protocol : ANY_PROTOCOL);
+        Object cached = null;
+        Entry stale = null;
+        long ticket;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (isValid(entry, System.currentTimeMillis())) {
+                    hits++;
+                    cached = entry.bytes != null ? entry.bytes.clone() : entry.map;
+                } else {
+                    entries.remove(key);
+                    expirations++;
+                    stale = entry;
+                }
+            }
+            ticket = sequence;
+            if (cached == null) {
+                misses++;
+                loadingTickets.merge(ticket, 1, Integer::sum);
+            }
+        }
+        if (stale != null) {
+            stale.clear();
+        }
+        if (cached instanceof byte[] bytes) {
+            return readBytes(bytes);
+        }
+        if (cached != null) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> map = (Map<String, Object>) cached;
+            return new LinkedHashMap<>(map);
+        }
+
+        try {
+            DeviceCredential credential = finder.get();
+            Map<String, Object> plainData = decryptor.apply(credential);
+            put(key, deviceId, credential.getEncryptionKeyId(), ticket, plainData);
+            return plainData;
+        } finally {
+            synchronized (this) {
+                loadingTickets.computeIfPresent(ticket, (t, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+    }
+
+    /**
+     * 设备的凭据或默认凭据发生变化
+     */
+    public void invalidateDevice(Long deviceId) {
+        runNowAndAfterTransaction(() -> {
+            List<Entry> removed;
+            synchronized (this) {
+                deviceInvalidations.put(deviceId, ++sequence);
+                removed = removeIf(entry -> deviceId.equals(entry.deviceId));
+                invalidations += removed.size();
+            }
+            removed.forEach(Entry::clear);
+        });
+    }
+
+    /**
+     * 加密密钥轮换，清除用该密钥加密的凭据
+     */
+    public void invalidateKey(Long keyId) {
+        runNowAndAfterTransaction(() -> {
+            List<Entry> removed;
+            synchronized (this) {
+                keyInvalidations.put(keyId, ++sequence);
+                removed = removeIf(entry -> keyId.equals(entry.keyId));
+                invalidations += removed.size();
+            }
+            removed.forEach(Entry::clear);
+            log.debug("密钥轮换，清除解密凭据缓存: keyId={}, count={}", keyId, removed.size());
+        });
+    }
+
+    /**
+     * 清理过期条目，尽早覆写明文；同时清理不再影响任何加载的失效记录
+     */
+    @Scheduled(fixedDelayString = "${skyeye.security.credential-cache.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        List<Entry> removed;
+        synchronized (this) {
+            pruneInvalidations();
+            if (entries.isEmpty()) {
+                return;
+            }
+            removed = removeIf(entry -> entry.expiresAt <= now);
+            expirations += removed.size();
+        }
+        removed.forEach(Entry::clear);
+    }
+
+    @PreDestroy
+    public void clear() {
+        List<Entry> all;
+        synchronized (this) {
+            all = new ArrayList<>(entries.values());
+            entries.clear();
+        }
+        all.forEach(Entry::clear);
+    }
+
+    public synchronized Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("enabled", config.isEnabled());
+        statistics.put("size", entries.size());
+        statistics.put("maxSize", config.getMaxEntries());
+        statistics.put("hits", hits);
+        statistics.put("misses", misses);
+        statistics.put("expirations", expirations);
+        statistics.put("evictions", evictions);
+        statistics.put("invalidations", invalidations);
+        statistics.put("invalidationRecords", deviceInvalidations.size() + keyInvalidations.size());
+        return statistics;
+    }
+
+    private void put(String key, Long deviceId, Long keyId, long ticket, Map<String, Object> plainData) {
+        byte[] bytes = null;
+        Map<String, Object> map = null;
+        if (config.isStoreAsBytes()) {
+            try {
+                bytes = OBJECT_MAPPER.writeValueAsBytes(plainData);
+            } catch (IOException e) {
+                log.warn("凭据明文序列化失败，不缓存: deviceId={}", deviceId, e);
+                return;
+            }
+        } else {
+            map = Collections.unmodifiableMap(new LinkedHashMap<>(plainData));
+        }
+        Entry entry = new Entry(deviceId, keyId, ticket,
+                System.currentTimeMillis() + config.getTtlSeconds() * 1000, bytes, map);
+
+        List<Entry> removed = new ArrayList<>(1);
+        synchronized (this) {
+            if (invalidatedSince(deviceInvalidations.get(deviceId), ticket) ||
+                    invalidatedSince(keyId != null ? keyInvalidations.get(keyId) : null, ticket)) {
+                removed.add(entry);
+            } else {
+                Entry previous = entries.put(key, entry);
+                if (previous != null) {
+                    removed.add(previous);
+                }
+                Iterator<Entry> eldest = entries.values().iterator();
+                while (entries.size() > Math.max(1, config.getMaxEntries())) {
+                    removed.add(eldest.next());
+                    eldest.remove();
+                    evictions++;
+                }
+            }
+        }
+        removed.forEach(Entry::clear);
+    }
+
+    /**
+     * 条目未过期，且加载之后设备和密钥都没有失效
+     */
+    private boolean isValid(Entry entry, long now) {
+        return entry.expiresAt > now &&
+                !invalidatedSince(deviceInvalidations.get(entry.deviceId), entry.ticket) &&
+                !invalidatedSince(entry.keyId != null ? keyInvalidations.get(entry.keyId) : null, entry.ticket);
+    }
+
+    private static boolean invalidatedSince(Long invalidatedAt, long ticket) {
+        return invalidatedAt != null && invalidatedAt > ticket;
+    }
+
+    /**
+     * 删除序号不晚于最早进行中加载的失效记录，只在持有锁时调用。
+     * 失效时已移除更早加载的条目，之后只有开始于失效之前的加载需要据此拒绝写入
+     */
+    private void pruneInvalidations() {
+        if (loadingTickets.isEmpty()) {
+            deviceInvalidations.clear();
+            keyInvalidations.clear();
+            return;
+        }
+        long oldestTicket = loadingTickets.firstKey();
+        deviceInvalidations.values().removeIf(invalidatedAt -> invalidatedAt <= oldestTicket);
+        keyInvalidations.values().removeIf(invalidatedAt -> invalidatedAt <= oldestTicket);
+    }
+
+    /**
+     * 只在持有锁时调用
+     */
+    private List<Entry> removeIf(Predicate<Entry> predicate) {
+        List<Entry> removed = new ArrayList<>();
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (predicate.test(entry)) {
+                it.remove();
+                removed.add(entry);
+            }
+        }
+        return removed;
+    }
+
+    private static Map<String, Object> readBytes(byte[] bytes) {
+        try {
+            return OBJECT_MAPPER.readValue(bytes, MAP_TYPE);
+        } catch (IOException e) {
+            throw new BusinessException("读取缓存凭据失败: " + e.getMessage());
+        } finally {
+            Arrays.fill(bytes, (byte) 0);
+        }
+    }
+
+    private static void runNowAndAfterTransaction(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * 缓存条目，明文只保存在bytes或map其中之一
+     */
+    private static final class Entry {
+
+        private final Long deviceId;
+
+        private final Long keyId;
+
+        /**
+         * 开始加载时的序号
+         */
+        private final long ticket;
+
+        private final long expiresAt;
+
+        private final byte[] bytes;
+
+        private final Map<String, Object> map;
+
+        private Entry(Long deviceId, Long keyId, long ticket, long expiresAt, byte[] bytes, Map<String, Object> map) {
+            this.deviceId = deviceId;
+            this.keyId = keyId;
+            this.ticket = ticket;
+            this.expiresAt = expiresAt;
+            this.bytes = bytes;
+            this.map = map;
+        }
+
+        private void clear() {
+            if (bytes != null) {
+                Arrays.fill(bytes, (byte) 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.skyeye.device.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 设备变更序号
+ * <p>
+ * 设备或设备类型变更后递增序号。设备变更只记录到该设备上，只有包含该设备的快照失效；
+ * 设备类型变更和 {@link #markAllChanged()} 使全部快照失效。采集侧缓存的设备快照记录加载前的序号，
+ * 通过 {@link #isUnchangedSince} 判断是否需要重新加载。
+ * <p>
+ * 在事务中发生的变更在事务结束后再递增一次，避免并发加载读取到提交前的旧数据后被当作最新快照；
+ * 事务结束后通过 {@link Publisher}（多节点部署时为Redis发布订阅）通知其他节点，
+ * 其他节点收到后调用 {@link #applyRemote}，只更新本地序号，不再转发。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+@Component
+public class DeviceVersionTracker {
+
+    private final AtomicLong sequence = new AtomicLong(0);
+
+    /**
+     * 最近一次全局变更（设备类型变更、批量更新）的序号
+     */
+    private final AtomicLong globalVersion = new AtomicLong(0);
+
+    /**
+     * 设备ID → 该设备最近一次变更的序号
+     */
+    private final ConcurrentHashMap<Long, Long> deviceVersions = new ConcurrentHashMap<>();
+
+    private volatile Publisher publisher;
+
+    /**
+     * 设置变更发布者，未设置时变更只在本节点生效
+     */
+    public void setPublisher(Publisher publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * 设备新增、修改或删除
+     */
+    public void markDeviceChanged(Long deviceId) {
+        if (deviceId == null) {
+            markAllChanged();
+            return;
+        }
+        runNowAndAfterTransaction(() -> deviceVersions.put(deviceId, sequence.incrementAndGet()),
+                () -> publish(List.of(deviceId), false));
+    }
+
+    /**
+     * 设备类型变更，或绕过实体生命周期、修改了采集所用字段的批量更新（JPQL/JDBC）后调用，使全部设备快照失效。
+     * 只修改状态、在线时间等字段的批量更新不需要调用，采集不依赖这些字段
+     */
+    public void markAllChanged() {
+        runNowAndAfterTransaction(() -> globalVersion.accumulateAndGet(sequence.incrementAndGet(), Math::max),
+                () -> publish(List.of(), true));
+    }
+
+    /**
+     * 应用其他节点发布的变更，不再发布
+     *
+     * @param deviceIds 变更的设备ID
+     * @param all       是否全部失效
+     */
+    public void applyRemote(Collection<Long> deviceIds, boolean all) {
+        if (all) {
+            globalVersion.accumulateAndGet(sequence.incrementAndGet(), Math::max);
+        }
+        if (deviceIds != null) {
+            for (Long deviceId : deviceIds) {
+                if (deviceId != null) {
+                    deviceVersions.put(deviceId, sequence.incrementAndGet());
+                }
+            }
+        }
+    }
+
+    /**
+     * 当前变更序号，快照加载前读取
+     */
+    public long currentVersion() {
+        return sequence.get();
+    }
+
+    /**
+     * 序号version之后，指定设备及设备类型是否都未变更
+     */
+    public boolean isUnchangedSince(long version, Collection<Long> deviceIds) {
+        if (globalVersion.get() > version) {
+            return false;
+        }
+        for (Long deviceId : deviceIds) {
+            Long changed = deviceVersions.get(deviceId);
+            if (changed != null && changed > version) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void publish(Collection<Long> deviceIds, boolean all) {
+        Publisher current = publisher;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.publish(deviceIds, all);
+        } catch (Exception e) {
+            log.warn("发布设备变更失败: deviceIds={}, all={}, error={}", deviceIds, all, e.getMessage());
+        }
+    }
+
+    private static void runNowAndAfterTransaction(Runnable change, Runnable publish) {
+        change.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    change.run();
+                    publish.run();
+                }
+            });
+        } else {
+            publish.run();
+        }
+    }
+
+    /**
+     * 设备变更发布者
+     */
+    public interface Publisher {
+
+        void publish(Collection<Long> deviceIds, boolean all);
+    }
+}
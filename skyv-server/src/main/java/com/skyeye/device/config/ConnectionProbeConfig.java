@@ -0,0 +1,41 @@
+package com.skyeye.device.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 批量连接测试配置
+ *
+ * @author SkyEye Team
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "skyeye.device.connection-probe")
+public class ConnectionProbeConfig {
+
+    /**
+     * 单次批量测试的最大设备数
+     */
+    private int maxDevices = 50000;
+
+    /**
+     * 每个插件的并发上限，插件建议的并发度超过该值时取该值；同时进行的多个批量测试共享该上限
+     */
+    private int maxConcurrencyPerPlugin = 1000;
+
+    /**
+     * 状态回写时单条UPDATE语句包含的设备数
+     */
+    private int updateBatchSize = 1000;
+
+    /**
+     * 进度推送间隔（毫秒）
+     */
+    private long progressIntervalMs = 1000;
+
+    /**
+     * 结束后结果保留时间（分钟）
+     */
+    private long retentionMinutes = 60;
+}
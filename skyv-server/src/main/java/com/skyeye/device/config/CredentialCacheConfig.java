@@ -0,0 +1,46 @@
+package com.skyeye.device.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 解密凭据缓存配置
+ *
+ * @author SkyEye Team
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "skyeye.security.credential-cache")
+public class CredentialCacheConfig {
+
+    /**
+     * 是否启用，关闭后每次读取默认凭据都查库并解密
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最大缓存条目数（设备 × 协议），超出时按最近最少使用淘汰
+     */
+    private int maxEntries = 100000;
+
+    /**
+     * 条目有效期（秒），过期后重新查库解密
+     */
+    private long ttlSeconds = 600;
+
+    /**
+     * 是否以JSON字节形式保存明文，淘汰、失效时覆写清零；关闭时直接保存解析后的Map，命中时不再解析JSON
+     */
+    private boolean storeAsBytes = true;
+
+    /**
+     * 过期条目清理间隔（毫秒）
+     */
+    private long purgeIntervalMs = 60000;
+
+    /**
+     * 解包后的数据密钥缓存有效期（秒），密钥轮换时立即移除，过期后重新查库以获取状态变化
+     */
+    private long dataKeyTtlSeconds = 300;
+}
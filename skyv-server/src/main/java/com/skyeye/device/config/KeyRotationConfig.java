@@ -0,0 +1,31 @@
+package com.skyeye.device.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 凭据密钥轮换配置
+ *
+ * @author SkyEye Team
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "skyeye.security.key-rotation")
+public class KeyRotationConfig {
+
+    /**
+     * 每块读取的凭据数，每块在一个事务中批量写回并记录检查点
+     */
+    private int chunkSize = 1000;
+
+    /**
+     * 并行重新加密的线程数，小于等于0时使用CPU核数
+     */
+    private int parallelism = 0;
+
+    /**
+     * 启动时是否继续执行上次中断（状态仍为RUNNING）的任务
+     */
+    private boolean resumeOnStartup = true;
+}
@@ -0,0 +1,97 @@
+package com.skyeye.device.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 设备可达性探测配置
+ *
+ * @author SkyEye Team
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "skyeye.device.reachability")
+public class ReachabilityConfig {
+
+    /**
+     * 是否启用周期性探测
+     */
+    private boolean enabled = false;
+
+    /**
+     * 参与探测的设备协议。TCP探测只对开放TCP端口的设备有意义，
+     * 只开放UDP的协议（如SNMP）加入时需在 protocol-ports 中指定设备开放的TCP端口
+     */
+    private Set<String> protocols = new HashSet<>(Set.of("HTTP", "HTTPS", "PROMETHEUS", "SSH", "TELNET"));
+
+    /**
+     * 启动后首次探测的延迟（毫秒）
+     */
+    private long initialDelayMs = 10000;
+
+    /**
+     * 两轮探测之间的间隔（毫秒），从上一轮结束开始计算
+     */
+    private long sweepIntervalMs = 30000;
+
+    /**
+     * TCP连接超时（毫秒），超时视为不可达
+     */
+    private int connectTimeoutMs = 2000;
+
+    /**
+     * 同时进行中的连接上限，超出的探测在选择器线程中排队
+     */
+    private int maxInFlight = 2000;
+
+    /**
+     * 连接被拒绝（对端返回RST）时视为可达：主机在线但端口未监听
+     */
+    private boolean refusedAsReachable = true;
+
+    /**
+     * 离线设备连续可达多少轮后标记为在线
+     */
+    private int riseCount = 2;
+
+    /**
+     * 在线设备连续不可达多少轮后标记为离线
+     */
+    private int fallCount = 3;
+
+    /**
+     * 加载探测目标时每页的设备数
+     */
+    private int pageSize = 5000;
+
+    /**
+     * 状态回写时每批UPDATE的设备数
+     */
+    private int updateBatchSize = 1000;
+
+    /**
+     * 按协议指定探测端口，优先于设备配置的端口（如SNMP设备的UDP端口不适合TCP探测时指定为22）
+     */
+    private Map<String, Integer> protocolPorts = new HashMap<>();
+
+    /**
+     * 设备未配置端口时按协议使用的默认端口
+     */
+    private Map<String, Integer> defaultPorts = new HashMap<>(Map.of(
+            "HTTP", 80,
+            "HTTPS", 443,
+            "PROMETHEUS", 9090,
+            "SSH", 22,
+            "TELNET", 23));
+
+    /**
+     * 协议也没有默认端口时使用的端口
+     */
+    private int fallbackPort = 80;
+}
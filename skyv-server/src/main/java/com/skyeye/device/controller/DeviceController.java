@@ -1,15 +1,24 @@
 package com.skyeye.device.controller;
 
+import com.skyeye.collector.dto.LatestMetricValue;
+import com.skyeye.collector.service.LatestValueService;
 import com.skyeye.common.response.ApiResponse;
+import com.skyeye.device.dto.ConnectionProbeProgress;
+import com.skyeye.device.dto.ConnectionProbeRequest;
+import com.skyeye.device.dto.ConnectionProbeResult;
 import com.skyeye.device.dto.DeviceDto;
 import com.skyeye.device.dto.DeviceQueryRequest;
+import com.skyeye.device.reachability.DeviceReachabilityMonitor;
+import com.skyeye.device.service.DeviceConnectionProbeService;
 import com.skyeye.device.service.DeviceService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -31,6 +40,9 @@ import java.util.HashMap;
 public class DeviceController {
 
     private final DeviceService deviceService;
+    private final LatestValueService latestValueService;
+    private final DeviceConnectionProbeService connectionProbeService;
+    private final DeviceReachabilityMonitor reachabilityMonitor;
 
     /**
      * 分页查询设备列表
@@ -68,6 +80,16 @@ public class DeviceController {
         return ApiResponse.success("查询成功", result);
     }
 
+    /**
+     * 获取设备各指标的当前值
+     */
+    @GetMapping("/{id}/metrics/latest")
+    @PreAuthorize("hasAuthority('device:view')")
+    public ApiResponse<List<LatestMetricValue>> getDeviceLatestMetrics(@PathVariable Long id) {
+        List<LatestMetricValue> result = latestValueService.getDeviceLatestValues(id);
+        return ApiResponse.success("查询成功", result);
+    }
+
     /**
      * 创建设备
      */
@@ -130,6 +152,59 @@ public class DeviceController {
         return ApiResponse.success("连接测试完成", result);
     }
 
+    /**
+     * 批量测试设备连接，异步执行，返回测试ID和初始进度
+     */
+    @PostMapping("/connection-tests")
+    @PreAuthorize("hasAuthority('device:view')")
+    public ApiResponse<ConnectionProbeProgress> startConnectionProbe(@Valid @RequestBody ConnectionProbeRequest request) {
+        log.info("Starting connection probe for {} devices", request.getDeviceIds().size());
+
+        ConnectionProbeProgress result = connectionProbeService.startProbe(request);
+        return ApiResponse.success("连接测试已开始", result);
+    }
+
+    /**
+     * 获取批量连接测试进度
+     */
+    @GetMapping("/connection-tests/{probeId}")
+    @PreAuthorize("hasAuthority('device:view')")
+    public ApiResponse<ConnectionProbeProgress> getConnectionProbeProgress(@PathVariable String probeId) {
+        ConnectionProbeProgress result = connectionProbeService.getProgress(probeId);
+        return ApiResponse.success("查询成功", result);
+    }
+
+    /**
+     * 获取批量连接测试结果
+     */
+    @GetMapping("/connection-tests/{probeId}/results")
+    @PreAuthorize("hasAuthority('device:view')")
+    public ApiResponse<List<ConnectionProbeResult>> getConnectionProbeResults(
+            @PathVariable String probeId,
+            @RequestParam(defaultValue = "false") boolean failedOnly) {
+        List<ConnectionProbeResult> result = connectionProbeService.getResults(probeId, failedOnly);
+        return ApiResponse.success("查询成功", result);
+    }
+
+    /**
+     * 以SSE推送批量连接测试进度（progress事件），结束时推送complete事件
+     */
+    @GetMapping(value = "/connection-tests/{probeId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAuthority('device:view')")
+    public SseEmitter streamConnectionProbeProgress(@PathVariable String probeId) {
+        return connectionProbeService.streamProgress(probeId);
+    }
+
+    /**
+     * 获取设备可达性探测统计
+     */
+    @GetMapping("/reachability/stats")
+    @PreAuthorize("hasAuthority('device:view')")
+    public ApiResponse<Map<String, Object>> getReachabilityStats() {
+        Map<String, Object> result = reachabilityMonitor.getStatistics();
+        return ApiResponse.success("查询成功", result);
+    }
+
     /**
      * 获取设备状态统计
      */
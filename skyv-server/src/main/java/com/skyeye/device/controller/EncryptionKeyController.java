@@ -2,9 +2,11 @@ package com.skyeye.device.controller;
 
 import com.skyeye.common.response.ApiResponse;
 import com.skyeye.device.dto.EncryptionKeyDto;
+import com.skyeye.device.dto.KeyRotationJobDto;
 import com.skyeye.device.entity.EncryptionKey;
+import com.skyeye.device.entity.KeyRotationJob;
 import com.skyeye.device.service.CredentialEncryptionService;
-import com.skyeye.device.service.DeviceCredentialService;
+import com.skyeye.device.service.KeyRotationService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -23,7 +25,7 @@ import java.sql.Timestamp;
 public class EncryptionKeyController {
 
     private final CredentialEncryptionService encryptionService;
-    private final DeviceCredentialService credentialService;
+    private final KeyRotationService keyRotationService;
 
     /**
      * 获取当前活跃的加密密钥
@@ -49,6 +51,7 @@ public class EncryptionKeyController {
 
     /**
      * 轮换加密密钥
+     * 凭据的重新加密在后台分块执行，进度通过轮换任务查询
      */
     @PostMapping("/{keyId}/rotate")
     @PreAuthorize("hasPermission('encryption_key', 'rotate')")
@@ -56,17 +59,47 @@ public class EncryptionKeyController {
         // 创建新密钥
         EncryptionKey newKey = encryptionService.rotateKey(keyId);
         
-        // 更新使用旧密钥的凭据
-        int rotatedCount = credentialService.rotateEncryptionKey(keyId, newKey.getId());
+        // 后台更新使用旧密钥的凭据
+        KeyRotationJob job = keyRotationService.startRotation(keyId, newKey.getId());
         
         RotateKeyResult result = RotateKeyResult.builder()
                 .newKey(convertToDto(newKey))
-                .rotatedCredentialCount(rotatedCount)
+                .rotationJob(convertToDto(job))
                 .build();
         
         return ApiResponse.success(result);
     }
 
+    /**
+     * 获取密钥最近一次的轮换进度
+     */
+    @GetMapping("/{keyId}/rotation")
+    @PreAuthorize("hasPermission('encryption_key', 'view')")
+    public ApiResponse<KeyRotationJobDto> getLatestRotation(@PathVariable Long keyId) {
+        KeyRotationJob job = keyRotationService.getLatestJob(keyId);
+        return ApiResponse.success(convertToDto(job));
+    }
+
+    /**
+     * 获取轮换任务进度
+     */
+    @GetMapping("/rotation-jobs/{jobId}")
+    @PreAuthorize("hasPermission('encryption_key', 'view')")
+    public ApiResponse<KeyRotationJobDto> getRotationJob(@PathVariable Long jobId) {
+        KeyRotationJob job = keyRotationService.getJob(jobId);
+        return ApiResponse.success(convertToDto(job));
+    }
+
+    /**
+     * 从检查点继续失败或中断的轮换任务
+     */
+    @PostMapping("/rotation-jobs/{jobId}/resume")
+    @PreAuthorize("hasPermission('encryption_key', 'rotate')")
+    public ApiResponse<KeyRotationJobDto> resumeRotationJob(@PathVariable Long jobId) {
+        KeyRotationJob job = keyRotationService.resumeRotation(jobId);
+        return ApiResponse.success(convertToDto(job));
+    }
+
     /**
      * 验证密钥是否有效
      */
@@ -99,6 +132,29 @@ public class EncryptionKeyController {
         return dto;
     }
 
+    /**
+     * 转换轮换任务为DTO对象
+     */
+    private KeyRotationJobDto convertToDto(KeyRotationJob job) {
+        KeyRotationJobDto dto = new KeyRotationJobDto();
+        dto.setId(job.getId());
+        dto.setOldKeyId(job.getOldKeyId());
+        dto.setNewKeyId(job.getNewKeyId());
+        dto.setStatus(job.getStatus());
+        dto.setTotalCount(job.getTotalCount());
+        dto.setProcessedCount(job.getProcessedCount());
+        dto.setFailedCount(job.getFailedCount());
+        dto.setSkippedCount(job.getSkippedCount());
+        long handled = job.getProcessedCount() + job.getFailedCount() + job.getSkippedCount();
+        dto.setProgress(KeyRotationJob.STATUS_COMPLETED.equals(job.getStatus()) || job.getTotalCount() <= 0 ? 100.0 :
+                Math.min(100.0, handled * 100.0 / job.getTotalCount()));
+        dto.setLastCredentialId(job.getLastCredentialId());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        dto.setErrorMessage(job.getErrorMessage());
+        return dto;
+    }
+
     /**
      * 密钥轮换结果DTO
      */
@@ -106,6 +162,6 @@ public class EncryptionKeyController {
     @lombok.Builder
     public static class RotateKeyResult {
         private EncryptionKeyDto newKey;
-        private Integer rotatedCredentialCount;
+        private KeyRotationJobDto rotationJob;
     }
 }
@@ -0,0 +1,80 @@
+package com.skyeye.device.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 批量连接测试进度
+ * 
+ * @author SkyEye Team
+ */
+@Data
+public class ConnectionProbeProgress {
+
+    /**
+     * 测试ID
+     */
+    private String probeId;
+
+    /**
+     * 状态（RUNNING、COMPLETED、FAILED）
+     */
+    private String status;
+
+    /**
+     * 设备总数
+     */
+    private Integer totalCount;
+
+    /**
+     * 已完成数
+     */
+    private Integer completedCount;
+
+    /**
+     * 连接成功数
+     */
+    private Integer successCount;
+
+    /**
+     * 连接失败数
+     */
+    private Integer failureCount;
+
+    /**
+     * 跳过数（设备不存在或没有可用插件）
+     */
+    private Integer skippedCount;
+
+    /**
+     * 各插件的并发度
+     */
+    private Map<String, Integer> concurrency;
+
+    /**
+     * 已回写状态的设备数
+     */
+    private Integer updatedCount;
+
+    /**
+     * 开始时间
+     */
+    private LocalDateTime startedAt;
+
+    /**
+     * 结束时间
+     */
+    private LocalDateTime finishedAt;
+
+    /**
+     * 已用时间（毫秒）
+     */
+    private Long elapsedMs;
+
+    /**
+     * 失败原因
+     */
+    private String errorMessage;
+}
@@ -0,0 +1,26 @@
+package com.skyeye.device.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量连接测试请求
+ * 
+ * @author SkyEye Team
+ */
+@Data
+public class ConnectionProbeRequest {
+
+    /**
+     * 设备ID列表
+     */
+    @NotEmpty(message = "设备ID列表不能为空")
+    private List<Long> deviceIds;
+
+    /**
+     * 测试结束后是否回写设备在线状态
+     */
+    private Boolean updateStatus = true;
+}
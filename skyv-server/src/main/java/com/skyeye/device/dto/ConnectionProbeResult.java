@@ -0,0 +1,52 @@
+package com.skyeye.device.dto;
+
+import lombok.Data;
+
+/**
+ * 单个设备的连接测试结果
+ * 
+ * @author SkyEye Team
+ */
+@Data
+public class ConnectionProbeResult {
+
+    /**
+     * 设备ID
+     */
+    private Long deviceId;
+
+    /**
+     * 设备名称
+     */
+    private String deviceName;
+
+    /**
+     * 插件类型，跳过的设备为空
+     */
+    private String pluginType;
+
+    /**
+     * 是否连接成功
+     */
+    private boolean success;
+
+    /**
+     * 是否跳过
+     */
+    private boolean skipped;
+
+    /**
+     * 错误码
+     */
+    private String errorCode;
+
+    /**
+     * 结果消息
+     */
+    private String message;
+
+    /**
+     * 响应时间（毫秒）
+     */
+    private long responseTime;
+}
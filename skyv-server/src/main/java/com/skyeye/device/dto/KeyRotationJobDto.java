@@ -0,0 +1,79 @@
+package com.skyeye.device.dto;
+
+import lombok.Data;
+
+import java.sql.Timestamp;
+
+/**
+ * 密钥轮换任务数据传输对象
+ * 
+ * @author SkyEye Team
+ */
+@Data
+public class KeyRotationJobDto {
+
+    /**
+     * 任务ID
+     */
+    private Long id;
+
+    /**
+     * 旧密钥ID
+     */
+    private Long oldKeyId;
+
+    /**
+     * 新密钥ID
+     */
+    private Long newKeyId;
+
+    /**
+     * 任务状态（RUNNING、COMPLETED、FAILED）
+     */
+    private String status;
+
+    /**
+     * 待轮换的凭据总数
+     */
+    private Long totalCount;
+
+    /**
+     * 已重新加密的凭据数
+     */
+    private Long processedCount;
+
+    /**
+     * 失败的凭据数
+     */
+    private Long failedCount;
+
+    /**
+     * 被并发修改而跳过的凭据数
+     */
+    private Long skippedCount;
+
+    /**
+     * 完成百分比
+     */
+    private Double progress;
+
+    /**
+     * 检查点凭据ID
+     */
+    private Long lastCredentialId;
+
+    /**
+     * 开始时间
+     */
+    private Timestamp startedAt;
+
+    /**
+     * 结束时间
+     */
+    private Timestamp finishedAt;
+
+    /**
+     * 失败原因
+     */
+    private String errorMessage;
+}
@@ -19,6 +19,7 @@ import java.time.LocalDateTime;
 @EqualsAndHashCode(callSuper = true)
 @Entity
 @Table(name = "tb_devices")
+@EntityListeners(DeviceChangeListener.class)
 public class Device extends BaseEntity {
 
     /**
@@ -0,0 +1,36 @@
+package com.skyeye.device.entity;
+
+import com.skyeye.device.cache.DeviceVersionTracker;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 设备变更监听器
+ * <p>
+ * 设备或设备类型经JPA新增、修改、删除后记录到 {@link DeviceVersionTracker}：设备变更只使包含该设备的快照失效，
+ * 设备类型变更使全部快照失效。监听器由Hibernate通过Spring容器创建并注入序号跟踪器。
+ *
+ * @author SkyEye Team
+ */
+@Component
+public class DeviceChangeListener {
+
+    private final DeviceVersionTracker versionTracker;
+
+    public DeviceChangeListener(DeviceVersionTracker versionTracker) {
+        this.versionTracker = versionTracker;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        if (entity instanceof Device device && device.getId() != null) {
+            versionTracker.markDeviceChanged(device.getId());
+        } else {
+            versionTracker.markAllChanged();
+        }
+    }
+}
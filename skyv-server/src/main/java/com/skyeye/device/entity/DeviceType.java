@@ -20,6 +20,7 @@ import java.util.List;
 @EqualsAndHashCode(callSuper = true)
 @Entity
 @Table(name = "tb_device_types")
+@EntityListeners(DeviceChangeListener.class)
 public class DeviceType extends BaseEntity {
 
     /**
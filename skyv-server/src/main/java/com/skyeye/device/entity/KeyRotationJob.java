@@ -0,0 +1,91 @@
+package com.skyeye.device.entity;
+
+import com.skyeye.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.sql.Timestamp;
+
+/**
+ * 凭据密钥轮换任务实体类
+ * 记录重新加密的进度和检查点，任务中断后从检查点继续
+ * 
+ * @author SkyEye Team
+ */
+@Entity
+@Table(name = "tb_key_rotation_jobs")
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class KeyRotationJob extends BaseEntity {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    /**
+     * 旧密钥ID
+     */
+    @Column(name = "old_key_id", nullable = false)
+    private Long oldKeyId;
+
+    /**
+     * 新密钥ID
+     */
+    @Column(name = "new_key_id", nullable = false)
+    private Long newKeyId;
+
+    /**
+     * 任务状态（RUNNING、COMPLETED、FAILED）
+     */
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;
+
+    /**
+     * 任务开始时待轮换的凭据数
+     */
+    @Column(name = "total_count", nullable = false)
+    private Long totalCount = 0L;
+
+    /**
+     * 已重新加密的凭据数
+     */
+    @Column(name = "processed_count", nullable = false)
+    private Long processedCount = 0L;
+
+    /**
+     * 失败的凭据数
+     */
+    @Column(name = "failed_count", nullable = false)
+    private Long failedCount = 0L;
+
+    /**
+     * 轮换期间被并发修改而跳过的凭据数
+     */
+    @Column(name = "skipped_count", nullable = false)
+    private Long skippedCount = 0L;
+
+    /**
+     * 检查点：ID不大于该值的凭据已处理
+     */
+    @Column(name = "last_credential_id", nullable = false)
+    private Long lastCredentialId = 0L;
+
+    /**
+     * 开始时间
+     */
+    @Column(name = "started_at")
+    private Timestamp startedAt;
+
+    /**
+     * 结束时间
+     */
+    @Column(name = "finished_at")
+    private Timestamp finishedAt;
+
+    /**
+     * 失败原因
+     */
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+}
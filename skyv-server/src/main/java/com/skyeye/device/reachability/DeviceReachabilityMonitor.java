@@ -0,0 +1,311 @@
+package com.skyeye.device.reachability;
+
+import com.skyeye.device.config.ReachabilityConfig;
+import com.skyeye.device.reachability.TcpConnectProber.Outcome;
+import com.skyeye.device.repository.DeviceReachabilityRepository;
+import com.skyeye.device.repository.DeviceReachabilityRepository.ProbeTarget;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 设备可达性监控
+ * <p>
+ * 专用线程周期性地对全部在线、离线设备做一轮TCP连接探测（{@link TcpConnectProber}），
+ * 探测本身不占用每设备线程。状态按连续次数去抖：离线设备连续 rise-count 轮可达才标记在线，
+ * 在线设备连续 fall-count 轮不可达才标记离线；本机原因导致的探测失败不计入。
+ * 每轮只把发生变化的设备批量写回 tb_devices，写回以设备仍处于原状态为条件。
+ * 只探测协议在 protocols 中的设备：TCP探测对只开放UDP的设备（如SNMP）没有意义，需显式加入并指定探测端口。
+ * 写回只改状态和时间，采集侧的设备快照不依赖这些字段，不使快照失效。
+ * 去抖计数只保存在本节点内存中，库中状态被其他流程修改后计数重新开始。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+@Component
+public class DeviceReachabilityMonitor {
+
+    private static final int STATUS_ONLINE = 1;
+    private static final int STATUS_OFFLINE = 2;
+
+    private final TcpConnectProber prober;
+    private final DeviceReachabilityRepository repository;
+    private final ReachabilityConfig config;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 设备ID → 去抖状态，只在探测线程访问
+     */
+    private Map<Long, DeviceState> states = new HashMap<>();
+
+    private final AtomicLong sweeps = new AtomicLong(0);
+
+    private final AtomicLong onlineTransitions = new AtomicLong(0);
+
+    private final AtomicLong offlineTransitions = new AtomicLong(0);
+
+    private volatile int lastDeviceCount;
+
+    private volatile int lastReachableCount;
+
+    private volatile int lastUnknownCount;
+
+    private volatile long lastSweepMs;
+
+    private ScheduledExecutorService sweeper;
+
+    public DeviceReachabilityMonitor(TcpConnectProber prober,
+                                     DeviceReachabilityRepository repository,
+                                     ReachabilityConfig config,
+                                     PlatformTransactionManager transactionManager) {
+        this.prober = prober;
+        this.repository = repository;
+        this.config = config;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            log.info("设备可达性探测未启用");
+            return;
+        }
+        // 独立线程执行，一轮探测耗时较长时不占用公共调度线程
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "reachability-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweepSafely, config.getInitialDelayMs(),
+                Math.max(1000, config.getSweepIntervalMs()), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("enabled", config.isEnabled());
+        statistics.put("sweeps", sweeps.get());
+        statistics.put("lastDeviceCount", lastDeviceCount);
+        statistics.put("lastReachableCount", lastReachableCount);
+        statistics.put("lastUnknownCount", lastUnknownCount);
+        statistics.put("lastSweepMs", lastSweepMs);
+        statistics.put("onlineTransitions", onlineTransitions.get());
+        statistics.put("offlineTransitions", offlineTransitions.get());
+        statistics.put("prober", prober.getStatistics());
+        return statistics;
+    }
+
+    private void sweepSafely() {
+        try {
+            sweep();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // 异常不能抛出，否则后续轮次不再执行
+            log.error("设备可达性探测失败", e);
+        }
+    }
+
+    /**
+     * 执行一轮探测并写回状态变化
+     */
+    void sweep() throws InterruptedException {
+        long startNanos = System.nanoTime();
+        List<ProbeTarget> targets = loadTargets();
+        Outcome[] outcomes = probeAll(targets);
+
+        boolean refusedAsReachable = config.isRefusedAsReachable();
+        int rise = Math.max(1, config.getRiseCount());
+        int fall = Math.max(1, config.getFallCount());
+        Map<Long, DeviceState> nextStates = new HashMap<>(Math.max(16, targets.size() * 4 / 3));
+        List<Long> toOnline = new ArrayList<>();
+        List<Long> toOffline = new ArrayList<>();
+        int reachableCount = 0;
+        int unknownCount = 0;
+
+        for (int i = 0; i < targets.size(); i++) {
+            ProbeTarget target = targets.get(i);
+            DeviceState state = states.get(target.getId());
+            if (state == null || state.status != target.getStatus()) {
+                state = new DeviceState(target.getStatus());
+            }
+            nextStates.put(target.getId(), state);
+
+            Outcome outcome = outcomes[i];
+            if (outcome == null) {
+                unknownCount++;
+                continue;
+            }
+            boolean reachable = outcome == Outcome.CONNECTED || (refusedAsReachable && outcome == Outcome.REFUSED);
+            if (reachable) {
+                reachableCount++;
+                state.streak = state.streak > 0 ? state.streak + 1 : 1;
+                if (state.status == STATUS_OFFLINE && state.streak >= rise) {
+                    toOnline.add(target.getId());
+                }
+            } else {
+                state.streak = state.streak < 0 ? state.streak - 1 : -1;
+                if (state.status == STATUS_ONLINE && -state.streak >= fall) {
+                    toOffline.add(target.getId());
+                }
+            }
+        }
+        states = nextStates;
+
+        if (!toOnline.isEmpty() || !toOffline.isEmpty()) {
+            writeTransitions(toOnline, toOffline);
+        }
+
+        sweeps.incrementAndGet();
+        lastDeviceCount = targets.size();
+        lastReachableCount = reachableCount;
+        lastUnknownCount = unknownCount;
+        lastSweepMs = (System.nanoTime() - startNanos) / 1_000_000;
+        log.debug("设备可达性探测完成: devices={}, reachable={}, unknown={}, online={}, offline={}, elapsedMs={}",
+                targets.size(), reachableCount, unknownCount, toOnline.size(), toOffline.size(), lastSweepMs);
+    }
+
+    private List<ProbeTarget> loadTargets() {
+        int pageSize = Math.max(1, config.getPageSize());
+        List<ProbeTarget> targets = new ArrayList<>();
+        long afterId = 0;
+        while (true) {
+            List<ProbeTarget> page = repository.findTargets(afterId, pageSize);
+            for (ProbeTarget target : page) {
+                if (isProbed(target)) {
+                    targets.add(target);
+                }
+            }
+            if (page.size() < pageSize) {
+                return targets;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    /**
+     * 一次性提交全部探测并等待结束
+     *
+     * @return 与targets一一对应的结果，本机原因失败或等待超时的为null
+     */
+    private Outcome[] probeAll(List<ProbeTarget> targets) throws InterruptedException {
+        Outcome[] outcomes = new Outcome[targets.size()];
+        CountDownLatch latch = new CountDownLatch(targets.size());
+        int timeoutMs = Math.max(1, config.getConnectTimeoutMs());
+
+        for (int i = 0; i < targets.size(); i++) {
+            int index = i;
+            ProbeTarget target = targets.get(i);
+            InetSocketAddress address = resolve(target);
+            if (address == null) {
+                outcomes[index] = Outcome.UNREACHABLE;
+                latch.countDown();
+                continue;
+            }
+            prober.probe(address, timeoutMs).whenComplete((outcome, e) -> {
+                outcomes[index] = e == null ? outcome : null;
+                latch.countDown();
+            });
+        }
+
+        // 探测排队执行，最长等待时间按并发上限估算
+        long rounds = targets.size() / Math.max(1, config.getMaxInFlight()) + 2;
+        if (!latch.await(rounds * timeoutMs + 5000, TimeUnit.MILLISECONDS)) {
+            log.warn("设备可达性探测等待超时，未完成的设备本轮不计入: remaining={}", latch.getCount());
+        }
+        return outcomes;
+    }
+
+    private boolean isProbed(ProbeTarget target) {
+        return target.getProtocol() != null
+                && config.getProtocols().contains(target.getProtocol().toUpperCase(Locale.ROOT));
+    }
+
+    private InetSocketAddress resolve(ProbeTarget target) {
+        int port = resolvePort(target);
+        try {
+            return new InetSocketAddress(target.getIpAddress().trim(), port);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 按协议指定的端口 → 设备端口 → 协议默认端口 → 兜底端口
+     */
+    private int resolvePort(ProbeTarget target) {
+        String protocol = target.getProtocol() != null ? target.getProtocol().toUpperCase(Locale.ROOT) : null;
+        Integer port = protocol != null ? config.getProtocolPorts().get(protocol) : null;
+        if (port == null && target.getPort() != null && target.getPort() > 0 && target.getPort() <= 65535) {
+            port = target.getPort();
+        }
+        if (port == null && protocol != null) {
+            port = config.getDefaultPorts().get(protocol);
+        }
+        return port != null ? port : config.getFallbackPort();
+    }
+
+    private void writeTransitions(List<Long> toOnline, List<Long> toOffline) {
+        int batchSize = Math.max(1, config.getUpdateBatchSize());
+        int[] updated = transactionTemplate.execute(status -> new int[]{
+                repository.batchMarkOnline(toOnline, batchSize),
+                repository.batchMarkOffline(toOffline, batchSize)
+        });
+        // 写回成功后以新状态继续计数；条件不满足未更新的设备，下一轮按库中状态重新开始
+        for (Long id : toOnline) {
+            states.get(id).transition(STATUS_ONLINE);
+        }
+        for (Long id : toOffline) {
+            states.get(id).transition(STATUS_OFFLINE);
+        }
+
+        onlineTransitions.addAndGet(updated != null ? updated[0] : 0);
+        offlineTransitions.addAndGet(updated != null ? updated[1] : 0);
+        log.info("设备可达性状态变化: online={}, offline={}", toOnline.size(), toOffline.size());
+        if (log.isDebugEnabled()) {
+            log.debug("设备可达性状态变化明细: online={}, offline={}", toOnline, toOffline);
+        }
+    }
+
+    /**
+     * 单个设备的去抖状态
+     */
+    private static final class DeviceState {
+
+        /**
+         * 已确认的状态：1在线 2离线
+         */
+        private int status;
+
+        /**
+         * 连续结果计数：正数为连续可达次数，负数为连续不可达次数
+         */
+        private int streak;
+
+        private DeviceState(int status) {
+            this.status = status;
+        }
+
+        private void transition(int newStatus) {
+            status = newStatus;
+            streak = 0;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.skyeye.device.reachability;
+
+import com.skyeye.device.config.ReachabilityConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.NoRouteToHostException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 非阻塞TCP连接探测器
+ * <p>
+ * 全部探测由一个选择器线程完成：以非阻塞方式发起连接并注册 OP_CONNECT，连接建立、被拒绝或超时后
+ * 立即关闭（SO_LINGER=0，直接发送RST，不在本机留下TIME_WAIT），并完成对应的 {@link CompletableFuture}。
+ * 同时进行中的连接数不超过 max-in-flight，超出的探测在选择器线程内排队，调用方不会阻塞。
+ * 结果在选择器线程中回调，调用方不要在回调中执行耗时操作。
+ * <p>
+ * Java无法在非特权进程中发送ICMP，这里以TCP连接代替：对端返回RST说明主机在线只是端口未监听，
+ * 是否视为可达由调用方根据 {@link Outcome#REFUSED} 决定。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+@Component
+public class TcpConnectProber {
+
+    /**
+     * 探测结果
+     */
+    public enum Outcome {
+        /**
+         * 连接建立
+         */
+        CONNECTED,
+        /**
+         * 连接被拒绝（对端返回RST）
+         */
+        REFUSED,
+        /**
+         * 超时未响应
+         */
+        TIMEOUT,
+        /**
+         * 地址无法解析、无路由等
+         */
+        UNREACHABLE
+    }
+
+    private final ReachabilityConfig config;
+
+    /**
+     * 其他线程提交、等待选择器线程处理的探测
+     */
+    private final Queue<PendingConnect> submitted = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 已提交但因并发上限尚未发起的探测，只在选择器线程访问
+     */
+    private final ArrayDeque<PendingConnect> waiting = new ArrayDeque<>();
+
+    /**
+     * 进行中的探测按超时时间排序，只在选择器线程访问；已完成的在出队时跳过
+     */
+    private final PriorityQueue<PendingConnect> deadlines =
+            new PriorityQueue<>(Comparator.comparingLong(pending -> pending.deadline));
+
+    private final AtomicBoolean wakeupPending = new AtomicBoolean(false);
+
+    private final AtomicLong started = new AtomicLong(0);
+
+    private final AtomicLong connected = new AtomicLong(0);
+
+    private final AtomicLong refused = new AtomicLong(0);
+
+    private final AtomicLong timedOut = new AtomicLong(0);
+
+    private final AtomicLong unreachable = new AtomicLong(0);
+
+    private final AtomicLong errors = new AtomicLong(0);
+
+    private volatile boolean running;
+
+    private volatile int inFlight;
+
+    private Selector selector;
+
+    private Thread selectorThread;
+
+    public TcpConnectProber(ReachabilityConfig config) {
+        this.config = config;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        selector = Selector.open();
+        running = true;
+        selectorThread = new Thread(this::runLoop, "reachability-selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+        log.info("TCP连接探测器启动: maxInFlight={}", config.getMaxInFlight());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 探测一个地址
+     *
+     * @param address   已解析的地址，未解析时直接返回UNREACHABLE
+     * @param timeoutMs 连接超时（毫秒），从实际发起连接开始计算
+     * @return 探测结果；本机原因（如文件句柄或本地端口耗尽）失败或探测器已停止时异常完成，调用方不应据此判断设备状态
+     */
+    public CompletableFuture<Outcome> probe(InetSocketAddress address, int timeoutMs) {
+        CompletableFuture<Outcome> future = new CompletableFuture<>();
+        if (address.isUnresolved()) {
+            unreachable.incrementAndGet();
+            future.complete(Outcome.UNREACHABLE);
+            return future;
+        }
+        if (!running) {
+            future.completeExceptionally(new RejectedExecutionException("探测器已停止"));
+            return future;
+        }
+
+        submitted.add(new PendingConnect(address, Math.max(1, timeoutMs), future));
+        // 批量提交时合并唤醒，选择器每轮只被唤醒一次
+        if (wakeupPending.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+        return future;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("inFlight", inFlight);
+        statistics.put("started", started.get());
+        statistics.put("connected", connected.get());
+        statistics.put("refused", refused.get());
+        statistics.put("timedOut", timedOut.get());
+        statistics.put("unreachable", unreachable.get());
+        statistics.put("errors", errors.get());
+        return statistics;
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                wakeupPending.set(false);
+                PendingConnect pending;
+                while ((pending = submitted.poll()) != null) {
+                    waiting.add(pending);
+                }
+                int maxInFlight = Math.max(1, config.getMaxInFlight());
+                while (inFlight < maxInFlight && (pending = waiting.poll()) != null) {
+                    connect(pending);
+                }
+
+                long timeout = 0;
+                PendingConnect next = nextDeadline();
+                if (next != null) {
+                    timeout = Math.max(1, next.deadline - System.currentTimeMillis());
+                }
+                selector.select(timeout);
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (key.isValid() && key.isConnectable()) {
+                        finishConnect(key, (PendingConnect) key.attachment());
+                    }
+                }
+                expire(System.currentTimeMillis());
+
+            } catch (ClosedSelectorException e) {
+                break;
+            } catch (Exception e) {
+                // 选择器线程不能退出，记录后继续
+                log.error("TCP连接探测循环异常", e);
+            }
+        }
+        shutdown();
+    }
+
+    private void connect(PendingConnect pending) {
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.SO_LINGER, 0);
+        } catch (IOException e) {
+            // 本机原因，与设备状态无关
+            errors.incrementAndGet();
+            pending.future.completeExceptionally(e);
+            return;
+        }
+
+        started.incrementAndGet();
+        pending.channel = channel;
+        try {
+            if (channel.connect(pending.address)) {
+                complete(pending, Outcome.CONNECTED);
+                return;
+            }
+            channel.register(selector, SelectionKey.OP_CONNECT, pending);
+        } catch (IOException e) {
+            completeWithError(pending, e);
+            return;
+        } catch (UnresolvedAddressException | UnsupportedAddressTypeException e) {
+            complete(pending, Outcome.UNREACHABLE);
+            return;
+        }
+        pending.deadline = System.currentTimeMillis() + pending.timeoutMs;
+        deadlines.add(pending);
+        inFlight++;
+    }
+
+    private void finishConnect(SelectionKey key, PendingConnect pending) {
+        if (pending.done) {
+            return;
+        }
+        inFlight--;
+        key.cancel();
+        try {
+            complete(pending, pending.channel.finishConnect() ? Outcome.CONNECTED : Outcome.UNREACHABLE);
+        } catch (IOException e) {
+            completeWithError(pending, e);
+        }
+    }
+
+    private void expire(long now) {
+        PendingConnect pending;
+        while ((pending = nextDeadline()) != null && pending.deadline <= now) {
+            deadlines.poll();
+            inFlight--;
+            complete(pending, Outcome.TIMEOUT);
+        }
+    }
+
+    /**
+     * 跳过已完成的探测，返回最早超时的进行中探测
+     */
+    private PendingConnect nextDeadline() {
+        PendingConnect pending;
+        while ((pending = deadlines.peek()) != null && pending.done) {
+            deadlines.poll();
+        }
+        return pending;
+    }
+
+    private void complete(PendingConnect pending, Outcome outcome) {
+        pending.done = true;
+        closeQuietly(pending.channel);
+        switch (outcome) {
+            case CONNECTED -> connected.incrementAndGet();
+            case REFUSED -> refused.incrementAndGet();
+            case TIMEOUT -> timedOut.incrementAndGet();
+            case UNREACHABLE -> unreachable.incrementAndGet();
+        }
+        pending.future.complete(outcome);
+    }
+
+    /**
+     * 连接失败：ConnectException（拒绝、超时）和 NoRouteToHostException 来自对端或网络，按结果完成；
+     * 其他异常（如 BindException 本地端口耗尽）是本机原因，异常完成，不能据此判断设备不可达
+     */
+    private void completeWithError(PendingConnect pending, IOException e) {
+        if (e instanceof ConnectException) {
+            boolean refusedByPeer = e.getMessage() != null &&
+                    e.getMessage().toLowerCase(Locale.ROOT).contains("refused");
+            complete(pending, refusedByPeer ? Outcome.REFUSED : Outcome.UNREACHABLE);
+        } else if (e instanceof NoRouteToHostException) {
+            complete(pending, Outcome.UNREACHABLE);
+        } else {
+            pending.done = true;
+            closeQuietly(pending.channel);
+            errors.incrementAndGet();
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 选择器线程退出时关闭全部连接，未完成的探测异常完成
+     */
+    private void shutdown() {
+        RejectedExecutionException stopped = new RejectedExecutionException("探测器已停止");
+        List<PendingConnect> remaining = new ArrayList<>(deadlines);
+        remaining.addAll(waiting);
+        PendingConnect pending;
+        while ((pending = submitted.poll()) != null) {
+            remaining.add(pending);
+        }
+        for (PendingConnect connect : remaining) {
+            if (!connect.done) {
+                connect.done = true;
+                closeQuietly(connect.channel);
+                connect.future.completeExceptionally(stopped);
+            }
+        }
+        deadlines.clear();
+        waiting.clear();
+        inFlight = 0;
+        try {
+            selector.close();
+        } catch (IOException e) {
+            log.debug("关闭选择器失败", e);
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // 关闭失败不影响探测结果
+            }
+        }
+    }
+
+    /**
+     * 一次探测，除future外只在选择器线程访问
+     */
+    private static final class PendingConnect {
+
+        private final InetSocketAddress address;
+
+        private final int timeoutMs;
+
+        private final CompletableFuture<Outcome> future;
+
+        private SocketChannel channel;
+
+        private long deadline;
+
+        private boolean done;
+
+        private PendingConnect(InetSocketAddress address, int timeoutMs, CompletableFuture<Outcome> future) {
+            this.address = address;
+            this.timeoutMs = timeoutMs;
+            this.future = future;
+        }
+    }
+}
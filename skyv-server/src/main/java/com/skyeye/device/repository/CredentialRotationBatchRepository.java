@@ -0,0 +1,97 @@
+package com.skyeye.device.repository;
+
+import com.skyeye.device.entity.DeviceCredential;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * 凭据密钥轮换批量读写Repository
+ * <p>
+ * 按凭据ID做键集分页读取待轮换凭据，只取重新加密需要的列；写回时用JDBC批量更新，
+ * 并以 encryption_key_id 仍为旧密钥作为条件，轮换期间被用户修改过的凭据不会被覆盖。
+ *
+ * @author SkyEye Team
+ */
+@Repository
+public class CredentialRotationBatchRepository {
+
+    private static final String SELECT_SQL = "SELECT id, device_id, encrypted_data, encryption_iv "
+            + "FROM tb_device_credentials WHERE encryption_key_id = ? AND status = 1 AND id > ? "
+            + "ORDER BY id LIMIT ?";
+
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM tb_device_credentials "
+            + "WHERE encryption_key_id = ? AND status = 1 AND id > ?";
+
+    private static final String UPDATE_SQL = "UPDATE tb_device_credentials "
+            + "SET encrypted_data = ?, encryption_iv = ?, encryption_key_id = ?, updated_at = ? "
+            + "WHERE id = ? AND encryption_key_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CredentialRotationBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 读取ID大于检查点的一批待轮换凭据
+     *
+     * @param oldKeyId 旧密钥ID
+     * @param afterId 检查点
+     * @param limit 最大条数
+     * @return 凭据，只包含id、deviceId、encryptedData、encryptionIv
+     */
+    public List<DeviceCredential> findPending(Long oldKeyId, long afterId, int limit) {
+        return jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> {
+            DeviceCredential credential = new DeviceCredential();
+            credential.setId(rs.getLong("id"));
+            credential.setDeviceId(rs.getLong("device_id"));
+            credential.setEncryptedData(rs.getString("encrypted_data"));
+            credential.setEncryptionIv(rs.getString("encryption_iv"));
+            credential.setEncryptionKeyId(oldKeyId);
+            return credential;
+        }, oldKeyId, afterId, limit);
+    }
+
+    /**
+     * 统计ID大于检查点的待轮换凭据数
+     */
+    public long countPending(Long oldKeyId, long afterId) {
+        Long count = jdbcTemplate.queryForObject(COUNT_SQL, Long.class, oldKeyId, afterId);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * 批量写回重新加密的凭据
+     *
+     * @param rows 重新加密后的凭据，encryptionKeyId 为新密钥
+     * @param oldKeyId 旧密钥ID
+     * @return 实际更新的行数
+     */
+    public int batchUpdate(List<DeviceCredential> rows, Long oldKeyId) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, rows, rows.size(), (ps, credential) -> {
+            ps.setString(1, credential.getEncryptedData());
+            ps.setString(2, credential.getEncryptionIv());
+            ps.setLong(3, credential.getEncryptionKeyId());
+            ps.setTimestamp(4, now);
+            ps.setLong(5, credential.getId());
+            ps.setLong(6, oldKeyId);
+        });
+
+        int updated = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // 部分驱动批量执行时返回SUCCESS_NO_INFO(-2)
+                updated += count >= 0 ? count : 1;
+            }
+        }
+        return updated;
+    }
+}
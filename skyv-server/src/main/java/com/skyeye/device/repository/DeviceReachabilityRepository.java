@@ -0,0 +1,120 @@
+package com.skyeye.device.repository;
+
+import lombok.Data;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * 设备可达性探测批量读写Repository
+ * <p>
+ * 按设备ID做键集分页读取探测目标，只取探测需要的列；状态变化用JDBC批量更新写回，
+ * 并以设备仍处于原状态作为条件，探测期间被人工修改（如改为维护）的设备不会被覆盖。
+ *
+ * @author SkyEye Team
+ */
+@Repository
+public class DeviceReachabilityRepository {
+
+    /**
+     * 只探测在线、离线的设备，故障、维护等状态由其他流程维护
+     */
+    private static final String SELECT_SQL = "SELECT id, ip_address, port, protocol, status FROM tb_devices "
+            + "WHERE deleted_at IS NULL AND status IN (1, 2) AND ip_address IS NOT NULL AND ip_address <> '' "
+            + "AND id > ? ORDER BY id LIMIT ?";
+
+    private static final String ONLINE_SQL = "UPDATE tb_devices SET status = 1, last_online_at = ?, updated_at = ? "
+            + "WHERE id = ? AND status = 2 AND deleted_at IS NULL";
+
+    private static final String OFFLINE_SQL = "UPDATE tb_devices SET status = 2, updated_at = ? "
+            + "WHERE id = ? AND status = 1 AND deleted_at IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DeviceReachabilityRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 读取ID大于afterId的一页探测目标
+     */
+    public List<ProbeTarget> findTargets(long afterId, int limit) {
+        return jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> {
+            ProbeTarget target = new ProbeTarget();
+            target.setId(rs.getLong("id"));
+            target.setIpAddress(rs.getString("ip_address"));
+            int port = rs.getInt("port");
+            target.setPort(rs.wasNull() ? null : port);
+            target.setProtocol(rs.getString("protocol"));
+            target.setStatus(rs.getInt("status"));
+            return target;
+        }, afterId, limit);
+    }
+
+    /**
+     * 批量把离线设备标记为在线，并更新最后在线时间
+     *
+     * @return 实际更新的行数
+     */
+    public int batchMarkOnline(List<Long> ids, int batchSize) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        return batchUpdate(ONLINE_SQL, ids, batchSize, (ps, id) -> {
+            ps.setTimestamp(1, now);
+            ps.setTimestamp(2, now);
+            ps.setLong(3, id);
+        });
+    }
+
+    /**
+     * 批量把在线设备标记为离线
+     *
+     * @return 实际更新的行数
+     */
+    public int batchMarkOffline(List<Long> ids, int batchSize) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        return batchUpdate(OFFLINE_SQL, ids, batchSize, (ps, id) -> {
+            ps.setTimestamp(1, now);
+            ps.setLong(2, id);
+        });
+    }
+
+    private int batchUpdate(String sql, List<Long> ids, int batchSize,
+                            ParameterizedPreparedStatementSetter<Long> setter) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        int[][] counts = jdbcTemplate.batchUpdate(sql, ids, Math.max(1, batchSize), setter);
+        int updated = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // 部分驱动批量执行时返回SUCCESS_NO_INFO(-2)
+                updated += count >= 0 ? count : 1;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * 探测目标
+     */
+    @Data
+    public static class ProbeTarget {
+
+        private Long id;
+
+        private String ipAddress;
+
+        private Integer port;
+
+        private String protocol;
+
+        /**
+         * 库中当前状态：1在线 2离线
+         */
+        private Integer status;
+    }
+}
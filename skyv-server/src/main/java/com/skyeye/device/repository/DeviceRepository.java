@@ -5,10 +5,12 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -117,4 +119,20 @@ public interface DeviceRepository extends JpaRepository<Device, Long>, JpaSpecif
      */
     @Query("SELECT d FROM Device d WHERE d.id IN :ids AND d.deletedAt IS NULL")
     List<Device> findByIdInAndNotDeleted(@Param("ids") List<Long> ids);
-} 
\ No newline at end of file
+
+    /**
+     * 批量标记设备在线并更新最后在线时间，只更新在线、离线的设备，故障、维护状态不被探测结果覆盖
+     */
+    @Modifying
+    @Query("UPDATE Device d SET d.status = 1, d.lastOnlineAt = :now, d.updatedAt = :now "
+            + "WHERE d.id IN :ids AND d.status IN (1, 2) AND d.deletedAt IS NULL")
+    int markOnline(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * 批量把在线设备标记为离线，其他状态的设备不更新
+     */
+    @Modifying
+    @Query("UPDATE Device d SET d.status = 2, d.updatedAt = :now "
+            + "WHERE d.id IN :ids AND d.status = 1 AND d.deletedAt IS NULL")
+    int markOffline(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,42 @@
+package com.skyeye.device.repository;
+
+import com.skyeye.device.entity.KeyRotationJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 密钥轮换任务数据访问层
+ * 
+ * @author SkyEye Team
+ */
+@Repository
+public interface KeyRotationJobRepository extends JpaRepository<KeyRotationJob, Long> {
+
+    /**
+     * 根据状态查找任务
+     *
+     * @param status 状态
+     * @return 任务列表
+     */
+    List<KeyRotationJob> findByStatus(String status);
+
+    /**
+     * 检查旧密钥是否存在指定状态的任务
+     *
+     * @param oldKeyId 旧密钥ID
+     * @param status 状态
+     * @return 是否存在
+     */
+    boolean existsByOldKeyIdAndStatus(Long oldKeyId, String status);
+
+    /**
+     * 查找旧密钥最近一次的轮换任务
+     *
+     * @param oldKeyId 旧密钥ID
+     * @return 轮换任务
+     */
+    Optional<KeyRotationJob> findTopByOldKeyIdOrderByIdDesc(Long oldKeyId);
+}
@@ -0,0 +1,49 @@
+package com.skyeye.device.service;
+
+import com.skyeye.device.dto.ConnectionProbeProgress;
+import com.skyeye.device.dto.ConnectionProbeRequest;
+import com.skyeye.device.dto.ConnectionProbeResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * 批量连接测试服务接口
+ * 
+ * @author SkyEye Team
+ */
+public interface DeviceConnectionProbeService {
+
+    /**
+     * 在后台开始批量连接测试
+     *
+     * @param request 测试请求
+     * @return 初始进度
+     */
+    ConnectionProbeProgress startProbe(ConnectionProbeRequest request);
+
+    /**
+     * 获取测试进度
+     *
+     * @param probeId 测试ID
+     * @return 进度
+     */
+    ConnectionProbeProgress getProgress(String probeId);
+
+    /**
+     * 获取已完成设备的测试结果
+     *
+     * @param probeId 测试ID
+     * @param failedOnly 是否只返回失败和跳过的设备
+     * @return 测试结果
+     */
+    List<ConnectionProbeResult> getResults(String probeId, boolean failedOnly);
+
+    /**
+     * 订阅测试进度，按固定间隔推送progress事件，结束时推送complete事件
+     *
+     * @param probeId 测试ID
+     * @return SSE发送器
+     */
+    SseEmitter streamProgress(String probeId);
+}
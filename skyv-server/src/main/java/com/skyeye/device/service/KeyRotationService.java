@@ -0,0 +1,53 @@
+package com.skyeye.device.service;
+
+import com.skyeye.device.entity.KeyRotationJob;
+
+/**
+ * 凭据密钥轮换服务接口
+ * 
+ * @author SkyEye Team
+ */
+public interface KeyRotationService {
+
+    /**
+     * 创建轮换任务并在后台执行
+     *
+     * @param oldKeyId 旧密钥ID
+     * @param newKeyId 新密钥ID
+     * @return 轮换任务
+     */
+    KeyRotationJob startRotation(Long oldKeyId, Long newKeyId);
+
+    /**
+     * 创建轮换任务并在当前线程执行到结束
+     *
+     * @param oldKeyId 旧密钥ID
+     * @param newKeyId 新密钥ID
+     * @return 结束后的轮换任务
+     */
+    KeyRotationJob runRotation(Long oldKeyId, Long newKeyId);
+
+    /**
+     * 继续执行失败或中断的任务，从头扫描仍使用旧密钥的凭据，重试之前失败的凭据
+     *
+     * @param jobId 任务ID
+     * @return 轮换任务
+     */
+    KeyRotationJob resumeRotation(Long jobId);
+
+    /**
+     * 获取轮换任务
+     *
+     * @param jobId 任务ID
+     * @return 轮换任务
+     */
+    KeyRotationJob getJob(Long jobId);
+
+    /**
+     * 获取旧密钥最近一次的轮换任务
+     *
+     * @param oldKeyId 旧密钥ID
+     * @return 轮换任务
+     */
+    KeyRotationJob getLatestJob(Long oldKeyId);
+}
@@ -2,6 +2,7 @@ package com.skyeye.device.service.impl;
 
 import com.skyeye.common.exception.BusinessException;
 import com.skyeye.common.util.JsonUtils;
+import com.skyeye.device.config.CredentialCacheConfig;
 import com.skyeye.device.dto.EncryptedCredential;
 import com.skyeye.device.entity.EncryptionKey;
 import com.skyeye.device.repository.EncryptionKeyRepository;
@@ -11,6 +12,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
@@ -18,16 +21,25 @@ import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 凭据加密服务实现类
  * 使用AES-256-GCM算法进行加密
+ * <p>
+ * 主密钥解开后的数据密钥按密钥ID缓存，连同密钥状态和过期时间，加解密不再查库和解包；
+ * 密钥轮换时移除，缓存超过 data-key-ttl-seconds 后重新加载以获取库中的状态变化。
+ * {@link Cipher} 实例放回池中复用，每次使用前重新初始化。
  * 
  * @author SkyEye Team
  */
@@ -41,42 +53,51 @@ public class CredentialEncryptionServiceImpl implements CredentialEncryptionServ
     private static final int KEY_SIZE = 256;
     private static final int IV_SIZE = 12; // GCM标准IV长度
     private static final int TAG_SIZE = 128; // GCM标签长度
+    private static final int MAX_POOLED_CIPHERS = 64;
 
     private final EncryptionKeyRepository encryptionKeyRepository;
+    private final CredentialCacheConfig cacheConfig;
     private final SecureRandom secureRandom = new SecureRandom();
 
+    /**
+     * 密钥ID → 解包后的数据密钥
+     */
+    private final ConcurrentHashMap<Long, DataKey> dataKeys = new ConcurrentHashMap<>();
+
+    /**
+     * 空闲的Cipher实例，按使用方借还，不依赖线程本地变量，虚拟线程下同样有效
+     */
+    private final ConcurrentLinkedQueue<Cipher> cipherPool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledCiphers = new AtomicInteger(0);
+
+    private volatile SecretKeySpec masterKeySpec;
+
     @Value("${skyeye.security.master-key:SkyEye-Master-Key-2024-Default}")
     private String masterKey;
 
     @Override
     public EncryptedCredential encrypt(Map<String, Object> plainData, Long keyId) {
         try {
-            // 获取加密密钥
-            EncryptionKey encryptionKey = getEncryptionKey(keyId);
-            if (!isKeyValid(keyId)) {
+            // 获取数据密钥
+            DataKey dataKey = getDataKey(keyId);
+            if (!dataKey.isValid()) {
                 throw new BusinessException("加密密钥无效或已过期");
             }
 
-            // 解密密钥数据
-            SecretKey secretKey = decryptKeyData(encryptionKey.getEncryptedKeyData());
-
             // 生成随机IV
             byte[] iv = new byte[IV_SIZE];
             secureRandom.nextBytes(iv);
 
             // 执行加密
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            GCMParameterSpec gcmSpec = new GCMParameterSpec(TAG_SIZE, iv);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey, gcmSpec);
-
             String plainJson = JsonUtils.toJson(plainData);
-            byte[] encryptedBytes = cipher.doFinal(plainJson.getBytes(StandardCharsets.UTF_8));
+            byte[] encryptedBytes = doFinal(Cipher.ENCRYPT_MODE, dataKey.secretKey, iv,
+                    plainJson.getBytes(StandardCharsets.UTF_8));
 
             return EncryptedCredential.builder()
                     .encryptedData(Base64.getEncoder().encodeToString(encryptedBytes))
                     .iv(Base64.getEncoder().encodeToString(iv))
                     .keyId(keyId)
-                    .algorithm(encryptionKey.getAlgorithm())
+                    .algorithm(dataKey.algorithm)
                     .build();
 
         } catch (Exception e) {
@@ -88,22 +109,16 @@ public class CredentialEncryptionServiceImpl implements CredentialEncryptionServ
     @Override
     public Map<String, Object> decrypt(EncryptedCredential encryptedCredential) {
         try {
-            // 获取加密密钥
-            EncryptionKey encryptionKey = getEncryptionKey(encryptedCredential.getKeyId());
-            
-            // 解密密钥数据
-            SecretKey secretKey = decryptKeyData(encryptionKey.getEncryptedKeyData());
+            // 获取数据密钥
+            DataKey dataKey = getDataKey(encryptedCredential.getKeyId());
 
             // 执行解密
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
             byte[] iv = Base64.getDecoder().decode(encryptedCredential.getIv());
-            GCMParameterSpec gcmSpec = new GCMParameterSpec(TAG_SIZE, iv);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey, gcmSpec);
-
             byte[] encryptedBytes = Base64.getDecoder().decode(encryptedCredential.getEncryptedData());
-            byte[] decryptedBytes = cipher.doFinal(encryptedBytes);
+            byte[] decryptedBytes = doFinal(Cipher.DECRYPT_MODE, dataKey.secretKey, iv, encryptedBytes);
 
             String decryptedJson = new String(decryptedBytes, StandardCharsets.UTF_8);
+            Arrays.fill(decryptedBytes, (byte) 0);
             @SuppressWarnings("unchecked")
             Map<String, Object> result = JsonUtils.fromJson(decryptedJson, Map.class);
             return result;
@@ -163,6 +178,7 @@ public class CredentialEncryptionServiceImpl implements CredentialEncryptionServ
         oldKey.setIsActive(false);
         oldKey.setStatus(2); // 已轮换
         encryptionKeyRepository.save(oldKey);
+        evictDataKey(oldKeyId);
 
         // 创建新密钥
         String newKeyName = "Auto-Rotated-" + System.currentTimeMillis();
@@ -192,6 +208,61 @@ public class CredentialEncryptionServiceImpl implements CredentialEncryptionServ
                 .orElse(false);
     }
 
+    /**
+     * 获取数据密钥，缓存未命中或已超过有效期时查库并用主密钥解包
+     */
+    private DataKey getDataKey(Long keyId) throws Exception {
+        long now = System.currentTimeMillis();
+        DataKey dataKey = dataKeys.get(keyId);
+        if (dataKey != null && now - dataKey.loadedAt < cacheConfig.getDataKeyTtlSeconds() * 1000) {
+            return dataKey;
+        }
+
+        EncryptionKey encryptionKey = getEncryptionKey(keyId);
+        dataKey = new DataKey(decryptKeyData(encryptionKey.getEncryptedKeyData()), encryptionKey.getAlgorithm(),
+                encryptionKey.getStatus(), encryptionKey.getExpireTime(), now);
+        dataKeys.put(keyId, dataKey);
+        return dataKey;
+    }
+
+    /**
+     * 移除数据密钥缓存，事务中调用时在事务结束后再移除一次，避免并发加载写回提交前的状态
+     */
+    private void evictDataKey(Long keyId) {
+        dataKeys.remove(keyId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    dataKeys.remove(keyId);
+                }
+            });
+        }
+    }
+
+    /**
+     * 用池中的Cipher执行一次AES-GCM加密或解密
+     */
+    private byte[] doFinal(int mode, SecretKey key, byte[] iv, byte[] input) throws GeneralSecurityException {
+        Cipher cipher = cipherPool.poll();
+        if (cipher != null) {
+            pooledCiphers.decrementAndGet();
+        } else {
+            cipher = Cipher.getInstance(TRANSFORMATION);
+        }
+        try {
+            cipher.init(mode, key, new GCMParameterSpec(TAG_SIZE, iv));
+            return cipher.doFinal(input);
+        } finally {
+            // 每次使用前都会重新初始化，失败后的状态不影响下次使用
+            if (pooledCiphers.incrementAndGet() <= MAX_POOLED_CIPHERS) {
+                cipherPool.offer(cipher);
+            } else {
+                pooledCiphers.decrementAndGet();
+            }
+        }
+    }
+
     /**
      * 获取加密密钥
      */
@@ -204,20 +275,12 @@ public class CredentialEncryptionServiceImpl implements CredentialEncryptionServ
      * 使用主密钥加密密钥数据
      */
     private String encryptKeyData(SecretKey secretKey) throws Exception {
-        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-        
         // 生成IV
         byte[] iv = new byte[IV_SIZE];
         secureRandom.nextBytes(iv);
         
         // 使用主密钥
-        SecretKeySpec masterKeySpec = new SecretKeySpec(
-                generateMasterKeyBytes(), ALGORITHM);
-        
-        GCMParameterSpec gcmSpec = new GCMParameterSpec(TAG_SIZE, iv);
-        cipher.init(Cipher.ENCRYPT_MODE, masterKeySpec, gcmSpec);
-        
-        byte[] encryptedKey = cipher.doFinal(secretKey.getEncoded());
+        byte[] encryptedKey = doFinal(Cipher.ENCRYPT_MODE, getMasterKeySpec(), iv, secretKey.getEncoded());
         
         // 将IV和加密数据合并
         byte[] combined = new byte[IV_SIZE + encryptedKey.length];
@@ -239,15 +302,24 @@ public class CredentialEncryptionServiceImpl implements CredentialEncryptionServ
         System.arraycopy(combined, 0, iv, 0, IV_SIZE);
         System.arraycopy(combined, IV_SIZE, encryptedKey, 0, encryptedKey.length);
         
-        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-        SecretKeySpec masterKeySpec = new SecretKeySpec(
-                generateMasterKeyBytes(), ALGORITHM);
-        
-        GCMParameterSpec gcmSpec = new GCMParameterSpec(TAG_SIZE, iv);
-        cipher.init(Cipher.DECRYPT_MODE, masterKeySpec, gcmSpec);
-        
-        byte[] keyBytes = cipher.doFinal(encryptedKey);
-        return new SecretKeySpec(keyBytes, ALGORITHM);
+        byte[] keyBytes = doFinal(Cipher.DECRYPT_MODE, getMasterKeySpec(), iv, encryptedKey);
+        SecretKey secretKey = new SecretKeySpec(keyBytes, ALGORITHM);
+        Arrays.fill(keyBytes, (byte) 0);
+        return secretKey;
+    }
+
+    /**
+     * 主密钥只派生一次
+     */
+    private SecretKeySpec getMasterKeySpec() throws Exception {
+        SecretKeySpec spec = masterKeySpec;
+        if (spec == null) {
+            byte[] masterKeyBytes = generateMasterKeyBytes();
+            spec = new SecretKeySpec(masterKeyBytes, ALGORITHM);
+            Arrays.fill(masterKeyBytes, (byte) 0);
+            masterKeySpec = spec;
+        }
+        return spec;
     }
 
     /**
@@ -266,4 +338,36 @@ public class CredentialEncryptionServiceImpl implements CredentialEncryptionServ
         byte[] hash = digest.digest(keyBytes);
         return Base64.getEncoder().encodeToString(hash);
     }
+
+    /**
+     * 解包后的数据密钥及其状态
+     */
+    private static final class DataKey {
+
+        private final SecretKey secretKey;
+
+        private final String algorithm;
+
+        private final Integer status;
+
+        private final Timestamp expireTime;
+
+        private final long loadedAt;
+
+        private DataKey(SecretKey secretKey, String algorithm, Integer status, Timestamp expireTime, long loadedAt) {
+            this.secretKey = secretKey;
+            this.algorithm = algorithm;
+            this.status = status;
+            this.expireTime = expireTime;
+            this.loadedAt = loadedAt;
+        }
+
+        /**
+         * 与 {@link CredentialEncryptionServiceImpl#isKeyValid(Long)} 的判断一致
+         */
+        private boolean isValid() {
+            return status != null && status == 1 &&
+                    (expireTime == null || expireTime.getTime() > System.currentTimeMillis());
+        }
+    }
 }
@@ -0,0 +1,416 @@
+package com.skyeye.device.service.impl;
+
+import com.skyeye.collector.dto.CollectionContext;
+import com.skyeye.collector.engine.TaskDeviceResolver;
+import com.skyeye.collector.plugin.CollectorPlugin;
+import com.skyeye.collector.plugin.ConnectionTestResult;
+import com.skyeye.collector.registry.PluginRegistry;
+import com.skyeye.common.exception.BusinessException;
+import com.skyeye.device.config.ConnectionProbeConfig;
+import com.skyeye.device.dto.ConnectionProbeProgress;
+import com.skyeye.device.dto.ConnectionProbeRequest;
+import com.skyeye.device.dto.ConnectionProbeResult;
+import com.skyeye.device.entity.Device;
+import com.skyeye.device.repository.DeviceRepository;
+import com.skyeye.device.service.DeviceConnectionProbeService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量连接测试服务实现类
+ * <p>
+ * 每个设备一个虚拟线程调用插件的 {@link CollectorPlugin#testConnection}，同一插件同时进行的测试数
+ * 不超过插件建议的并发度（{@link CollectorPlugin#getRecommendedConcurrency()}，受 max-concurrency-per-plugin 限制）。
+ * 并发名额按插件在本服务内共享，同时进行的多个批量测试合计不超过该上限。
+ * 测试期间不写库，全部结束后按在线、离线两组用批量UPDATE回写设备状态和最后在线时间，故障、维护状态的设备不被覆盖。
+ * 测试状态只保存在本节点内存中，结束后保留 retention-minutes 供查询。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+@Service
+public class DeviceConnectionProbeServiceImpl implements DeviceConnectionProbeService {
+
+    private static final String STATUS_RUNNING = "RUNNING";
+    private static final String STATUS_COMPLETED = "COMPLETED";
+    private static final String STATUS_FAILED = "FAILED";
+
+    private final TaskDeviceResolver deviceResolver;
+    private final PluginRegistry pluginRegistry;
+    private final DeviceRepository deviceRepository;
+    private final ConnectionProbeConfig config;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 测试ID → 测试状态
+     */
+    private final Map<String, Probe> probes = new ConcurrentHashMap<>();
+
+    /**
+     * 插件类型 → 并发名额，所有批量测试共享
+     */
+    private final Map<String, Semaphore> pluginPermits = new ConcurrentHashMap<>();
+
+    public DeviceConnectionProbeServiceImpl(TaskDeviceResolver deviceResolver,
+                                            PluginRegistry pluginRegistry,
+                                            DeviceRepository deviceRepository,
+                                            ConnectionProbeConfig config,
+                                            PlatformTransactionManager transactionManager) {
+        this.deviceResolver = deviceResolver;
+        this.pluginRegistry = pluginRegistry;
+        this.deviceRepository = deviceRepository;
+        this.config = config;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public ConnectionProbeProgress startProbe(ConnectionProbeRequest request) {
+        List<Long> deviceIds = new ArrayList<>(new LinkedHashSet<>(request.getDeviceIds()));
+        deviceIds.removeIf(Objects::isNull);
+        if (deviceIds.isEmpty()) {
+            throw new BusinessException("设备ID列表不能为空");
+        }
+        if (deviceIds.size() > config.getMaxDevices()) {
+            throw new BusinessException("单次测试的设备数不能超过" + config.getMaxDevices());
+        }
+
+        Probe probe = new Probe(UUID.randomUUID().toString().replace("-", ""), deviceIds.size(),
+                !Boolean.FALSE.equals(request.getUpdateStatus()));
+        probes.put(probe.id, probe);
+        Thread.ofVirtual().name("connection-probe-" + probe.id).start(() -> run(probe, deviceIds));
+
+        log.info("开始批量连接测试: probeId={}, deviceCount={}", probe.id, deviceIds.size());
+        return probe.toProgress();
+    }
+
+    @Override
+    public ConnectionProbeProgress getProgress(String probeId) {
+        return getProbe(probeId).toProgress();
+    }
+
+    @Override
+    public List<ConnectionProbeResult> getResults(String probeId, boolean failedOnly) {
+        Probe probe = getProbe(probeId);
+        List<ConnectionProbeResult> results = new ArrayList<>(probe.results.size());
+        for (ConnectionProbeResult result : probe.results) {
+            if (!failedOnly || !result.isSuccess()) {
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public SseEmitter streamProgress(String probeId) {
+        Probe probe = getProbe(probeId);
+        SseEmitter emitter = new SseEmitter(0L);
+        emitter.onCompletion(() -> probe.emitters.remove(emitter));
+        emitter.onTimeout(() -> probe.emitters.remove(emitter));
+        emitter.onError(e -> probe.emitters.remove(emitter));
+
+        probe.emitters.add(emitter);
+        // 订阅前已经结束的测试，在此直接推送最终状态
+        if (probe.finishedAt != null && probe.emitters.remove(emitter)) {
+            complete(emitter, probe.toProgress());
+        } else {
+            send(probe, emitter, "progress", probe.toProgress());
+        }
+        return emitter;
+    }
+
+    /**
+     * 清理超过保留时间的测试
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void purgeFinishedProbes() {
+        LocalDateTime deadline = LocalDateTime.now().minusMinutes(config.getRetentionMinutes());
+        probes.values().removeIf(probe -> probe.finishedAt != null && probe.finishedAt.isBefore(deadline));
+    }
+
+    private Probe getProbe(String probeId) {
+        Probe probe = probes.get(probeId);
+        if (probe == null) {
+            throw new BusinessException("连接测试不存在或已过期");
+        }
+        return probe;
+    }
+
+    /**
+     * 执行测试：加载设备，按插件限制并发逐个测试，定期推送进度，最后批量回写状态
+     */
+    private void run(Probe probe, List<Long> deviceIds) {
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("connection-probe-" + probe.id + "-", 0).factory());
+        try {
+            Map<Long, Device> devices = deviceResolver.loadDevices(deviceIds);
+
+            for (Long deviceId : deviceIds) {
+                Device device = devices.get(deviceId);
+                if (device == null) {
+                    probe.record(skipped(deviceId, null, "设备不存在或已删除"));
+                    continue;
+                }
+                CollectorPlugin plugin = selectPlugin(device);
+                if (plugin == null) {
+                    probe.record(skipped(deviceId, device.getName(), "没有支持该设备的采集插件"));
+                    continue;
+                }
+
+                Semaphore semaphore = pluginPermits.computeIfAbsent(plugin.getPluginType(),
+                        type -> new Semaphore(concurrency(plugin)));
+                probe.concurrency.computeIfAbsent(plugin.getPluginType(), type -> concurrency(plugin));
+                executor.execute(() -> probeDevice(probe, device, plugin, semaphore));
+            }
+
+            executor.shutdown();
+            long intervalMs = Math.max(100, config.getProgressIntervalMs());
+            while (!executor.awaitTermination(intervalMs, TimeUnit.MILLISECONDS)) {
+                broadcast(probe);
+            }
+
+            if (probe.updateStatus) {
+                probe.updated.set(updateDeviceStatus(probe));
+            }
+            probe.finish(STATUS_COMPLETED, null);
+            log.info("批量连接测试完成: probeId={}, total={}, success={}, failure={}, skipped={}, elapsedMs={}",
+                    probe.id, probe.total, probe.succeeded.get(), probe.failed.get(), probe.skipped.get(),
+                    probe.elapsedMs());
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            probe.finish(STATUS_FAILED, "测试被中断");
+        } catch (Exception e) {
+            log.error("批量连接测试失败: probeId={}", probe.id, e);
+            probe.finish(STATUS_FAILED, e.getMessage());
+        } finally {
+            executor.shutdownNow();
+            ConnectionProbeProgress progress = probe.toProgress();
+            for (SseEmitter emitter : probe.emitters) {
+                complete(emitter, progress);
+            }
+            probe.emitters.clear();
+        }
+    }
+
+    private void probeDevice(Probe probe, Device device, CollectorPlugin plugin, Semaphore semaphore) {
+        ConnectionProbeResult result = new ConnectionProbeResult();
+        result.setDeviceId(device.getId());
+        result.setDeviceName(device.getName());
+        result.setPluginType(plugin.getPluginType());
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        try {
+            ConnectionTestResult testResult = plugin.testConnection(device, CollectionContext.createForTest());
+            result.setSuccess(testResult.isSuccess());
+            result.setErrorCode(testResult.getErrorCode());
+            result.setMessage(testResult.getMessage());
+            result.setResponseTime(testResult.getResponseTime() > 0 ?
+                    testResult.getResponseTime() : System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            result.setSuccess(false);
+            result.setErrorCode("CONNECTION_TEST_ERROR");
+            result.setMessage("连接测试异常: " + e.getMessage());
+            result.setResponseTime(System.currentTimeMillis() - startTime);
+        } finally {
+            semaphore.release();
+        }
+        probe.record(result);
+    }
+
+    /**
+     * 插件的并发上限：插件建议的并发度，不超过 max-concurrency-per-plugin
+     */
+    private int concurrency(CollectorPlugin plugin) {
+        return Math.max(1, Math.min(plugin.getRecommendedConcurrency(), config.getMaxConcurrencyPerPlugin()));
+    }
+
+    /**
+     * 优先按设备协议选择插件，其次按设备类型，与采集引擎的自动选择一致
+     */
+    private CollectorPlugin selectPlugin(Device device) {
+        if (device.getProtocol() != null) {
+            List<CollectorPlugin> plugins = pluginRegistry.getPluginsForProtocol(device.getProtocol());
+            if (!plugins.isEmpty()) {
+                return plugins.get(0);
+            }
+        }
+        return pluginRegistry.getAllPlugins().stream()
+                .filter(plugin -> plugin.supports(device.getDeviceType()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * 按在线、离线分组，每组按 update-batch-size 分批执行UPDATE
+     *
+     * @return 更新的设备数
+     */
+    private int updateDeviceStatus(Probe probe) {
+        List<Long> online = new ArrayList<>();
+        List<Long> offline = new ArrayList<>();
+        for (ConnectionProbeResult result : probe.results) {
+            if (!result.isSkipped()) {
+                (result.isSuccess() ? online : offline).add(result.getDeviceId());
+            }
+        }
+        if (online.isEmpty() && offline.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int batchSize = Math.max(1, config.getUpdateBatchSize());
+        Integer updated = transactionTemplate.execute(status -> {
+            int count = 0;
+            for (int from = 0; from < online.size(); from += batchSize) {
+                count += deviceRepository.markOnline(online.subList(from, Math.min(from + batchSize, online.size())), now);
+            }
+            for (int from = 0; from < offline.size(); from += batchSize) {
+                count += deviceRepository.markOffline(offline.subList(from, Math.min(from + batchSize, offline.size())), now);
+            }
+            return count;
+        });
+        // 只改状态和时间，采集侧的设备快照不依赖这些字段，不需要使快照失效
+        return updated != null ? updated : 0;
+    }
+
+    private static ConnectionProbeResult skipped(Long deviceId, String deviceName, String message) {
+        ConnectionProbeResult result = new ConnectionProbeResult();
+        result.setDeviceId(deviceId);
+        result.setDeviceName(deviceName);
+        result.setSkipped(true);
+        result.setErrorCode("SKIPPED");
+        result.setMessage(message);
+        return result;
+    }
+
+    private void broadcast(Probe probe) {
+        if (probe.emitters.isEmpty()) {
+            return;
+        }
+        ConnectionProbeProgress progress = probe.toProgress();
+        for (SseEmitter emitter : probe.emitters) {
+            send(probe, emitter, "progress", progress);
+        }
+    }
+
+    private void send(Probe probe, SseEmitter emitter, String event, ConnectionProbeProgress progress) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(progress));
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开
+            probe.emitters.remove(emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void complete(SseEmitter emitter, ConnectionProbeProgress progress) {
+        try {
+            emitter.send(SseEmitter.event().name("complete").data(progress));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * 单次批量测试的状态
+     */
+    private static final class Probe {
+
+        private final String id;
+
+        private final int total;
+
+        private final boolean updateStatus;
+
+        private final LocalDateTime startedAt = LocalDateTime.now();
+
+        private final long startNanos = System.nanoTime();
+
+        private final AtomicInteger succeeded = new AtomicInteger(0);
+
+        private final AtomicInteger failed = new AtomicInteger(0);
+
+        private final AtomicInteger skipped = new AtomicInteger(0);
+
+        private final AtomicInteger updated = new AtomicInteger(0);
+
+        private final Queue<ConnectionProbeResult> results = new ConcurrentLinkedQueue<>();
+
+        private final Map<String, Integer> concurrency = new ConcurrentHashMap<>();
+
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+        private volatile String status = STATUS_RUNNING;
+
+        private volatile String errorMessage;
+
+        private volatile LocalDateTime finishedAt;
+
+        private volatile long elapsedNanos;
+
+        private Probe(String id, int total, boolean updateStatus) {
+            this.id = id;
+            this.total = total;
+            this.updateStatus = updateStatus;
+        }
+
+        private void record(ConnectionProbeResult result) {
+            results.add(result);
+            if (result.isSkipped()) {
+                skipped.incrementAndGet();
+            } else if (result.isSuccess()) {
+                succeeded.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+            }
+        }
+
+        private void finish(String finalStatus, String error) {
+            elapsedNanos = System.nanoTime() - startNanos;
+            errorMessage = error;
+            status = finalStatus;
+            finishedAt = LocalDateTime.now();
+        }
+
+        private long elapsedMs() {
+            long nanos = finishedAt != null ? elapsedNanos : System.nanoTime() - startNanos;
+            return Duration.ofNanos(nanos).toMillis();
+        }
+
+        private ConnectionProbeProgress toProgress() {
+            ConnectionProbeProgress progress = new ConnectionProbeProgress();
+            progress.setProbeId(id);
+            progress.setStatus(status);
+            progress.setTotalCount(total);
+            progress.setSuccessCount(succeeded.get());
+            progress.setFailureCount(failed.get());
+            progress.setSkippedCount(skipped.get());
+            progress.setCompletedCount(progress.getSuccessCount() + progress.getFailureCount() + progress.getSkippedCount());
+            progress.setConcurrency(new TreeMap<>(concurrency));
+            progress.setUpdatedCount(updated.get());
+            progress.setStartedAt(startedAt);
+            progress.setFinishedAt(finishedAt);
+            progress.setElapsedMs(elapsedMs());
+            progress.setErrorMessage(errorMessage);
+            return progress;
+        }
+    }
+}
@@ -2,16 +2,19 @@ package com.skyeye.device.service.impl;
 
 import com.skyeye.common.exception.BusinessException;
 import com.skyeye.common.util.JsonUtils;
+import com.skyeye.device.cache.DecryptedCredentialCache;
 import com.skyeye.device.dto.CredentialRequest;
 import com.skyeye.device.dto.DeviceCredentialDto;
 import com.skyeye.device.dto.EncryptedCredential;
 import com.skyeye.device.entity.Device;
 import com.skyeye.device.entity.DeviceCredential;
 import com.skyeye.device.entity.EncryptionKey;
+import com.skyeye.device.entity.KeyRotationJob;
 import com.skyeye.device.repository.DeviceCredentialRepository;
 import com.skyeye.device.repository.DeviceRepository;
 import com.skyeye.device.service.CredentialEncryptionService;
 import com.skyeye.device.service.DeviceCredentialService;
+import com.skyeye.device.service.KeyRotationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -36,6 +39,8 @@ public class DeviceCredentialServiceImpl implements DeviceCredentialService {
     private final DeviceCredentialRepository credentialRepository;
     private final DeviceRepository deviceRepository;
     private final CredentialEncryptionService encryptionService;
+    private final DecryptedCredentialCache credentialCache;
+    private final KeyRotationService keyRotationService;
 
     @Override
     @Transactional
@@ -75,6 +80,7 @@ public class DeviceCredentialServiceImpl implements DeviceCredentialService {
         credential.setRemark(request.getRemark());
 
         DeviceCredential savedCredential = credentialRepository.save(credential);
+        credentialCache.invalidateDevice(deviceId);
 
         log.info("保存设备凭据成功: deviceId={}, credentialName={}", deviceId, request.getCredentialName());
         return savedCredential;
@@ -116,6 +122,7 @@ public class DeviceCredentialServiceImpl implements DeviceCredentialService {
         credential.setRemark(request.getRemark());
 
         DeviceCredential updatedCredential = credentialRepository.save(credential);
+        credentialCache.invalidateDevice(credential.getDeviceId());
 
         log.info("更新设备凭据成功: credentialId={}, credentialName={}", 
                 credentialId, request.getCredentialName());
@@ -129,6 +136,7 @@ public class DeviceCredentialServiceImpl implements DeviceCredentialService {
                 .orElseThrow(() -> new BusinessException("凭据不存在"));
 
         credentialRepository.delete(credential);
+        credentialCache.invalidateDevice(credential.getDeviceId());
 
         log.info("删除设备凭据成功: credentialId={}, deviceId={}", 
                 credentialId, credential.getDeviceId());
@@ -183,19 +191,18 @@ public class DeviceCredentialServiceImpl implements DeviceCredentialService {
 
     @Override
     public Map<String, Object> getDefaultCredential(Long deviceId) {
-        DeviceCredential credential = credentialRepository.findByDeviceIdAndIsDefault(deviceId, true)
-                .orElseThrow(() -> new BusinessException("设备未配置默认凭据"));
-
-        return getCredentialData(credential.getId());
+        return credentialCache.get(deviceId, null,
+                () -> credentialRepository.findByDeviceIdAndIsDefault(deviceId, true)
+                        .orElseThrow(() -> new BusinessException("设备未配置默认凭据")),
+                this::decryptCredential);
     }
 
     @Override
     public Map<String, Object> getDefaultCredential(Long deviceId, String protocol) {
-        DeviceCredential credential = credentialRepository
-                .findByDeviceIdAndProtocolTypeAndIsDefault(deviceId, protocol, true)
-                .orElseThrow(() -> new BusinessException("设备未配置该协议的默认凭据"));
-
-        return getCredentialData(credential.getId());
+        return credentialCache.get(deviceId, protocol,
+                () -> credentialRepository.findByDeviceIdAndProtocolTypeAndIsDefault(deviceId, protocol, true)
+                        .orElseThrow(() -> new BusinessException("设备未配置该协议的默认凭据")),
+                this::decryptCredential);
     }
 
     @Override
@@ -203,13 +210,7 @@ public class DeviceCredentialServiceImpl implements DeviceCredentialService {
         DeviceCredential credential = credentialRepository.findById(credentialId)
                 .orElseThrow(() -> new BusinessException("凭据不存在"));
 
-        EncryptedCredential encryptedCredential = EncryptedCredential.builder()
-                .encryptedData(credential.getEncryptedData())
-                .iv(credential.getEncryptionIv())
-                .keyId(credential.getEncryptionKeyId())
-                .build();
-
-        return encryptionService.decrypt(encryptedCredential);
+        return decryptCredential(credential);
     }
 
     @Override
@@ -224,6 +225,7 @@ public class DeviceCredentialServiceImpl implements DeviceCredentialService {
         // 设置为默认凭据
         credential.setIsDefault(true);
         credentialRepository.save(credential);
+        credentialCache.invalidateDevice(credential.getDeviceId());
 
         log.info("设置默认凭据成功: credentialId={}, deviceId={}", 
                 credentialId, credential.getDeviceId());
@@ -237,6 +239,7 @@ public class DeviceCredentialServiceImpl implements DeviceCredentialService {
 
         credential.setStatus(enabled ? 1 : 0);
         credentialRepository.save(credential);
+        credentialCache.invalidateDevice(credential.getDeviceId());
 
         log.info("设置凭据状态成功: credentialId={}, enabled={}", credentialId, enabled);
     }
@@ -258,41 +261,10 @@ public class DeviceCredentialServiceImpl implements DeviceCredentialService {
     }
 
     @Override
-    @Transactional
     public int rotateEncryptionKey(Long oldKeyId, Long newKeyId) {
-        List<DeviceCredential> credentials = credentialRepository.findCredentialsNeedKeyRotation(oldKeyId);
-        int rotatedCount = 0;
-
-        for (DeviceCredential credential : credentials) {
-            try {
-                // 解密原数据
-                EncryptedCredential oldEncrypted = EncryptedCredential.builder()
-                        .encryptedData(credential.getEncryptedData())
-                        .iv(credential.getEncryptionIv())
-                        .keyId(oldKeyId)
-                        .build();
-
-                Map<String, Object> plainData = encryptionService.decrypt(oldEncrypted);
-
-                // 使用新密钥重新加密
-                EncryptedCredential newEncrypted = encryptionService.encrypt(plainData, newKeyId);
-
-                // 更新凭据
-                credential.setEncryptedData(newEncrypted.getEncryptedData());
-                credential.setEncryptionIv(newEncrypted.getIv());
-                credential.setEncryptionKeyId(newKeyId);
-
-                credentialRepository.save(credential);
-                rotatedCount++;
-
-            } catch (Exception e) {
-                log.error("轮换凭据密钥失败: credentialId={}", credential.getId(), e);
-            }
-        }
-
-        log.info("密钥轮换完成: oldKeyId={}, newKeyId={}, rotatedCount={}", 
-                oldKeyId, newKeyId, rotatedCount);
-        return rotatedCount;
+        // 分块并行重新加密，每块单独提交并记录检查点
+        KeyRotationJob job = keyRotationService.runRotation(oldKeyId, newKeyId);
+        return job.getProcessedCount().intValue();
     }
 
     @Override
@@ -367,6 +339,19 @@ public class DeviceCredentialServiceImpl implements DeviceCredentialService {
         }
     }
 
+    /**
+     * 解密凭据数据
+     */
+    private Map<String, Object> decryptCredential(DeviceCredential credential) {
+        EncryptedCredential encryptedCredential = EncryptedCredential.builder()
+                .encryptedData(credential.getEncryptedData())
+                .iv(credential.getEncryptionIv())
+                .keyId(credential.getEncryptionKeyId())
+                .build();
+
+        return encryptionService.decrypt(encryptedCredential);
+    }
+
     /**
      * 转换为DTO对象
      */
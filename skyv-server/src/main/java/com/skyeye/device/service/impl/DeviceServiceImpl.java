@@ -1,5 +1,7 @@
 package com.skyeye.device.service.impl;
 
+import com.skyeye.collector.latest.LatestValueStore;
+import com.skyeye.collector.rate.CounterRateCalculator;
 import com.skyeye.device.dto.DeviceDto;
 import com.skyeye.device.dto.DeviceQueryRequest;
 import com.skyeye.device.entity.Device;
@@ -45,6 +47,8 @@ public class DeviceServiceImpl implements DeviceService {
     private final DeviceTypeRepository deviceTypeRepository;
     private final DeviceAreaRepository deviceAreaRepository;
     private final DeviceGroupRepository deviceGroupRepository;
+    private final LatestValueStore latestValueStore;
+    private final CounterRateCalculator counterRateCalculator;
 
     @Override
     public Page<DeviceDto> getDeviceList(DeviceQueryRequest request) {
@@ -197,6 +201,8 @@ public class DeviceServiceImpl implements DeviceService {
         
         // 更新设备类型统计
         updateDeviceTypeCount(device.getDeviceTypeId());
+        latestValueStore.removeDevice(id);
+        counterRateCalculator.removeDevice(id);
 
         log.info("Device deleted successfully with id: {}", id);
     }
@@ -214,6 +220,8 @@ public class DeviceServiceImpl implements DeviceService {
         LocalDateTime now = LocalDateTime.now();
         devices.forEach(device -> device.setDeletedAt(now));
         deviceRepository.saveAll(devices);
+        ids.forEach(latestValueStore::removeDevice);
+        ids.forEach(counterRateCalculator::removeDevice);
         
         // 更新相关设备类型的统计
         Set<Long> deviceTypeIds = devices.stream()
@@ -0,0 +1,314 @@
+package com.skyeye.device.service.impl;
+
+import com.skyeye.common.exception.BusinessException;
+import com.skyeye.device.cache.DecryptedCredentialCache;
+import com.skyeye.device.config.KeyRotationConfig;
+import com.skyeye.device.dto.EncryptedCredential;
+import com.skyeye.device.entity.DeviceCredential;
+import com.skyeye.device.entity.KeyRotationJob;
+import com.skyeye.device.repository.CredentialRotationBatchRepository;
+import com.skyeye.device.repository.KeyRotationJobRepository;
+import com.skyeye.device.service.CredentialEncryptionService;
+import com.skyeye.device.service.KeyRotationService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 凭据密钥轮换服务实现类
+ * <p>
+ * 按凭据ID键集分页逐块处理：每块在有界线程池中并行解密、用新密钥重新加密，
+ * 然后在一个事务中批量写回并推进任务的检查点。进程重启中断的任务从检查点继续，
+ * 已提交的块不会重复处理；写回以凭据仍使用旧密钥为条件，即使多个节点同时继续同一任务也不会覆盖新数据。
+ * 单条凭据解密或加密失败时计入失败数并保留旧密钥，不影响其余凭据；存在失败的任务结束时标记为FAILED，
+ * 手动继续时从头扫描，只有仍使用旧密钥的凭据会被重新处理。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+@Service
+public class KeyRotationServiceImpl implements KeyRotationService {
+
+    private final KeyRotationJobRepository jobRepository;
+    private final CredentialRotationBatchRepository batchRepository;
+    private final CredentialEncryptionService encryptionService;
+    private final DecryptedCredentialCache credentialCache;
+    private final KeyRotationConfig config;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 本节点正在执行的任务ID
+     */
+    private final Map<Long, Boolean> activeJobs = new ConcurrentHashMap<>();
+
+    private ExecutorService jobExecutor;
+    private ExecutorService cryptoExecutor;
+
+    public KeyRotationServiceImpl(KeyRotationJobRepository jobRepository,
+                                  CredentialRotationBatchRepository batchRepository,
+                                  CredentialEncryptionService encryptionService,
+                                  DecryptedCredentialCache credentialCache,
+                                  KeyRotationConfig config,
+                                  PlatformTransactionManager transactionManager) {
+        this.jobRepository = jobRepository;
+        this.batchRepository = batchRepository;
+        this.encryptionService = encryptionService;
+        this.credentialCache = credentialCache;
+        this.config = config;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void start() {
+        int parallelism = config.getParallelism() > 0 ?
+                config.getParallelism() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger workerIndex = new AtomicInteger(0);
+        cryptoExecutor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "key-rotation-worker-" + workerIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger jobIndex = new AtomicInteger(0);
+        jobExecutor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "key-rotation-job-" + jobIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        // 中断的任务保持RUNNING状态，下次启动时从检查点继续
+        jobExecutor.shutdownNow();
+        cryptoExecutor.shutdownNow();
+    }
+
+    /**
+     * 启动完成后继续上次中断的任务
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        if (!config.isResumeOnStartup()) {
+            return;
+        }
+        for (KeyRotationJob job : jobRepository.findByStatus(KeyRotationJob.STATUS_RUNNING)) {
+            log.info("继续中断的密钥轮换任务: jobId={}, oldKeyId={}, checkpoint={}",
+                    job.getId(), job.getOldKeyId(), job.getLastCredentialId());
+            submit(job);
+        }
+    }
+
+    @Override
+    public KeyRotationJob startRotation(Long oldKeyId, Long newKeyId) {
+        KeyRotationJob job = createJob(oldKeyId, newKeyId);
+        submit(job);
+        return job;
+    }
+
+    @Override
+    public KeyRotationJob runRotation(Long oldKeyId, Long newKeyId) {
+        KeyRotationJob job = createJob(oldKeyId, newKeyId);
+        activeJobs.put(job.getId(), Boolean.TRUE);
+        try {
+            return execute(job);
+        } finally {
+            activeJobs.remove(job.getId());
+        }
+    }
+
+    @Override
+    public KeyRotationJob resumeRotation(Long jobId) {
+        KeyRotationJob job = getJob(jobId);
+        if (KeyRotationJob.STATUS_COMPLETED.equals(job.getStatus())) {
+            throw new BusinessException("轮换任务已完成");
+        }
+        if (activeJobs.containsKey(jobId)) {
+            throw new BusinessException("轮换任务正在执行");
+        }
+
+        // 检查点之前失败的凭据仍使用旧密钥，从头扫描重试；查询只返回旧密钥的凭据，已轮换的不会重复处理
+        job.setStatus(KeyRotationJob.STATUS_RUNNING);
+        job.setLastCredentialId(0L);
+        job.setFailedCount(0L);
+        job.setErrorMessage(null);
+        job.setFinishedAt(null);
+        job = jobRepository.save(job);
+        submit(job);
+        return job;
+    }
+
+    @Override
+    public KeyRotationJob getJob(Long jobId) {
+        return jobRepository.findById(jobId)
+                .orElseThrow(() -> new BusinessException("轮换任务不存在"));
+    }
+
+    @Override
+    public KeyRotationJob getLatestJob(Long oldKeyId) {
+        return jobRepository.findTopByOldKeyIdOrderByIdDesc(oldKeyId)
+                .orElseThrow(() -> new BusinessException("该密钥没有轮换任务"));
+    }
+
+    private KeyRotationJob createJob(Long oldKeyId, Long newKeyId) {
+        if (jobRepository.existsByOldKeyIdAndStatus(oldKeyId, KeyRotationJob.STATUS_RUNNING)) {
+            throw new BusinessException("该密钥的轮换任务正在执行");
+        }
+
+        KeyRotationJob job = new KeyRotationJob();
+        job.setOldKeyId(oldKeyId);
+        job.setNewKeyId(newKeyId);
+        job.setStatus(KeyRotationJob.STATUS_RUNNING);
+        job.setTotalCount(batchRepository.countPending(oldKeyId, 0));
+        job.setStartedAt(new Timestamp(System.currentTimeMillis()));
+        return jobRepository.save(job);
+    }
+
+    private void submit(KeyRotationJob job) {
+        if (activeJobs.putIfAbsent(job.getId(), Boolean.TRUE) != null) {
+            return;
+        }
+        try {
+            jobExecutor.execute(() -> {
+                try {
+                    execute(job);
+                } finally {
+                    activeJobs.remove(job.getId());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            activeJobs.remove(job.getId());
+            throw new BusinessException("轮换任务提交失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 从检查点开始逐块执行，直到没有待轮换的凭据；线程被中断时保持RUNNING状态返回
+     */
+    private KeyRotationJob execute(KeyRotationJob job) {
+        long startNanos = System.nanoTime();
+        int chunkSize = Math.max(1, config.getChunkSize());
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<DeviceCredential> chunk = batchRepository.findPending(
+                        job.getOldKeyId(), job.getLastCredentialId(), chunkSize);
+                if (chunk.isEmpty()) {
+                    return finish(job, startNanos);
+                }
+                job = processChunk(job, chunk);
+            }
+            log.info("密钥轮换任务中断，等待继续: jobId={}, checkpoint={}", job.getId(), job.getLastCredentialId());
+            return job;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("密钥轮换任务中断，等待继续: jobId={}, checkpoint={}", job.getId(), job.getLastCredentialId());
+            return job;
+        } catch (Exception e) {
+            log.error("密钥轮换任务失败: jobId={}, checkpoint={}", job.getId(), job.getLastCredentialId(), e);
+            job.setStatus(KeyRotationJob.STATUS_FAILED);
+            job.setErrorMessage(truncate(e.getMessage()));
+            job.setFinishedAt(new Timestamp(System.currentTimeMillis()));
+            return jobRepository.save(job);
+        }
+    }
+
+    /**
+     * 扫描结束：全部成功时完成，有失败的凭据时标记为FAILED，等待手动继续重试
+     */
+    private KeyRotationJob finish(KeyRotationJob job, long startNanos) {
+        boolean failed = job.getFailedCount() != null && job.getFailedCount() > 0;
+        job.setStatus(failed ? KeyRotationJob.STATUS_FAILED : KeyRotationJob.STATUS_COMPLETED);
+        job.setErrorMessage(failed ? job.getFailedCount() + "条凭据轮换失败，仍使用旧密钥，可继续任务重试" : null);
+        job.setFinishedAt(new Timestamp(System.currentTimeMillis()));
+        job = jobRepository.save(job);
+        // 已轮换的凭据密钥ID已变化，无论是否全部成功都清除旧密钥下的缓存
+        credentialCache.invalidateKey(job.getOldKeyId());
+
+        long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+        if (failed) {
+            log.warn("密钥轮换结束，部分凭据失败: jobId={}, oldKeyId={}, newKeyId={}, processed={}, failed={}, skipped={}, elapsedMs={}",
+                    job.getId(), job.getOldKeyId(), job.getNewKeyId(), job.getProcessedCount(),
+                    job.getFailedCount(), job.getSkippedCount(), elapsedMs);
+        } else {
+            log.info("密钥轮换完成: jobId={}, oldKeyId={}, newKeyId={}, processed={}, failed={}, skipped={}, elapsedMs={}",
+                    job.getId(), job.getOldKeyId(), job.getNewKeyId(), job.getProcessedCount(),
+                    job.getFailedCount(), job.getSkippedCount(), elapsedMs);
+        }
+        return job;
+    }
+
+    /**
+     * 并行重新加密一块凭据，在一个事务中写回并推进检查点
+     */
+    private KeyRotationJob processChunk(KeyRotationJob job, List<DeviceCredential> chunk) throws InterruptedException {
+        Long oldKeyId = job.getOldKeyId();
+        Long newKeyId = job.getNewKeyId();
+
+        List<Future<DeviceCredential>> futures = new ArrayList<>(chunk.size());
+        for (DeviceCredential credential : chunk) {
+            futures.add(cryptoExecutor.submit(() -> reencrypt(credential, newKeyId)));
+        }
+
+        List<DeviceCredential> reencrypted = new ArrayList<>(chunk.size());
+        int failed = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                reencrypted.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                failed++;
+                log.error("轮换凭据密钥失败: credentialId={}", chunk.get(i).getId(), e.getCause());
+            } catch (InterruptedException e) {
+                futures.forEach(future -> future.cancel(true));
+                throw e;
+            }
+        }
+
+        long checkpoint = chunk.get(chunk.size() - 1).getId();
+        long failedCount = failed;
+        KeyRotationJob current = job;
+        return transactionTemplate.execute(status -> {
+            int updated = batchRepository.batchUpdate(reencrypted, oldKeyId);
+            current.setProcessedCount(current.getProcessedCount() + updated);
+            current.setSkippedCount(current.getSkippedCount() + reencrypted.size() - updated);
+            current.setFailedCount(current.getFailedCount() + failedCount);
+            current.setLastCredentialId(checkpoint);
+            return jobRepository.save(current);
+        });
+    }
+
+    private DeviceCredential reencrypt(DeviceCredential credential, Long newKeyId) {
+        Map<String, Object> plainData = encryptionService.decrypt(EncryptedCredential.builder()
+                .encryptedData(credential.getEncryptedData())
+                .iv(credential.getEncryptionIv())
+                .keyId(credential.getEncryptionKeyId())
+                .build());
+        EncryptedCredential encrypted = encryptionService.encrypt(plainData, newKeyId);
+
+        DeviceCredential result = new DeviceCredential();
+        result.setId(credential.getId());
+        result.setDeviceId(credential.getDeviceId());
+        result.setEncryptedData(encrypted.getEncryptedData());
+        result.setEncryptionIv(encrypted.getIv());
+        result.setEncryptionKeyId(newKeyId);
+        return result;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
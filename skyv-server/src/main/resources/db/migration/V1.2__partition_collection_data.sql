@@ -0,0 +1,67 @@
+-- ========================================
+-- SkyEye 智能监控系统 - 采集数据表按时间范围分区
+-- 版本: V1.2
+-- 描述: 将 tb_collection_data 转换为按 collected_at 范围分区的表。
+--       原表改名为 tb_collection_data_legacy 并作为历史分区挂载（覆盖转换前的全部数据），
+--       之后的分区由应用内的分区管理器按配置粒度预建，过期分区整体删除，不再按行删除。
+-- ========================================
+
+DO $$
+DECLARE
+    legacy_upper TIMESTAMP;
+    next_id BIGINT;
+    idx RECORD;
+    pk_name TEXT;
+BEGIN
+    -- 已经是分区表时跳过
+    IF EXISTS (SELECT 1 FROM pg_class
+               WHERE relname = 'tb_collection_data' AND relkind = 'p'
+                 AND relnamespace = current_schema()::regnamespace) THEN
+        RETURN;
+    END IF;
+
+    ALTER TABLE tb_collection_data RENAME TO tb_collection_data_legacy;
+
+    -- 原表索引改名，避免与分区表索引重名
+    FOR idx IN
+        SELECT indexname FROM pg_indexes
+        WHERE tablename = 'tb_collection_data_legacy' AND schemaname = current_schema()
+    LOOP
+        EXECUTE format('ALTER INDEX %I RENAME TO %I', idx.indexname, idx.indexname || '_legacy');
+    END LOOP;
+
+    -- 分区表的主键必须包含分区键
+    SELECT conname INTO pk_name FROM pg_constraint
+    WHERE conrelid = 'tb_collection_data_legacy'::regclass AND contype = 'p';
+    IF pk_name IS NOT NULL THEN
+        EXECUTE format('ALTER TABLE tb_collection_data_legacy DROP CONSTRAINT %I', pk_name);
+    END IF;
+
+    -- id改由分区表的独立序列生成，原表的自增属性（serial或identity）去掉
+    SELECT COALESCE(MAX(id), 0) + 1 INTO next_id FROM tb_collection_data_legacy;
+    ALTER TABLE tb_collection_data_legacy ALTER COLUMN id DROP IDENTITY IF EXISTS;
+    ALTER TABLE tb_collection_data_legacy ALTER COLUMN id DROP DEFAULT;
+
+    -- 列定义与原表完全一致，保证原表可以作为分区挂载
+    CREATE TABLE tb_collection_data (LIKE tb_collection_data_legacy INCLUDING DEFAULTS INCLUDING COMMENTS)
+        PARTITION BY RANGE (collected_at);
+
+    CREATE SEQUENCE tb_collection_data_part_id_seq OWNED BY tb_collection_data.id;
+    PERFORM setval('tb_collection_data_part_id_seq', next_id, false);
+    ALTER TABLE tb_collection_data ALTER COLUMN id SET DEFAULT nextval('tb_collection_data_part_id_seq');
+
+    ALTER TABLE tb_collection_data ADD PRIMARY KEY (id, collected_at);
+    CREATE INDEX idx_collection_data_device_metric ON tb_collection_data (device_id, metric_name, collected_at DESC);
+    CREATE INDEX idx_collection_data_collected_at ON tb_collection_data (collected_at DESC);
+    CREATE INDEX idx_collection_data_task_id ON tb_collection_data (task_id, collected_at DESC);
+
+    -- 历史分区覆盖到转换当天结束，之后的分区由分区管理器创建
+    SELECT date_trunc('day', GREATEST(COALESCE(MAX(collected_at), now()), now())) + INTERVAL '1 day'
+    INTO legacy_upper FROM tb_collection_data_legacy;
+
+    EXECUTE format('ALTER TABLE tb_collection_data ATTACH PARTITION tb_collection_data_legacy '
+                   'FOR VALUES FROM (MINVALUE) TO (%L)', legacy_upper);
+END
+$$;
+
+COMMENT ON TABLE tb_collection_data IS '采集数据表（按collected_at范围分区）';
@@ -0,0 +1,85 @@
+-- ========================================
+-- SkyEye 智能监控系统 - 采集数据按保留等级分区
+-- 版本: V1.3
+-- 描述: tb_collection_data 改为先按 retention_class 列表分区（SHORT/MEDIUM/LONG），
+--       每个等级再按 collected_at 范围分区，各等级的分区由应用内的分区管理器按各自的粒度和保留天数维护。
+--       V1.2 生成的范围分区全部挂入 LONG 等级，转换前的数据不会早于原先的最长保留期被删除。
+--       依赖 V1.2。
+-- ========================================
+
+DO $$
+DECLARE
+    strategy "char";
+    child RECORD;
+    pk_name TEXT;
+    children TEXT[] := ARRAY[]::TEXT[];
+    bounds TEXT[] := ARRAY[]::TEXT[];
+    i INTEGER;
+BEGIN
+    SELECT pt.partstrat INTO strategy
+    FROM pg_partitioned_table pt
+    JOIN pg_class c ON c.oid = pt.partrelid
+    WHERE c.relname = 'tb_collection_data' AND c.relnamespace = current_schema()::regnamespace;
+
+    -- 已经按保留等级分区时跳过
+    IF strategy = 'l' THEN
+        RETURN;
+    END IF;
+    IF strategy IS DISTINCT FROM 'r' THEN
+        RAISE EXCEPTION 'tb_collection_data 尚未按范围分区，请先执行 V1.2';
+    END IF;
+
+    -- 转换前的数据归入长期等级
+    ALTER TABLE tb_collection_data ADD COLUMN IF NOT EXISTS retention_class VARCHAR(10) NOT NULL DEFAULT 'LONG';
+
+    -- 序列先脱离旧父表，避免删除旧父表时被一并删除
+    ALTER SEQUENCE tb_collection_data_part_id_seq OWNED BY NONE;
+
+    ALTER TABLE tb_collection_data RENAME TO tb_collection_data_range;
+
+    CREATE TABLE tb_collection_data (LIKE tb_collection_data_range INCLUDING DEFAULTS INCLUDING COMMENTS)
+        PARTITION BY LIST (retention_class);
+    ALTER TABLE tb_collection_data ALTER COLUMN retention_class SET DEFAULT 'MEDIUM';
+    ALTER SEQUENCE tb_collection_data_part_id_seq OWNED BY tb_collection_data.id;
+
+    -- 摘下旧父表的全部范围分区，去掉旧主键（新主键需包含两级分区键）
+    FOR child IN
+        SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) AS bound
+        FROM pg_inherits inh
+        JOIN pg_class c ON c.oid = inh.inhrelid
+        WHERE inh.inhparent = 'tb_collection_data_range'::regclass
+    LOOP
+        children := children || child.relname::TEXT;
+        bounds := bounds || child.bound;
+        EXECUTE format('ALTER TABLE tb_collection_data_range DETACH PARTITION %I', child.relname);
+
+        SELECT conname INTO pk_name FROM pg_constraint
+        WHERE conrelid = child.relname::regclass AND contype = 'p';
+        IF pk_name IS NOT NULL THEN
+            EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', child.relname, pk_name);
+        END IF;
+    END LOOP;
+
+    DROP TABLE tb_collection_data_range;
+
+    ALTER TABLE tb_collection_data ADD PRIMARY KEY (id, retention_class, collected_at);
+    CREATE INDEX idx_collection_data_device_metric ON tb_collection_data (device_id, metric_name, collected_at DESC);
+    CREATE INDEX idx_collection_data_collected_at ON tb_collection_data (collected_at DESC);
+    CREATE INDEX idx_collection_data_task_id ON tb_collection_data (task_id, collected_at DESC);
+
+    CREATE TABLE tb_collection_data_short PARTITION OF tb_collection_data
+        FOR VALUES IN ('SHORT') PARTITION BY RANGE (collected_at);
+    CREATE TABLE tb_collection_data_medium PARTITION OF tb_collection_data
+        FOR VALUES IN ('MEDIUM') PARTITION BY RANGE (collected_at);
+    CREATE TABLE tb_collection_data_long PARTITION OF tb_collection_data
+        FOR VALUES IN ('LONG') PARTITION BY RANGE (collected_at);
+
+    -- 原有范围分区挂入长期等级，范围不变
+    FOR i IN 1 .. COALESCE(array_length(children, 1), 0) LOOP
+        EXECUTE format('ALTER TABLE tb_collection_data_long ATTACH PARTITION %I %s', children[i], bounds[i]);
+    END LOOP;
+END
+$$;
+
+COMMENT ON TABLE tb_collection_data IS '采集数据表（按retention_class列表分区，再按collected_at范围分区）';
+COMMENT ON COLUMN tb_collection_data.retention_class IS '保留等级: SHORT/MEDIUM/LONG';
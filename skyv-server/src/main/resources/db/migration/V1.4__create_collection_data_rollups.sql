@@ -0,0 +1,36 @@
+-- ========================================
+-- SkyEye 智能监控系统 - 采集数据降采样表
+-- 版本: V1.4
+-- 描述: 按设备+指标维护 1分钟/5分钟/1小时 三级聚合（最小/最大/求和/计数/最后值），
+--       由应用内的降采样引擎从原始数据增量重算写入，长时间范围的曲线查询直接读取聚合表。
+-- ========================================
+
+CREATE TABLE IF NOT EXISTS tb_collection_data_rollup_1m (
+    device_id BIGINT NOT NULL,
+    metric_name VARCHAR(100) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    min_value DECIMAL(20,6),
+    max_value DECIMAL(20,6),
+    sum_value DECIMAL(30,6),
+    sample_count BIGINT NOT NULL DEFAULT 0,
+    last_value DECIMAL(20,6),
+    last_at TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (device_id, metric_name, bucket_start)
+);
+
+CREATE TABLE IF NOT EXISTS tb_collection_data_rollup_5m (LIKE tb_collection_data_rollup_1m INCLUDING ALL);
+
+CREATE TABLE IF NOT EXISTS tb_collection_data_rollup_1h (LIKE tb_collection_data_rollup_1m INCLUDING ALL);
+
+-- 按时间清理过期聚合
+CREATE INDEX IF NOT EXISTS idx_rollup_1m_bucket ON tb_collection_data_rollup_1m (bucket_start);
+CREATE INDEX IF NOT EXISTS idx_rollup_5m_bucket ON tb_collection_data_rollup_5m (bucket_start);
+CREATE INDEX IF NOT EXISTS idx_rollup_1h_bucket ON tb_collection_data_rollup_1h (bucket_start);
+
+COMMENT ON TABLE tb_collection_data_rollup_1m IS '采集数据1分钟聚合';
+COMMENT ON TABLE tb_collection_data_rollup_5m IS '采集数据5分钟聚合';
+COMMENT ON TABLE tb_collection_data_rollup_1h IS '采集数据1小时聚合';
+COMMENT ON COLUMN tb_collection_data_rollup_1m.bucket_start IS '聚合区间起点（含），区间为 [bucket_start, bucket_start + 粒度)';
+COMMENT ON COLUMN tb_collection_data_rollup_1m.sample_count IS '区间内数值样本数，平均值 = sum_value / sample_count';
+COMMENT ON COLUMN tb_collection_data_rollup_1m.last_value IS '区间内采集时间最晚的数值';
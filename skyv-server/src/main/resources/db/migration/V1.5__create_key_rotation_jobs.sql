@@ -0,0 +1,38 @@
+-- ========================================
+-- SkyEye 智能监控系统 - 凭据密钥轮换任务表
+-- 版本: V1.5
+-- 描述: 记录凭据从旧密钥重新加密到新密钥的进度，按凭据ID分块推进，
+--       last_credential_id 为已提交的检查点，任务中断后从检查点继续。
+-- ========================================
+
+CREATE TABLE IF NOT EXISTS tb_key_rotation_jobs (
+    id                  BIGSERIAL PRIMARY KEY,
+    old_key_id          BIGINT NOT NULL,
+    new_key_id          BIGINT NOT NULL,
+    status              VARCHAR(20) NOT NULL, -- RUNNING, COMPLETED, FAILED
+    total_count         BIGINT NOT NULL DEFAULT 0,
+    processed_count     BIGINT NOT NULL DEFAULT 0,
+    failed_count        BIGINT NOT NULL DEFAULT 0,
+    skipped_count       BIGINT NOT NULL DEFAULT 0,
+    last_credential_id  BIGINT NOT NULL DEFAULT 0,
+    started_at          TIMESTAMP,
+    finished_at         TIMESTAMP,
+    error_message       VARCHAR(1000),
+    created_at          TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at          TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    deleted_at          TIMESTAMP,
+    created_by          BIGINT,
+    updated_by          BIGINT
+);
+
+CREATE INDEX IF NOT EXISTS idx_key_rotation_jobs_old_key ON tb_key_rotation_jobs (old_key_id);
+CREATE INDEX IF NOT EXISTS idx_key_rotation_jobs_status ON tb_key_rotation_jobs (status);
+
+-- 按密钥分块读取待轮换凭据（WHERE encryption_key_id = ? AND id > ? ORDER BY id）
+CREATE INDEX IF NOT EXISTS idx_device_credentials_key_id_id ON tb_device_credentials (encryption_key_id, id);
+
+COMMENT ON TABLE tb_key_rotation_jobs IS '凭据密钥轮换任务';
+COMMENT ON COLUMN tb_key_rotation_jobs.processed_count IS '已用新密钥重新加密的凭据数';
+COMMENT ON COLUMN tb_key_rotation_jobs.failed_count IS '解密或加密失败、仍使用旧密钥的凭据数';
+COMMENT ON COLUMN tb_key_rotation_jobs.skipped_count IS '轮换期间被并发修改、不再使用旧密钥的凭据数';
+COMMENT ON COLUMN tb_key_rotation_jobs.last_credential_id IS '检查点：ID不大于该值的凭据已处理';
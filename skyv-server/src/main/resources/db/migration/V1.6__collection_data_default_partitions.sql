@@ -0,0 +1,30 @@
+-- ========================================
+-- SkyEye 智能监控系统 - 采集数据默认分区
+-- 版本: V1.6
+-- 描述: 为采集数据的每个范围分区树（V1.3 的 short/medium/long 等级，只执行了 V1.2 时为 tb_collection_data 本身）
+--       创建 DEFAULT 分区。collected_at 不在任何已建分区内的行写入默认分区，不再使整批写入失败；
+--       分区管理器维护时为其中保留期内的行补建分区并移出，清理时删除超过保留期的行。
+--       依赖 V1.2、V1.3。
+-- ========================================
+
+DO $$
+DECLARE
+    tree TEXT;
+BEGIN
+    FOREACH tree IN ARRAY ARRAY['tb_collection_data',
+                                'tb_collection_data_short',
+                                'tb_collection_data_medium',
+                                'tb_collection_data_long']
+    LOOP
+        -- 只处理按范围分区、尚无默认分区的表
+        IF EXISTS (SELECT 1 FROM pg_partitioned_table pt
+                   JOIN pg_class c ON c.oid = pt.partrelid
+                   WHERE c.relname = tree AND c.relnamespace = current_schema()::regnamespace
+                     AND pt.partstrat = 'r' AND pt.partdefid = 0) THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I DEFAULT', tree || '_default', tree);
+            EXECUTE format('COMMENT ON TABLE %I IS %L', tree || '_default',
+                           '采集数据默认分区（不在已建范围分区内的行，由分区管理器移出或清理）');
+        END IF;
+    END LOOP;
+END
+$$;
@@ -0,0 +1,125 @@
+package com.skyeye.collector.engine;
+
+import com.skyeye.collector.entity.CollectionTask;
+import com.skyeye.device.cache.DeviceVersionTracker;
+import com.skyeye.device.entity.Device;
+import com.skyeye.device.entity.DeviceChangeListener;
+import com.skyeye.device.entity.DeviceType;
+import com.skyeye.device.repository.DeviceRepository;
+import com.skyeye.device.repository.DeviceTypeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class TaskDeviceResolverTest {
+
+    private final DeviceVersionTracker versionTracker = new DeviceVersionTracker();
+
+    private final DeviceChangeListener listener = new DeviceChangeListener(versionTracker);
+
+    private DeviceRepository deviceRepository;
+
+    private TaskDeviceResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        deviceRepository = mock(DeviceRepository.class);
+        DeviceTypeRepository deviceTypeRepository = mock(DeviceTypeRepository.class);
+        when(deviceRepository.findByIdInAndNotDeleted(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(TaskDeviceResolverTest::device).toList();
+        });
+        resolver = new TaskDeviceResolver(deviceRepository, deviceTypeRepository, versionTracker);
+        ReflectionTestUtils.setField(resolver, "deviceBatchSize", 1000);
+    }
+
+    @Test
+    void otherDeviceChangeKeepsSnapshot() {
+        CollectionTask task = task(1L, List.of(1001L, 1002L));
+        resolver.resolve(task);
+
+        // 不在任务中的设备变更（如状态回写）不使快照失效
+        listener.onChange(device(1999L));
+        resolver.resolve(task);
+
+        verify(deviceRepository, times(1)).findByIdInAndNotDeleted(anyList());
+    }
+
+    @Test
+    void targetDeviceChangeReloadsSnapshot() {
+        CollectionTask task = task(2L, List.of(2001L, 2002L));
+        resolver.resolve(task);
+
+        listener.onChange(device(2002L));
+        resolver.resolve(task);
+        resolver.resolve(task);
+
+        verify(deviceRepository, times(2)).findByIdInAndNotDeleted(anyList());
+    }
+
+    @Test
+    void deviceTypeChangeReloadsSnapshot() {
+        CollectionTask task = task(3L, List.of(3001L));
+        resolver.resolve(task);
+
+        listener.onChange(new DeviceType());
+        resolver.resolve(task);
+
+        verify(deviceRepository, times(2)).findByIdInAndNotDeleted(anyList());
+    }
+
+    @Test
+    void remoteDeviceChangeReloadsSnapshot() {
+        CollectionTask task = task(4L, List.of(4001L));
+        resolver.resolve(task);
+
+        // 其他节点发布的变更经Redis到达本节点
+        versionTracker.applyRemote(List.of(4001L), false);
+        resolver.resolve(task);
+
+        verify(deviceRepository, times(2)).findByIdInAndNotDeleted(anyList());
+    }
+
+    @Test
+    void callersReceiveCopiesOfSnapshotDevices() {
+        CollectionTask task = task(5L, List.of(5001L));
+        Device first = resolver.resolve(task).get(0);
+        first.setIpAddress("10.0.0.99");
+
+        Device second = resolver.resolve(task).get(0);
+
+        verify(deviceRepository, times(1)).findByIdInAndNotDeleted(anyList());
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getIpAddress()).isNull();
+    }
+
+    @Test
+    void publishesChangesOutsideTransactionImmediately() {
+        List<Long> published = new ArrayList<>();
+        versionTracker.setPublisher((deviceIds, all) -> published.addAll(deviceIds));
+
+        listener.onChange(device(6001L));
+
+        assertThat(published).containsExactly(6001L);
+    }
+
+    private static CollectionTask task(Long id, List<Long> targetDevices) {
+        CollectionTask task = new CollectionTask();
+        task.setId(id);
+        task.setTargetDevices(targetDevices);
+        return task;
+    }
+
+    private static Device device(Long id) {
+        Device device = new Device();
+        device.setId(id);
+        return device;
+    }
+}
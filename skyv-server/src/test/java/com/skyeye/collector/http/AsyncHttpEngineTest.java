@@ -0,0 +1,122 @@
+package com.skyeye.collector.http;
+
+import com.skyeye.collector.config.HttpConfig;
+import com.skyeye.collector.dto.CollectorConfig;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncHttpEngineTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private HttpServer slowHost;
+
+    private HttpServer fastHost;
+
+    private AsyncHttpEngine engine;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        slowHost = server(true);
+        fastHost = server(false);
+
+        HttpConfig httpConfig = new HttpConfig();
+        httpConfig.setMaxConnectionsPerHost(1);
+        httpConfig.setMaxOutstanding(2);
+        httpConfig.setAcquireTimeoutMs(200);
+        httpConfig.setHttp2Enabled(false);
+        engine = new AsyncHttpEngine(httpConfig);
+        engine.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        engine.stop();
+        slowHost.stop(0);
+        fastHost.stop(0);
+    }
+
+    @Test
+    void queuedRequestsDoNotHoldGlobalPermits() throws Exception {
+        // 慢主机一个执行中、两个排队，排队的不占全局名额，其他主机仍可发送
+        CompletableFuture<HttpResponse<String>> first = engine.send(get(slowHost));
+        CompletableFuture<HttpResponse<String>> second = engine.send(get(slowHost));
+        CompletableFuture<HttpResponse<String>> third = engine.send(get(slowHost));
+
+        assertThat(engine.send(get(fastHost)).get(5, TimeUnit.SECONDS).body()).isEqualTo("ok");
+        assertThat(engine.getStatistics()).containsEntry("rejected", 0L);
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+        assertThat(second.get(5, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+        assertThat(third.get(5, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+        assertThat(engine.getStatistics()).containsEntry("outstanding", 0L).containsEntry("hosts", 0);
+    }
+
+    @Test
+    void configureKeepsTheClientWhenConnectTimeoutIsUnchanged() {
+        Object client = ReflectionTestUtils.getField(engine, "client");
+
+        engine.configure(CollectorConfig.ConnectionConfig.builder().maxConnections(4).connectTimeout(5000).build());
+
+        assertThat(ReflectionTestUtils.getField(engine, "client")).isSameAs(client);
+        assertThat(engine.getStatistics()).containsEntry("maxConnectionsPerHost", 4);
+    }
+
+    @Test
+    void connectTimeoutChangeRebuildsTheClientWithoutBreakingInFlightRequests() throws Exception {
+        Object client = ReflectionTestUtils.getField(engine, "client");
+        CompletableFuture<HttpResponse<String>> inFlight = engine.send(get(slowHost));
+
+        engine.configure(CollectorConfig.ConnectionConfig.builder().maxConnections(4).connectTimeout(1000).build());
+
+        assertThat(ReflectionTestUtils.getField(engine, "client")).isNotSameAs(client);
+        assertThat(engine.getStatistics()).containsEntry("connectTimeoutMs", 1000L);
+        // 新请求走新客户端，旧客户端上的请求照常完成
+        assertThat(engine.send(get(fastHost)).get(5, TimeUnit.SECONDS).body()).isEqualTo("ok");
+        release.countDown();
+        assertThat(inFlight.get(5, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+    }
+
+    private HttpServer server(boolean slow) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            if (slow) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        return server;
+    }
+
+    private HttpRequest get(HttpServer server) {
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+        return engine.newRequest(uri, 5000).GET().build();
+    }
+}
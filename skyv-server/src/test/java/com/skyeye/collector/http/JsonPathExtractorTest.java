@@ -0,0 +1,47 @@
+package com.skyeye.collector.http;
+
+import com.skyeye.collector.config.HttpConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonPathExtractorTest {
+
+    private static final String JSON = "{\"jvm\":{\"memory\":{\"heap.used\":[512,1024]},\"threads\":42},\"status\":\"UP\"}";
+
+    @Test
+    void pathCacheIsBounded() {
+        HttpConfig httpConfig = new HttpConfig();
+        httpConfig.setJsonPathCacheSize(8);
+        JsonPathExtractor extractor = new JsonPathExtractor(httpConfig);
+
+        for (int i = 0; i < 100; i++) {
+            extractor.extract(JSON, Map.of("value", "$.jvm.metric_" + i));
+        }
+
+        assertThat(extractor.getCachedPathCount()).isEqualTo(8);
+    }
+
+    @Test
+    void streamingAndTreeExtractionAgree() {
+        Map<String, String> paths = new LinkedHashMap<>();
+        paths.put("heap", "$.jvm.memory['heap.used'][0]");
+        paths.put("threads", "$.jvm.threads");
+        paths.put("status", "$.status");
+        paths.put("missing", "$.jvm.gc");
+
+        HttpConfig treeConfig = new HttpConfig();
+        treeConfig.setStreamingThresholdChars(Integer.MAX_VALUE);
+        HttpConfig streamingConfig = new HttpConfig();
+        streamingConfig.setStreamingThresholdChars(0);
+
+        Map<String, Object> tree = new JsonPathExtractor(treeConfig).extract(JSON, paths);
+        Map<String, Object> streaming = new JsonPathExtractor(streamingConfig).extract(JSON, paths);
+
+        assertThat(streaming).isEqualTo(tree).containsEntry("heap", 512).containsEntry("threads", 42)
+                .containsEntry("status", "UP").doesNotContainKey("missing");
+    }
+}
@@ -0,0 +1,43 @@
+package com.skyeye.collector.latest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatestValueStoreTest {
+
+    private final LatestValueStore store = new LatestValueStore(1000);
+
+    @Test
+    void staleSeriesAreEvictedAndTheirMetricNamesReleased() {
+        // 模拟Prometheus序列名随标签变化：旧序列不再更新
+        for (int i = 0; i < 1000; i++) {
+            store.update(1L, "http_requests_total{pod=\"old-" + i + "\"}", 1.0, null, 1_000L, null);
+        }
+        store.update(1L, "up", 1.0, null, 5_000L, null);
+        store.update(2L, "http_requests_total{pod=\"old-0\"}", 2.0, null, 5_000L, null);
+
+        assertThat(store.evictStaleSeries(2_000L)).isEqualTo(1000);
+
+        assertThat(store.getStatistics()).containsEntry("series", 2).containsEntry("metricNames", 2);
+        assertThat(store.getDeviceValues(1L)).containsOnlyKeys("up");
+        assertThat(store.get(1L, "http_requests_total{pod=\"old-1\"}")).isNull();
+        assertThat(store.get(2L, "http_requests_total{pod=\"old-0\"}").getValue()).isEqualTo(2.0);
+    }
+
+    @Test
+    void releasedMetricIdsAreReusedAfterTheNextEviction() {
+        store.update(1L, "a", 1.0, null, 1_000L, null);
+        store.evictStaleSeries(2_000L);
+        assertThat(store.getStatistics()).containsEntry("metricNames", 0).containsEntry("releasedMetricNames", 1L);
+
+        // 回收的编号隔一个淘汰周期后才重新分配，新名称在此之前使用新编号
+        store.update(1L, "b", 2.0, null, 3_000L, null);
+        store.evictStaleSeries(2_000L);
+        store.update(1L, "c", 3.0, null, 3_000L, null);
+
+        assertThat(store.getDeviceValues(1L)).containsOnlyKeys("b", "c");
+        assertThat(store.get(1L, "a")).isNull();
+        assertThat(store.get(1L, "c").getValue()).isEqualTo(3.0);
+    }
+}
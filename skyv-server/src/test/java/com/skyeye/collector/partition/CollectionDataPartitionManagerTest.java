@@ -0,0 +1,154 @@
+package com.skyeye.collector.partition;
+
+import com.skyeye.collector.config.PartitionConfig;
+import com.skyeye.collector.partition.CollectionDataPartitionManager.PartitionInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CollectionDataPartitionManagerTest {
+
+    @Test
+    void gapRangeUsesWholePeriodWithoutNeighbours() {
+        LocalDateTime time = LocalDateTime.of(2024, 3, 6, 15, 30);
+
+        LocalDateTime[] range = CollectionDataPartitionManager.gapRange(time,
+                List.of(defaultPartition()), PartitionGranularity.WEEK);
+
+        assertThat(range).containsExactly(LocalDateTime.of(2024, 3, 4, 0, 0), LocalDateTime.of(2024, 3, 11, 0, 0));
+    }
+
+    @Test
+    void gapRangeIsClippedToNeighbours() {
+        // 历史分区上界不在周期起点，下一个分区已经预建
+        List<PartitionInfo> partitions = List.of(
+                partition(null, LocalDateTime.of(2024, 3, 5, 12, 0)),
+                partition(LocalDateTime.of(2024, 3, 8, 0, 0), LocalDateTime.of(2024, 3, 11, 0, 0)),
+                defaultPartition());
+
+        LocalDateTime[] range = CollectionDataPartitionManager.gapRange(LocalDateTime.of(2024, 3, 6, 1, 0),
+                partitions, PartitionGranularity.WEEK);
+
+        assertThat(range).containsExactly(LocalDateTime.of(2024, 3, 5, 12, 0), LocalDateTime.of(2024, 3, 8, 0, 0));
+    }
+
+    @Test
+    void gapRangeBeforeOldestPartition() {
+        List<PartitionInfo> partitions = List.of(
+                partition(LocalDateTime.of(2024, 3, 6, 0, 0), LocalDateTime.of(2024, 3, 7, 0, 0)));
+
+        LocalDateTime[] range = CollectionDataPartitionManager.gapRange(LocalDateTime.of(2024, 3, 5, 23, 59),
+                partitions, PartitionGranularity.DAY);
+
+        assertThat(range).containsExactly(LocalDateTime.of(2024, 3, 5, 0, 0), LocalDateTime.of(2024, 3, 6, 0, 0));
+    }
+
+    @Test
+    void clippedPartitionNameDoesNotCollideWithSameDay() {
+        assertThat(CollectionDataPartitionManager.partitionName("t", LocalDateTime.of(2024, 3, 5, 0, 0)))
+                .isEqualTo("t_p20240305");
+        assertThat(CollectionDataPartitionManager.partitionName("t", LocalDateTime.of(2024, 3, 5, 12, 0)))
+                .isEqualTo("t_p20240305_120000");
+    }
+
+    @Test
+    void eachExpiredPartitionIsDroppedInItsOwnTransaction() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("tb_collection_data")))
+                .thenReturn(List.of("r"));
+        CountingTransactionManager transactionManager = new CountingTransactionManager();
+        List<String> statementsInTransaction = new ArrayList<>();
+        doAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                statementsInTransaction.add(sql);
+            }
+            if (sql.endsWith("old_2")) {
+                throw new DataAccessResourceFailureException("lock timeout");
+            }
+            return null;
+        }).when(jdbcTemplate).execute(anyString());
+        when(jdbcTemplate.update(anyString(), any(Timestamp.class))).thenReturn(5);
+
+        CollectionDataPartitionManager manager = spy(
+                new CollectionDataPartitionManager(jdbcTemplate, new PartitionConfig(), transactionManager));
+        LocalDateTime longAgo = LocalDateTime.now().minusYears(5);
+        PartitionInfo first = partition(longAgo, longAgo.plusDays(1));
+        first.setName("old_1");
+        first.setEstimatedRows(10);
+        PartitionInfo second = partition(longAgo.plusDays(1), longAgo.plusDays(2));
+        second.setName("old_2");
+        PartitionInfo third = partition(longAgo.plusDays(2), longAgo.plusDays(3));
+        third.setName("old_3");
+        third.setEstimatedRows(20);
+        doReturn(List.of(first, second, third, defaultPartition())).when(manager).listPartitions("tb_collection_data");
+
+        long dropped = manager.dropExpiredPartitions();
+
+        // 中间一个分区失败只回滚它自己，其余分区和默认分区的清理各自提交
+        assertThat(dropped).isEqualTo(10 + 20 + 5);
+        assertThat(statementsInTransaction).containsExactly(
+                "DROP TABLE IF EXISTS old_1", "DROP TABLE IF EXISTS old_2", "DROP TABLE IF EXISTS old_3");
+        assertThat(transactionManager.begins.get()).isEqualTo(4);
+        assertThat(transactionManager.commits.get()).isEqualTo(3);
+        assertThat(transactionManager.rollbacks.get()).isEqualTo(1);
+    }
+
+    private static PartitionInfo partition(LocalDateTime lower, LocalDateTime upper) {
+        PartitionInfo info = new PartitionInfo();
+        info.setName("p");
+        info.setLowerBound(lower);
+        info.setUpperBound(upper);
+        return info;
+    }
+
+    private static PartitionInfo defaultPartition() {
+        PartitionInfo info = new PartitionInfo();
+        info.setName("t_default");
+        info.setDefaultPartition(true);
+        return info;
+    }
+
+    private static final class CountingTransactionManager extends AbstractPlatformTransactionManager {
+
+        private final AtomicInteger begins = new AtomicInteger();
+        private final AtomicInteger commits = new AtomicInteger();
+        private final AtomicInteger rollbacks = new AtomicInteger();
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            begins.incrementAndGet();
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            commits.incrementAndGet();
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            rollbacks.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.skyeye.collector.rate;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CounterRateCalculatorTest {
+
+    private static final long UNKNOWN = CounterRateCalculator.UNKNOWN_UPTIME;
+
+    @Test
+    void seriesWithSameMetricNameAreIndependent() {
+        CounterRateCalculator calculator = new CounterRateCalculator(true);
+        String first = "1/customA/1.3.6.1.4.1.9.9.1.0";
+        String second = "1/customB/1.3.6.1.4.1.9.9.2.0";
+
+        assertThat(calculator.update(7, first, 1000, 64, 0, UNKNOWN)).isNull();
+        assertThat(calculator.update(7, second, 5_000_000, 64, 0, UNKNOWN)).isNull();
+        assertThat(calculator.update(7, first, 2000, 64, 10_000, UNKNOWN)).isEqualTo(100.0);
+        assertThat(calculator.update(7, second, 5_010_000, 64, 10_000, UNKNOWN)).isEqualTo(1000.0);
+        assertThat(calculator.getStatistics()).containsEntry("series", 2L).containsEntry("resets", 0L);
+    }
+
+    @Test
+    void counter32WrapIsCountedAsIncrease() {
+        CounterRateCalculator calculator = new CounterRateCalculator(true);
+        calculator.update(1, "s", 0xFFFFFF00L, 32, 0, 100);
+
+        assertThat(calculator.update(1, "s", 0x100L, 32, 1000, 200)).isEqualTo(512.0);
+        assertThat(calculator.getStatistics()).containsEntry("wraps", 1L);
+    }
+
+    @Test
+    void uptimeDecreaseIsTreatedAsReboot() {
+        CounterRateCalculator calculator = new CounterRateCalculator(true);
+        calculator.update(1, "s", 5000, 32, 0, 100_000);
+
+        assertThat(calculator.update(1, "s", 10, 32, 1000, 50)).isNull();
+        assertThat(calculator.update(1, "s", 110, 32, 2000, 150)).isEqualTo(100.0);
+        assertThat(calculator.getStatistics()).containsEntry("resets", 1L);
+    }
+
+    @Test
+    void growsOnDemandAndRemovesDevice() {
+        CounterRateCalculator calculator = new CounterRateCalculator(true);
+        for (long device = 0; device < 200; device++) {
+            for (int index = 0; index < 50; index++) {
+                calculator.update(device, "1/ifTable/1.3.6.1.2.1.2.2.1.10." + index, index, 32, 0, UNKNOWN);
+            }
+        }
+        assertThat(calculator.getStatistics()).containsEntry("series", 10_000L);
+
+        calculator.removeDevice(3);
+        assertThat(calculator.getStatistics()).containsEntry("series", 9_950L);
+        assertThat(calculator.update(4, "1/ifTable/1.3.6.1.2.1.2.2.1.10.7", 17, 32, 1000, UNKNOWN)).isEqualTo(10.0);
+    }
+
+    @Test
+    void seriesNotUpdatedSinceCutoffAreEvicted() {
+        CounterRateCalculator calculator = new CounterRateCalculator(true);
+        // 指标配置删除后不再更新的序列
+        calculator.update(1, "7/ifTable/1.3.6.1.2.1.2.2.1.10.1", 100, 32, 1_000, UNKNOWN);
+        calculator.update(1, "8/ifTable/1.3.6.1.2.1.2.2.1.10.1", 100, 32, 1_000, UNKNOWN);
+        calculator.update(1, "8/ifTable/1.3.6.1.2.1.2.2.1.10.1", 200, 32, 60_000, UNKNOWN);
+
+        assertThat(calculator.evictStaleSeries(30_000)).isEqualTo(1);
+
+        assertThat(calculator.getStatistics()).containsEntry("series", 1L);
+        assertThat(calculator.update(1, "8/ifTable/1.3.6.1.2.1.2.2.1.10.1", 300, 32, 70_000, UNKNOWN)).isEqualTo(10.0);
+        // 清理后重新出现的序列从基准值开始
+        assertThat(calculator.update(1, "7/ifTable/1.3.6.1.2.1.2.2.1.10.1", 500, 32, 70_000, UNKNOWN)).isNull();
+    }
+}
@@ -0,0 +1,174 @@
+package com.skyeye.collector.rollup;
+
+import com.skyeye.collector.config.RollupConfig;
+import com.skyeye.collector.entity.CollectionData;
+import com.skyeye.collector.repository.CollectionDataRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class CollectionDataRollupEngineTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 3, 5, 10, 0);
+
+    /**
+     * 已合并的增量：粒度 → 聚合单元 → 增量
+     */
+    private final Map<RollupResolution, Map<SeriesBucket, BucketDelta>> merged = new EnumMap<>(RollupResolution.class);
+
+    private CollectionDataRollupRepository repository;
+
+    private RollupConfig rollupConfig;
+
+    private CollectionDataRollupEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(CollectionDataRollupRepository.class);
+        when(repository.tablesExist()).thenReturn(true);
+        doAnswer(invocation -> {
+            RollupResolution level = invocation.getArgument(0);
+            List<Map.Entry<SeriesBucket, BucketDelta>> batch = invocation.getArgument(1);
+            batch.forEach(entry -> merged.computeIfAbsent(level, k -> new HashMap<>())
+                    .computeIfAbsent(entry.getKey(), k -> new BucketDelta()).merge(entry.getValue()));
+            return batch.size();
+        }).when(repository).mergeDeltas(any(), anyList());
+
+        rollupConfig = new RollupConfig();
+        engine = new CollectionDataRollupEngine(repository, rollupConfig, new NoOpTransactionManager());
+        engine.init();
+        // 消化启动补算
+        engine.flush();
+        verify(repository, times(3)).recomputeRange(any(), any(), any());
+        clearInvocations(repository);
+    }
+
+    @Test
+    void mergesDeltasIntoEveryLevel() {
+        write(row(1L, "cpu", BASE.plusSeconds(10), "5"),
+                row(1L, "cpu", BASE.plusSeconds(50), "7"),
+                row(1L, "cpu", BASE.plusSeconds(80), "3"),
+                row(1L, "mem", BASE.plusMinutes(4), "1"));
+        engine.flush();
+
+        assertThat(merged.get(RollupResolution.ONE_MINUTE)).hasSize(3);
+        assertDelta(RollupResolution.ONE_MINUTE, "cpu", BASE, "5", "7", "12", 2, "7");
+        assertDelta(RollupResolution.ONE_MINUTE, "cpu", BASE.plusMinutes(1), "3", "3", "3", 1, "3");
+        assertDelta(RollupResolution.FIVE_MINUTES, "cpu", BASE, "3", "7", "15", 3, "3");
+        assertDelta(RollupResolution.FIVE_MINUTES, "mem", BASE, "1", "1", "1", 1, "1");
+        assertDelta(RollupResolution.ONE_HOUR, "cpu", BASE, "3", "7", "15", 3, "3");
+        verify(repository, never()).recomputeRange(any(), any(), any());
+
+        // 已合并的增量不会再次合并
+        merged.clear();
+        engine.flush();
+        assertThat(merged).isEmpty();
+    }
+
+    @Test
+    void failedMergeIsRetriedWithoutDoubleCounting() {
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (calls.getAndIncrement() == 1) {
+                // 1分钟已写入后5分钟失败，整个事务回滚
+                merged.clear();
+                throw new IllegalStateException("connection reset");
+            }
+            RollupResolution level = invocation.getArgument(0);
+            List<Map.Entry<SeriesBucket, BucketDelta>> batch = invocation.getArgument(1);
+            batch.forEach(entry -> merged.computeIfAbsent(level, k -> new HashMap<>())
+                    .computeIfAbsent(entry.getKey(), k -> new BucketDelta()).merge(entry.getValue()));
+            return batch.size();
+        }).when(repository).mergeDeltas(any(), anyList());
+
+        write(row(1L, "cpu", BASE.plusSeconds(10), "5"), row(1L, "cpu", BASE.plusSeconds(20), "7"));
+        engine.flush();
+        assertThat(merged).isEmpty();
+
+        write(row(1L, "cpu", BASE.plusSeconds(30), "1"));
+        engine.flush();
+
+        assertDelta(RollupResolution.ONE_MINUTE, "cpu", BASE, "1", "7", "13", 3, "1");
+        assertDelta(RollupResolution.ONE_HOUR, "cpu", BASE, "1", "7", "13", 3, "1");
+        assertThat(engine.getStatistics()).containsEntry("failedFlushes", 1L);
+    }
+
+    @Test
+    void rangeRecomputeReplacesDeltasInsideTheRange() {
+        rollupConfig.setMaxPendingBuckets(2);
+        write(row(1L, "cpu", BASE.plusSeconds(10), "5"),
+                row(1L, "cpu", BASE.plusMinutes(5), "6"),
+                // 超出待合并上限，该分钟改为按范围重算
+                row(2L, "cpu", BASE.plusSeconds(30), "7"));
+        engine.flush();
+
+        verify(repository).recomputeRange(RollupResolution.ONE_MINUTE, BASE, BASE.plusMinutes(1));
+        verify(repository).recomputeRange(RollupResolution.FIVE_MINUTES, BASE, BASE.plusMinutes(5));
+        verify(repository).recomputeRange(RollupResolution.ONE_HOUR, BASE, BASE.plusHours(1));
+        assertThat(merged.get(RollupResolution.ONE_MINUTE)).containsOnlyKeys(bucket(1L, "cpu", BASE.plusMinutes(5)));
+    }
+
+    private void write(CollectionData... rows) {
+        List<CollectionData> batch = List.of(rows);
+        AtomicInteger written = new AtomicInteger();
+        engine.write(batch, written::incrementAndGet);
+        assertThat(written.get()).isEqualTo(1);
+    }
+
+    private void assertDelta(RollupResolution level, String metric, LocalDateTime bucketStart,
+                             String min, String max, String sum, long count, String last) {
+        BucketDelta delta = merged.get(level).get(bucket(1L, metric, bucketStart));
+        assertThat(delta).isNotNull();
+        assertThat(delta.getMin()).isEqualByComparingTo(min);
+        assertThat(delta.getMax()).isEqualByComparingTo(max);
+        assertThat(delta.getSum()).isEqualByComparingTo(sum);
+        assertThat(delta.getCount()).isEqualTo(count);
+        assertThat(delta.getLast()).isEqualByComparingTo(last);
+    }
+
+    private static SeriesBucket bucket(Long deviceId, String metric, LocalDateTime bucketStart) {
+        return new SeriesBucket(deviceId, metric, bucketStart);
+    }
+
+    private static CollectionData row(Long deviceId, String metric, LocalDateTime collectedAt, String value) {
+        CollectionData data = new CollectionData();
+        data.setDeviceId(deviceId);
+        data.setMetricName(metric);
+        data.setCollectedAt(Timestamp.valueOf(collectedAt));
+        data.setMetricValue(new BigDecimal(value));
+        return data;
+    }
+
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.skyeye.collector.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CronScheduleTest {
+
+    @Test
+    void unixFormatGetsZeroSeconds() {
+        CronSchedule schedule = CronSchedule.compile("*/15 * * * *");
+
+        assertThat(schedule.next(LocalDateTime.of(2024, 3, 5, 10, 7, 30)))
+                .isEqualTo(LocalDateTime.of(2024, 3, 5, 10, 15, 0));
+    }
+
+    @Test
+    void supportsQuartzStyleFields() {
+        // 工作日9点、每月最后一天、每月第二个周一
+        assertThat(CronSchedule.compile("0 0 9 ? * MON-FRI").next(LocalDateTime.of(2024, 3, 8, 9, 0)))
+                .isEqualTo(LocalDateTime.of(2024, 3, 11, 9, 0));
+        assertThat(CronSchedule.compile("0 0 0 L * ?").next(LocalDateTime.of(2024, 2, 1, 0, 0)))
+                .isEqualTo(LocalDateTime.of(2024, 2, 29, 0, 0));
+        assertThat(CronSchedule.compile("0 30 8 ? * MON#2 *").next(LocalDateTime.of(2024, 3, 1, 0, 0)))
+                .isEqualTo(LocalDateTime.of(2024, 3, 11, 8, 30));
+    }
+
+    @Test
+    void rejectsInvalidExpressions() {
+        assertThat(CronSchedule.isValid("0 0 25 * * ?")).isFalse();
+        assertThat(CronSchedule.isValid("")).isFalse();
+        assertThatThrownBy(() -> CronSchedule.compile("0 0 0 * * ? 2030"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("年份");
+    }
+
+    @Test
+    void evaluatesInConfiguredZone() {
+        ZoneId zone = CronSchedule.resolveZone(Map.of("timeZone", "Asia/Tokyo"));
+        CronSchedule schedule = CronSchedule.compile("0 0 9 * * ?", zone);
+
+        // 东京时间9点换算为系统时区
+        LocalDateTime after = LocalDateTime.of(2024, 3, 5, 0, 0);
+        LocalDateTime next = schedule.next(after);
+
+        assertThat(next).isAfter(after);
+        assertThat(next.atZone(ZoneId.systemDefault()).withZoneSameInstant(zone).toLocalTime())
+                .isEqualTo(LocalTime.of(9, 0));
+        assertThat(schedule.getZoneId()).isEqualTo(zone);
+        assertThat(CronSchedule.resolveZone(Map.of())).isNull();
+        assertThatThrownBy(() -> CronSchedule.resolveZone(Map.of("timeZone", "Mars/Base")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,103 @@
+package com.skyeye.collector.scheduler.impl;
+
+import com.skyeye.collector.entity.CollectionTask;
+import com.skyeye.collector.scheduler.wheel.HierarchicalTimingWheel;
+import com.skyeye.collector.service.CollectionTaskService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TimingWheelTaskSchedulerTest {
+
+    private static final int TASKS = 8;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final Set<Long> executed = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> executingThreads = ConcurrentHashMap.newKeySet();
+
+    private TimingWheelTaskScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        CollectionTaskService taskService = mock(CollectionTaskService.class);
+        when(taskService.getAllEnabledTasks()).thenReturn(List.of());
+        when(taskService.executeTask(anyLong())).thenAnswer(invocation -> {
+            executingThreads.add(Thread.currentThread().getName());
+            release.await(10, TimeUnit.SECONDS);
+            executed.add(invocation.getArgument(0));
+            return null;
+        });
+
+        scheduler = new TimingWheelTaskScheduler(taskService);
+        // 1个线程、1个队列位：8个同时到期的任务必然有被拒绝的
+        ReflectionTestUtils.setField(scheduler, "threadPoolSize", 1);
+        ReflectionTestUtils.setField(scheduler, "maxQueueSize", 1);
+        ReflectionTestUtils.setField(scheduler, "keepAliveSeconds", 60L);
+        ReflectionTestUtils.setField(scheduler, "tickMs", 10L);
+        ReflectionTestUtils.setField(scheduler, "wheelSize", 64);
+        ReflectionTestUtils.setField(scheduler, "levels", 3);
+        ReflectionTestUtils.setField(scheduler, "batchSize", 256);
+        scheduler.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        scheduler.stop();
+    }
+
+    @Test
+    void saturatedExecutorNeverRunsTasksOnTheTickThread() throws Exception {
+        for (long id = 1; id <= TASKS; id++) {
+            scheduler.scheduleTask(task(id));
+        }
+        HierarchicalTimingWheel wheel = (HierarchicalTimingWheel) ReflectionTestUtils.getField(scheduler, "timingWheel");
+
+        // 执行线程被占满期间，时间轮仍按tick推进，被拒绝的任务退回时间轮重试
+        awaitRejected();
+        long tick = wheel.getCurrentTick();
+        Thread.sleep(200);
+        assertThat(wheel.getCurrentTick()).isGreaterThan(tick + 5);
+        assertThat(executingThreads).noneMatch(name -> name.equals("TaskTimingWheel"));
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executed.size() < TASKS && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(executed).hasSize(TASKS);
+        assertThat(executingThreads).allMatch(name -> name.startsWith("TaskExecutor-"));
+    }
+
+    private void awaitRejected() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.getStatistics().getRejectedExecutions() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(scheduler.getStatistics().getRejectedExecutions()).isPositive();
+    }
+
+    private static CollectionTask task(long id) {
+        CollectionTask task = new CollectionTask();
+        task.setId(id);
+        task.setName("wheel-task-" + id);
+        task.setScheduleType("SIMPLE");
+        task.setScheduleConfig(Map.of("intervalUnit", "seconds", "intervalValue", 1));
+        return task;
+    }
+}
@@ -0,0 +1,189 @@
+package com.skyeye.collector.scheduler.wheel;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class HierarchicalTimingWheelTest {
+
+    private HierarchicalTimingWheel wheel;
+
+    @AfterEach
+    void tearDown() {
+        if (wheel != null) {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    void cascadesFromHigherLevelsAndNeverFiresEarly() throws Exception {
+        // 4槽3层，1ms一个tick：第0层覆盖4ms，第1层16ms，第2层64ms
+        Map<Runnable, Long> firedAt = new ConcurrentHashMap<>();
+        long[] delaysMs = {2, 7, 15, 33, 60};
+        CountDownLatch done = new CountDownLatch(delaysMs.length);
+        wheel = start(4, 3, 16, batch -> {
+            long now = System.nanoTime();
+            batch.forEach(timeout -> firedAt.put(timeout.getTask(), now));
+            batch.forEach(timeout -> done.countDown());
+        });
+
+        Map<Runnable, Long> deadlines = new ConcurrentHashMap<>();
+        for (long delay : delaysMs) {
+            Runnable task = () -> { };
+            deadlines.put(task, wheel.newTimeout(task, delay, TimeUnit.MILLISECONDS).getDeadlineNanos());
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        deadlines.forEach((task, deadline) -> assertThat(firedAt.get(task)).isGreaterThanOrEqualTo(deadline));
+        assertThat(wheel.getPendingTimeouts()).isZero();
+        assertThat(wheel.getExpiredTimeouts()).isEqualTo(delaysMs.length);
+    }
+
+    @Test
+    void cancelledTimeoutIsNotDispatched() throws Exception {
+        AtomicInteger fired = new AtomicInteger();
+        CountDownLatch kept = new CountDownLatch(1);
+        wheel = start(4, 3, 16, batch -> {
+            fired.addAndGet(batch.size());
+            kept.countDown();
+        });
+
+        // 一个放在第1层、一个放在第2层后取消
+        WheelTimeout low = wheel.newTimeout(() -> { }, 10, TimeUnit.MILLISECONDS);
+        WheelTimeout high = wheel.newTimeout(() -> { }, 40, TimeUnit.MILLISECONDS);
+        wheel.newTimeout(() -> { }, 80, TimeUnit.MILLISECONDS);
+        assertThat(low.cancel()).isTrue();
+        assertThat(high.cancel()).isTrue();
+        assertThat(high.cancel()).isFalse();
+
+        assertThat(kept.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(20);
+        assertThat(fired.get()).isEqualTo(1);
+        assertThat(low.isExpired()).isFalse();
+        assertThat(wheel.getPendingTimeouts()).isZero();
+    }
+
+    @Test
+    void timeoutBeyondTotalSpanWaitsForItsDeadline() throws Exception {
+        // 4槽2层，总跨度只有16ms，100ms的定时项需要在最高层多次轮转
+        AtomicLong firedAt = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(1);
+        wheel = start(4, 2, 16, batch -> {
+            firedAt.set(System.nanoTime());
+            done.countDown();
+        });
+
+        WheelTimeout timeout = wheel.newTimeout(() -> { }, 100, TimeUnit.MILLISECONDS);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(firedAt.get()).isGreaterThanOrEqualTo(timeout.getDeadlineNanos());
+        assertThat(TimeUnit.NANOSECONDS.toMillis(firedAt.get() - timeout.getDeadlineNanos())).isLessThan(1000);
+    }
+
+    @Test
+    void batchesAreLimitedToMaxBatchSize() throws Exception {
+        AtomicInteger largest = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1000);
+        wheel = start(64, 3, 100, batch -> {
+            largest.accumulateAndGet(batch.size(), Math::max);
+            batch.forEach(timeout -> done.countDown());
+        });
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20);
+        for (int i = 0; i < 1000; i++) {
+            wheel.newTimeoutAt(() -> { }, deadline);
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(largest.get()).isLessThanOrEqualTo(100);
+        assertThat(wheel.getDispatchedBatches()).isGreaterThanOrEqualTo(10);
+    }
+
+    /**
+     * 10万个定时项分布在2秒内：统计调度、取消、重新调度的吞吐，未取消的全部按时到期且不早于到期时刻
+     */
+    @Test
+    void schedulesCancelsAndReschedulesHundredThousandTimeouts() throws Exception {
+        int count = 100_000;
+        int cancelled = count / 2;
+        int rescheduled = count / 4;
+        int expected = count - cancelled;
+        AtomicInteger early = new AtomicInteger();
+        AtomicLong maxLateNanos = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(expected);
+        wheel = new HierarchicalTimingWheel("wheel-benchmark", 10, TimeUnit.MILLISECONDS, 512, 4, 256, batch -> {
+            long now = System.nanoTime();
+            for (WheelTimeout timeout : batch) {
+                long late = now - timeout.getDeadlineNanos();
+                if (late < 0) {
+                    early.incrementAndGet();
+                }
+                maxLateNanos.accumulateAndGet(late, Math::max);
+                done.countDown();
+            }
+        });
+        wheel.start();
+
+        WheelTimeout[] timeouts = new WheelTimeout[count];
+        long scheduleStart = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            timeouts[i] = wheel.newTimeout(() -> { }, 1000 + ThreadLocalRandom.current().nextLong(1000),
+                    TimeUnit.MILLISECONDS);
+        }
+        long scheduleNanos = System.nanoTime() - scheduleStart;
+
+        // 前一半取消
+        long cancelStart = System.nanoTime();
+        for (int i = 0; i < cancelled; i++) {
+            assertThat(timeouts[i].cancel()).isTrue();
+        }
+        long cancelNanos = System.nanoTime() - cancelStart;
+
+        // 后一半中的一半改期：取消旧定时项并挂载新定时项
+        long rescheduleStart = System.nanoTime();
+        for (int i = count - rescheduled; i < count; i++) {
+            timeouts[i].cancel();
+            timeouts[i] = wheel.newTimeout(() -> { }, 1000 + ThreadLocalRandom.current().nextLong(1000),
+                    TimeUnit.MILLISECONDS);
+        }
+        long rescheduleNanos = System.nanoTime() - rescheduleStart;
+
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        log.info("时间轮基准: timeouts={}, schedulePerSec={}, cancelPerSec={}, reschedulePerSec={}, "
+                        + "batches={}, maxLateMs={}",
+                count, perSecond(count, scheduleNanos), perSecond(cancelled, cancelNanos),
+                perSecond(rescheduled, rescheduleNanos), wheel.getDispatchedBatches(),
+                TimeUnit.NANOSECONDS.toMillis(maxLateNanos.get()));
+        assertThat(early.get()).isZero();
+        assertThat(wheel.getExpiredTimeouts()).isEqualTo(expected);
+        assertThat(wheel.getPendingTimeouts()).isZero();
+        for (int i = 0; i < cancelled; i++) {
+            assertThat(timeouts[i].isExpired()).isFalse();
+        }
+    }
+
+    private static long perSecond(int operations, long nanos) {
+        return operations * 1_000_000_000L / Math.max(1, nanos);
+    }
+
+    private static HierarchicalTimingWheel start(int wheelSize, int levels, int maxBatchSize,
+                                                 Consumer<List<WheelTimeout>> handler) {
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel("wheel-test", 1, TimeUnit.MILLISECONDS,
+                wheelSize, levels, maxBatchSize, handler);
+        wheel.start();
+        return wheel;
+    }
+}
@@ -0,0 +1,216 @@
+package com.skyeye.collector.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skyeye.collector.config.PartitionConfig;
+import com.skyeye.collector.config.SnmpConfig;
+import com.skyeye.collector.dto.CollectionResult;
+import com.skyeye.collector.dto.CollectorConfig;
+import com.skyeye.collector.dto.MetricConfig;
+import com.skyeye.collector.engine.CollectorEngine;
+import com.skyeye.collector.engine.TaskDeviceResolver;
+import com.skyeye.collector.entity.CollectionTask;
+import com.skyeye.collector.http.AsyncHttpEngine;
+import com.skyeye.collector.latest.LatestValueStore;
+import com.skyeye.collector.partition.CollectionDataPartitionManager;
+import com.skyeye.collector.plugin.impl.SnmpCollectorPlugin;
+import com.skyeye.collector.plugin.impl.SnmpCollectorPluginHelper;
+import com.skyeye.collector.rate.CounterRateCalculator;
+import com.skyeye.collector.registry.PluginRegistry;
+import com.skyeye.collector.repository.CollectionDataRepository;
+import com.skyeye.collector.repository.CollectionLogRepository;
+import com.skyeye.collector.repository.CollectionTaskRepository;
+import com.skyeye.collector.repository.TaskStatisticsRepository;
+import com.skyeye.collector.rollup.CollectionDataRollupEngine;
+import com.skyeye.collector.scheduler.CronSchedule;
+import com.skyeye.collector.scheduler.TaskScheduler;
+import com.skyeye.collector.service.CollectionLogService;
+import com.skyeye.collector.snmp.AsyncSnmpEngine;
+import com.skyeye.collector.snmp.SnmpTableWalker;
+import com.skyeye.collector.snmp.simulator.SimulatorConfig;
+import com.skyeye.collector.snmp.simulator.SnmpAgentSimulator;
+import com.skyeye.collector.writer.CollectionDataWriter;
+import com.skyeye.collector.writer.CollectionLogWriter;
+import com.skyeye.common.util.JsonUtils;
+import com.skyeye.device.cache.DecryptedCredentialCache;
+import com.skyeye.device.entity.Device;
+import com.skyeye.device.entity.DeviceType;
+import com.skyeye.device.repository.DeviceRepository;
+import com.skyeye.device.service.DeviceCredentialService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CollectionTaskServiceImplTest {
+
+    private static final List<String> METRIC_TYPES = List.of("system_info", "cpu_usage", "memory_usage");
+
+    private SnmpAgentSimulator simulator;
+
+    private AsyncSnmpEngine snmpEngine;
+
+    private SnmpCollectorPlugin plugin;
+
+    private CollectionLogService collectionLogService;
+
+    private TaskDeviceResolver taskDeviceResolver;
+
+    private CollectionTaskRepository taskRepository;
+
+    private CollectionTaskServiceImpl service;
+
+    @BeforeAll
+    static void initJson() {
+        new JsonUtils().setObjectMapper(new ObjectMapper());
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SimulatorConfig simulatorConfig = new SimulatorConfig();
+        simulatorConfig.setAgentCount(1);
+        simulatorConfig.setBasePort(39500);
+        simulator = new SnmpAgentSimulator(simulatorConfig, SnmpAgentSimulator.createMib(simulatorConfig));
+        simulator.start();
+
+        SnmpConfig snmpConfig = new SnmpConfig();
+        snmpEngine = new AsyncSnmpEngine(snmpConfig);
+        snmpEngine.start();
+        DeviceCredentialService credentialService = mock(DeviceCredentialService.class);
+        when(credentialService.getDefaultCredential(anyLong(), eq("SNMP"))).thenReturn(new HashMap<>(Map.of(
+                "version", "v2c", "community", simulatorConfig.getCommunity(),
+                "port", simulator.getPort(0), "timeout", 2000, "retries", 1)));
+        plugin = new SnmpCollectorPlugin(credentialService,
+                new SnmpCollectorPluginHelper(snmpEngine, new SnmpTableWalker(snmpEngine, snmpConfig), snmpConfig),
+                snmpEngine);
+        plugin.initialize(CollectorConfig.builder().name("snmp-task-test").build());
+
+        PluginRegistry pluginRegistry = mock(PluginRegistry.class);
+        when(pluginRegistry.getPlugin(anyString())).thenReturn(Optional.of(plugin));
+        when(pluginRegistry.getAllPlugins()).thenReturn(List.of(plugin));
+        collectionLogService = mock(CollectionLogService.class);
+        PartitionConfig partitionConfig = new PartitionConfig();
+        CollectorEngine collectorEngine = new CollectorEngine(pluginRegistry, collectionLogService,
+                mock(CollectionDataRepository.class), mock(CollectionDataWriter.class),
+                mock(CollectionLogWriter.class), mock(CollectionDataPartitionManager.class), partitionConfig,
+                mock(CollectionDataRollupEngine.class), mock(LatestValueStore.class), snmpEngine,
+                mock(AsyncHttpEngine.class), mock(CounterRateCalculator.class),
+                mock(DecryptedCredentialCache.class), Runnable::run,
+                mock(PlatformTransactionManager.class));
+
+        taskRepository = mock(CollectionTaskRepository.class);
+        taskDeviceResolver = mock(TaskDeviceResolver.class);
+        service = new CollectionTaskServiceImpl(taskRepository, mock(TaskStatisticsRepository.class),
+                mock(CollectionLogRepository.class), mock(DeviceRepository.class), collectorEngine,
+                taskDeviceResolver, mock(TaskScheduler.class), Runnable::run);
+        ReflectionTestUtils.setField(service, "taskMaxConcurrency", 64);
+    }
+
+    @AfterEach
+    void tearDown() {
+        plugin.destroy();
+        snmpEngine.stop();
+        simulator.stop();
+    }
+
+    @Test
+    void taskMetricsOnOneSnmpDeviceShareOneRequest() {
+        CollectionTask task = task(4);
+        when(taskRepository.findById(task.getId())).thenReturn(Optional.of(task));
+        when(taskDeviceResolver.resolve(task)).thenReturn(List.of(device()));
+
+        service.executeTask(task.getId());
+
+        // 全部标量指标打包为一次多变量绑定GET
+        assertThat(simulator.getStatistics()).containsEntry("received", 1L);
+        verify(collectionLogService, times(METRIC_TYPES.size()))
+                .logCollection(eq(1L), anyString(), argThat(CollectionResult::isSuccess));
+    }
+
+    @Test
+    void sequentialTaskAlsoBatchesPerDevice() {
+        CollectionTask task = task(1);
+        when(taskRepository.findById(task.getId())).thenReturn(Optional.of(task));
+        when(taskDeviceResolver.resolve(task)).thenReturn(List.of(device()));
+
+        service.executeTask(task.getId());
+
+        assertThat(simulator.getStatistics()).containsEntry("received", 1L);
+        verify(collectionLogService, never()).logCollection(any(), anyString(), argThat(r -> !r.isSuccess()));
+    }
+
+    @Test
+    void cronScheduleIsCompiledOncePerTask() {
+        CollectionTask task = task(1);
+        task.setScheduleType("CRON");
+        task.setScheduleConfig(new HashMap<>(Map.of("cronExpression", "0 */5 * * * ?")));
+        when(taskRepository.findById(task.getId())).thenReturn(Optional.of(task));
+        when(taskDeviceResolver.resolve(task)).thenReturn(List.of());
+
+        try (MockedStatic<CronSchedule> cron = mockStatic(CronSchedule.class, CALLS_REAL_METHODS)) {
+            service.executeTask(task.getId());
+            service.executeTask(task.getId());
+            service.executeTask(task.getId());
+            cron.verify(() -> CronSchedule.compile(anyString(), any()), times(1));
+
+            // 表达式变化后重新编译
+            task.getScheduleConfig().put("cronExpression", "0 0 * * * ?");
+            service.executeTask(task.getId());
+            cron.verify(() -> CronSchedule.compile(anyString(), any()), times(2));
+
+            // 删除任务后移除缓存
+            task.setStatus(0);
+            service.deleteTask(task.getId());
+            task.setStatus(1);
+            service.executeTask(task.getId());
+            cron.verify(() -> CronSchedule.compile(anyString(), any()), times(3));
+        }
+    }
+
+    private static CollectionTask task(int maxConcurrency) {
+        CollectionTask task = new CollectionTask();
+        task.setId(100L + maxConcurrency);
+        task.setName("snmp-task");
+        task.setStatus(1);
+        task.setIsEnabled(true);
+        task.setMaxConcurrency(maxConcurrency);
+        task.setTimeout(30);
+        task.setMetricsConfig(METRIC_TYPES.stream()
+                .map(type -> MetricConfig.builder()
+                        .metricName(type)
+                        .metricType(type)
+                        .pluginType("SNMP")
+                        .parameters(new HashMap<>())
+                        .build())
+                .toList());
+        return task;
+    }
+
+    private Device device() {
+        DeviceType deviceType = new DeviceType();
+        deviceType.setCode("snmp-simulator");
+        deviceType.setProtocols(List.of("SNMP"));
+
+        Device device = new Device();
+        device.setId(1L);
+        device.setIpAddress("127.0.0.1");
+        device.setPort(simulator.getPort(0));
+        device.setProtocol("SNMP");
+        device.setDeviceType(deviceType);
+        return device;
+    }
+}
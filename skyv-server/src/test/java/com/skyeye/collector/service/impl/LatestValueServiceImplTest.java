@@ -0,0 +1,98 @@
+package com.skyeye.collector.service.impl;
+
+import com.skyeye.collector.entity.CollectionData;
+import com.skyeye.collector.latest.LatestValueRedisReplicator;
+import com.skyeye.collector.latest.LatestValueStore;
+import com.skyeye.collector.repository.CollectionDataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LatestValueServiceImplTest {
+
+    private LatestValueStore store;
+
+    private CollectionDataRepository repository;
+
+    private LatestValueServiceImpl service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        store = new LatestValueStore(64);
+        repository = mock(CollectionDataRepository.class);
+        when(repository.findByDeviceIdOrderByCollectedAtDesc(any(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of()));
+        ObjectProvider<LatestValueRedisReplicator> replicatorProvider = mock(ObjectProvider.class);
+        service = new LatestValueServiceImpl(store, repository, replicatorProvider);
+        ReflectionTestUtils.setField(service, "warmupRows", 200);
+        ReflectionTestUtils.setField(service, "warmupRetrySeconds", 300L);
+    }
+
+    @Test
+    void deviceWithoutDataIsWarmedOncePerRetryInterval() {
+        assertThat(service.getDeviceLatestValues(1L)).isEmpty();
+        assertThat(service.getDeviceLatestValues(1L)).isEmpty();
+        assertThat(service.getLatestValue(1L, "cpu_usage")).isNull();
+        verify(repository, times(1)).findByDeviceIdOrderByCollectedAtDesc(eq(1L), any(Pageable.class));
+
+        // 过期记录被清理，之后再次预热
+        ReflectionTestUtils.setField(service, "warmupRetrySeconds", 0L);
+        service.purgeWarmedDevices();
+        assertThat(warmedDevices()).isEmpty();
+        service.getDeviceLatestValues(1L);
+        verify(repository, times(2)).findByDeviceIdOrderByCollectedAtDesc(eq(1L), any(Pageable.class));
+    }
+
+    @Test
+    void purgeKeepsRecentEntries() {
+        for (long deviceId = 1; deviceId <= 100; deviceId++) {
+            service.getDeviceLatestValues(deviceId);
+        }
+        service.purgeWarmedDevices();
+
+        assertThat(warmedDevices()).hasSize(100);
+    }
+
+    @Test
+    void missingMetricOfKnownDeviceDoesNotHitDatabase() {
+        store.update(2L, "cpu_usage", 42.0, null, System.currentTimeMillis(), 100);
+
+        assertThat(service.getLatestValue(2L, "mem_usage")).isNull();
+        assertThat(service.getLatestValue(2L, "cpu_usage").getValue()).isEqualTo(42.0);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void warmUpLoadsLatestRowsFromDatabase() {
+        CollectionData data = new CollectionData();
+        data.setDeviceId(3L);
+        data.setMetricName("cpu_usage");
+        data.setMetricValue(new BigDecimal("12.5"));
+        data.setCollectedAt(new Timestamp(System.currentTimeMillis()));
+        when(repository.findByDeviceIdOrderByCollectedAtDesc(eq(3L), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(data)));
+
+        assertThat(service.getDeviceLatestValues(3L)).singleElement()
+                .satisfies(value -> assertThat(value.getValue()).isEqualTo(12.5));
+        assertThat(store.hasDevice(3L)).isTrue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, Long> warmedDevices() {
+        return (Map<Long, Long>) ReflectionTestUtils.getField(service, "warmedDevices");
+    }
+}
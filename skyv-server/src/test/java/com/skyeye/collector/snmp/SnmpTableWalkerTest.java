@@ -0,0 +1,167 @@
+package com.skyeye.collector.snmp;
+
+import com.skyeye.collector.config.SnmpConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.snmp4j.CommunityTarget;
+import org.snmp4j.PDU;
+import org.snmp4j.event.ResponseEvent;
+import org.snmp4j.mp.SnmpConstants;
+import org.snmp4j.smi.GenericAddress;
+import org.snmp4j.smi.Integer32;
+import org.snmp4j.smi.Null;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.Variable;
+import org.snmp4j.smi.VariableBinding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SnmpTableWalkerTest {
+
+    private static final OID IF_DESCR = new OID("1.3.6.1.2.1.2.2.1.2");
+
+    private static final OID IF_SPEED = new OID("1.3.6.1.2.1.2.2.1.5");
+
+    private static final OID IF_PHYS_ADDRESS = new OID("1.3.6.1.2.1.2.2.1.6");
+
+    private AsyncSnmpEngine snmpEngine;
+
+    private SnmpTableWalker walker;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        snmpEngine = mock(AsyncSnmpEngine.class);
+        walker = new SnmpTableWalker(snmpEngine, new SnmpConfig());
+    }
+
+    @Test
+    void stopsWhenColumnsLeaveTheirSubtree() throws Exception {
+        // 表后面还有其他列，GETBULK会越过本列子树
+        NavigableMap<OID, Variable> mib = interfaceTable(3);
+        mib.put(new OID(IF_PHYS_ADDRESS).append(1), new OctetString("00:11"));
+        respondFrom(mib);
+
+        List<SnmpTableRow> rows = new ArrayList<>();
+        int count = walk(List.of(IF_DESCR, IF_SPEED), 2, rows);
+
+        assertThat(count).isEqualTo(3);
+        assertThat(rows).extracting(row -> row.getIndex().toDottedString()).containsExactly("1", "2", "3");
+        assertThat(rows).extracting(row -> row.getText(0)).containsExactly("eth1", "eth2", "eth3");
+        assertThat(rows).extracting(row -> row.getLong(1)).containsExactly(1000L, 2000L, 3000L);
+    }
+
+    @Test
+    void stopsAtEndOfMibView() throws Exception {
+        // 表位于MIB末尾，设备返回endOfMibView
+        respondFrom(interfaceTable(5));
+
+        List<SnmpTableRow> rows = new ArrayList<>();
+        int count = walk(List.of(IF_DESCR, IF_SPEED), 4, rows);
+
+        assertThat(count).isEqualTo(5);
+        assertThat(rows).extracting(row -> row.getText(0))
+                .containsExactly("eth1", "eth2", "eth3", "eth4", "eth5");
+        assertThat(requests.get()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void stopsWhenOidDoesNotIncrease() throws Exception {
+        // 实现有误的设备总是返回同一行
+        OID stuck = new OID(IF_DESCR).append(7);
+        respond(request -> {
+            PDU response = new PDU();
+            response.setType(PDU.RESPONSE);
+            for (int i = 0; i < request.getMaxRepetitions(); i++) {
+                response.add(new VariableBinding(stuck, new OctetString("eth7")));
+            }
+            return response;
+        });
+
+        List<SnmpTableRow> rows = new ArrayList<>();
+        int count = walk(List.of(IF_DESCR), 10, rows);
+
+        assertThat(count).isEqualTo(1);
+        assertThat(rows.get(0).getIndex()).isEqualTo(new OID("7"));
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void sparseColumnEndsIndependently() throws Exception {
+        // ifSpeed只有第1行，第2、3行该列为null
+        NavigableMap<OID, Variable> mib = interfaceTable(3);
+        mib.remove(new OID(IF_SPEED).append(2));
+        mib.remove(new OID(IF_SPEED).append(3));
+        respondFrom(mib);
+
+        List<SnmpTableRow> rows = new ArrayList<>();
+        walk(List.of(IF_DESCR, IF_SPEED), 1, rows);
+
+        assertThat(rows).extracting(row -> row.getText(0)).containsExactly("eth1", "eth2", "eth3");
+        assertThat(rows).extracting(row -> row.getLong(1)).containsExactly(1000L, null, null);
+    }
+
+    private int walk(List<OID> columns, int maxRepetitions, List<SnmpTableRow> rows) throws Exception {
+        CommunityTarget<?> target = new CommunityTarget<>(GenericAddress.parse("udp:127.0.0.1/161"),
+                new OctetString("public"));
+        target.setVersion(SnmpConstants.version2c);
+        return walker.walk(target, columns, maxRepetitions, rows::add).get(5, TimeUnit.SECONDS);
+    }
+
+    private static NavigableMap<OID, Variable> interfaceTable(int rows) {
+        NavigableMap<OID, Variable> mib = new TreeMap<>();
+        for (int i = 1; i <= rows; i++) {
+            mib.put(new OID(IF_DESCR).append(i), new OctetString("eth" + i));
+            mib.put(new OID(IF_SPEED).append(i), new Integer32(i * 1000));
+        }
+        return mib;
+    }
+
+    /**
+     * 按GETBULK语义应答：每轮为每个请求变量返回其后继OID，MIB末尾返回endOfMibView
+     */
+    private void respondFrom(NavigableMap<OID, Variable> mib) {
+        respond(request -> {
+            PDU response = new PDU();
+            response.setType(PDU.RESPONSE);
+            OID[] cursors = request.getVariableBindings().stream().map(VariableBinding::getOid).toArray(OID[]::new);
+            for (int r = 0; r < request.getMaxRepetitions(); r++) {
+                for (int c = 0; c < cursors.length; c++) {
+                    Map.Entry<OID, Variable> next = mib.higherEntry(cursors[c]);
+                    if (next == null) {
+                        response.add(new VariableBinding(cursors[c], Null.endOfMibView));
+                    } else {
+                        response.add(new VariableBinding(next.getKey(), next.getValue()));
+                        cursors[c] = next.getKey();
+                    }
+                }
+            }
+            return response;
+        });
+    }
+
+    private void respond(Function<PDU, PDU> agent) {
+        when(snmpEngine.send(any(), any())).thenAnswer(invocation -> {
+            requests.incrementAndGet();
+            PDU request = invocation.getArgument(0);
+            assertThat(request.getType()).isEqualTo(PDU.GETBULK);
+            ResponseEvent<?> event = new ResponseEvent<>(this, null, request, agent.apply(request), null);
+            return CompletableFuture.completedFuture(event);
+        });
+    }
+}
@@ -0,0 +1,119 @@
+package com.skyeye.collector.snmp;
+
+import com.skyeye.collector.snmp.SnmpSessionPool.DeviceSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.snmp4j.Snmp;
+import org.snmp4j.UserTarget;
+import org.snmp4j.mp.MPv3;
+import org.snmp4j.security.AuthSHA;
+import org.snmp4j.security.PrivAES128;
+import org.snmp4j.security.SecurityProtocols;
+import org.snmp4j.security.USM;
+import org.snmp4j.security.UsmUser;
+import org.snmp4j.smi.GenericAddress;
+import org.snmp4j.smi.OctetString;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UsmSecurityCacheTest {
+
+    private static final OctetString USER = new OctetString("monitor");
+
+    private static final OctetString ENGINE_A = OctetString.fromHexString("80:00:1f:88:80:01:02:03:04");
+
+    private static final OctetString ENGINE_B = OctetString.fromHexString("80:00:1f:88:80:0a:0b:0c:0d");
+
+    private USM usm;
+
+    private UsmSecurityCache cache;
+
+    private Snmp snmp;
+
+    @BeforeEach
+    void setUp() {
+        SecurityProtocols protocols = SecurityProtocols.getInstance().addDefaultProtocols();
+        protocols.addAuthenticationProtocol(new AuthSHA());
+        usm = new USM(protocols, new OctetString(MPv3.createLocalEngineID()), 0);
+        cache = new UsmSecurityCache(usm, 60_000, Runnable::run);
+        snmp = new Snmp();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        snmp.close();
+    }
+
+    @Test
+    void engineChangeAfterInvalidateRemovesOldLocalizedUsers() {
+        DeviceSession session = newPool(10).acquire(GenericAddress.parse("udp:10.0.0.1/161"));
+        cache.addUser(session, user());
+
+        prepare(session, ENGINE_A);
+        session.engineId = ENGINE_A;
+        assertThat(usm.hasUser(ENGINE_A, USER)).isTrue();
+
+        cache.invalidate(session, snmp);
+        prepare(session, ENGINE_B);
+
+        assertThat(usm.hasUser(ENGINE_A, USER)).isFalse();
+        assertThat(usm.hasUser(ENGINE_B, USER)).isTrue();
+        assertThat(cache.getStatistics()).containsEntry("usmUsers", 1);
+    }
+
+    @Test
+    void invalidatedSessionReleasesUsersOnLruEviction() {
+        SnmpSessionPool pool = newPool(1, 60_000);
+        DeviceSession first = pool.acquire(GenericAddress.parse("udp:10.0.0.1/161"));
+        localizeAndInvalidate(first, ENGINE_A);
+        assertThat(cache.getStatistics()).containsEntry("usmUsers", 1);
+
+        // 超出上限，最久未访问的会话被淘汰
+        pool.acquire(GenericAddress.parse("udp:10.0.0.2/161"));
+
+        assertThat(usm.hasUser(ENGINE_A, USER)).isFalse();
+        assertThat(cache.getStatistics()).containsEntry("usmUsers", 0);
+    }
+
+    @Test
+    void invalidatedSessionsReleaseUsersOnIdleEviction() {
+        // 空闲期限为负，全部会话都视为空闲
+        SnmpSessionPool pool = newPool(10, -1);
+        localizeAndInvalidate(pool.acquire(GenericAddress.parse("udp:10.0.0.1/161")), ENGINE_A);
+        localizeAndInvalidate(pool.acquire(GenericAddress.parse("udp:10.0.0.2/161")), ENGINE_B);
+        assertThat(cache.getStatistics()).containsEntry("usmUsers", 2);
+
+        assertThat(pool.evictIdle()).isEqualTo(2);
+        assertThat(cache.getStatistics()).containsEntry("usmUsers", 0);
+    }
+
+    private SnmpSessionPool newPool(int maxSessions) {
+        return newPool(maxSessions, 60_000);
+    }
+
+    private SnmpSessionPool newPool(int maxSessions, long idleTimeoutMillis) {
+        return new SnmpSessionPool(maxSessions, idleTimeoutMillis, cache::release);
+    }
+
+    private void localizeAndInvalidate(DeviceSession session, OctetString engineId) {
+        cache.addUser(session, user());
+        prepare(session, engineId);
+        session.engineId = engineId;
+        cache.invalidate(session, snmp);
+    }
+
+    private void prepare(DeviceSession session, OctetString engineId) {
+        UserTarget<?> target = new UserTarget<>();
+        target.setSecurityName(USER);
+        target.setAuthoritativeEngineID(engineId.getValue());
+        cache.prepare(target, session, snmp).join();
+    }
+
+    private static UsmUser user() {
+        return new UsmUser(USER, AuthSHA.ID, new OctetString("auth-passphrase"),
+                PrivAES128.ID, new OctetString("priv-passphrase"));
+    }
+}
@@ -0,0 +1,216 @@
+package com.skyeye.collector.snmp.simulator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.snmp4j.smi.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * 模拟代理的MIB
+ * <p>
+ * 全部代理共享同一份只读的OID → 值模板，按代理动态生成随时间变化的值：
+ * sysUpTime 从代理启动开始计时，Counter32/Counter64 按每个代理不同的速率递增（Counter32会回绕），
+ * 其余值直接返回模板。千级代理也只占用一份模板内存。
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+public final class SimulatedMib {
+
+    private static final OID SYS_UP_TIME = new OID("1.3.6.1.2.1.1.3.0");
+
+    private static final long COUNTER32_RANGE = 1L << 32;
+
+    private final NavigableMap<OID, Variable> template;
+
+    private SimulatedMib(NavigableMap<OID, Variable> template) {
+        this.template = Collections.unmodifiableNavigableMap(template);
+    }
+
+    /**
+     * 模板中的OID数量
+     */
+    public int size() {
+        return template.size();
+    }
+
+    /**
+     * GET：返回OID对应的值，不存在时返回null
+     */
+    public VariableBinding get(OID oid, int agentIndex, long uptimeMillis) {
+        Variable value = template.get(oid);
+        return value != null ? new VariableBinding(oid, valueOf(oid, value, agentIndex, uptimeMillis)) : null;
+    }
+
+    /**
+     * GETNEXT：返回字典序下一个OID及其值，到达MIB末尾时返回null
+     */
+    public VariableBinding next(OID oid, int agentIndex, long uptimeMillis) {
+        Map.Entry<OID, Variable> entry = template.higherEntry(oid);
+        if (entry == null) {
+            return null;
+        }
+        return new VariableBinding(entry.getKey(), valueOf(entry.getKey(), entry.getValue(), agentIndex, uptimeMillis));
+    }
+
+    private static Variable valueOf(OID oid, Variable value, int agentIndex, long uptimeMillis) {
+        if (SYS_UP_TIME.equals(oid)) {
+            return new TimeTicks(uptimeMillis / 10);
+        }
+        if (value instanceof Counter32 || value instanceof Counter64) {
+            // 每个代理、每个计数器的速率不同，约 1K ~ 1M 每秒
+            long perSecond = 1000L * (1 + Math.floorMod(oid.hashCode() * 31 + agentIndex, 1000));
+            long current = value.toLong() + perSecond * uptimeMillis / 1000;
+            return value instanceof Counter32 ? new Counter32(current % COUNTER32_RANGE) : new Counter64(current);
+        }
+        return value;
+    }
+
+    /**
+     * 生成合成MIB：system、interfaces/ifXTable、hrStorage、hrProcessor 以及UCD内存/CPU标量，
+     * 覆盖SNMP采集插件的全部内置指标
+     */
+    public static SimulatedMib synthetic(int interfaceCount, int storageCount, int processorCount) {
+        NavigableMap<OID, Variable> mib = new TreeMap<>();
+        put(mib, "1.3.6.1.2.1.1.1.0", new OctetString("SkyEye SNMP Simulator"));
+        put(mib, "1.3.6.1.2.1.1.2.0", new OID("1.3.6.1.4.1.8072.3.2.10"));
+        put(mib, "1.3.6.1.2.1.1.3.0", new TimeTicks(0));
+        put(mib, "1.3.6.1.2.1.1.4.0", new OctetString("noc@skyeye.local"));
+        put(mib, "1.3.6.1.2.1.1.5.0", new OctetString("simulator"));
+        put(mib, "1.3.6.1.2.1.1.6.0", new OctetString("lab"));
+        put(mib, "1.3.6.1.2.1.2.1.0", new Integer32(interfaceCount));
+
+        for (int i = 1; i <= interfaceCount; i++) {
+            String ifEntry = "1.3.6.1.2.1.2.2.1.";
+            String ifXEntry = "1.3.6.1.2.1.31.1.1.1.";
+            put(mib, ifEntry + "1." + i, new Integer32(i));
+            put(mib, ifEntry + "2." + i, new OctetString("GigabitEthernet0/" + i));
+            put(mib, ifEntry + "3." + i, new Integer32(6));
+            put(mib, ifEntry + "4." + i, new Integer32(1500));
+            put(mib, ifEntry + "5." + i, new Gauge32(1_000_000_000L));
+            put(mib, ifEntry + "7." + i, new Integer32(1));
+            put(mib, ifEntry + "8." + i, new Integer32(i % 10 == 0 ? 2 : 1));
+            put(mib, ifEntry + "10." + i, new Counter32(0));
+            put(mib, ifEntry + "11." + i, new Counter32(0));
+            put(mib, ifEntry + "14." + i, new Counter32(0));
+            put(mib, ifEntry + "16." + i, new Counter32(0));
+            put(mib, ifEntry + "17." + i, new Counter32(0));
+            put(mib, ifEntry + "20." + i, new Counter32(0));
+            put(mib, ifXEntry + "1." + i, new OctetString("Gi0/" + i));
+            put(mib, ifXEntry + "6." + i, new Counter64(0));
+            put(mib, ifXEntry + "10." + i, new Counter64(0));
+            put(mib, ifXEntry + "15." + i, new Gauge32(1000));
+            put(mib, ifXEntry + "18." + i, new OctetString("uplink-" + i));
+        }
+
+        for (int i = 1; i <= storageCount; i++) {
+            String entry = "1.3.6.1.2.1.25.2.3.1.";
+            put(mib, entry + "1." + i, new Integer32(i));
+            put(mib, entry + "2." + i, new OID("1.3.6.1.2.1.25.2.1.4"));
+            put(mib, entry + "3." + i, new OctetString("/data" + i));
+            put(mib, entry + "4." + i, new Integer32(4096));
+            put(mib, entry + "5." + i, new Integer32(26_214_400));
+            put(mib, entry + "6." + i, new Integer32(2_621_440 * i % 26_214_400));
+        }
+
+        for (int i = 1; i <= processorCount; i++) {
+            put(mib, "1.3.6.1.2.1.25.3.2.1.1." + (768 + i), new Integer32(768 + i));
+            put(mib, "1.3.6.1.2.1.25.3.3.1.2." + (768 + i), new Integer32(10 + 7 * i % 80));
+        }
+
+        put(mib, "1.3.6.1.4.1.2021.4.5.0", new Integer32(16_777_216));
+        put(mib, "1.3.6.1.4.1.2021.4.6.0", new Integer32(8_388_608));
+        put(mib, "1.3.6.1.4.1.2021.11.9.0", new Integer32(75));
+        return new SimulatedMib(mib);
+    }
+
+    /**
+     * 从 snmpwalk -On 输出加载MIB，例如：
+     * <pre>
+     * .1.3.6.1.2.1.1.1.0 = STRING: "Linux router"
+     * .1.3.6.1.2.1.2.2.1.10.1 = Counter32: 123456
+     * </pre>
+     * 无法识别的行跳过。
+     */
+    public static SimulatedMib load(Path walkFile) throws IOException {
+        NavigableMap<OID, Variable> mib = new TreeMap<>();
+        int skipped = 0;
+        for (String line : Files.readAllLines(walkFile, StandardCharsets.UTF_8)) {
+            int eq = line.indexOf(" = ");
+            if (eq <= 0) {
+                continue;
+            }
+            String oid = line.substring(0, eq).trim();
+            if (oid.startsWith(".")) {
+                oid = oid.substring(1);
+            }
+            Variable value;
+            try {
+                value = parseValue(line.substring(eq + 3).trim());
+            } catch (RuntimeException e) {
+                value = null;
+            }
+            if (value == null || !oid.matches("^(\\d+\\.)*\\d+$")) {
+                skipped++;
+                continue;
+            }
+            mib.put(new OID(oid), value);
+        }
+        if (mib.isEmpty()) {
+            throw new IOException("walk文件中没有可识别的OID: " + walkFile);
+        }
+        log.info("加载SNMP walk文件: file={}, oids={}, skipped={}", walkFile, mib.size(), skipped);
+        return new SimulatedMib(mib);
+    }
+
+    private static Variable parseValue(String text) {
+        int colon = text.indexOf(": ");
+        if (colon < 0) {
+            // 如 "" 或 No more variables
+            return text.startsWith("\"") ? new OctetString(unquote(text)) : null;
+        }
+        String type = text.substring(0, colon);
+        String value = text.substring(colon + 2).trim();
+        switch (type) {
+            case "STRING":
+                return new OctetString(unquote(value));
+            case "Hex-STRING":
+                return OctetString.fromHexString(value.replace(" ", ""));
+            case "INTEGER":
+                // 枚举值形如 up(1)
+                int paren = value.indexOf('(');
+                return new Integer32(Integer.parseInt(paren >= 0 ?
+                        value.substring(paren + 1, value.indexOf(')')) : value));
+            case "Gauge32":
+                return new Gauge32(Long.parseLong(value));
+            case "Counter32":
+                return new Counter32(Long.parseLong(value));
+            case "Counter64":
+                return new Counter64(Long.parseUnsignedLong(value));
+            case "Timeticks":
+                // 形如 (12345) 0:02:03.45
+                return new TimeTicks(Long.parseLong(value.substring(value.indexOf('(') + 1, value.indexOf(')'))));
+            case "OID":
+                return new OID(value.startsWith(".") ? value.substring(1) : value);
+            case "IpAddress":
+                return new IpAddress(value);
+            default:
+                return null;
+        }
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    private static void put(NavigableMap<OID, Variable> mib, String oid, Variable value) {
+        mib.put(new OID(oid), value);
+    }
+}
@@ -0,0 +1,72 @@
+package com.skyeye.collector.snmp.simulator;
+
+import lombok.Data;
+
+/**
+ * SNMP代理模拟器配置
+ *
+ * @author SkyEye Team
+ */
+@Data
+public class SimulatorConfig {
+
+    /**
+     * 模拟的代理数量，每个代理监听一个端口
+     */
+    private int agentCount = 1000;
+
+    /**
+     * 监听地址
+     */
+    private String bindAddress = "127.0.0.1";
+
+    /**
+     * 起始端口，代理依次监听 basePort ~ basePort + agentCount - 1
+     */
+    private int basePort = 20000;
+
+    /**
+     * 社区字符串
+     */
+    private String community = "public";
+
+    /**
+     * snmpwalk -On 输出文件，为空时生成合成MIB
+     */
+    private String walkFile;
+
+    /**
+     * 合成MIB的接口数
+     */
+    private int interfaceCount = 24;
+
+    /**
+     * 合成MIB的存储数
+     */
+    private int storageCount = 4;
+
+    /**
+     * 合成MIB的处理器数
+     */
+    private int processorCount = 4;
+
+    /**
+     * 响应延迟（毫秒）
+     */
+    private int latencyMs = 0;
+
+    /**
+     * 响应延迟的随机抖动（毫秒）
+     */
+    private int latencyJitterMs = 0;
+
+    /**
+     * 请求丢弃比例（0~1）
+     */
+    private double lossRate = 0.0;
+
+    /**
+     * 处理请求的线程数
+     */
+    private int workerThreads = 4;
+}
@@ -0,0 +1,477 @@
+package com.skyeye.collector.snmp.simulator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.snmp4j.*;
+import org.snmp4j.mp.MPv1;
+import org.snmp4j.mp.MPv2c;
+import org.snmp4j.mp.StatusInformation;
+import org.snmp4j.security.SecurityLevel;
+import org.snmp4j.smi.*;
+import org.snmp4j.transport.AbstractTransportMapping;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地SNMP代理模拟器
+ * <p>
+ * 在回环地址的连续端口上模拟大量SNMPv1/v2c代理，用于在没有真实设备的环境中压测SNMP采集链路。
+ * 全部端口注册到同一个NIO Selector，由一个接收线程读取，按配置丢弃请求或延迟后交给工作线程，
+ * 工作线程通过SNMP4J的消息分发器解码请求、查询 {@link SimulatedMib} 并返回响应。
+ * 支持 GET、GETNEXT、GETBULK；代理数量只受端口和文件句柄数限制，不会为每个代理创建线程。
+ * <p>
+ * 由 {@link SnmpLoadTest} 驱动采集链路压测，也可以在测试类路径上独立运行：
+ * <pre>
+ * java -cp target/test-classes:target/classes:&lt;依赖&gt; com.skyeye.collector.snmp.simulator.SnmpAgentSimulator agents=2000 basePort=20000 latencyMs=5 lossRate=0.01
+ * </pre>
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+public class SnmpAgentSimulator {
+
+    private static final int MAX_DATAGRAM_SIZE = 65535;
+
+    private final SimulatorConfig config;
+
+    private final SimulatedMib mib;
+
+    private final OctetString community;
+
+    private final List<AgentTransport> transports = new ArrayList<>();
+
+    private final AtomicLong receivedRequests = new AtomicLong(0);
+
+    private final AtomicLong droppedRequests = new AtomicLong(0);
+
+    private final AtomicLong respondedRequests = new AtomicLong(0);
+
+    private final AtomicLong rejectedRequests = new AtomicLong(0);
+
+    private MessageDispatcherImpl dispatcher;
+
+    private Selector selector;
+
+    private Thread receiverThread;
+
+    private ScheduledThreadPoolExecutor workers;
+
+    private volatile boolean running;
+
+    private long startMillis;
+
+    public SnmpAgentSimulator(SimulatorConfig config, SimulatedMib mib) {
+        this.config = config;
+        this.mib = mib;
+        this.community = new OctetString(config.getCommunity());
+    }
+
+    /**
+     * 按配置创建MIB：配置了walk文件时加载文件，否则生成合成MIB
+     */
+    public static SimulatedMib createMib(SimulatorConfig config) throws IOException {
+        if (config.getWalkFile() != null && !config.getWalkFile().isBlank()) {
+            return SimulatedMib.load(Path.of(config.getWalkFile()));
+        }
+        return SimulatedMib.synthetic(config.getInterfaceCount(), config.getStorageCount(), config.getProcessorCount());
+    }
+
+    /**
+     * 启动全部代理
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        dispatcher = new MessageDispatcherImpl();
+        dispatcher.addMessageProcessingModel(new MPv1());
+        dispatcher.addMessageProcessingModel(new MPv2c());
+        dispatcher.addCommandResponder(new AgentResponder());
+
+        AtomicInteger threadIndex = new AtomicInteger(0);
+        workers = new ScheduledThreadPoolExecutor(Math.max(1, config.getWorkerThreads()), r -> {
+            Thread thread = new Thread(r, "snmp-simulator-worker-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        workers.setRemoveOnCancelPolicy(true);
+
+        selector = Selector.open();
+        InetAddress bindAddress = InetAddress.getByName(config.getBindAddress());
+        try {
+            for (int i = 0; i < config.getAgentCount(); i++) {
+                int port = config.getBasePort() + i;
+                DatagramChannel channel = DatagramChannel.open();
+                channel.setOption(StandardSocketOptions.SO_RCVBUF, 256 * 1024);
+                channel.bind(new InetSocketAddress(bindAddress, port));
+                channel.configureBlocking(false);
+
+                AgentTransport transport = new AgentTransport(i, channel, new UdpAddress(bindAddress, port));
+                transport.addTransportListener(dispatcher);
+                channel.register(selector, SelectionKey.OP_READ, transport);
+                transports.add(transport);
+            }
+        } catch (IOException e) {
+            closeTransports();
+            selector.close();
+            workers.shutdownNow();
+            throw new IOException("启动SNMP模拟代理失败: port=" + (config.getBasePort() + transports.size())
+                    + ", " + e.getMessage(), e);
+        }
+
+        startMillis = System.currentTimeMillis();
+        running = true;
+        receiverThread = new Thread(this::receiveLoop, "snmp-simulator-receiver");
+        receiverThread.setDaemon(true);
+        receiverThread.start();
+
+        log.info("SNMP模拟代理已启动: agents={}, ports={}~{}, oids={}, latencyMs={}, lossRate={}",
+                transports.size(), config.getBasePort(), config.getBasePort() + transports.size() - 1,
+                mib.size(), config.getLatencyMs(), config.getLossRate());
+    }
+
+    /**
+     * 停止全部代理
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            receiverThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdownNow();
+        closeTransports();
+        try {
+            selector.close();
+        } catch (IOException e) {
+            log.warn("关闭Selector失败", e);
+        }
+        log.info("SNMP模拟代理已停止: received={}, responded={}, dropped={}",
+                receivedRequests.get(), respondedRequests.get(), droppedRequests.get());
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getAgentCount() {
+        return transports.size();
+    }
+
+    /**
+     * 第index个代理的端口
+     */
+    public int getPort(int index) {
+        return config.getBasePort() + index;
+    }
+
+    public SimulatorConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("running", running);
+        statistics.put("agents", transports.size());
+        statistics.put("basePort", config.getBasePort());
+        statistics.put("oids", mib.size());
+        statistics.put("received", receivedRequests.get());
+        statistics.put("responded", respondedRequests.get());
+        statistics.put("dropped", droppedRequests.get());
+        statistics.put("rejected", rejectedRequests.get());
+        statistics.put("pending", workers != null ? workers.getQueue().size() : 0);
+        return statistics;
+    }
+
+    private void receiveLoop() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_SIZE);
+        while (running) {
+            try {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid() && key.isReadable()) {
+                        drain((AgentTransport) key.attachment(), buffer);
+                    }
+                }
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("SNMP模拟代理接收失败: {}", e.getMessage());
+                }
+            } catch (ClosedSelectorException e) {
+                return;
+            }
+        }
+    }
+
+    private void drain(AgentTransport transport, ByteBuffer buffer) throws IOException {
+        InetSocketAddress from;
+        while (true) {
+            buffer.clear();
+            from = (InetSocketAddress) transport.channel.receive(buffer);
+            if (from == null) {
+                return;
+            }
+            receivedRequests.incrementAndGet();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (config.getLossRate() > 0 && random.nextDouble() < config.getLossRate()) {
+                droppedRequests.incrementAndGet();
+                continue;
+            }
+
+            buffer.flip();
+            ByteBuffer message = ByteBuffer.allocate(buffer.remaining());
+            message.put(buffer).flip();
+            UdpAddress peer = new UdpAddress(from.getAddress(), from.getPort());
+
+            long delay = config.getLatencyMs();
+            if (config.getLatencyJitterMs() > 0) {
+                delay += random.nextInt(config.getLatencyJitterMs() + 1);
+            }
+            try {
+                if (delay > 0) {
+                    workers.schedule(() -> transport.deliver(peer, message), delay, TimeUnit.MILLISECONDS);
+                } else {
+                    workers.execute(() -> transport.deliver(peer, message));
+                }
+            } catch (RejectedExecutionException e) {
+                rejectedRequests.incrementAndGet();
+            }
+        }
+    }
+
+    private void closeTransports() {
+        for (AgentTransport transport : transports) {
+            try {
+                transport.close();
+            } catch (IOException e) {
+                log.debug("关闭模拟代理端口失败: {}", transport.listenAddress);
+            }
+        }
+        transports.clear();
+    }
+
+    /**
+     * 代理请求处理
+     */
+    private final class AgentResponder implements CommandResponder {
+
+        @Override
+        public <A extends Address> void processPdu(CommandResponderEvent<A> event) {
+            if (!(event.getTransportMapping() instanceof AgentTransport transport)
+                    || !community.equals(new OctetString(event.getSecurityName()))) {
+                // 社区字符串错误时与真实代理一样不响应
+                return;
+            }
+            PDU request = event.getPDU();
+            long uptimeMillis = System.currentTimeMillis() - startMillis + transport.agentIndex * 1000L;
+            PDU response = switch (request.getType()) {
+                case PDU.GET -> respondGet(request, transport.agentIndex, uptimeMillis, false);
+                case PDU.GETNEXT -> respondGet(request, transport.agentIndex, uptimeMillis, true);
+                case PDU.GETBULK -> respondBulk(request, transport.agentIndex, uptimeMillis,
+                        event.getMaxSizeResponsePDU());
+                default -> null;
+            };
+            if (response == null) {
+                return;
+            }
+            if (response.getBERLength() > Math.min(event.getMaxSizeResponsePDU(), MAX_DATAGRAM_SIZE)) {
+                response = createResponse(request);
+                response.setErrorStatus(PDU.tooBig);
+            }
+
+            event.setProcessed(true);
+            try {
+                event.getMessageDispatcher().returnResponsePdu(event.getMessageProcessingModel(),
+                        event.getSecurityModel(), event.getSecurityName(), event.getSecurityLevel(), response,
+                        event.getMaxSizeResponsePDU(), event.getStateReference(), new StatusInformation());
+                respondedRequests.incrementAndGet();
+            } catch (MessageException e) {
+                log.debug("模拟代理发送响应失败: {}", e.getMessage());
+            }
+        }
+
+        private PDU respondGet(PDU request, int agentIndex, long uptimeMillis, boolean next) {
+            PDU response = createResponse(request);
+            boolean v1 = request instanceof PDUv1;
+            for (int i = 0; i < request.size(); i++) {
+                OID oid = request.get(i).getOid();
+                VariableBinding vb = next ? mib.next(oid, agentIndex, uptimeMillis) : mib.get(oid, agentIndex, uptimeMillis);
+                if (vb == null) {
+                    if (v1) {
+                        // SNMPv1没有异常值，原样返回请求并用noSuchName指出出错的变量
+                        response.setErrorStatus(PDU.noSuchName);
+                        response.setErrorIndex(i + 1);
+                        response.setVariableBindings(request.getVariableBindings());
+                        return response;
+                    }
+                    vb = new VariableBinding(oid, next ? Null.endOfMibView : Null.noSuchObject);
+                }
+                response.add(vb);
+            }
+            return response;
+        }
+
+        private PDU respondBulk(PDU request, int agentIndex, long uptimeMillis, int maxSizeResponsePDU) {
+            PDU response = createResponse(request);
+            int size = request.size();
+            int nonRepeaters = Math.max(0, Math.min(request.getNonRepeaters(), size));
+            int repeaters = size - nonRepeaters;
+            int maxSize = Math.min(maxSizeResponsePDU, MAX_DATAGRAM_SIZE) - 100;
+            int length = 0;
+
+            for (int i = 0; i < nonRepeaters; i++) {
+                OID oid = request.get(i).getOid();
+                VariableBinding vb = mib.next(oid, agentIndex, uptimeMillis);
+                response.add(vb != null ? vb : new VariableBinding(oid, Null.endOfMibView));
+                length += response.get(i).getBERLength();
+            }
+
+            OID[] cursors = new OID[repeaters];
+            for (int i = 0; i < repeaters; i++) {
+                cursors[i] = request.get(nonRepeaters + i).getOid();
+            }
+            for (int r = 0; r < request.getMaxRepetitions() && repeaters > 0; r++) {
+                boolean allEnded = true;
+                for (int i = 0; i < repeaters; i++) {
+                    VariableBinding vb = mib.next(cursors[i], agentIndex, uptimeMillis);
+                    if (vb == null) {
+                        vb = new VariableBinding(cursors[i], Null.endOfMibView);
+                    } else {
+                        cursors[i] = vb.getOid();
+                        allEnded = false;
+                    }
+                    length += vb.getBERLength();
+                    if (length > maxSize) {
+                        // 响应装不下时截断，调用方从最后返回的OID继续
+                        return response;
+                    }
+                    response.add(vb);
+                }
+                if (allEnded) {
+                    break;
+                }
+            }
+            return response;
+        }
+
+        private PDU createResponse(PDU request) {
+            PDU response = request instanceof PDUv1 ? new PDUv1() : new PDU();
+            response.setType(PDU.RESPONSE);
+            response.setRequestID(request.getRequestID());
+            return response;
+        }
+    }
+
+    /**
+     * 单个代理端口的传输映射，接收由模拟器的Selector线程完成，这里只负责交给消息分发器和发送响应
+     */
+    private static final class AgentTransport extends AbstractTransportMapping<UdpAddress> {
+
+        private final int agentIndex;
+
+        private final DatagramChannel channel;
+
+        private final UdpAddress listenAddress;
+
+        private AgentTransport(int agentIndex, DatagramChannel channel, UdpAddress listenAddress) {
+            this.agentIndex = agentIndex;
+            this.channel = channel;
+            this.listenAddress = listenAddress;
+        }
+
+        private void deliver(UdpAddress peer, ByteBuffer message) {
+            fireProcessMessage(peer, message, new TransportStateReference(this, peer, null,
+                    SecurityLevel.undefined, SecurityLevel.undefined, false, channel));
+        }
+
+        @Override
+        public Class<? extends Address> getSupportedAddressClass() {
+            return UdpAddress.class;
+        }
+
+        @Override
+        public void sendMessage(UdpAddress address, byte[] message, TransportStateReference tmStateReference,
+                                long timeoutMillis, int maxRetries) throws IOException {
+            channel.send(ByteBuffer.wrap(message), new InetSocketAddress(address.getInetAddress(), address.getPort()));
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        @Override
+        public void listen() {
+            // 接收由模拟器统一调度
+        }
+
+        @Override
+        public boolean isListening() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public UdpAddress getListenAddress() {
+            return listenAddress;
+        }
+    }
+
+    /**
+     * 独立运行：参数为 key=value 形式，键与 skyeye.collector.snmp.simulator 配置项相同（驼峰），
+     * 另支持 agents 作为 agentCount 的简写
+     */
+    public static void main(String[] args) throws Exception {
+        SimulatorConfig config = new SimulatorConfig();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("参数格式应为 key=value: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "agents", "agentCount" -> config.setAgentCount(Integer.parseInt(value));
+                case "bindAddress" -> config.setBindAddress(value);
+                case "basePort" -> config.setBasePort(Integer.parseInt(value));
+                case "community" -> config.setCommunity(value);
+                case "walkFile" -> config.setWalkFile(value);
+                case "interfaceCount" -> config.setInterfaceCount(Integer.parseInt(value));
+                case "storageCount" -> config.setStorageCount(Integer.parseInt(value));
+                case "processorCount" -> config.setProcessorCount(Integer.parseInt(value));
+                case "latencyMs" -> config.setLatencyMs(Integer.parseInt(value));
+                case "latencyJitterMs" -> config.setLatencyJitterMs(Integer.parseInt(value));
+                case "lossRate" -> config.setLossRate(Double.parseDouble(value));
+                case "workerThreads" -> config.setWorkerThreads(Integer.parseInt(value));
+                default -> throw new IllegalArgumentException("未知参数: " + key);
+            }
+        }
+
+        SnmpAgentSimulator simulator = new SnmpAgentSimulator(config, createMib(config));
+        simulator.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(simulator::stop, "snmp-simulator-shutdown"));
+        Thread.currentThread().join();
+    }
+}
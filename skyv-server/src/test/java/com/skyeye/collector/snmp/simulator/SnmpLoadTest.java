@@ -0,0 +1,248 @@
+package com.skyeye.collector.snmp.simulator;
+
+import com.skyeye.collector.config.PartitionConfig;
+import com.skyeye.collector.config.SnmpConfig;
+import com.skyeye.collector.dto.CollectionContext;
+import com.skyeye.collector.dto.CollectionResult;
+import com.skyeye.collector.dto.CollectorConfig;
+import com.skyeye.collector.dto.MetricConfig;
+import com.skyeye.collector.engine.CollectorEngine;
+import com.skyeye.collector.http.AsyncHttpEngine;
+import com.skyeye.collector.latest.LatestValueStore;
+import com.skyeye.collector.partition.CollectionDataPartitionManager;
+import com.skyeye.collector.plugin.impl.SnmpCollectorPlugin;
+import com.skyeye.collector.plugin.impl.SnmpCollectorPluginHelper;
+import com.skyeye.collector.rate.CounterRateCalculator;
+import com.skyeye.collector.registry.PluginRegistry;
+import com.skyeye.collector.repository.CollectionDataRepository;
+import com.skyeye.collector.rollup.CollectionDataRollupEngine;
+import com.skyeye.collector.service.CollectionLogService;
+import com.skyeye.collector.snmp.AsyncSnmpEngine;
+import com.skyeye.collector.snmp.SnmpTableWalker;
+import com.skyeye.collector.writer.CollectionDataWriter;
+import com.skyeye.collector.writer.CollectionLogWriter;
+import com.skyeye.device.cache.DecryptedCredentialCache;
+import com.skyeye.device.entity.Device;
+import com.skyeye.device.entity.DeviceType;
+import com.skyeye.device.service.DeviceCredentialService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * SNMP采集链路压测
+ * <p>
+ * 启动 {@link SnmpAgentSimulator}，把每个模拟代理当作一台SNMP设备，按轮次调用
+ * {@link CollectorEngine#executeBatchCollection}，与任务执行相同：每台设备一个虚拟线程，
+ * 指标按插件分组后交给真实的SNMP插件和 {@link AsyncSnmpEngine} 批量采集。
+ * 数据写入、最新值等落库环节使用模拟对象，统计每秒轮询数、单次轮询耗时分位数和线程使用情况。
+ * 默认规模很小，随单元测试运行验证链路可用；压测时通过系统属性放大，例如：
+ * <pre>
+ * mvn test -Dtest=SnmpLoadTest -Dsnmp.load.agents=5000 -Dsnmp.load.rounds=10 -Dsnmp.load.concurrency=2000
+ * </pre>
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+class SnmpLoadTest {
+
+    private static final int AGENTS = Integer.getInteger("snmp.load.agents", 20);
+    private static final int ROUNDS = Integer.getInteger("snmp.load.rounds", 3);
+    private static final int CONCURRENCY = Integer.getInteger("snmp.load.concurrency", 64);
+    private static final long INTERVAL_MS = Long.getLong("snmp.load.interval-ms", 0);
+    private static final int TIMEOUT_MS = Integer.getInteger("snmp.load.timeout-ms", 2000);
+    private static final int RETRIES = Integer.getInteger("snmp.load.retries", 1);
+    private static final int BASE_PORT = Integer.getInteger("snmp.load.base-port", 39000);
+    private static final int LATENCY_MS = Integer.getInteger("snmp.load.latency-ms", 0);
+    private static final List<String> METRIC_TYPES = List.of(
+            System.getProperty("snmp.load.metrics", "system_info,cpu_usage,interface_table").split(","));
+
+    private SimulatorConfig simulatorConfig;
+
+    private SnmpAgentSimulator simulator;
+
+    private AsyncSnmpEngine snmpEngine;
+
+    private SnmpCollectorPlugin plugin;
+
+    private CollectorEngine collectorEngine;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        simulatorConfig = new SimulatorConfig();
+        simulatorConfig.setAgentCount(AGENTS);
+        simulatorConfig.setBasePort(BASE_PORT);
+        simulatorConfig.setLatencyMs(LATENCY_MS);
+        simulator = new SnmpAgentSimulator(simulatorConfig, SnmpAgentSimulator.createMib(simulatorConfig));
+        simulator.start();
+
+        SnmpConfig snmpConfig = new SnmpConfig();
+        snmpEngine = new AsyncSnmpEngine(snmpConfig);
+        snmpEngine.start();
+        SnmpCollectorPluginHelper helper = new SnmpCollectorPluginHelper(snmpEngine,
+                new SnmpTableWalker(snmpEngine, snmpConfig), snmpConfig);
+        plugin = new SnmpCollectorPlugin(mock(DeviceCredentialService.class), helper, snmpEngine);
+        plugin.initialize(CollectorConfig.builder().name("snmp-load-test").build());
+
+        PluginRegistry pluginRegistry = mock(PluginRegistry.class);
+        when(pluginRegistry.getPlugin(anyString())).thenReturn(Optional.of(plugin));
+        when(pluginRegistry.getAllPlugins()).thenReturn(List.of(plugin));
+        collectorEngine = new CollectorEngine(pluginRegistry, mock(CollectionLogService.class),
+                mock(CollectionDataRepository.class), mock(CollectionDataWriter.class),
+                mock(CollectionLogWriter.class), mock(CollectionDataPartitionManager.class), new PartitionConfig(),
+                mock(CollectionDataRollupEngine.class), mock(LatestValueStore.class), snmpEngine,
+                mock(AsyncHttpEngine.class), mock(CounterRateCalculator.class),
+                mock(DecryptedCredentialCache.class), Runnable::run,
+                mock(PlatformTransactionManager.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        plugin.destroy();
+        snmpEngine.stop();
+        simulator.stop();
+    }
+
+    @Test
+    void pollsSimulatedAgents() throws Exception {
+        List<Device> devices = createDevices();
+        List<MetricConfig> metricConfigs = createMetricConfigs();
+        long[] latencies = new long[AGENTS * ROUNDS];
+        LongAdder failedMetrics = new LongAdder();
+        Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        Semaphore permits = new Semaphore(CONCURRENCY);
+
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        threadBean.resetPeakThreadCount();
+        int threadsBefore = threadBean.getThreadCount();
+
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            long roundStart = System.nanoTime();
+            CountDownLatch roundDone = new CountDownLatch(AGENTS);
+            for (int i = 0; i < AGENTS; i++) {
+                permits.acquire();
+                int slot = round * AGENTS + i;
+                Device device = devices.get(i);
+                CollectionContext context = createContext(simulator.getPort(i));
+                Thread.ofVirtual().name("snmp-load-", slot).start(() -> {
+                    long pollStart = System.nanoTime();
+                    try {
+                        for (CollectionResult result : collectorEngine.executeBatchCollection(device, metricConfigs, context)) {
+                            if (!result.isSuccess()) {
+                                failedMetrics.increment();
+                                String code = result.getErrorCode() != null ? result.getErrorCode() : "UNKNOWN";
+                                errors.computeIfAbsent(code, k -> new LongAdder()).increment();
+                            }
+                        }
+                    } catch (Exception e) {
+                        log.warn("SNMP轮询异常: device={}", device.getId(), e);
+                        failedMetrics.add(metricConfigs.size());
+                        errors.computeIfAbsent("EXECUTION_ERROR", k -> new LongAdder()).increment();
+                    } finally {
+                        latencies[slot] = System.nanoTime() - pollStart;
+                        permits.release();
+                        roundDone.countDown();
+                    }
+                });
+            }
+            assertThat(roundDone.await((long) TIMEOUT_MS * (RETRIES + 1) * AGENTS + 10_000, TimeUnit.MILLISECONDS))
+                    .isTrue();
+
+            long remaining = INTERVAL_MS - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - roundStart);
+            if (remaining > 0 && round < ROUNDS - 1) {
+                Thread.sleep(remaining);
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        log.info("SNMP压测完成: agents={}, rounds={}, metrics={}, polls={}, pollsPerSecond={}, "
+                        + "p50={}ms, p90={}ms, p99={}ms, max={}ms, threads={}→peak {}, failedMetrics={}, errors={}",
+                AGENTS, ROUNDS, METRIC_TYPES, latencies.length,
+                String.format("%.1f", latencies.length * 1_000_000_000.0 / elapsedNanos),
+                percentileMs(latencies, 0.50), percentileMs(latencies, 0.90), percentileMs(latencies, 0.99),
+                percentileMs(latencies, 1.0), threadsBefore, threadBean.getPeakThreadCount(),
+                failedMetrics.sum(), errors);
+        log.info("SNMP引擎统计: {}", snmpEngine.getStatistics());
+        log.info("模拟器统计: {}", simulator.getStatistics());
+
+        assertThat(failedMetrics.sum()).isZero();
+    }
+
+    private List<Device> createDevices() {
+        DeviceType deviceType = new DeviceType();
+        deviceType.setName("SNMP模拟设备");
+        deviceType.setCode("snmp-simulator");
+        deviceType.setProtocols(List.of("SNMP"));
+
+        List<Device> devices = new ArrayList<>(AGENTS);
+        for (int i = 0; i < AGENTS; i++) {
+            Device device = new Device();
+            device.setId(i + 1L);
+            device.setName("snmp-simulator-" + i);
+            device.setIpAddress(simulatorConfig.getBindAddress());
+            device.setPort(simulator.getPort(i));
+            device.setProtocol("SNMP");
+            device.setDeviceType(deviceType);
+            devices.add(device);
+        }
+        return devices;
+    }
+
+    private static List<MetricConfig> createMetricConfigs() {
+        List<MetricConfig> metricConfigs = new ArrayList<>(METRIC_TYPES.size());
+        for (String metricType : METRIC_TYPES) {
+            metricConfigs.add(MetricConfig.builder()
+                    .metricName(metricType.trim())
+                    .metricType(metricType.trim())
+                    .pluginType("SNMP")
+                    .parameters(new HashMap<>())
+                    .build());
+        }
+        return metricConfigs;
+    }
+
+    private CollectionContext createContext(int port) {
+        Map<String, Object> credentials = new HashMap<>();
+        credentials.put("version", "v2c");
+        credentials.put("community", simulatorConfig.getCommunity());
+        credentials.put("port", port);
+        credentials.put("timeout", TIMEOUT_MS);
+        credentials.put("retries", RETRIES);
+
+        return CollectionContext.builder()
+                .sessionId("snmp-load-test-" + port)
+                .startTime(LocalDateTime.now())
+                .credentials(credentials)
+                .parameters(new HashMap<>())
+                .sharedData(new HashMap<>())
+                .timeout((long) TIMEOUT_MS * (RETRIES + 1))
+                .build();
+    }
+
+    private static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,181 @@
+package com.skyeye.collector.writer;
+
+import com.skyeye.collector.config.BulkIngestConfig;
+import com.skyeye.collector.entity.CollectionData;
+import com.skyeye.collector.repository.CollectionDataBatchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 采集数据写入吞吐对比
+ * <p>
+ * 在已执行迁移脚本的PostgreSQL上分别用三种方式写入同一批采集数据，输出每秒行数：
+ * <ul>
+ *     <li>save：逐行INSERT并取回自增主键，与 CollectionDataRepository.save 的IDENTITY主键写法一致</li>
+ *     <li>batchInsert：{@link CollectionDataBatchRepository} 的JDBC批量INSERT（COPY失败时的回退路径）</li>
+ *     <li>copy：{@link PgCopyBulkWriter} 的二进制COPY</li>
+ * </ul>
+ * 每种方式在独立事务中执行后回滚，不在库中留下数据。需要数据库，指定连接后才运行，例如：
+ * <pre>
+ * mvn test -Dtest=BulkIngestThroughputTest -Dbulk.bench.url=jdbc:postgresql://localhost:5432/skyeye \
+ *     -Dbulk.bench.username=skyeye -Dbulk.bench.password=skyeye -Dbulk.bench.rows=50000
+ * </pre>
+ *
+ * @author SkyEye Team
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "bulk.bench.url", matches = ".+")
+class BulkIngestThroughputTest {
+
+    private static final int ROWS = Integer.getInteger("bulk.bench.rows", 20000);
+
+    private static final int BATCH_SIZE = Integer.getInteger("bulk.bench.batch-size", 1000);
+
+    private static final String SAVE_SQL = "INSERT INTO tb_collection_data ("
+            + "device_id, task_id, metric_name, metric_type, metric_value, metric_data, collected_at, "
+            + "quality_score, plugin_type, session_id, response_time, status, error_message, tags, "
+            + "data_version, expires_at, retention_class, created_at, updated_at"
+            + ") VALUES (?, ?, ?, ?, ?, CAST(? AS jsonb), ?, ?, ?, ?, ?, ?, ?, CAST(? AS jsonb), ?, ?, ?, ?, ?)";
+
+    private DriverManagerDataSource dataSource;
+
+    private TransactionTemplate transactionTemplate;
+
+    private List<CollectionData> rows;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(System.getProperty("bulk.bench.url"),
+                System.getProperty("bulk.bench.username", "skyeye"),
+                System.getProperty("bulk.bench.password", ""));
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        rows = createRows();
+    }
+
+    @Test
+    void copyWritesMoreRowsPerSecondThanSave() {
+        CollectionDataBatchRepository batchRepository = new CollectionDataBatchRepository(new JdbcTemplate(dataSource));
+        PgCopyBulkWriter copyWriter = new PgCopyBulkWriter(dataSource, new BulkIngestConfig());
+
+        double saveRate = rowsPerSecond("save", this::saveRowByRow);
+        double batchRate = rowsPerSecond("batchInsert", batch -> batchRepository.batchInsert(batch));
+        double copyRate = rowsPerSecond("copy", batch -> {
+            try {
+                copyWriter.copyCollectionData(batch);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        log.info("采集数据写入吞吐: rows={}, batchSize={}, save={}/s, batchInsert={}/s, copy={}/s, copy/save={}x",
+                ROWS, BATCH_SIZE, format(saveRate), format(batchRate), format(copyRate), format(copyRate / saveRate));
+        assertThat(copyRate).isGreaterThan(saveRate);
+    }
+
+    /**
+     * 按批次写入全部行，在同一事务中计时后回滚
+     */
+    private double rowsPerSecond(String name, BatchWriter writer) {
+        long[] elapsed = new long[1];
+        transactionTemplate.executeWithoutResult(status -> {
+            long start = System.nanoTime();
+            for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+                writer.write(rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+            }
+            elapsed[0] = System.nanoTime() - start;
+            status.setRollbackOnly();
+        });
+        double rate = rows.size() * 1_000_000_000.0 / elapsed[0];
+        log.info("写入完成: path={}, rows={}, elapsedMs={}, rowsPerSecond={}", name, rows.size(),
+                elapsed[0] / 1_000_000, format(rate));
+        return rate;
+    }
+
+    private void saveRowByRow(List<CollectionData> batch) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement ps = connection.prepareStatement(SAVE_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            for (CollectionData data : batch) {
+                ps.setLong(1, data.getDeviceId());
+                ps.setObject(2, data.getTaskId(), Types.BIGINT);
+                ps.setString(3, data.getMetricName());
+                ps.setString(4, data.getMetricType());
+                ps.setBigDecimal(5, data.getMetricValue());
+                ps.setString(6, data.getMetricData());
+                ps.setTimestamp(7, data.getCollectedAt());
+                ps.setObject(8, data.getQualityScore(), Types.INTEGER);
+                ps.setString(9, data.getPluginType());
+                ps.setString(10, data.getSessionId());
+                ps.setObject(11, data.getResponseTime(), Types.BIGINT);
+                ps.setObject(12, data.getStatus(), Types.INTEGER);
+                ps.setString(13, data.getErrorMessage());
+                ps.setString(14, data.getTags());
+                ps.setObject(15, data.getDataVersion(), Types.INTEGER);
+                ps.setTimestamp(16, data.getExpiresAt());
+                ps.setString(17, data.getRetentionClass());
+                ps.setTimestamp(18, now);
+                ps.setTimestamp(19, now);
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    keys.next();
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private static List<CollectionData> createRows() {
+        long now = System.currentTimeMillis();
+        List<CollectionData> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            CollectionData data = new CollectionData();
+            data.setDeviceId(1L + i % 1000);
+            data.setTaskId(1L);
+            data.setMetricName("cpu_usage");
+            data.setMetricType("gauge");
+            data.setMetricValue(BigDecimal.valueOf(i % 10000, 2));
+            data.setMetricData("{\"unit\":\"%\"}");
+            data.setCollectedAt(new Timestamp(now - i));
+            data.setQualityScore(100);
+            data.setPluginType("SNMP");
+            data.setSessionId("bulk-bench");
+            data.setResponseTime(12L);
+            data.setTags("{\"source\":\"bench\"}");
+            data.setExpiresAt(new Timestamp(now + 86_400_000L));
+            rows.add(data);
+        }
+        return rows;
+    }
+
+    private static String format(double value) {
+        return String.format("%.1f", value);
+    }
+
+    @FunctionalInterface
+    private interface BatchWriter {
+
+        void write(List<CollectionData> batch);
+    }
+}
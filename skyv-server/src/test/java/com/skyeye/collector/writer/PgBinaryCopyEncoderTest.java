@@ -0,0 +1,145 @@
+package com.skyeye.collector.writer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PgBinaryCopyEncoderTest {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+
+    private static final LocalDateTime PG_EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    @Test
+    void roundTripsAllColumnTypes() throws IOException {
+        LocalDateTime collectedAt = LocalDateTime.of(2024, 3, 5, 10, 15, 30, 123_456_000);
+        List<BigDecimal> numerics = List.of(
+                new BigDecimal("0"), new BigDecimal("12345.678"), new BigDecimal("-0.0001"),
+                new BigDecimal("100000000"), new BigDecimal("99.99000"), new BigDecimal("1E+5"),
+                new BigDecimal("-98765432109876.54321"));
+
+        PgBinaryCopyEncoder encoder = new PgBinaryCopyEncoder(256);
+        for (BigDecimal numeric : numerics) {
+            encoder.startRow(7)
+                    .writeLong(42L)
+                    .writeInt(-7)
+                    .writeBoolean(true)
+                    .writeText("cpu_usage 使用率")
+                    .writeJsonb("{\"unit\":\"%\"}")
+                    .writeTimestamp(Timestamp.valueOf(collectedAt))
+                    .writeNumeric(numeric);
+        }
+        encoder.startRow(7).writeLong(null).writeInt(null).writeBoolean(null).writeText(null)
+                .writeJsonb(null).writeTimestamp(null).writeNumeric(null);
+
+        List<List<byte[]>> rows = decode(encoder.finish());
+
+        assertThat(rows).hasSize(numerics.size() + 1);
+        for (int i = 0; i < numerics.size(); i++) {
+            List<byte[]> row = rows.get(i);
+            assertThat(ByteBuffer.wrap(row.get(0)).getLong()).isEqualTo(42L);
+            assertThat(ByteBuffer.wrap(row.get(1)).getInt()).isEqualTo(-7);
+            assertThat(row.get(2)).containsExactly(1);
+            assertThat(new String(row.get(3), StandardCharsets.UTF_8)).isEqualTo("cpu_usage 使用率");
+            assertThat(row.get(4)[0]).isEqualTo((byte) 1);
+            assertThat(new String(row.get(4), 1, row.get(4).length - 1, StandardCharsets.UTF_8))
+                    .isEqualTo("{\"unit\":\"%\"}");
+            assertThat(decodeTimestamp(row.get(5))).isEqualTo(collectedAt);
+            // numeric按数值和小数位数还原，负scale按整数写入
+            BigDecimal expected = numerics.get(i).scale() < 0 ? numerics.get(i).setScale(0) : numerics.get(i);
+            assertThat(decodeNumeric(row.get(6))).isEqualTo(expected);
+        }
+        assertThat(rows.get(numerics.size())).containsOnlyNulls();
+    }
+
+    @Test
+    void numericMatchesServerLayout() throws IOException {
+        // 12345.678 → ndigits=3, weight=1, dscale=3, digits=[1, 2345, 6780]
+        assertThat(numericFields("12345.678")).containsExactly(3, 1, 0x0000, 3, 1, 2345, 6780);
+        // -0.0001 → ndigits=1, weight=-1, 负号
+        assertThat(numericFields("-0.0001")).containsExactly(1, -1, 0x4000, 4, 1);
+        // 100000000 → 末尾的0组不写入
+        assertThat(numericFields("100000000")).containsExactly(1, 2, 0x0000, 0, 1);
+        // 0.00 → 无数字组，保留小数位数
+        assertThat(numericFields("0.00")).containsExactly(0, 0, 0x0000, 2);
+    }
+
+    @Test
+    void timestampIsMicrosecondsSincePgEpoch() throws IOException {
+        byte[] data = new PgBinaryCopyEncoder(64).startRow(1)
+                .writeTimestamp(Timestamp.valueOf(LocalDateTime.of(2000, 1, 1, 0, 0, 1))).finish();
+
+        assertThat(ByteBuffer.wrap(decode(data).get(0).get(0)).getLong()).isEqualTo(1_000_000L);
+    }
+
+    private static int[] numericFields(String value) throws IOException {
+        byte[] data = new PgBinaryCopyEncoder(64).startRow(1).writeNumeric(new BigDecimal(value)).finish();
+        ByteBuffer field = ByteBuffer.wrap(decode(data).get(0).get(0));
+        int[] fields = new int[field.remaining() / 2];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = field.getShort();
+        }
+        return fields;
+    }
+
+    /**
+     * 按COPY二进制格式解析：校验文件头，逐行读取字段，NULL字段为null
+     */
+    private static List<List<byte[]>> decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        assertThat(in.readNBytes(SIGNATURE.length)).isEqualTo(SIGNATURE);
+        assertThat(in.readInt()).isZero();
+        in.skipNBytes(in.readInt());
+
+        List<List<byte[]>> rows = new ArrayList<>();
+        short fieldCount;
+        while ((fieldCount = in.readShort()) != -1) {
+            List<byte[]> row = new ArrayList<>(fieldCount);
+            for (int i = 0; i < fieldCount; i++) {
+                int length = in.readInt();
+                row.add(length < 0 ? null : in.readNBytes(length));
+            }
+            rows.add(row);
+        }
+        assertThat(in.available()).isZero();
+        return rows;
+    }
+
+    /**
+     * 与服务端 numeric_recv 一致：值 = Σ digit[i] × 10000^(weight - i)，按dscale设置小数位数
+     */
+    private static BigDecimal decodeNumeric(byte[] bytes) {
+        ByteBuffer field = ByteBuffer.wrap(bytes);
+        int ndigits = field.getShort();
+        int weight = field.getShort();
+        int sign = field.getShort() & 0xFFFF;
+        int dscale = field.getShort();
+        assertThat(field.remaining()).isEqualTo(ndigits * 2);
+
+        BigDecimal value = BigDecimal.ZERO;
+        for (int i = 0; i < ndigits; i++) {
+            short digit = field.getShort();
+            assertThat(digit).isBetween((short) 0, (short) 9999);
+            value = value.add(BigDecimal.valueOf(digit).scaleByPowerOfTen(4 * (weight - i)));
+        }
+        value = value.setScale(dscale);
+        return sign == 0x4000 ? value.negate() : value;
+    }
+
+    private static LocalDateTime decodeTimestamp(byte[] bytes) {
+        long micros = ByteBuffer.wrap(bytes).getLong();
+        return PG_EPOCH.plusSeconds(Math.floorDiv(micros, 1_000_000L))
+                .plusNanos(Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+}
@@ -0,0 +1,94 @@
+package com.skyeye.device.cache;
+
+import com.skyeye.device.config.CredentialCacheConfig;
+import com.skyeye.device.entity.DeviceCredential;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DecryptedCredentialCacheTest {
+
+    private static final Map<String, Object> PLAIN = Map.of("community", "public");
+
+    private DecryptedCredentialCache cache;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new DecryptedCredentialCache(new CredentialCacheConfig());
+    }
+
+    @Test
+    void invalidationRecordsArePrunedWhenNoLoadIsInFlight() {
+        for (long deviceId = 1; deviceId <= 1000; deviceId++) {
+            cache.get(deviceId, "SNMP", finder(), credential -> PLAIN);
+            cache.invalidateDevice(deviceId);
+        }
+        cache.invalidateKey(7L);
+        assertThat(cache.getStatistics()).containsEntry("invalidationRecords", 1001);
+
+        cache.purgeExpired();
+
+        assertThat(cache.getStatistics()).containsEntry("invalidationRecords", 0);
+        // 清理后照常缓存
+        cache.get(1L, "SNMP", finder(), credential -> PLAIN);
+        cache.get(1L, "SNMP", finder(), credential -> PLAIN);
+        assertThat(loads.get()).isEqualTo(1001);
+    }
+
+    @Test
+    void recordIsKeptWhileAnOlderLoadIsInFlight() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Map<String, Object>> slowLoad = CompletableFuture.supplyAsync(() ->
+                cache.get(1L, "SNMP", () -> {
+                    loading.countDown();
+                    await(release);
+                    return credential();
+                }, credential -> PLAIN));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 加载期间凭据变更，清理不能删除这条记录，否则旧明文会被写入缓存
+        cache.invalidateDevice(1L);
+        cache.purgeExpired();
+        assertThat(cache.getStatistics()).containsEntry("invalidationRecords", 1);
+
+        release.countDown();
+        assertThat(slowLoad.get(5, TimeUnit.SECONDS)).isEqualTo(PLAIN);
+        cache.get(1L, "SNMP", finder(), credential -> PLAIN);
+        assertThat(loads.get()).isEqualTo(1);
+
+        cache.purgeExpired();
+        assertThat(cache.getStatistics()).containsEntry("invalidationRecords", 0);
+    }
+
+    private Supplier<DeviceCredential> finder() {
+        return () -> {
+            loads.incrementAndGet();
+            return credential();
+        };
+    }
+
+    private static DeviceCredential credential() {
+        DeviceCredential credential = new DeviceCredential();
+        credential.setEncryptionKeyId(7L);
+        return credential;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
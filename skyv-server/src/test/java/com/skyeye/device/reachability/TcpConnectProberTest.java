@@ -0,0 +1,58 @@
+package com.skyeye.device.reachability;
+
+import com.skyeye.device.config.ReachabilityConfig;
+import com.skyeye.device.reachability.TcpConnectProber.Outcome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TcpConnectProberTest {
+
+    private TcpConnectProber prober;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        prober = new TcpConnectProber(new ReachabilityConfig());
+        prober.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        prober.stop();
+    }
+
+    @Test
+    void listeningPortIsConnected() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort());
+
+            assertThat(prober.probe(address, 2000).get(5, TimeUnit.SECONDS)).isEqualTo(Outcome.CONNECTED);
+        }
+    }
+
+    @Test
+    void closedPortIsRefused() throws Exception {
+        int port;
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            port = server.getLocalPort();
+        }
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+
+        assertThat(prober.probe(address, 2000).get(5, TimeUnit.SECONDS)).isEqualTo(Outcome.REFUSED);
+        assertThat(prober.getStatistics()).containsEntry("refused", 1L).containsEntry("errors", 0L);
+    }
+
+    @Test
+    void unresolvedAddressIsUnreachable() throws Exception {
+        InetSocketAddress address = InetSocketAddress.createUnresolved("device.invalid", 80);
+
+        assertThat(prober.probe(address, 2000).get(5, TimeUnit.SECONDS)).isEqualTo(Outcome.UNREACHABLE);
+    }
+}
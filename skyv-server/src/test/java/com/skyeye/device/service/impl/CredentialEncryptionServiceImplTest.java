@@ -0,0 +1,154 @@
+package com.skyeye.device.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skyeye.common.exception.BusinessException;
+import com.skyeye.common.util.JsonUtils;
+import com.skyeye.device.config.CredentialCacheConfig;
+import com.skyeye.device.dto.EncryptedCredential;
+import com.skyeye.device.entity.EncryptionKey;
+import com.skyeye.device.repository.EncryptionKeyRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CredentialEncryptionServiceImplTest {
+
+    private static final Map<String, Object> CREDENTIAL = Map.of("username", "admin", "password", "p@ss-密码");
+
+    /**
+     * 内存中的密钥表
+     */
+    private final Map<Long, EncryptionKey> keys = new ConcurrentHashMap<>();
+
+    private EncryptionKeyRepository keyRepository;
+
+    private CredentialCacheConfig cacheConfig;
+
+    private CredentialEncryptionServiceImpl service;
+
+    @BeforeAll
+    static void initJson() {
+        new JsonUtils().setObjectMapper(new ObjectMapper());
+    }
+
+    @BeforeEach
+    void setUp() {
+        keyRepository = mock(EncryptionKeyRepository.class);
+        when(keyRepository.save(any())).thenAnswer(invocation -> {
+            EncryptionKey key = invocation.getArgument(0);
+            if (key.getId() == null) {
+                key.setId((long) keys.size() + 1);
+            }
+            keys.put(key.getId(), key);
+            return key;
+        });
+        when(keyRepository.findById(anyLong())).thenAnswer(invocation ->
+                Optional.ofNullable(keys.get(invocation.<Long>getArgument(0))));
+        when(keyRepository.findMaxKeyVersion()).thenAnswer(invocation ->
+                keys.values().stream().map(EncryptionKey::getKeyVersion).max(Integer::compare));
+
+        cacheConfig = new CredentialCacheConfig();
+        service = new CredentialEncryptionServiceImpl(keyRepository, cacheConfig);
+        ReflectionTestUtils.setField(service, "masterKey", "test-master-key");
+    }
+
+    @Test
+    void roundTripsAcrossKeyRotation() {
+        EncryptionKey oldKey = service.createNewKey("initial");
+        EncryptedCredential before = service.encrypt(CREDENTIAL, oldKey.getId());
+        assertThat(service.decrypt(before)).isEqualTo(CREDENTIAL);
+
+        EncryptionKey newKey = service.rotateKey(oldKey.getId());
+        EncryptedCredential after = service.encrypt(CREDENTIAL, newKey.getId());
+
+        // 轮换后旧密钥不能再加密，但旧密文仍可解密；新旧密文互不相同
+        assertThatThrownBy(() -> service.encrypt(CREDENTIAL, oldKey.getId()))
+                .isInstanceOf(BusinessException.class);
+        assertThat(service.decrypt(before)).isEqualTo(CREDENTIAL);
+        assertThat(service.decrypt(after)).isEqualTo(CREDENTIAL);
+        assertThat(after.getKeyId()).isEqualTo(newKey.getId());
+        assertThat(after.getEncryptedData()).isNotEqualTo(before.getEncryptedData());
+    }
+
+    @Test
+    void ciphertextIsBoundToItsKey() {
+        EncryptionKey first = service.createNewKey("first");
+        EncryptionKey second = service.createNewKey("second");
+        EncryptedCredential encrypted = service.encrypt(CREDENTIAL, first.getId());
+
+        EncryptedCredential wrongKey = EncryptedCredential.builder()
+                .encryptedData(encrypted.getEncryptedData())
+                .iv(encrypted.getIv())
+                .keyId(second.getId())
+                .build();
+        assertThatThrownBy(() -> service.decrypt(wrongKey)).isInstanceOf(BusinessException.class);
+
+        // 认证失败后池中的Cipher仍可继续使用
+        assertThat(service.decrypt(encrypted)).isEqualTo(CREDENTIAL);
+    }
+
+    @Test
+    void dataKeyIsCachedUntilTtl() {
+        EncryptionKey key = service.createNewKey("cached");
+        for (int i = 0; i < 5; i++) {
+            service.decrypt(service.encrypt(CREDENTIAL, key.getId()));
+        }
+        verify(keyRepository, times(1)).findById(key.getId());
+
+        // 库中停用密钥后，缓存过期前仍按缓存的状态处理，过期后重新加载
+        key.setStatus(2);
+        service.encrypt(CREDENTIAL, key.getId());
+        cacheConfig.setDataKeyTtlSeconds(0);
+        assertThatThrownBy(() -> service.encrypt(CREDENTIAL, key.getId()))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void concurrentUseOfBothKeysSharesCipherPool() throws Exception {
+        EncryptionKey oldKey = service.createNewKey("initial");
+        EncryptedCredential legacy = service.encrypt(CREDENTIAL, oldKey.getId());
+        EncryptionKey newKey = service.rotateKey(oldKey.getId());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                int n = i;
+                results.add(executor.submit(() -> {
+                    Map<String, Object> plain = Map.of("password", "secret-" + n);
+                    EncryptedCredential fresh = service.encrypt(plain, newKey.getId());
+                    return service.decrypt(fresh).equals(plain) && service.decrypt(legacy).equals(CREDENTIAL);
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // 池中保留的Cipher不超过上限
+        AtomicInteger pooledCiphers = (AtomicInteger) ReflectionTestUtils.getField(service, "pooledCiphers");
+        assertThat(pooledCiphers.get()).isBetween(1, 64);
+    }
+}
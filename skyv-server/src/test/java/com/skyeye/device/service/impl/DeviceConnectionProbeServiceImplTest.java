@@ -0,0 +1,90 @@
+package com.skyeye.device.service.impl;
+
+import com.skyeye.collector.engine.TaskDeviceResolver;
+import com.skyeye.collector.plugin.CollectorPlugin;
+import com.skyeye.collector.plugin.ConnectionTestResult;
+import com.skyeye.collector.registry.PluginRegistry;
+import com.skyeye.device.config.ConnectionProbeConfig;
+import com.skyeye.device.dto.ConnectionProbeRequest;
+import com.skyeye.device.entity.Device;
+import com.skyeye.device.repository.DeviceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DeviceConnectionProbeServiceImplTest {
+
+    @Test
+    void concurrentProbesSharePluginPermits() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CollectorPlugin plugin = mock(CollectorPlugin.class);
+        when(plugin.getPluginType()).thenReturn("SNMP");
+        when(plugin.getRecommendedConcurrency()).thenReturn(100);
+        when(plugin.testConnection(any(), any())).thenAnswer(invocation -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return ConnectionTestResult.success("ok", 20);
+        });
+        PluginRegistry pluginRegistry = mock(PluginRegistry.class);
+        when(pluginRegistry.getPluginsForProtocol(anyString())).thenReturn(List.of(plugin));
+
+        TaskDeviceResolver deviceResolver = mock(TaskDeviceResolver.class);
+        when(deviceResolver.loadDevices(anyCollection())).thenAnswer(invocation -> {
+            Map<Long, Device> devices = new HashMap<>();
+            for (Object id : (Iterable<?>) invocation.getArgument(0)) {
+                Device device = new Device();
+                device.setId((Long) id);
+                device.setProtocol("SNMP");
+                devices.put(device.getId(), device);
+            }
+            return devices;
+        });
+
+        ConnectionProbeConfig config = new ConnectionProbeConfig();
+        config.setMaxConcurrencyPerPlugin(4);
+        config.setProgressIntervalMs(100);
+        DeviceConnectionProbeServiceImpl service = new DeviceConnectionProbeServiceImpl(deviceResolver,
+                pluginRegistry, mock(DeviceRepository.class), config, mock(PlatformTransactionManager.class));
+
+        // 两个批量测试同时进行，合计并发不超过插件上限
+        String first = service.startProbe(request(1L, 20L)).getProbeId();
+        String second = service.startProbe(request(101L, 20L)).getProbeId();
+        awaitCompleted(service, first);
+        awaitCompleted(service, second);
+
+        assertThat(peak.get()).isLessThanOrEqualTo(4);
+        assertThat(service.getProgress(first).getSuccessCount()).isEqualTo(20);
+        assertThat(service.getProgress(second).getSuccessCount()).isEqualTo(20);
+    }
+
+    private static ConnectionProbeRequest request(long firstId, long count) {
+        ConnectionProbeRequest request = new ConnectionProbeRequest();
+        request.setDeviceIds(LongStream.range(firstId, firstId + count).boxed().toList());
+        request.setUpdateStatus(false);
+        return request;
+    }
+
+    private static void awaitCompleted(DeviceConnectionProbeServiceImpl service, String probeId)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (service.getProgress(probeId).getFinishedAt() == null && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(service.getProgress(probeId).getStatus()).isEqualTo("COMPLETED");
+    }
+}
@@ -0,0 +1,167 @@
+package com.skyeye.device.service.impl;
+
+import com.skyeye.device.cache.DecryptedCredentialCache;
+import com.skyeye.device.config.KeyRotationConfig;
+import com.skyeye.device.dto.EncryptedCredential;
+import com.skyeye.device.entity.DeviceCredential;
+import com.skyeye.device.entity.KeyRotationJob;
+import com.skyeye.device.repository.CredentialRotationBatchRepository;
+import com.skyeye.device.repository.KeyRotationJobRepository;
+import com.skyeye.device.service.CredentialEncryptionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class KeyRotationServiceImplTest {
+
+    private static final long OLD_KEY = 1L;
+    private static final long NEW_KEY = 2L;
+
+    /**
+     * 内存中的凭据：ID → 密钥ID
+     */
+    private final TreeMap<Long, Long> credentialKeys = new TreeMap<>();
+
+    private final Map<Long, KeyRotationJob> jobs = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean brokenCredential = new AtomicBoolean(true);
+
+    private KeyRotationServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        for (long id = 1; id <= 10; id++) {
+            credentialKeys.put(id, OLD_KEY);
+        }
+
+        KeyRotationJobRepository jobRepository = mock(KeyRotationJobRepository.class);
+        when(jobRepository.save(any())).thenAnswer(invocation -> {
+            KeyRotationJob job = invocation.getArgument(0);
+            if (job.getId() == null) {
+                job.setId((long) jobs.size() + 1);
+            }
+            jobs.put(job.getId(), job);
+            return job;
+        });
+        when(jobRepository.findById(anyLong())).thenAnswer(invocation ->
+                Optional.ofNullable(jobs.get(invocation.<Long>getArgument(0))));
+
+        CredentialRotationBatchRepository batchRepository = mock(CredentialRotationBatchRepository.class);
+        when(batchRepository.findPending(eq(OLD_KEY), anyLong(), anyInt())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(1);
+            int limit = invocation.getArgument(2);
+            List<DeviceCredential> chunk = new ArrayList<>();
+            for (Map.Entry<Long, Long> entry : credentialKeys.tailMap(afterId, false).entrySet()) {
+                if (entry.getValue() == OLD_KEY && chunk.size() < limit) {
+                    DeviceCredential credential = new DeviceCredential();
+                    credential.setId(entry.getKey());
+                    credential.setEncryptedData("data-" + entry.getKey());
+                    credential.setEncryptionKeyId(OLD_KEY);
+                    chunk.add(credential);
+                }
+            }
+            return chunk;
+        });
+        when(batchRepository.batchUpdate(anyList(), eq(OLD_KEY))).thenAnswer(invocation -> {
+            List<DeviceCredential> rows = invocation.getArgument(0);
+            rows.forEach(row -> credentialKeys.put(row.getId(), row.getEncryptionKeyId()));
+            return rows.size();
+        });
+
+        CredentialEncryptionService encryptionService = mock(CredentialEncryptionService.class);
+        when(encryptionService.decrypt(any())).thenAnswer(invocation -> {
+            EncryptedCredential encrypted = invocation.getArgument(0);
+            if (brokenCredential.get() && "data-4".equals(encrypted.getEncryptedData())) {
+                throw new IllegalStateException("坏数据");
+            }
+            return Map.of("password", encrypted.getEncryptedData());
+        });
+        when(encryptionService.encrypt(anyMap(), eq(NEW_KEY))).thenReturn(
+                EncryptedCredential.builder().encryptedData("new").iv("iv").keyId(NEW_KEY).build());
+
+        KeyRotationConfig config = new KeyRotationConfig();
+        config.setChunkSize(3);
+        config.setParallelism(2);
+        service = new KeyRotationServiceImpl(jobRepository, batchRepository, encryptionService,
+                mock(DecryptedCredentialCache.class), config, new NoOpTransactionManager());
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void failedCredentialsEndJobAsFailedAndResumeRetriesThem() throws Exception {
+        KeyRotationJob job = service.runRotation(OLD_KEY, NEW_KEY);
+
+        assertThat(job.getStatus()).isEqualTo(KeyRotationJob.STATUS_FAILED);
+        assertThat(job.getFailedCount()).isEqualTo(1L);
+        assertThat(job.getProcessedCount()).isEqualTo(9L);
+        assertThat(credentialKeys.get(4L)).isEqualTo(OLD_KEY);
+
+        brokenCredential.set(false);
+        service.resumeRotation(job.getId());
+        KeyRotationJob resumed = awaitFinished(job.getId());
+
+        assertThat(resumed.getStatus()).isEqualTo(KeyRotationJob.STATUS_COMPLETED);
+        assertThat(resumed.getFailedCount()).isZero();
+        assertThat(resumed.getProcessedCount()).isEqualTo(10L);
+        assertThat(credentialKeys.values()).containsOnly(NEW_KEY);
+    }
+
+    @Test
+    void jobWithoutFailuresCompletes() {
+        brokenCredential.set(false);
+
+        KeyRotationJob job = service.runRotation(OLD_KEY, NEW_KEY);
+
+        assertThat(job.getStatus()).isEqualTo(KeyRotationJob.STATUS_COMPLETED);
+        assertThat(job.getErrorMessage()).isNull();
+        assertThat(credentialKeys.values()).containsOnly(NEW_KEY);
+    }
+
+    private KeyRotationJob awaitFinished(Long jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            KeyRotationJob job = jobs.get(jobId);
+            if (!KeyRotationJob.STATUS_RUNNING.equals(job.getStatus())) {
+                return job;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("轮换任务未结束");
+    }
+
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -36,6 +36,18 @@ export function getDeviceById(id) {
   })
 }
 
+/**
+ * 获取设备各指标的最新值
+ * @param {Number} id 设备ID
+ * @returns {Promise}
+ */
+export function getDeviceLatestMetrics(id) {
+  return request({
+    url: `/api/devices/${id}/metrics/latest`,
+    method: 'get'
+  })
+}
+
 /**
  * 创建设备
  * @param {Object} data 设备数据